@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.UnknownHostException;
@@ -33,18 +34,24 @@ import java.nio.file.Files;
 import java.util.Enumeration;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.audio.AudioEngine;
 import com.shootoff.camera.Camera;
 import com.shootoff.config.Configuration;
 import com.shootoff.config.ConfigurationException;
 import com.shootoff.gui.controller.ShootOFFController;
 import com.shootoff.plugins.TextToSpeech;
+import com.shootoff.session.SessionRescorer;
+import com.shootoff.session.io.SessionIO;
 import com.shootoff.util.HardwareData;
+import com.shootoff.util.StartupTimeline;
+import com.shootoff.util.TimerPool;
 import com.shootoff.util.VersionChecker;
 import com.sun.deploy.uitoolkit.impl.fx.HostServicesFactory;
 import com.sun.javafx.application.HostServicesDelegate;
@@ -92,6 +99,12 @@ public class Main extends Application {
 	private Stage primaryStage;
 
 	private static final String VERSION_METADATA_NAME = "shootoff-version.xml";
+	private static final String VERSION_CACHE_NAME = "shootoff-version.cache";
+	private static final long VERSION_CACHE_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+	private static final int VERSION_CHECK_TIMEOUT = 5000; // ms
+	private static final long TTS_WARM_UP_DELAY = 2000; // ms
+
+	protected static final String OPENCV_PHASE = "Load OpenCV";
 	private static Optional<String> version = Optional.empty();
 
 	protected static class ResourcesInfo {
@@ -454,6 +467,8 @@ public class Main extends Application {
 
 		try {
 			connection = (HttpURLConnection) new URL(versionAddress).openConnection();
+			connection.setConnectTimeout(VERSION_CHECK_TIMEOUT);
+			connection.setReadTimeout(VERSION_CHECK_TIMEOUT);
 			stream = connection.getInputStream();
 		} catch (UnknownHostException e) {
 			logger.error("Could not connect to remote host " + e.getMessage() + " to download version metadata.", e);
@@ -486,10 +501,44 @@ public class Main extends Application {
 		return Optional.of(versionXML.toString());
 	}
 
-	public void checkVersion() {
+	/**
+	 * Get the version metadata, downloading it at most once a day. Kiosks
+	 * that start ShootOFF many times a day, or that are offline and would
+	 * wait for the connection to time out, only pay for the download once.
+	 */
+	private Optional<String> getCachedVersionXML() {
+		final File cacheFile = new File(System.getProperty("shootoff.home") + File.separator + VERSION_CACHE_NAME);
+
+		if (cacheFile.isFile() && System.currentTimeMillis() - cacheFile.lastModified() < VERSION_CACHE_MAX_AGE) {
+			try {
+				return Optional.of(new String(Files.readAllBytes(cacheFile.toPath()), "UTF-8"));
+			} catch (IOException e) {
+				logger.warn("Failed to read cached version metadata, downloading it again", e);
+			}
+		}
+
 		final Optional<String> versionXML = getVersionXML(SHOOTOFF_DOMAIN + VERSION_METADATA_NAME);
 
-		if (versionXML.isPresent()) {
+		// Cache failures too so an offline machine doesn't retry on every
+		// start
+		try {
+			Files.write(cacheFile.toPath(), versionXML.orElse("").getBytes("UTF-8"));
+		} catch (IOException e) {
+			logger.warn("Failed to cache version metadata", e);
+		}
+
+		return versionXML;
+	}
+
+	/**
+	 * Check whether a newer version of ShootOFF is available and, if so, tell
+	 * the user. This may block on the network and should not be called on the
+	 * JavaFX thread.
+	 */
+	public void checkVersion() {
+		final Optional<String> versionXML = getCachedVersionXML();
+
+		if (versionXML.isPresent() && !versionXML.get().isEmpty()) {
 			final Optional<String> stableVersion = parseField(versionXML.get(), "stableRelease", "version");
 
 			if (stableVersion.isPresent() && VersionChecker.compareVersions(stableVersion.get(), version.get()) > 0) {
@@ -502,28 +551,7 @@ public class Main extends Application {
 				else
 					link = SHOOTOFF_DOMAIN;
 
-				final Alert shootoffWelcome = new Alert(AlertType.INFORMATION);
-				shootoffWelcome.setTitle("ShootOFF Updated");
-				shootoffWelcome.setHeaderText("This version of ShootOFF is outdated!");
-				shootoffWelcome.setResizable(true);
-
-				final FlowPane fp = new FlowPane();
-				final Label lbl = new Label(
-						"The current stable release of ShootOFF is " + stableVersion.get() + ", but you are running "
-								+ version.get() + ". " + "You can download the current version of ShootOFF here:\n\n");
-
-				final Hyperlink lnk = new Hyperlink(link);
-
-				lnk.setOnAction((event) -> {
-					HostServicesDelegate hostServices = HostServicesFactory.getInstance(this);
-					hostServices.showDocument(link);
-					lnk.setVisited(true);
-				});
-
-				fp.getChildren().addAll(lbl, lnk);
-
-				shootoffWelcome.getDialogPane().contentProperty().set(fp);
-				shootoffWelcome.showAndWait();
+				Platform.runLater(() -> showOutdatedVersion(stableVersion.get(), link));
 			} else if (stableVersion.isPresent() && stableVersion.get().compareTo(version.get()) < 0) {
 				logger.warn("Future version of ShootOFF? stableVersion = {}, this.version = {}", stableVersion.get(),
 						version.get());
@@ -533,21 +561,66 @@ public class Main extends Application {
 		}
 	}
 
+	private void showOutdatedVersion(String stableVersion, String link) {
+		final Alert shootoffWelcome = new Alert(AlertType.INFORMATION);
+		shootoffWelcome.setTitle("ShootOFF Updated");
+		shootoffWelcome.setHeaderText("This version of ShootOFF is outdated!");
+		shootoffWelcome.setResizable(true);
+		if (primaryStage != null && primaryStage.isShowing()) shootoffWelcome.initOwner(primaryStage);
+
+		final FlowPane fp = new FlowPane();
+		final Label lbl = new Label("The current stable release of ShootOFF is " + stableVersion + ", but you are running "
+				+ version.get() + ". " + "You can download the current version of ShootOFF here:\n\n");
+
+		final Hyperlink lnk = new Hyperlink(link);
+
+		lnk.setOnAction((event) -> {
+			HostServicesDelegate hostServices = HostServicesFactory.getInstance(this);
+			hostServices.showDocument(link);
+			lnk.setVisited(true);
+		});
+
+		fp.getChildren().addAll(lbl, lnk);
+
+		shootoffWelcome.getDialogPane().contentProperty().set(fp);
+		shootoffWelcome.show();
+	}
+
 	public void runShootOFF() {
-		final String[] args = getParameters().getRaw().toArray(new String[getParameters().getRaw().size()]);
-		Configuration config;
-		try {
-			config = new Configuration(System.getProperty("shootoff.home") + File.separator + "shootoff.properties",
-					args);
-		} catch (IOException | ConfigurationException e) {
-			logger.error("Error fetching ShootOFF configuration to run ShootOFF", e);
+		final StartupTimeline timeline = StartupTimeline.getDefault();
+
+		// Decode every sound up front so the first hit sounds as fast as the
+		// rest
+		timeline.submit("Preload sounds", () -> AudioEngine.getDefault()
+				.preload(new File(System.getProperty("shootoff.home") + File.separator + "sounds")));
+
+		// Export sessions that were still being recorded when ShootOFF last
+		// exited without the recording being stopped
+		timeline.submit("Recover sessions",
+				() -> SessionIO.recoverSessions(new File(System.getProperty("shootoff.sessions"))));
+
+		// Cameras in the configuration are opened with OpenCV
+		if (!timeline.await(OPENCV_PHASE)) {
+			closeNoOpenCV();
 			return;
 		}
 
-		if (version.isPresent() && !config.inDebugMode() && !isJWS) checkVersion();
+		final String[] args = getParameters().getRaw().toArray(new String[getParameters().getRaw().size()]);
+		final Configuration config = timeline.time("Read configuration", () -> {
+			try {
+				return new Configuration(
+						System.getProperty("shootoff.home") + File.separator + "shootoff.properties", args);
+			} catch (IOException | ConfigurationException e) {
+				logger.error("Error fetching ShootOFF configuration to run ShootOFF", e);
+				return null;
+			}
+		});
 
-		// This initializes the TTS engine
-		TextToSpeech.say("");
+		if (config == null) return;
+
+		if (version.isPresent() && !config.inDebugMode() && !isJWS) {
+			timeline.submit("Check for updates", this::checkVersion);
+		}
 
 		if (config.isFirstRun()) {
 			config.setUseErrorReporting(showFirstRunMessage());
@@ -569,7 +642,14 @@ public class Main extends Application {
 
 		try {
 			final FXMLLoader loader = new FXMLLoader(Main.class.getResource("/com/shootoff/gui/ShootOFF.fxml"));
-			loader.load();
+			timeline.time("Load main window", () -> {
+				try {
+					loader.load();
+					return null;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
 
 			final Scene scene = new Scene(loader.getRoot());
 
@@ -580,11 +660,17 @@ public class Main extends Application {
 			primaryStage.setScene(scene);
 			final ShootOFFController controller = (ShootOFFController) loader.getController();
 			controller.init(config);
-			primaryStage.show();
-		} catch (IOException e) {
+			timeline.time("Show main window", primaryStage::show);
+		} catch (IOException | UncheckedIOException e) {
 			logger.error("Error loading ShootOFF FXML file", e);
 			return;
 		}
+
+		timeline.finish("main window shown");
+
+		// Loading the TTS engine takes a lot of CPU, so wait for the main
+		// window to settle before doing it. Speaking also loads it on demand.
+		TimerPool.schedule(TextToSpeech::init, TTS_WARM_UP_DELAY);
 	}
 
 	private void setHardwareMessage(Label hardwareMessageLabel, int cpuScore) {
@@ -617,7 +703,7 @@ public class Main extends Application {
 		final Label hardwareMessageLabel = new Label("Fetching hardware status to determine how well ShootOFF\n"
 				+ "will run on this machine. This may take a moment...");
 
-		new Thread(() -> {
+		StartupTimeline.getDefault().submit("Rate hardware", () -> {
 			final String cpuName = HardwareData.getCpuName();
 			final Optional<Integer> cpuScore = HardwareData.getCpuScore();
 			final long installedRam = HardwareData.getMegabytesOfRam();
@@ -632,7 +718,7 @@ public class Main extends Application {
 
 				Platform.runLater(() -> setHardwareMessage(hardwareMessageLabel, installedRam));
 			}
-		}).start();
+		});
 
 		final Alert shootoffWelcome = new Alert(AlertType.INFORMATION);
 		shootoffWelcome.setTitle("Welcome to ShootOFF");
@@ -669,6 +755,18 @@ public class Main extends Application {
 		Main.forceClose(-1);
 	}
 
+	// The reason loading failed was already logged by the start-up timeline
+	private static void closeNoOpenCV() {
+		final Alert openCVAlert = new Alert(AlertType.ERROR);
+		openCVAlert.setTitle("OpenCV Failed to Load");
+		openCVAlert.setHeaderText("OpenCV Could Not Be Loaded!");
+		openCVAlert.setResizable(true);
+		openCVAlert.setContentText("ShootOFF needs OpenCV to read from webcams, but its native library could not be "
+				+ "loaded. Check the log for details. Now closing...");
+		openCVAlert.showAndWait();
+		Main.forceClose(-1);
+	}
+
 	public static void closeNoV4lCompat(File v4lCompat) {
 		logger.error("This system uses Video4Linux, but v4lcompat is not preloaded. "
 				+ "Run the following command then run ShootOFF again: " + "export LD_PRELOAD=\"" + v4lCompat.getPath()
@@ -769,7 +867,16 @@ public class Main extends Application {
 			}
 		}
 
-		nu.pattern.OpenCV.loadShared();
+		// Extracting and loading the native library takes a while, so do it
+		// while JavaFX starts up
+		final StartupTimeline timeline = StartupTimeline.getDefault();
+		timeline.submit(OPENCV_PHASE, () -> {
+			nu.pattern.OpenCV.loadShared();
+
+			// The first enumeration loads the capture drivers, which is slow
+			// enough to be worth getting out of the way before it's needed
+			timeline.submit("Discover webcams", Camera::getWebcams);
+		});
 
 		// Read ShootOFF's version number
 		final Properties prop = new Properties();
@@ -781,6 +888,61 @@ public class Main extends Application {
 			logger.error("Couldn't read version properties", ioe);
 		}
 
+		if (isRescoring(args)) {
+			if (!timeline.await(OPENCV_PHASE)) {
+				logger.error("Cannot rescore sessions because OpenCV failed to load");
+				forceClose(-1);
+			}
+
+			rescoreSessions(args);
+			return;
+		}
+
 		launch(args);
 	}
+
+	private static boolean isRescoring(String[] args) {
+		for (final String arg : args) {
+			if ("-r".equals(arg) || arg.startsWith("--rescore-sessions")) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Re-score recorded sessions without starting the GUI, then exit.
+	 */
+	private static void rescoreSessions(String[] args) {
+		if (System.getProperty("shootoff.home") == null) {
+			System.setProperty("shootoff.home", System.getProperty("user.dir"));
+		}
+		System.setProperty("shootoff.sessions", System.getProperty("shootoff.home") + File.separator + "sessions");
+		System.setProperty("shootoff.courses", System.getProperty("shootoff.home") + File.separator + "courses");
+		System.setProperty("shootoff.plugins", System.getProperty("shootoff.home") + File.separator + "exercises");
+
+		final Configuration config;
+		try {
+			config = new Configuration(System.getProperty("shootoff.home") + File.separator + "shootoff.properties",
+					args);
+		} catch (IOException | ConfigurationException e) {
+			logger.error("Error fetching ShootOFF configuration to re-score sessions", e);
+			forceClose(-1);
+			return;
+		}
+
+		final File sessions = config.getRescoreSessions().get();
+		if (!sessions.exists()) {
+			logger.error("Cannot re-score {} because it does not exist", sessions.getPath());
+			forceClose(-1);
+			return;
+		}
+
+		final SessionRescorer rescorer = new SessionRescorer(config, config.isRescoreUseNativeDetector(),
+				config.getRescoreSectorStatuses(), config.getRescoreMinimumShotDimension());
+		final int rescored = rescorer.rescore(sessions);
+
+		logger.info("Re-scored {} session(s) from {}", rescored, sessions.getPath());
+
+		forceClose(rescored > 0 ? 0 : 1);
+	}
 }
\ No newline at end of file
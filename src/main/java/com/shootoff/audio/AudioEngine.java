@@ -0,0 +1,550 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.audio;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+
+/**
+ * Plays short sounds (laser sounds, steel rings, beeps, voice prompts) with as
+ * little latency as possible. Sounds are decoded once into an in memory PCM
+ * cache and played by a fixed pool of voices. Each voice owns a thread and an
+ * output line that stays open between sounds, so triggering a sound only hands
+ * a reference to an idle voice instead of reading a file, decoding it, opening
+ * a line, and starting a thread. A voice only takes sounds while it has an
+ * open line, so when the mixer has no free line sounds wait for a voice that
+ * has one instead of being dropped.
+ * 
+ * @author phrack
+ */
+public class AudioEngine implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(AudioEngine.class);
+
+	// Every sound is converted to this format if possible so that one open
+	// line can play any sound
+	protected static final AudioFormat ENGINE_FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+	private static final int VOICE_COUNT = 8;
+	private static final int LINE_BUFFER_MS = 40;
+	// How often a voice without a line tries to open one again
+	private static final long LINE_RETRY_MS = 50;
+	// Unnamed streams may be generated on the fly, so only the most recently
+	// played ones are kept
+	protected static final int STREAM_CACHE_SIZE = 32;
+
+	private static AudioEngine defaultEngine = null;
+
+	private final Map<String, PcmSound> soundCache = new ConcurrentHashMap<String, PcmSound>();
+	private final Map<String, PcmSound> streamCache = Collections
+			.synchronizedMap(new LinkedHashMap<String, PcmSound>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, PcmSound> eldest) {
+					return size() > STREAM_CACHE_SIZE;
+				}
+			});
+	private final BlockingQueue<PlayRequest> requests = new LinkedBlockingQueue<PlayRequest>();
+	private final Object voicesLock = new Object();
+	private Voice[] voices = null;
+	private volatile boolean isClosed = false;
+	private volatile boolean warnedNoLine = false;
+
+	private final AtomicInteger busyVoices = new AtomicInteger(0);
+	private final AtomicLong playedCount = new AtomicLong(0);
+	private final AtomicLong triggeredCount = new AtomicLong(0);
+	private final AtomicLong totalTriggerLatency = new AtomicLong(0);
+	private final AtomicLong maxTriggerLatency = new AtomicLong(0);
+
+	private static final class PlayRequest {
+		private final PcmSound[] sounds;
+		private final long requestedNanos = System.nanoTime();
+
+		public PlayRequest(PcmSound[] sounds) {
+			this.sounds = sounds;
+		}
+	}
+
+	public static synchronized AudioEngine getDefault() {
+		if (defaultEngine == null) defaultEngine = new AudioEngine();
+
+		return defaultEngine;
+	}
+
+	/**
+	 * Decode every wav file in a directory and its subdirectories into the
+	 * cache so that the first time each sound is played is as fast as every
+	 * other time.
+	 * 
+	 * @param soundsDirectory
+	 *            the directory to preload, typically <tt>sounds/</tt>
+	 * @return the number of sounds that were decoded
+	 */
+	public int preload(File soundsDirectory) {
+		final File[] files = soundsDirectory.listFiles();
+		if (files == null) return 0;
+
+		int loaded = 0;
+
+		for (final File file : files) {
+			if (file.isDirectory()) {
+				loaded += preload(file);
+			} else if (file.getName().toLowerCase().endsWith(".wav") && load(file).isPresent()) {
+				loaded++;
+			}
+		}
+
+		return loaded;
+	}
+
+	/**
+	 * Get a sound file's decoded samples, decoding the file the first time it
+	 * is requested.
+	 */
+	public Optional<PcmSound> load(File soundFile) {
+		final String key = soundFile.getAbsolutePath();
+
+		final PcmSound cached = soundCache.get(key);
+		if (cached != null) return Optional.of(cached);
+
+		try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(soundFile)) {
+			return Optional.of(cache(key, toPcm(soundFile.getPath(), audioInputStream)));
+		} catch (UnsupportedAudioFileException | IOException e) {
+			logger.error(String.format("Error reading sound file to play: soundFile = %s", soundFile), e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Get a sound resource's decoded samples, decoding the stream only if no
+	 * sound was cached yet under <tt>key</tt>.
+	 * 
+	 * @param key
+	 *            uniquely identifies the resource, e.g. the exercise class and
+	 *            the resource path
+	 * @param is
+	 *            the sound's data, this stream is closed by this method
+	 */
+	public Optional<PcmSound> load(String key, InputStream is) {
+		final PcmSound cached = soundCache.get(key);
+
+		if (cached != null) {
+			closeQuietly(is);
+			return Optional.of(cached);
+		}
+
+		final Optional<PcmSound> sound = decode(key, is);
+		if (sound.isPresent()) return Optional.of(cache(key, sound.get()));
+
+		return sound;
+	}
+
+	/**
+	 * Get a sound stream's decoded samples, decoding the stream only if the
+	 * same data was not decoded before. Use {@link #load(String, InputStream)}
+	 * instead when the stream has a name, this has to read the whole stream to
+	 * recognize it. Only the {@value #STREAM_CACHE_SIZE} most recently used
+	 * streams are kept decoded.
+	 * 
+	 * @param is
+	 *            the sound's data, this stream is closed by this method
+	 */
+	public Optional<PcmSound> load(InputStream is) {
+		final byte[] data;
+		try {
+			data = readFully(is);
+		} catch (IOException e) {
+			logger.error("Error reading sound stream to play", e);
+			return Optional.empty();
+		} finally {
+			closeQuietly(is);
+		}
+
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			return decode("stream", new ByteArrayInputStream(data));
+		}
+
+		final StringBuilder key = new StringBuilder("stream:");
+		for (final byte b : digest.digest(data)) {
+			key.append(String.format("%02x", b));
+		}
+
+		final PcmSound cached = streamCache.get(key.toString());
+		if (cached != null) return Optional.of(cached);
+
+		final Optional<PcmSound> sound = decode(key.toString(), new ByteArrayInputStream(data));
+		if (sound.isPresent()) streamCache.put(key.toString(), sound.get());
+
+		return sound;
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			data.write(buffer, 0, read);
+		}
+
+		return data.toByteArray();
+	}
+
+	/**
+	 * Decode a sound stream without caching it.
+	 * 
+	 * @param is
+	 *            the sound's data, this stream is closed by this method
+	 */
+	public Optional<PcmSound> decode(String name, InputStream is) {
+		final InputStream markableStream = is.markSupported() ? is : new BufferedInputStream(is);
+
+		try (AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(markableStream)) {
+			return Optional.of(toPcm(name, audioInputStream));
+		} catch (UnsupportedAudioFileException | IOException e) {
+			logger.error("Error reading sound stream to play", e);
+			return Optional.empty();
+		} finally {
+			closeQuietly(markableStream);
+		}
+	}
+
+	/**
+	 * Decode generated audio (e.g. synthesized speech) without caching it.
+	 * 
+	 * @param audio
+	 *            the sound's data, this stream is closed by this method
+	 */
+	public Optional<PcmSound> decode(String name, AudioInputStream audio) {
+		try {
+			return Optional.of(toPcm(name, audio));
+		} catch (IOException e) {
+			logger.error("Error reading generated audio to play", e);
+			return Optional.empty();
+		} finally {
+			closeQuietly(audio);
+		}
+	}
+
+	private PcmSound cache(String key, PcmSound sound) {
+		final PcmSound existing = soundCache.putIfAbsent(key, sound);
+		return existing != null ? existing : sound;
+	}
+
+	private static PcmSound toPcm(String name, AudioInputStream source) throws IOException {
+		final AudioFormat sourceFormat = source.getFormat();
+
+		AudioInputStream pcm = source;
+		if (sourceFormat.matches(ENGINE_FORMAT)) {
+			// Already in the format the voices' lines are opened with
+		} else if (AudioSystem.isConversionSupported(ENGINE_FORMAT, sourceFormat)) {
+			pcm = AudioSystem.getAudioInputStream(ENGINE_FORMAT, source);
+		} else if (!AudioFormat.Encoding.PCM_SIGNED.equals(sourceFormat.getEncoding())) {
+			// At least get PCM samples, the voice will open a line in this
+			// format to play it
+			final AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+					sourceFormat.getChannels(), true, false);
+			pcm = AudioSystem.getAudioInputStream(pcmFormat, source);
+		}
+
+		final ByteArrayOutputStream samples = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+
+		int read;
+		while ((read = pcm.read(buffer)) != -1) {
+			samples.write(buffer, 0, read);
+		}
+
+		return new PcmSound(name, pcm.getFormat(), samples.toByteArray());
+	}
+
+	private static void closeQuietly(InputStream is) {
+		try {
+			is.close();
+		} catch (IOException e) {
+			logger.trace("Error closing sound stream", e);
+		}
+	}
+
+	/**
+	 * Play a sound on the next idle voice. This method does not block.
+	 */
+	public void play(PcmSound sound) {
+		submit(new PlayRequest(new PcmSound[] { sound }));
+	}
+
+	/**
+	 * Play sounds one after the other on the same voice. This method does not
+	 * block.
+	 */
+	public void play(List<PcmSound> sounds) {
+		if (sounds.isEmpty()) return;
+
+		submit(new PlayRequest(sounds.toArray(new PcmSound[sounds.size()])));
+	}
+
+	private void submit(PlayRequest request) {
+		if (isClosed) return;
+
+		startVoices();
+		requests.offer(request);
+	}
+
+	private void startVoices() {
+		synchronized (voicesLock) {
+			if (voices != null) return;
+
+			voices = new Voice[VOICE_COUNT];
+			for (int i = 0; i < VOICE_COUNT; i++) {
+				voices[i] = new Voice();
+
+				final Thread voiceThread = new Thread(voices[i], "AudioVoice-" + i);
+				voiceThread.setDaemon(true);
+				voiceThread.setPriority(Thread.MAX_PRIORITY);
+				voiceThread.start();
+				voices[i].thread = voiceThread;
+			}
+		}
+	}
+
+	private final class Voice implements Runnable {
+		private Thread thread;
+		private SourceDataLine line;
+		private AudioFormat lineFormat;
+
+		@Override
+		public void run() {
+			// Open the line up front so the first sound doesn't pay for it,
+			// this waits until the mixer has a free line
+			openLine(ENGINE_FORMAT);
+
+			while (!isClosed) {
+				final PlayRequest request;
+				try {
+					request = requests.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+
+				busyVoices.incrementAndGet();
+				try {
+					for (int i = 0; i < request.sounds.length; i++) {
+						play(request.sounds[i], i == 0 ? request : null);
+					}
+				} finally {
+					busyVoices.decrementAndGet();
+				}
+			}
+
+			if (line != null) line.close();
+		}
+
+		private void play(PcmSound sound, PlayRequest request) {
+			if (lineFormat == null || !lineFormat.matches(sound.getFormat())) {
+				if (!openLine(sound.getFormat())) {
+					if (!isClosed) logger.error("Unable to play {}, its format is not supported", sound.getName());
+
+					// Get back a line for the usual format
+					openLine(ENGINE_FORMAT);
+					return;
+				}
+			}
+
+			final byte[] samples = sound.getSamples();
+			final int frameSize = sound.getFormat().getFrameSize();
+			final int chunk = Math.max(frameSize, (line.getBufferSize() / 2) / frameSize * frameSize);
+
+			int offset = 0;
+			while (offset < samples.length && !isClosed) {
+				final int written = line.write(samples, offset, Math.min(chunk, samples.length - offset));
+
+				if (offset == 0 && request != null) recordLatency(request);
+
+				offset += written;
+			}
+
+			// Wait for the sound to finish so this voice is only taken by
+			// the next request once it's actually free
+			line.drain();
+			playedCount.incrementAndGet();
+		}
+
+		/**
+		 * Open a line for <tt>format</tt>, waiting for the mixer to free one
+		 * if every line is in use.
+		 * 
+		 * @return <tt>false</tt> if the format can't be played or the engine
+		 *         was closed while waiting
+		 */
+		private boolean openLine(AudioFormat format) {
+			if (line != null) {
+				line.close();
+				line = null;
+				lineFormat = null;
+			}
+
+			final int bufferSize = (int) (format.getFrameRate() * LINE_BUFFER_MS / 1000) * format.getFrameSize();
+
+			while (!isClosed) {
+				try {
+					line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, format));
+					line.open(format, bufferSize);
+					line.start();
+					lineFormat = format;
+					return true;
+				} catch (LineUnavailableException e) {
+					if (line != null) line.close();
+					line = null;
+
+					if (!warnedNoLine) {
+						warnedNoLine = true;
+						logger.warn("No free audio output line for format {}, waiting for one", format);
+					}
+
+					try {
+						Thread.sleep(LINE_RETRY_MS);
+					} catch (InterruptedException ie) {
+						return false;
+					}
+				} catch (IllegalArgumentException | SecurityException e) {
+					line = null;
+					logger.error("Unable to open an audio output line for format " + format, e);
+					return false;
+				}
+			}
+
+			return false;
+		}
+	}
+
+	private void recordLatency(PlayRequest request) {
+		// The time until the first samples were handed to the line plus the
+		// time it takes the line to play them
+		final long outputLatency = TimeUnit.MILLISECONDS.toNanos(LINE_BUFFER_MS) / 2;
+		final long latency = System.nanoTime() - request.requestedNanos + outputLatency;
+
+		totalTriggerLatency.addAndGet(latency);
+		triggeredCount.incrementAndGet();
+
+		long max;
+		while (latency > (max = maxTriggerLatency.get())) {
+			if (maxTriggerLatency.compareAndSet(max, latency)) break;
+		}
+	}
+
+	public int getCachedSoundCount() {
+		return soundCache.size() + streamCache.size();
+	}
+
+	public int getBusyVoiceCount() {
+		return busyVoices.get();
+	}
+
+	/**
+	 * @return the number of sounds waiting for a voice to become free
+	 */
+	public int getQueuedCount() {
+		return requests.size();
+	}
+
+	public long getPlayedCount() {
+		return playedCount.get();
+	}
+
+	/**
+	 * @return the longest time between a sound being triggered and it
+	 *         starting to play
+	 */
+	public long getMaxTriggerLatency(TimeUnit unit) {
+		return unit.convert(maxTriggerLatency.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getAverageTriggerLatency(TimeUnit unit) {
+		final long triggered = triggeredCount.get();
+		if (triggered == 0) return 0;
+
+		return unit.convert(totalTriggerLatency.get() / triggered, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Estimate how long after {@link #play(PcmSound)} is called the sound is
+	 * actually heard. This is the measured average trigger latency once any
+	 * sound has played, otherwise it is the latency of the line's buffer.
+	 * Timers use this to line a cue up with the clock it starts or stops, e.g.
+	 * so a par time begins when the start beep is heard.
+	 */
+	public long getOutputLatency(TimeUnit unit) {
+		if (triggeredCount.get() == 0) return unit.convert(LINE_BUFFER_MS / 2, TimeUnit.MILLISECONDS);
+
+		return getAverageTriggerLatency(unit);
+	}
+
+	@Override
+	public void close() {
+		isClosed = true;
+		requests.clear();
+
+		synchronized (voicesLock) {
+			if (voices == null) return;
+
+			for (final Voice voice : voices) {
+				if (voice.thread != null) voice.thread.interrupt();
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Audio engine closed: played = {}, average latency = {} ms, max latency = {} ms",
+					getPlayedCount(), getAverageTriggerLatency(TimeUnit.MILLISECONDS),
+					getMaxTriggerLatency(TimeUnit.MILLISECONDS));
+		}
+	}
+}
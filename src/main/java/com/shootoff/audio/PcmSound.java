@@ -0,0 +1,64 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.audio;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * A sound that has already been decoded to PCM samples and is ready to be
+ * written straight to an output line.
+ * 
+ * @author phrack
+ */
+public final class PcmSound {
+	private final String name;
+	private final AudioFormat format;
+	private final byte[] samples;
+
+	public PcmSound(String name, AudioFormat format, byte[] samples) {
+		this.name = name;
+		this.format = format;
+		this.samples = samples;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	protected byte[] getSamples() {
+		return samples;
+	}
+
+	/**
+	 * @return the length of the sound in milliseconds
+	 */
+	public long getDuration() {
+		final long frames = samples.length / format.getFrameSize();
+		return (long) (frames * 1000 / format.getFrameRate());
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
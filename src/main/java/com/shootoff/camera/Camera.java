@@ -28,7 +28,9 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 
 import org.opencv.core.Core;
@@ -43,6 +45,8 @@ import org.slf4j.LoggerFactory;
 
 import com.github.sarxos.webcam.Webcam;
 import com.github.sarxos.webcam.WebcamCompositeDriver;
+import com.github.sarxos.webcam.WebcamDiscoveryEvent;
+import com.github.sarxos.webcam.WebcamDiscoveryListener;
 import com.github.sarxos.webcam.WebcamException;
 import com.github.sarxos.webcam.ds.buildin.WebcamDefaultDriver;
 import com.github.sarxos.webcam.ds.ipcam.IpCamAuth;
@@ -76,8 +80,15 @@ public class Camera {
 
 	private static final List<Camera> openCameras = Collections.synchronizedList(new ArrayList<>());
 
+	// Enumerating devices through the driver is slow, so names and indices
+	// are cached and local camera instances are reused
+	private static final CameraRegistry registry = new CameraRegistry(Camera::enumerateWebcamNames);
+	private static final Map<String, Camera> knownCameras = new ConcurrentHashMap<String, Camera>();
+	private static final Object ipcamRegistryLock = new Object();
+
 	private final VideoCapture camera;
 	private final int cameraIndex;
+	private final String name;
 	private final Webcam ipcam;
 	private final boolean isIpCam;
 
@@ -99,17 +110,43 @@ public class Camera {
 
 			knownWebcams = new ArrayList<Camera>();
 
-			for (final Webcam w : Webcam.getWebcams()) {
-				knownWebcams.add(new Camera(w.getName()));
+			final List<String> names = registry.getNames();
+			for (int i = 0; i < names.size(); i++) {
+				knownWebcams.add(new Camera(names.get(i), i));
 			}
 
 		} else {
 			isMac = false;
 			defaultWebcam = null;
 			knownWebcams = null;
+
+			Webcam.addDiscoveryListener(new WebcamDiscoveryListener() {
+				@Override
+				public void webcamFound(WebcamDiscoveryEvent event) {
+					registry.deviceFound(event.getWebcam().getName());
+				}
+
+				@Override
+				public void webcamGone(WebcamDiscoveryEvent event) {
+					final String name = event.getWebcam().getName();
+					registry.deviceGone(name);
+					knownCameras.remove(name);
+				}
+			});
 		}
 	}
 
+	private static List<String> enumerateWebcamNames() {
+		final List<Webcam> webcams = Webcam.getWebcams();
+		final List<String> names = new ArrayList<String>(webcams.size());
+
+		for (final Webcam w : webcams) {
+			names.add(w.getName());
+		}
+
+		return names;
+	}
+
 	public static Camera registerIpCamera(String cameraName, URL cameraURL, Optional<String> username,
 			Optional<String> password)
 			throws MalformedURLException, URISyntaxException, UnknownHostException, TimeoutException {
@@ -123,12 +160,12 @@ public class Camera {
 		cameraURL.toURI();
 
 		try {
-			IpCamDevice ipcam;
+			final IpCamDevice ipcam;
 			if (username.isPresent() && password.isPresent()) {
 				IpCamAuth auth = new IpCamAuth(username.get(), password.get());
-				ipcam = IpCamDeviceRegistry.register(new IpCamDevice(cameraName, cameraURL, IpCamMode.PUSH, auth));
+				ipcam = registerIpCamDevice(new IpCamDevice(cameraName, cameraURL, IpCamMode.PUSH, auth));
 			} else {
-				ipcam = IpCamDeviceRegistry.register(new IpCamDevice(cameraName, cameraURL, IpCamMode.PUSH));
+				ipcam = registerIpCamDevice(new IpCamDevice(cameraName, cameraURL, IpCamMode.PUSH));
 			}
 
 			// If a camera can't be reached, webcam capture seems to freeze
@@ -144,10 +181,12 @@ public class Camera {
 			}
 
 			if (t.isAlive()) {
-				IpCamDeviceRegistry.unregister(cameraName);
+				unregisterIpCamDevice(cameraName);
 				throw new TimeoutException();
 			}
 
+			if (!isMac) registry.deviceFound(cameraName);
+
 			return new Camera(ipcam);
 		} catch (WebcamException we) {
 			Throwable cause = we.getCause();
@@ -162,32 +201,42 @@ public class Camera {
 	}
 
 	public static boolean unregisterIpCamera(final String cameraName) {
-		return IpCamDeviceRegistry.unregister(cameraName);
+		final boolean unregistered = unregisterIpCamDevice(cameraName);
+		if (unregistered && !isMac) registry.deviceGone(cameraName);
+		return unregistered;
+	}
+
+	// IpCamDeviceRegistry keeps its devices in an unsynchronized list and
+	// rescans the driver on every change, so only one thread may change it at
+	// a time. Connecting to a camera happens outside of the lock, thus
+	// several cameras can still be connected to at once.
+	private static IpCamDevice registerIpCamDevice(IpCamDevice ipcam) {
+		synchronized (ipcamRegistryLock) {
+			return IpCamDeviceRegistry.register(ipcam);
+		}
+	}
+
+	private static boolean unregisterIpCamDevice(String cameraName) {
+		synchronized (ipcamRegistryLock) {
+			return IpCamDeviceRegistry.unregister(cameraName);
+		}
 	}
 
 	// For testing
 	protected Camera() {
 		camera = null;
 		cameraIndex = -1;
+		name = null;
 		ipcam = null;
 		isIpCam = false;
 	}
 
-	private Camera(final String cameraName) {
-		final List<Webcam> webcams = Webcam.getWebcams();
-		int cameraIndex = -1;
-
-		for (int i = 0; i < webcams.size(); i++) {
-			if (webcams.get(i).getName().equals(cameraName)) {
-				cameraIndex = i;
-				break;
-			}
-		}
-
+	private Camera(final String cameraName, final int cameraIndex) {
 		if (cameraIndex < 0) throw new IllegalArgumentException("Camera not found: " + cameraName);
 
 		camera = new VideoCapture();
 		this.cameraIndex = cameraIndex;
+		this.name = cameraName;
 		this.ipcam = null;
 		this.isIpCam = false;
 	}
@@ -195,16 +244,23 @@ public class Camera {
 	private Camera(final IpCamDevice ipcam) {
 		camera = null;
 		cameraIndex = -1;
+		name = ipcam.getName();
 		isIpCam = true;
+		this.ipcam = Webcam.getWebcamByName(ipcam.getName());
+	}
 
-		for (final Camera webcam : getWebcams()) {
-			if (webcam.getName().equals(ipcam.getName())) {
-				this.ipcam = webcam.getWebcam();
-				return;
-			}
-		}
-
-		this.ipcam = null;
+	/**
+	 * Returns the local camera instance for a device, creating it only if the
+	 * device is new or its index changed because another device was unplugged.
+	 * An open camera is always reused because it already holds its device.
+	 */
+	private static Camera getLocalCamera(final String cameraName, final int cameraIndex) {
+		final Camera known = knownCameras.get(cameraName);
+		if (known != null && (known.cameraIndex == cameraIndex || openCameras.contains(known))) return known;
+
+		final Camera c = new Camera(cameraName, cameraIndex);
+		knownCameras.put(cameraName, c);
+		return c;
 	}
 
 	protected Webcam getWebcam() {
@@ -217,14 +273,18 @@ public class Camera {
 		if (isMac) {
 			if (defaultWebcam == null) return Optional.empty();
 			
-			defaultCam = new Camera(defaultWebcam.getName());
+			defaultCam = new Camera(defaultWebcam.getName(), registry.indexOf(defaultWebcam.getName()));
 		} else {
 			final Webcam cam = Webcam.getDefault();
 
 			if (cam == null) {
 				defaultCam = null;
 			} else {
-				defaultCam = new Camera(cam.getName());
+				// The driver just enumerated to find the default, so if we
+				// don't know it yet it was plugged in since our last look
+				if (!registry.contains(cam.getName())) registry.invalidate();
+
+				defaultCam = getLocalCamera(cam.getName(), registry.indexOf(cam.getName()));
 			}
 		}
 
@@ -234,22 +294,15 @@ public class Camera {
 	public static List<Camera> getWebcams() {
 		if (isMac) return knownWebcams;
 
-		final List<Camera> webcams = new ArrayList<Camera>();
-
-		for (Webcam w : Webcam.getWebcams()) {
-			Camera c = new Camera(w.getName());
+		final List<String> names = registry.getNames();
+		final List<Camera> webcams = new ArrayList<Camera>(names.size());
 
-			// If we already have an open instance of the camera
-			// go ahead and reuse it in this list as opposed to
-			// the newly created camera
-			int i = openCameras.indexOf(c);
-			if (i >= 0) {
-				webcams.add(openCameras.get(i));
-			} else {
-				webcams.add(c);
-			}
+		for (int i = 0; i < names.size(); i++) {
+			webcams.add(getLocalCamera(names.get(i), i));
 		}
 
+		knownCameras.keySet().retainAll(names);
+
 		return webcams;
 	}
 
@@ -325,11 +378,7 @@ public class Camera {
 	}
 
 	public String getName() {
-		if (isIpCam) {
-			return ipcam.getName();
-		} else {
-			return Webcam.getWebcams().get(cameraIndex).getName();
-		}
+		return name;
 	}
 
 	public boolean isLocked() {
@@ -377,7 +426,8 @@ public class Camera {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((ipcam == null) ? 0 : ipcam.hashCode());
+		final String name = getName();
+		result = prime * result + ((name == null) ? 0 : name.hashCode());
 		return result;
 	}
 
@@ -82,6 +82,7 @@ public class CameraManager implements Closeable {
 	private long lastFrameCount = 0;
 
 	protected final ShotDetector shotDetector;
+	protected final ShotEventBus shotEventBus;
 
 	protected final Optional<Camera> webcam;
 	private final Optional<CameraErrorView> cameraErrorView;
@@ -151,26 +152,53 @@ public class CameraManager implements Closeable {
 
 		this.cameraView.setCameraManager(this);
 
+		this.shotEventBus = createShotEventBus();
+
 		initDetector(new VideoStreamer());
 
 		if (NativeShotDetector.loadNativeShotDetector()) {
 			logger.debug("Using native shot detection");
 
-			this.shotDetector = new NativeShotDetector(this, config, view);
+			this.shotDetector = new NativeShotDetector(this, config);
 		} else {
 			logger.debug("Native shot detection is not supported on this system, falling back to Java detector");
 
-			this.shotDetector = new JavaShotDetector(this, config, view);
+			this.shotDetector = new JavaShotDetector(this, config);
 		}
 	}
 
 	// For testing with videos
 	protected CameraManager(CameraView view, Configuration config) {
+		this(view, config, false);
+	}
+
+	// For processing videos without a webcam
+	protected CameraManager(CameraView view, Configuration config, boolean preferNativeDetector) {
 		this.webcam = Optional.empty();
 		this.cameraErrorView = Optional.empty();
 		this.cameraView = view;
 		this.config = config;
-		this.shotDetector = new JavaShotDetector(this, config, view);
+		this.shotEventBus = createShotEventBus();
+
+		if (preferNativeDetector && NativeShotDetector.loadNativeShotDetector()) {
+			this.shotDetector = new NativeShotDetector(this, config);
+		} else {
+			this.shotDetector = new JavaShotDetector(this, config);
+		}
+	}
+
+	private ShotEventBus createShotEventBus() {
+		final ShotEventBus bus = new ShotEventBus(getName());
+
+		// The view is always the first consumer so that exercises and other
+		// subscribers see shots after they have been scored
+		bus.subscribe((detectedShot) -> cameraView.addShot(detectedShot.getShot()));
+
+		return bus;
+	}
+
+	public ShotEventBus getShotEventBus() {
+		return shotEventBus;
 	}
 
 	public String getName() {
@@ -223,16 +251,22 @@ public class CameraManager implements Closeable {
 		feedHeight = height;
 	}
 
-	// Used by click-to-shoot and tests to inject a shot via the shot detector
+	// Used by click-to-shoot and tests to inject a shot via the shot detector.
+	// Like detected shots, the shot is handed to the shot bus and consumed
+	// asynchronously because click-to-shoot injects from the FX thread. Use
+	// the bus's flush() to wait for the shot to be consumed.
 	public void injectShot(Color color, double x, double y, boolean scaleShot) {
 		shotDetector.addShot(color, x, y, scaleShot);
 	}
 
 	public void clearShots() {
+		// Shots fired before the clear must not show up after it
+		shotEventBus.discardPending();
 		cameraView.clearShots();
 	}
 
 	public void reset() {
+		shotEventBus.discardPending();
 		shotDetector.reset();
 		cameraView.reset();
 	}
@@ -248,6 +282,9 @@ public class CameraManager implements Closeable {
 		TimerPool.cancelTimer(motionDiagnosticFuture);
 
 		if (recordingCalibratedArea) stopRecordingCalibratedArea();
+
+		shotEventBus.discardPending();
+		shotEventBus.close();
 	}
 
 	public void setStreaming(boolean isStreaming) {
@@ -0,0 +1,135 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches the names of the camera devices known to the webcam library along
+ * with their indices so that looking a device up doesn't make the driver
+ * enumerate every device again. Devices are enumerated the first time the
+ * registry is used and then only after a device was added. Removed devices
+ * are dropped from the cache without enumerating.
+ * 
+ * @author phrack
+ */
+public class CameraRegistry {
+	private final Supplier<List<String>> enumerator;
+
+	private List<String> names = Collections.emptyList();
+	private Map<String, Integer> indices = Collections.emptyMap();
+	private boolean isStale = true;
+	private long enumerationCount = 0;
+
+	/**
+	 * @param enumerator
+	 *            returns the names of every device in the order the driver
+	 *            indexes them
+	 */
+	protected CameraRegistry(Supplier<List<String>> enumerator) {
+		this.enumerator = enumerator;
+	}
+
+	/**
+	 * @return an unmodifiable list of device names ordered by device index
+	 */
+	public synchronized List<String> getNames() {
+		refreshIfStale();
+		return names;
+	}
+
+	/**
+	 * @return the device index of <tt>name</tt> or -1 if there is no such
+	 *         device
+	 */
+	public synchronized int indexOf(String name) {
+		refreshIfStale();
+
+		final Integer index = indices.get(name);
+		return index == null ? -1 : index;
+	}
+
+	public synchronized boolean contains(String name) {
+		return indexOf(name) >= 0;
+	}
+
+	/**
+	 * Notify the registry that a device was plugged in or registered. The
+	 * devices are enumerated again the next time the registry is used because
+	 * only the driver knows where the new device falls in its order.
+	 */
+	public synchronized void deviceFound(String name) {
+		if (!isStale && !indices.containsKey(name)) isStale = true;
+	}
+
+	/**
+	 * Notify the registry that a device was unplugged or unregistered. The
+	 * remaining devices keep their order, so the cache is updated in place.
+	 */
+	public synchronized void deviceGone(String name) {
+		if (isStale) return;
+
+		final Integer index = indices.get(name);
+		if (index == null) return;
+
+		final List<String> remainingNames = new ArrayList<String>(names);
+		remainingNames.remove(index.intValue());
+		setNames(remainingNames);
+	}
+
+	/**
+	 * Drop the cache so that the devices are enumerated again the next time
+	 * the registry is used.
+	 */
+	public synchronized void invalidate() {
+		isStale = true;
+	}
+
+	/**
+	 * @return how many times the driver was asked to enumerate devices
+	 */
+	public synchronized long getEnumerationCount() {
+		return enumerationCount;
+	}
+
+	private void refreshIfStale() {
+		if (!isStale) return;
+
+		setNames(enumerator.get());
+		enumerationCount++;
+		isStale = false;
+	}
+
+	private void setNames(List<String> deviceNames) {
+		final Map<String, Integer> deviceIndices = new HashMap<String, Integer>();
+
+		// If two devices share a name, the first one wins
+		for (int i = 0; i < deviceNames.size(); i++) {
+			deviceIndices.putIfAbsent(deviceNames.get(i), i);
+		}
+
+		names = Collections.unmodifiableList(new ArrayList<String>(deviceNames));
+		indices = deviceIndices;
+	}
+}
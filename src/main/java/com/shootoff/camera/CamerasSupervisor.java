@@ -27,6 +27,7 @@ import com.shootoff.config.Configuration;
 public class CamerasSupervisor {
 	private final Configuration config;
 	private final List<CameraManager> managers = new ArrayList<CameraManager>();
+	private final ShotEventMerger shotEventMerger = new ShotEventMerger();
 
 	private final AtomicBoolean allDetecting = new AtomicBoolean(true);
 
@@ -36,6 +37,7 @@ public class CamerasSupervisor {
 
 	public CameraManager addCameraManager(Camera webcam, CameraErrorView cameraErrorView, CameraView cameraView) {
 		final CameraManager manager = new CameraManager(webcam, cameraErrorView, cameraView, config);
+		manager.getShotEventBus().subscribe(shotEventMerger);
 		managers.add(manager);
 		allDetecting.set(true);
 		return manager;
@@ -47,12 +49,30 @@ public class CamerasSupervisor {
 		allDetecting.set(false);
 
 		for (final CameraManager manager : managers) {
+			manager.getShotEventBus().unsubscribe(shotEventMerger);
 			manager.close();
 		}
 
 		managers.clear();
 	}
 
+	/**
+	 * Subscribe to shots from every camera merged into one stream in the order
+	 * they were fired. Use {@link ShotEventBus#subscribe(ShotSubscriber)} on a
+	 * specific camera manager's bus to only get that camera's shots with no
+	 * reordering delay.
+	 * 
+	 * @param subscriber
+	 *            the object to notify of new shots
+	 */
+	public void addShotSubscriber(final ShotSubscriber subscriber) {
+		shotEventMerger.subscribe(subscriber);
+	}
+
+	public boolean removeShotSubscriber(final ShotSubscriber subscriber) {
+		return shotEventMerger.unsubscribe(subscriber);
+	}
+
 	public void clearShots() {
 		for (final CameraManager manager : managers) {
 			manager.clearShots();
@@ -92,6 +112,7 @@ public class CamerasSupervisor {
 			manager.close();
 		}
 
+		shotEventMerger.close();
 		allDetecting.set(false);
 	}
 
@@ -0,0 +1,72 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+/**
+ * An accepted shot as it travels through a {@link ShotEventBus}. In addition to
+ * the shot itself this records which camera detected it, the wall clock time
+ * of the frame it was detected in, and when it was handed to the bus so that
+ * consumers can be ordered across cameras and delivery latency can be
+ * measured.
+ * 
+ * @author phrack
+ */
+public final class DetectedShot {
+	private final String cameraName;
+	private final Shot shot;
+	private final long frameTimestamp;
+	private final long sequence;
+	private final long publishedNanos;
+
+	public DetectedShot(String cameraName, Shot shot, long frameTimestamp, long sequence) {
+		this.cameraName = cameraName;
+		this.shot = shot;
+		this.frameTimestamp = frameTimestamp;
+		this.sequence = sequence;
+		this.publishedNanos = System.nanoTime();
+	}
+
+	public String getCameraName() {
+		return cameraName;
+	}
+
+	public Shot getShot() {
+		return shot;
+	}
+
+	/**
+	 * @return the wall clock time in milliseconds of the frame the shot was
+	 *         detected in. Unlike {@link Shot#getTimestamp()} this is
+	 *         comparable between cameras.
+	 */
+	public long getFrameTimestamp() {
+		return frameTimestamp;
+	}
+
+	/**
+	 * @return the position of this shot in its camera's bus, starting at 1
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public long getPublishedNanos() {
+		return publishedNanos;
+	}
+}
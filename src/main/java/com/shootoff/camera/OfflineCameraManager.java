@@ -0,0 +1,214 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.camera;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.shotdetection.JavaShotDetector;
+import com.shootoff.config.Configuration;
+import com.shootoff.targets.Target;
+import com.xuggle.mediatool.IMediaReader;
+import com.xuggle.mediatool.MediaListenerAdapter;
+import com.xuggle.mediatool.ToolFactory;
+import com.xuggle.mediatool.event.IVideoPictureEvent;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+/**
+ * Runs shot detection over a recorded video as fast as it can be decoded, with
+ * no webcam or GUI, and collects the shots that are detected. Each instance
+ * has its own detector state, so separate videos can be processed on separate
+ * threads by separate instances.
+ * 
+ * @author phrack
+ */
+public class OfflineCameraManager extends CameraManager {
+	private static final Logger logger = LoggerFactory.getLogger(OfflineCameraManager.class);
+
+	private static final int SECOND_IN_MICROSECONDS = 1000 * 1000;
+
+	private static class ShotCollector implements CameraView {
+		private final List<Shot> shots = Collections.synchronizedList(new ArrayList<Shot>());
+
+		@Override
+		public boolean addChild(Node c) {
+			return false;
+		}
+
+		@Override
+		public void addShot(Shot shot) {
+			shots.add(shot);
+		}
+
+		@Override
+		public Optional<Target> addTarget(File targetFile) {
+			return Optional.empty();
+		}
+
+		@Override
+		public Target addTarget(Target newTarget) {
+			return newTarget;
+		}
+
+		@Override
+		public Label addDiagnosticMessage(String message, Color backgroundColor) {
+			return null;
+		}
+
+		@Override
+		public void clearShots() {
+			shots.clear();
+		}
+
+		@Override
+		public void close() {}
+
+		@Override
+		public boolean removeChild(Node c) {
+			return false;
+		}
+
+		@Override
+		public void removeDiagnosticMessage(Label diagnosticLabel) {}
+
+		@Override
+		public void reset() {
+			shots.clear();
+		}
+
+		@Override
+		public void setCameraManager(CameraManager cameraManager) {}
+
+		@Override
+		public void updateBackground(BufferedImage frame, Optional<Bounds> projectionBounds) {}
+	}
+
+	private final ShotCollector collector;
+	private long lastVideoTimestamp = -1;
+
+	/**
+	 * @param sectorStatuses
+	 *            which detection sectors are turned on, indexed by row then
+	 *            column, or <tt>null</tt> to detect in every sector
+	 */
+	public OfflineCameraManager(Configuration config, boolean preferNativeDetector, boolean[][] sectorStatuses,
+			Optional<Integer> minimumShotDimension) {
+		this(new ShotCollector(), config, preferNativeDetector);
+
+		final boolean[][] allSectors = new boolean[JavaShotDetector.SECTOR_ROWS][JavaShotDetector.SECTOR_COLUMNS];
+		for (boolean[] row : allSectors) {
+			Arrays.fill(row, true);
+		}
+
+		setSectorStatuses(sectorStatuses != null ? sectorStatuses : allSectors);
+		if (minimumShotDimension.isPresent()) setMinimumShotDimension(minimumShotDimension.get());
+	}
+
+	private OfflineCameraManager(ShotCollector collector, Configuration config, boolean preferNativeDetector) {
+		super(collector, config, preferNativeDetector);
+		this.collector = collector;
+	}
+
+	@Override
+	public String getName() {
+		return "OfflineCamera";
+	}
+
+	/**
+	 * Detect the shots in a video. Blocks until the whole video was processed.
+	 * 
+	 * @return the detected shots in the order they were detected
+	 */
+	public List<Shot> processVideo(File videoFile) {
+		final IMediaReader reader = ToolFactory.makeReader(videoFile.getAbsolutePath());
+		reader.setBufferedImageTypeToGenerate(BufferedImage.TYPE_3BYTE_BGR);
+		reader.addListener(new MediaListenerAdapter() {
+			@Override
+			public void onVideoPicture(IVideoPictureEvent event) {
+				processPicture(event);
+			}
+		});
+
+		logger.trace("Detecting shots in {}", videoFile.getAbsolutePath());
+
+		try {
+			while (reader.readPacket() == null) {
+				// Every packet is handled by the listener
+			}
+		} finally {
+			if (reader.isOpen()) reader.close();
+		}
+
+		// Shots are delivered to the collector on the shot event thread
+		if (!getShotEventBus().flush()) {
+			logger.warn("Timed out waiting for the shots detected in {}", videoFile.getPath());
+		}
+
+		synchronized (collector.shots) {
+			return new ArrayList<Shot>(collector.shots);
+		}
+	}
+
+	private void processPicture(IVideoPictureEvent event) {
+		final BufferedImage currentFrame = event.getImage();
+
+		// Use the video's clock so detection runs at decoding speed
+		currentFrameTimestamp = event.getTimeStamp() / 1000 + 1;
+
+		if (getFrameCount() == 0) {
+			setFeedResolution(currentFrame.getWidth(), currentFrame.getHeight());
+			shotDetector.setFrameSize(currentFrame.getWidth(), currentFrame.getHeight());
+		}
+
+		if (lastVideoTimestamp > -1 && (getFrameCount() % 30) == 0 && event.getTimeStamp() > lastVideoTimestamp) {
+			setFPS((double) SECOND_IN_MICROSECONDS / (double) (event.getTimeStamp() - lastVideoTimestamp));
+		}
+		lastVideoTimestamp = event.getTimeStamp();
+
+		processFrame(Camera.bufferedImageToMat(currentFrame));
+	}
+
+	@Override
+	public void showBrightnessWarning() {
+		logger.debug("Excessive brightness in offline video");
+	}
+
+	@Override
+	public void showMotionWarning() {
+		logger.debug("Excessive motion in offline video");
+	}
+
+	@Override
+	public void close() {
+		getShotEventBus().close();
+	}
+}
@@ -25,21 +25,24 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Ellipse;
 
 /**
- * This class encapsulates the operations to show a shot of a specific color and
- * size on a canvas.
+ * This class encapsulates the position, color, and timing of a single shot. A
+ * shot is an immutable value that is cheap to create on detection threads. It
+ * is drawn by the view that shows it, so detection threads never create scene
+ * graph nodes for it.
  * 
  * @author phrack
  */
 public class Shot {
 	private static final Logger logger = LoggerFactory.getLogger(Shot.class);
 	private final Color color;
-	private double x;
-	private double y;
+	private final double x;
+	private final double y;
 	private final long timestamp;
-
 	private final int frame;
+	private final int markerRadius;
 
-	private Ellipse marker;
+	// Only created for exercises that still use getMarker()
+	private Ellipse marker = null;
 
 	public Shot(Color color, double x, double y, long timestamp, int frame, int markerRadius) {
 		this.color = color;
@@ -47,18 +50,11 @@ public class Shot {
 		this.y = y;
 		this.timestamp = timestamp;
 		this.frame = frame;
-		this.marker = new Ellipse(x, y, markerRadius, markerRadius);
-		this.marker.setFill(color);
+		this.markerRadius = markerRadius;
 	}
 
 	public Shot(Color color, double x, double y, long timestamp, int markerRadius) {
-		this.color = color;
-		this.x = x;
-		this.y = y;
-		this.timestamp = timestamp;
-		this.marker = new Ellipse(x, y, markerRadius, markerRadius);
-		this.marker.setFill(color);
-		this.frame = 0;
+		this(color, x, y, timestamp, 0, markerRadius);
 	}
 
 	public Color getColor() {
@@ -81,11 +77,36 @@ public class Shot {
 		return frame;
 	}
 
-	public Ellipse getMarker() {
+	public int getMarkerRadius() {
+		return markerRadius;
+	}
+
+	/**
+	 * Get a node with the shot's position, size and color. The node is
+	 * created the first time this is called.
+	 * 
+	 * @deprecated Shots are drawn by the canvas they were fired on, changes to
+	 *             this node are not shown there. Use {@link #getX()},
+	 *             {@link #getY()}, {@link #getMarkerRadius()} and
+	 *             {@link #getColor()} instead.
+	 */
+	@Deprecated
+	public synchronized Ellipse getMarker() {
+		if (marker == null) {
+			marker = new Ellipse(x, y, markerRadius, markerRadius);
+			marker.setFill(color);
+		}
+
 		return marker;
 	}
 
-	public void setTranslation(int displayWidth, int displayHeight, int feedWidth, int feedHeight) {
+	/**
+	 * Get a copy of this shot with its coordinates scaled from the camera
+	 * feed's resolution to the display's resolution.
+	 * 
+	 * @return a new shot at the translated coordinates
+	 */
+	public Shot translate(int displayWidth, int displayHeight, int feedWidth, int feedHeight) {
 		final double scaleX = (double) displayWidth / (double) feedWidth;
 		final double scaleY = (double) displayHeight / (double) feedHeight;
 
@@ -93,13 +114,9 @@ public class Shot {
 		final double scaledY = y * scaleY;
 
 		if (logger.isTraceEnabled()) {
-			logger.trace("setTranslation {} {} - {} {} to {} {}", scaleX, scaleY, x, y, scaledX, scaledY);
+			logger.trace("translate {} {} - {} {} to {} {}", scaleX, scaleY, x, y, scaledX, scaledY);
 		}
 
-		marker = new Ellipse(scaledX, scaledY, marker.radiusXProperty().get(), marker.radiusYProperty().get());
-		marker.setFill(color);
-
-		x = scaledX;
-		y = scaledY;
+		return new Shot(color, scaledX, scaledY, timestamp, frame, markerRadius);
 	}
 }
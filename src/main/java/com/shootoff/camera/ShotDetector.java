@@ -18,14 +18,12 @@ public abstract class ShotDetector {
 
 	private final CameraManager cameraManager;
 	private final Configuration config;
-	private final CameraView cameraView;
 
 	private long startTime = 0;
 
-	public ShotDetector(final CameraManager cameraManager, final Configuration config, final CameraView cameraView) {
+	public ShotDetector(final CameraManager cameraManager, final Configuration config) {
 		this.cameraManager = cameraManager;
 		this.config = config;
-		this.cameraView = cameraView;
 	}
 
 	public void reset() {
@@ -64,8 +62,9 @@ public abstract class ShotDetector {
 	public abstract void setFrameSize(final int width, final int height);
 
 	/**
-	 * Alert the canvas tied to the camera the instantiation of this detector is
-	 * tied to of a new shot. This method preprocesses the shot by ensuring it
+	 * Publish a new shot to the shot event bus of the camera the instantiation
+	 * of this detector is tied to. Consumers of the shot (e.g. the canvas) run
+	 * on the bus's thread, thus this method never waits on them. This method preprocesses the shot by ensuring it
 	 * is not of an ignored color, it has the appropriate translation for
 	 * projectors if it's a shot on the arena, it has the appropriate
 	 * translation if the display resolution differs from the camera resolution,
@@ -96,7 +95,7 @@ public abstract class ShotDetector {
 
 		if (startTime == 0) startTime = cameraManager.getCurrentFrameTimestamp();
 
-		final Shot shot;
+		Shot shot;
 
 		if (scaleShot && (cameraManager.isLimitingDetectionToProjection() || cameraManager.isCroppingFeedToProjection())
 				&& cameraManager.getProjectionBounds().isPresent()) {
@@ -114,7 +113,7 @@ public abstract class ShotDetector {
 		// resolution of the display and feed differ, translate shot coordinates
 		if (scaleShot && (config.getDisplayWidth() != cameraManager.getFeedWidth()
 				|| config.getDisplayHeight() != cameraManager.getFeedHeight())) {
-			shot.setTranslation(config.getDisplayWidth(), config.getDisplayHeight(), cameraManager.getFeedWidth(),
+			shot = shot.translate(config.getDisplayWidth(), config.getDisplayHeight(), cameraManager.getFeedWidth(),
 					cameraManager.getFeedHeight());
 		}
 
@@ -127,7 +126,9 @@ public abstract class ShotDetector {
 		if (logger.isInfoEnabled()) logger.info("Suspected shot accepted: Center ({}, {}), cl {} fr {}", shot.getX(),
 				shot.getY(), shot.getColor(), cameraManager.getFrameCount());
 
-		cameraView.addShot(shot);
+		final long frameTimestamp = cameraManager.getCurrentFrameTimestamp() > 0
+				? cameraManager.getCurrentFrameTimestamp() : System.currentTimeMillis();
+		cameraManager.getShotEventBus().publish(shot, frameTimestamp);
 
 		return true;
 	}
@@ -0,0 +1,283 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * Decouples shot detection from everything that consumes shots (shot
+ * processors, hit testing, region commands, session recording, the arena and
+ * the current exercise). A detector publishes onto a lock-free queue and
+ * returns immediately; subscribers are run in publication order on a single
+ * consumer thread owned by this bus. One bus exists per camera.
+ * 
+ * @author phrack
+ */
+public class ShotEventBus implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(ShotEventBus.class);
+
+	// Depth at which we start warning that consumers can't keep up
+	protected static final int BACKLOG_WARNING_DEPTH = 16;
+	private static final long DEFAULT_FLUSH_TIMEOUT = 2000; // ms
+
+	private final String cameraName;
+	private final Queue<DetectedShot> pendingShots = new ConcurrentLinkedQueue<DetectedShot>();
+	private final List<ShotSubscriber> subscribers = new CopyOnWriteArrayList<ShotSubscriber>();
+	private final ExecutorService consumerExecutor;
+	private final AtomicBoolean isDraining = new AtomicBoolean(false);
+	private final Object deliveryLock = new Object();
+
+	private volatile Thread consumerThread;
+	private volatile boolean warnedBacklog = false;
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger peakQueueDepth = new AtomicInteger();
+	private final AtomicLong publishedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+	private final AtomicLong discardedCount = new AtomicLong();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	public ShotEventBus(String cameraName) {
+		this.cameraName = cameraName;
+		consumerExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("ShotEventBus-" + cameraName));
+	}
+
+	public String getCameraName() {
+		return cameraName;
+	}
+
+	public void subscribe(ShotSubscriber subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	public boolean unsubscribe(ShotSubscriber subscriber) {
+		return subscribers.remove(subscriber);
+	}
+
+	/**
+	 * Queue a shot for delivery to every subscriber. This never blocks the
+	 * caller, thus it is safe to call from a detector thread.
+	 * 
+	 * @param shot
+	 *            the accepted shot
+	 * @param frameTimestamp
+	 *            the wall clock time in milliseconds of the frame the shot was
+	 *            found in
+	 * @return the shot's sequence number in this bus
+	 */
+	public long publish(Shot shot, long frameTimestamp) {
+		final long sequence = publishedCount.incrementAndGet();
+		pendingShots.offer(new DetectedShot(cameraName, shot, frameTimestamp, sequence));
+
+		final int depth = queueDepth.incrementAndGet();
+
+		int peak;
+		while (depth > (peak = peakQueueDepth.get())) {
+			if (peakQueueDepth.compareAndSet(peak, depth)) break;
+		}
+
+		if (depth >= BACKLOG_WARNING_DEPTH && !warnedBacklog) {
+			warnedBacklog = true;
+			logger.warn("Shot consumers for {} are falling behind detection, {} shots are waiting", cameraName, depth);
+		}
+
+		scheduleDrain();
+
+		return sequence;
+	}
+
+	private void scheduleDrain() {
+		if (!isDraining.compareAndSet(false, true)) return;
+
+		try {
+			consumerExecutor.execute(this::drain);
+		} catch (RejectedExecutionException e) {
+			isDraining.set(false);
+			if (logger.isDebugEnabled()) logger.debug("Dropping shot for {} because its bus is closed", cameraName);
+		}
+	}
+
+	private void drain() {
+		consumerThread = Thread.currentThread();
+
+		do {
+			DetectedShot detectedShot;
+			while ((detectedShot = pendingShots.poll()) != null) {
+				if (queueDepth.decrementAndGet() == 0) warnedBacklog = false;
+				deliver(detectedShot);
+			}
+
+			isDraining.set(false);
+
+			// A publisher may have added a shot after our last poll but
+			// before we cleared the flag, in which case it did not schedule
+			// a drain and we must keep going
+		} while (!pendingShots.isEmpty() && isDraining.compareAndSet(false, true));
+
+		synchronized (deliveryLock) {
+			deliveryLock.notifyAll();
+		}
+	}
+
+	private void deliver(DetectedShot detectedShot) {
+		for (final ShotSubscriber subscriber : subscribers) {
+			try {
+				subscriber.shotDetected(detectedShot);
+			} catch (final Exception e) {
+				// A misbehaving consumer must not stop the rest from
+				// receiving shots
+				logger.error("Shot subscriber " + subscriber.getClass().getName() + " failed for camera "
+						+ cameraName, e);
+			}
+		}
+
+		final long latency = System.nanoTime() - detectedShot.getPublishedNanos();
+		totalLatencyNanos.addAndGet(latency);
+
+		long max;
+		while (latency > (max = maxLatencyNanos.get())) {
+			if (maxLatencyNanos.compareAndSet(max, latency)) break;
+		}
+
+		deliveredCount.incrementAndGet();
+	}
+
+	/**
+	 * Wait until every shot published before this call has been delivered to
+	 * all subscribers. This is meant for callers that inject shots and need
+	 * their consequences to be visible when they continue (click-to-shoot and
+	 * tests). It returns immediately if called from the consumer thread.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait in milliseconds
+	 * @return <tt>true</tt> if everything was delivered before the timeout
+	 */
+	public boolean flush(long timeout) {
+		if (Thread.currentThread() == consumerThread) return true;
+
+		final long target = publishedCount.get();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+		synchronized (deliveryLock) {
+			while (deliveredCount.get() + discardedCount.get() < target) {
+				final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0 || consumerExecutor.isShutdown()) return false;
+
+				try {
+					deliveryLock.wait(remaining);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	public boolean flush() {
+		return flush(DEFAULT_FLUSH_TIMEOUT);
+	}
+
+	/**
+	 * Drop every shot that has been published but not yet delivered. Used on
+	 * reset so that shots fired before the reset don't show up after it.
+	 * 
+	 * @return the number of shots that were dropped
+	 */
+	public int discardPending() {
+		int discarded = 0;
+
+		while (pendingShots.poll() != null) {
+			queueDepth.decrementAndGet();
+			discarded++;
+		}
+
+		if (discarded > 0) {
+			discardedCount.addAndGet(discarded);
+			if (logger.isDebugEnabled()) logger.debug("Discarded {} pending shots for {}", discarded, cameraName);
+
+			synchronized (deliveryLock) {
+				deliveryLock.notifyAll();
+			}
+		}
+
+		return discarded;
+	}
+
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	public int getPeakQueueDepth() {
+		return peakQueueDepth.get();
+	}
+
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+
+	public long getDeliveredCount() {
+		return deliveredCount.get();
+	}
+
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+
+	public long getMaxDeliveryLatency(TimeUnit unit) {
+		return unit.convert(maxLatencyNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getAverageDeliveryLatency(TimeUnit unit) {
+		final long delivered = deliveredCount.get();
+		if (delivered == 0) return 0;
+
+		return unit.convert(totalLatencyNanos.get() / delivered, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void close() {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Closing shot bus for {}: published {}, delivered {}, discarded {}, peak depth {}, "
+					+ "average latency {} us, max latency {} us", cameraName, getPublishedCount(),
+					getDeliveredCount(), getDiscardedCount(), getPeakQueueDepth(),
+					getAverageDeliveryLatency(TimeUnit.MICROSECONDS), getMaxDeliveryLatency(TimeUnit.MICROSECONDS));
+		}
+
+		consumerExecutor.shutdown();
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.camera;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * Merges the shot streams of every camera's {@link ShotEventBus} into one
+ * stream ordered by frame time. Because cameras deliver independently, a shot
+ * is held for a short reorder window before it is released so that a shot
+ * from a slower camera that was fired earlier is still delivered first.
+ * 
+ * @author phrack
+ */
+public class ShotEventMerger implements ShotSubscriber, Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(ShotEventMerger.class);
+
+	protected static final long REORDER_WINDOW = 30; // ms
+
+	private static final Comparator<DetectedShot> FRAME_ORDER = Comparator
+			.comparingLong(DetectedShot::getFrameTimestamp).thenComparingLong(DetectedShot::getSequence);
+
+	private final PriorityBlockingQueue<DetectedShot> heldShots = new PriorityBlockingQueue<DetectedShot>(11,
+			FRAME_ORDER);
+	private final List<ShotSubscriber> subscribers = new CopyOnWriteArrayList<ShotSubscriber>();
+	private final Object releaseLock = new Object();
+	private ScheduledExecutorService releaseExecutor = null;
+	private boolean isClosed = false;
+
+	public void subscribe(ShotSubscriber subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	public boolean unsubscribe(ShotSubscriber subscriber) {
+		return subscribers.remove(subscriber);
+	}
+
+	public boolean hasSubscribers() {
+		return !subscribers.isEmpty();
+	}
+
+	@Override
+	public void shotDetected(DetectedShot detectedShot) {
+		// Don't pay for ordering if nobody is listening to the merged stream
+		if (subscribers.isEmpty()) return;
+
+		heldShots.offer(detectedShot);
+
+		final long age = System.currentTimeMillis() - detectedShot.getFrameTimestamp();
+		scheduleRelease(Math.max(0, REORDER_WINDOW - age));
+	}
+
+	private void scheduleRelease(long delay) {
+		synchronized (releaseLock) {
+			if (isClosed) return;
+
+			if (releaseExecutor == null) {
+				final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+						new NamedThreadFactory("ShotEventMerger"));
+				executor.setRemoveOnCancelPolicy(true);
+				releaseExecutor = executor;
+			}
+
+			try {
+				releaseExecutor.schedule(this::release, delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				logger.debug("Shot merger is closed, not releasing shot", e);
+			}
+		}
+	}
+
+	private void release() {
+		final long releaseBefore = System.currentTimeMillis() - REORDER_WINDOW;
+
+		DetectedShot head;
+		while ((head = heldShots.peek()) != null && head.getFrameTimestamp() <= releaseBefore) {
+			// Only the release thread removes shots, so if the head changed
+			// between peek and poll it was replaced by an even older shot
+			// that is also due
+			final DetectedShot detectedShot = heldShots.poll();
+
+			for (final ShotSubscriber subscriber : subscribers) {
+				try {
+					subscriber.shotDetected(detectedShot);
+				} catch (final Exception e) {
+					logger.error("Merged shot subscriber " + subscriber.getClass().getName() + " failed", e);
+				}
+			}
+		}
+
+		// The wall clock and the scheduler's clock can disagree by a
+		// millisecond, so make sure a held shot is never stranded
+		if (head != null) {
+			scheduleRelease(Math.max(1, head.getFrameTimestamp() + REORDER_WINDOW - System.currentTimeMillis()));
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (releaseLock) {
+			isClosed = true;
+			if (releaseExecutor != null) releaseExecutor.shutdownNow();
+		}
+
+		heldShots.clear();
+	}
+}
@@ -36,7 +36,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.shootoff.camera.CameraManager;
-import com.shootoff.camera.CameraView;
 import com.shootoff.camera.ShotDetector;
 import com.shootoff.config.Configuration;
 
@@ -98,9 +97,8 @@ public final class JavaShotDetector extends ShotDetector {
 
 	final PixelClusterManager pixelClusterManager;
 
-	public JavaShotDetector(final CameraManager cameraManager, final Configuration config,
-			final CameraView cameraView) {
-		super(cameraManager, config, cameraView);
+	public JavaShotDetector(final CameraManager cameraManager, final Configuration config) {
+		super(cameraManager, config);
 
 		GlobalExecutorPool.getPool().setRejectedExecutionHandler((r, p) -> {
 			if (!p.isShutdown()) {
@@ -5,7 +5,6 @@ import java.io.File;
 import org.opencv.core.Mat;
 
 import com.shootoff.camera.CameraManager;
-import com.shootoff.camera.CameraView;
 import com.shootoff.camera.ShotDetector;
 import com.shootoff.config.Configuration;
 
@@ -37,9 +36,8 @@ public class NativeShotDetector extends ShotDetector {
 		return USE_NATIVE_DETECTION && arch.contains("64") && (os.contains("Windows") || os.contains("Linux"));
 	}
 
-	public NativeShotDetector(final CameraManager cameraManager, final Configuration config,
-			final CameraView cameraView) {
-		super(cameraManager, config, cameraView);
+	public NativeShotDetector(final CameraManager cameraManager, final Configuration config) {
+		super(cameraManager, config);
 
 		this.cameraManager = cameraManager;
 		this.config = config;
@@ -35,6 +35,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.Optional;
 import java.util.Properties;
@@ -59,10 +64,14 @@ import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.MalfunctionsProcessor;
 import com.shootoff.camera.ShotProcessor;
 import com.shootoff.camera.VirtualMagazineProcessor;
+import com.shootoff.camera.shotdetection.JavaShotDetector;
+import com.shootoff.gui.ShotLayer;
 import com.shootoff.gui.controller.VideoPlayerController;
+import com.shootoff.plugins.ExerciseWatchdog;
 import com.shootoff.plugins.TrainingExercise;
 import com.shootoff.plugins.engine.Plugin;
 import com.shootoff.session.SessionRecorder;
+import com.shootoff.util.NamedThreadFactory;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
@@ -78,12 +87,17 @@ import ch.qos.logback.core.ConsoleAppender;
  * @author phrack
  */
 public class Configuration {
+	private static final org.slf4j.Logger logger = LoggerFactory.getLogger(Configuration.class);
+
 	private static final String FIRST_RUN_PROP = "shootoff.firstrun";
 	private static final String ERROR_REPORTING_PROP = "shootoff.errorreporting";
 	private static final String IPCAMS_PROP = "shootoff.ipcams";
+	private static final int MAX_IPCAM_CONNECTIONS = 8;
 	private static final String WEBCAMS_PROP = "shootoff.webcams";
 	private static final String RECORDING_WEBCAMS_PROP = WEBCAMS_PROP + ".recording";
 	private static final String MARKER_RADIUS_PROP = "shootoff.markerradius";
+	private static final String SHOT_HISTORY_PROP = "shootoff.shots.history";
+	private static final String SHOT_FADE_TIME_PROP = "shootoff.shots.fadetime";
 	private static final String IGNORE_LASER_COLOR_PROP = "shootoff.ignorelasercolor";
 	private static final String USE_RED_LASER_SOUND_PROP = "shootoff.redlasersound.use";
 	private static final String RED_LASER_SOUND_PROP = "shootoff.redlasersound";
@@ -95,11 +109,17 @@ public class Configuration {
 	private static final String MALFUNCTIONS_PROBABILITY_PROP = "shootoff.malfunctions.probability";
 	private static final String ARENA_POSITION_X_PROP = "shootoff.arena.x";
 	private static final String ARENA_POSITION_Y_PROP = "shootoff.arena.y";
+	private static final String EXERCISE_LATENCY_BUDGET_PROP = "shootoff.exercises.latencybudget";
+	private static final String EXERCISE_BUDGET_ACTION_PROP = "shootoff.exercises.budgetaction";
 	private static final String MUTED_CHIME_MESSAGES = "shootoff.diagnosticmessages.chime.muted";
 	private static final String PERSPECTIVE_WEBCAM_DISTANCES = WEBCAMS_PROP + ".distances";
 
 	protected static final String MARKER_RADIUS_MESSAGE = "MARKER_RADIUS has an invalid value: %d. Acceptable values are "
 			+ "between 1 and 20.";
+	protected static final String SHOT_HISTORY_MESSAGE = "SHOT_HISTORY has an invalid value: %d. Acceptable values are "
+			+ "between 0 (unlimited) and 10000.";
+	protected static final String SHOT_FADE_TIME_MESSAGE = "SHOT_FADE_TIME has an invalid value: %d. Acceptable values are "
+			+ "between 0 (never fade) and 600000 ms.";
 	protected static final String LASER_COLOR_MESSAGE = "LASER_COLOR has an invalid value: %s. Acceptable values are "
 			+ "\"red\" and \"green\".";
 	protected static final String LASER_SOUND_MESSAGE = "LASER_SOUND has an invalid value: %s. Sound file must exist.";
@@ -107,6 +127,16 @@ public class Configuration {
 			+ "between 1 and 45.";
 	protected static final String INJECT_MALFUNCTIONS_MESSAGE = "INJECT_MALFUNCTIONS has an invalid value: %f. Acceptable values are "
 			+ "between 0.1 and 99.9.";
+	protected static final String EXERCISE_LATENCY_BUDGET_MESSAGE = "EXERCISE_LATENCY_BUDGET has an invalid value: %d. "
+			+ "Acceptable values are between 1 and 10000 ms.";
+	protected static final String EXERCISE_BUDGET_ACTION_MESSAGE = "EXERCISE_BUDGET_ACTION has an invalid value: %s. "
+			+ "Acceptable values are \"log\", \"warn\" and \"offload\".";
+	protected static final String RESCORE_DETECTOR_MESSAGE = "rescore-detector has an invalid value: %s. Acceptable values are "
+			+ "\"java\" and \"native\".";
+	protected static final String RESCORE_SECTORS_MESSAGE = "rescore-sectors has an invalid value: %s. It must be %d "
+			+ "characters of 0 (off) or 1 (on), one per detection sector, row by row.";
+	protected static final String RESCORE_MIN_DIMENSION_MESSAGE = "rescore-min-dimension has an invalid value: %d. "
+			+ "Acceptable values are greater than 0.";
 
 	private static final String DEFAULT_CONFIG_FILE = "shootoff.properties";
 
@@ -122,6 +152,8 @@ public class Configuration {
 	private Map<String, String> ipcamCredentials = new HashMap<>();
 	private Map<String, Camera> webcams = new HashMap<>();
 	private int markerRadius = 4;
+	private int shotHistory = ShotLayer.UNLIMITED_HISTORY;
+	private long shotFadeTime = 0;
 	private boolean ignoreLaserColor = false;
 	private String ignoreLaserColorName = "None";
 	private boolean useRedLaserSound = false;
@@ -143,6 +175,8 @@ public class Configuration {
 	private Optional<Point2D> arenaPosition = Optional.empty();
 	private Map<String, Integer> cameraDistances = new HashMap<>();
 	private Set<String> messagesChimeMuted = new HashSet<String>();
+	private final ExerciseWatchdog exerciseWatchdog = new ExerciseWatchdog();
+	private long exerciseLatencyBudget = ExerciseWatchdog.DEFAULT_LATENCY_BUDGET;
 
 	private int displayWidth = DEFAULT_DISPLAY_WIDTH;
 
@@ -150,6 +184,11 @@ public class Configuration {
 
 	private boolean debugShotsRecordToFiles = false;
 
+	private Optional<File> rescoreSessions = Optional.empty();
+	private boolean rescoreUseNativeDetector = false;
+	private boolean[][] rescoreSectorStatuses = null;
+	private Optional<Integer> rescoreMinimumShotDimension = Optional.empty();
+
 	private final Set<ShotProcessor> shotProcessors = new HashSet<ShotProcessor>();
 	private VirtualMagazineProcessor magazineProcessor = null;
 	private MalfunctionsProcessor malfunctionsProcessor = null;
@@ -238,14 +277,14 @@ public class Configuration {
 		}
 
 		if (prop.containsKey(IPCAMS_PROP)) {
+			final List<String[]> ipcamEntries = new ArrayList<String[]>();
+
 			for (String nameString : prop.getProperty(IPCAMS_PROP).split(",")) {
 				String[] names = nameString.split("\\|");
-				if (names.length == 2) {
-					registerIpCam(names[0], names[1], Optional.empty(), Optional.empty());
-				} else if (names.length > 2) {
-					registerIpCam(names[0], names[1], Optional.of(names[2]), Optional.of(names[3]));
-				}
+				if (names.length >= 2) ipcamEntries.add(names);
 			}
+
+			registerIpCams(ipcamEntries);
 		}
 
 		if (prop.containsKey(WEBCAMS_PROP)) {
@@ -285,6 +324,14 @@ public class Configuration {
 			setMarkerRadius(Integer.parseInt(prop.getProperty(MARKER_RADIUS_PROP)));
 		}
 
+		if (prop.containsKey(SHOT_HISTORY_PROP)) {
+			setShotHistory(Integer.parseInt(prop.getProperty(SHOT_HISTORY_PROP)));
+		}
+
+		if (prop.containsKey(SHOT_FADE_TIME_PROP)) {
+			setShotFadeTime(Long.parseLong(prop.getProperty(SHOT_FADE_TIME_PROP)));
+		}
+
 		if (prop.containsKey(IGNORE_LASER_COLOR_PROP)) {
 			String colorName = prop.getProperty(IGNORE_LASER_COLOR_PROP);
 
@@ -340,6 +387,14 @@ public class Configuration {
 			}
 		}
 
+		if (prop.containsKey(EXERCISE_LATENCY_BUDGET_PROP)) {
+			setExerciseLatencyBudget(Long.parseLong(prop.getProperty(EXERCISE_LATENCY_BUDGET_PROP)));
+		}
+
+		if (prop.containsKey(EXERCISE_BUDGET_ACTION_PROP)) {
+			setExerciseBudgetAction(parseBudgetAction(prop.getProperty(EXERCISE_BUDGET_ACTION_PROP)));
+		}
+
 		if (prop.containsKey(MUTED_CHIME_MESSAGES)) {
 			for (String message : prop.getProperty(MUTED_CHIME_MESSAGES).split("\\|")) {
 				muteMessageChime(message);
@@ -416,6 +471,8 @@ public class Configuration {
 		prop.setProperty(WEBCAMS_PROP, webcamList.toString());
 		prop.setProperty(RECORDING_WEBCAMS_PROP, recordingWebcamList.toString());
 		prop.setProperty(MARKER_RADIUS_PROP, String.valueOf(markerRadius));
+		prop.setProperty(SHOT_HISTORY_PROP, String.valueOf(shotHistory));
+		prop.setProperty(SHOT_FADE_TIME_PROP, String.valueOf(shotFadeTime));
 		prop.setProperty(IGNORE_LASER_COLOR_PROP, ignoreLaserColorName);
 		prop.setProperty(USE_RED_LASER_SOUND_PROP, String.valueOf(useRedLaserSound));
 		prop.setProperty(RED_LASER_SOUND_PROP, redLaserSound.getPath());
@@ -435,6 +492,8 @@ public class Configuration {
 		}
 
 		prop.setProperty(PERSPECTIVE_WEBCAM_DISTANCES, cameraDistancesList.toString());
+		prop.setProperty(EXERCISE_LATENCY_BUDGET_PROP, String.valueOf(exerciseLatencyBudget));
+		prop.setProperty(EXERCISE_BUDGET_ACTION_PROP, getExerciseBudgetAction().name().toLowerCase());
 
 		OutputStream outputStream = new FileOutputStream(configName);
 
@@ -462,6 +521,16 @@ public class Configuration {
 				"turns on the virtual magazine and sets the number rounds it holds [1,45]");
 		options.addOption("f", "use-malfunctions", true,
 				"turns on malfunctions and sets the probability of them happening");
+		options.addOption("r", "rescore-sessions", true,
+				"re-runs shot detection over the videos of a session file or of every session in a "
+						+ "directory, writes the re-scored sessions next to the originals, and exits");
+		options.addOption(null, "rescore-detector", true,
+				"sets the shot detector used to re-score sessions (java or native). Defaults to java");
+		options.addOption(null, "rescore-sectors", true,
+				"sets the detection sectors used to re-score sessions as a string of 0s and 1s, one per "
+						+ "sector, row by row. All sectors are on by default");
+		options.addOption(null, "rescore-min-dimension", true,
+				"sets the minimum shot dimension in pixels used to re-score sessions");
 
 		try {
 			CommandLineParser parser = new DefaultParser();
@@ -485,6 +554,35 @@ public class Configuration {
 				setMalfunctions(true);
 				setMalfunctionsProbability(Float.parseFloat(cmd.getOptionValue("f")));
 			}
+
+			if (cmd.hasOption("r")) rescoreSessions = Optional.of(new File(cmd.getOptionValue("r")));
+
+			if (cmd.hasOption("rescore-detector")) {
+				final String detector = cmd.getOptionValue("rescore-detector");
+
+				if ("native".equalsIgnoreCase(detector)) {
+					rescoreUseNativeDetector = true;
+				} else if ("java".equalsIgnoreCase(detector)) {
+					rescoreUseNativeDetector = false;
+				} else {
+					throw new ConfigurationException(String.format(RESCORE_DETECTOR_MESSAGE, detector));
+				}
+			}
+
+			if (cmd.hasOption("rescore-sectors")) {
+				rescoreSectorStatuses = parseSectorStatuses(cmd.getOptionValue("rescore-sectors"));
+			}
+
+			if (cmd.hasOption("rescore-min-dimension")) {
+				final int minimumShotDimension = Integer.parseInt(cmd.getOptionValue("rescore-min-dimension"));
+
+				if (minimumShotDimension < 1) {
+					throw new ConfigurationException(
+							String.format(RESCORE_MIN_DIMENSION_MESSAGE, minimumShotDimension));
+				}
+
+				rescoreMinimumShotDimension = Optional.of(minimumShotDimension);
+			}
 		} catch (ParseException e) {
 			System.err.println(e.getMessage());
 			HelpFormatter formatter = new HelpFormatter();
@@ -495,11 +593,37 @@ public class Configuration {
 		validateConfiguration();
 	}
 
+	private static boolean[][] parseSectorStatuses(String sectors) throws ConfigurationException {
+		final int sectorCount = JavaShotDetector.SECTOR_ROWS * JavaShotDetector.SECTOR_COLUMNS;
+
+		if (sectors.length() != sectorCount || !sectors.matches("[01]*")) {
+			throw new ConfigurationException(String.format(RESCORE_SECTORS_MESSAGE, sectors, sectorCount));
+		}
+
+		final boolean[][] sectorStatuses = new boolean[JavaShotDetector.SECTOR_ROWS][JavaShotDetector.SECTOR_COLUMNS];
+
+		for (int y = 0; y < JavaShotDetector.SECTOR_ROWS; y++) {
+			for (int x = 0; x < JavaShotDetector.SECTOR_COLUMNS; x++) {
+				sectorStatuses[y][x] = sectors.charAt(y * JavaShotDetector.SECTOR_COLUMNS + x) == '1';
+			}
+		}
+
+		return sectorStatuses;
+	}
+
 	protected void validateConfiguration() throws ConfigurationException {
 		if (markerRadius < 1 || markerRadius > 20) {
 			throw new ConfigurationException(String.format(MARKER_RADIUS_MESSAGE, markerRadius));
 		}
 
+		if (shotHistory < 0 || shotHistory > 10000) {
+			throw new ConfigurationException(String.format(SHOT_HISTORY_MESSAGE, shotHistory));
+		}
+
+		if (shotFadeTime < 0 || shotFadeTime > 600000) {
+			throw new ConfigurationException(String.format(SHOT_FADE_TIME_MESSAGE, shotFadeTime));
+		}
+
 		if (!redLaserSound.isAbsolute())
 			redLaserSound = new File(System.getProperty("shootoff.home") + File.separator + redLaserSound.getPath());
 
@@ -525,6 +649,10 @@ public class Configuration {
 		if (malfunctionsProbability < (float) 0.1 || malfunctionsProbability > (float) 99.9) {
 			throw new ConfigurationException(String.format(INJECT_MALFUNCTIONS_MESSAGE, malfunctionsProbability));
 		}
+
+		if (exerciseLatencyBudget < 1 || exerciseLatencyBudget > 10000) {
+			throw new ConfigurationException(String.format(EXERCISE_LATENCY_BUDGET_MESSAGE, exerciseLatencyBudget));
+		}
 	}
 
 	public int getDisplayWidth() {
@@ -577,23 +705,85 @@ public class Configuration {
 	public Optional<Camera> registerIpCam(String cameraName, String cameraURL, Optional<String> username,
 			Optional<String> password) {
 		try {
-			URL url = new URL(cameraURL);
-			Camera cam = Camera.registerIpCamera(cameraName, url, username, password);
-			ipcams.put(cameraName, url);
+			final URL url = new URL(cameraURL);
+			final Camera cam = Camera.registerIpCamera(cameraName, url, username, password);
+			addIpCam(cameraName, url, username, password);
+
+			return Optional.of(cam);
+		} catch (MalformedURLException | URISyntaxException | UnknownHostException | TimeoutException e) {
+			showIpCamError(cameraURL, e);
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * Connect to every configured IP camera at once. A camera that can't be
+	 * reached takes {@link Camera}'s whole connection timeout to fail, thus
+	 * connecting one at a time made start-up as slow as the sum of the
+	 * timeouts.
+	 */
+	private void registerIpCams(List<String[]> ipcamEntries) {
+		if (ipcamEntries.isEmpty()) return;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(ipcamEntries.size(), MAX_IPCAM_CONNECTIONS), new NamedThreadFactory("IpCamRegistration"));
+
+		try {
+			final List<Future<Camera>> connections = new ArrayList<Future<Camera>>();
 
-			if (username.isPresent() && password.isPresent()) {
-				ipcamCredentials.put(cameraName, username.get() + "|" + password.get());
+			for (final String[] names : ipcamEntries) {
+				final Optional<String> username = names.length > 2 ? Optional.of(names[2]) : Optional.empty();
+				final Optional<String> password = names.length > 2 ? Optional.of(names[3]) : Optional.empty();
+
+				connections.add(executor
+						.submit(() -> Camera.registerIpCamera(names[0], new URL(names[1]), username, password)));
 			}
 
-			return Optional.of(cam);
-		} catch (MalformedURLException | URISyntaxException ue) {
+			// Results are handled here so that the maps are only changed and
+			// errors only shown on the calling thread
+			for (int i = 0; i < connections.size(); i++) {
+				final String[] names = ipcamEntries.get(i);
+
+				try {
+					connections.get(i).get();
+					addIpCam(names[0], new URL(names[1]),
+							names.length > 2 ? Optional.of(names[2]) : Optional.empty(),
+							names.length > 2 ? Optional.of(names[3]) : Optional.empty());
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof Exception) {
+						showIpCamError(names[1], (Exception) e.getCause());
+					} else {
+						logger.error("Error registering IP camera " + names[0], e.getCause());
+					}
+				} catch (MalformedURLException e) {
+					showIpCamError(names[1], e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void addIpCam(String cameraName, URL url, Optional<String> username, Optional<String> password) {
+		ipcams.put(cameraName, url);
+
+		if (username.isPresent() && password.isPresent()) {
+			ipcamCredentials.put(cameraName, username.get() + "|" + password.get());
+		}
+	}
+
+	private void showIpCamError(String cameraURL, Exception e) {
+		if (e instanceof MalformedURLException || e instanceof URISyntaxException) {
 			Alert ipcamURLAlert = new Alert(AlertType.ERROR);
 			ipcamURLAlert.setTitle("Malformed URL");
 			ipcamURLAlert.setHeaderText("IPCam URL is Malformed!");
 			ipcamURLAlert.setResizable(true);
-			ipcamURLAlert.setContentText("IPCam URL is not valid: \n\n" + ue.getMessage());
+			ipcamURLAlert.setContentText("IPCam URL is not valid: \n\n" + e.getMessage());
 			ipcamURLAlert.showAndWait();
-		} catch (UnknownHostException uhe) {
+		} else if (e instanceof UnknownHostException) {
 			Alert ipcamHostAlert = new Alert(AlertType.ERROR);
 			ipcamHostAlert.setTitle("Unknown Host");
 			ipcamHostAlert.setHeaderText("IPCam URL Unknown!");
@@ -602,7 +792,7 @@ public class Configuration {
 					+ " cannot be resolved. Ensure the URL is correct "
 					+ "and that you are either connected to the internet or on the same network as the camera.");
 			ipcamHostAlert.showAndWait();
-		} catch (TimeoutException te) {
+		} else if (e instanceof TimeoutException) {
 			Alert ipcamTimeoutAlert = new Alert(AlertType.ERROR);
 			ipcamTimeoutAlert.setTitle("IPCam Timeout");
 			ipcamTimeoutAlert.setHeaderText("Connection to IPCam Reached Timeout!");
@@ -612,9 +802,9 @@ public class Configuration {
 					+ "-You are connected to the Internet (for external cameras)\n"
 					+ "-You are connected to the same network as the camera (for local cameras)");
 			ipcamTimeoutAlert.showAndWait();
+		} else {
+			logger.error("Error registering IP camera at " + cameraURL, e);
 		}
-
-		return Optional.empty();
 	}
 
 	public void unregisterIpCam(String cameraName) {
@@ -636,6 +826,51 @@ public class Configuration {
 		this.markerRadius = markRadius;
 	}
 
+	/**
+	 * Set the number of shots drawn on each canvas. When more shots are fired
+	 * the oldest ones are no longer drawn. Every shot is drawn unless this is
+	 * set. Session replay always draws every shot.
+	 * 
+	 * @param shotHistory
+	 *            the number of shots to draw or 0 to draw every shot
+	 */
+	public void setShotHistory(int shotHistory) {
+		this.shotHistory = shotHistory;
+	}
+
+	/**
+	 * Set how long it takes a drawn shot to fade away.
+	 * 
+	 * @param shotFadeTime
+	 *            the fade time in milliseconds or 0 if shots should not fade
+	 */
+	public void setShotFadeTime(long shotFadeTime) {
+		this.shotFadeTime = shotFadeTime;
+	}
+
+	/**
+	 * @param exerciseLatencyBudget
+	 *            how long in milliseconds an exercise may take to handle a
+	 *            shot or target update before the exercise watchdog acts
+	 */
+	public void setExerciseLatencyBudget(long exerciseLatencyBudget) {
+		this.exerciseLatencyBudget = exerciseLatencyBudget;
+		exerciseWatchdog.setLatencyBudget(exerciseLatencyBudget, TimeUnit.MILLISECONDS);
+	}
+
+	public void setExerciseBudgetAction(ExerciseWatchdog.BudgetAction budgetAction) {
+		exerciseWatchdog.setBudgetAction(budgetAction);
+	}
+
+	private static ExerciseWatchdog.BudgetAction parseBudgetAction(String budgetAction)
+			throws ConfigurationException {
+		try {
+			return ExerciseWatchdog.BudgetAction.valueOf(budgetAction.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new ConfigurationException(String.format(EXERCISE_BUDGET_ACTION_MESSAGE, budgetAction));
+		}
+	}
+
 	public void setIgnoreLaserColor(boolean ignoreLaserColor) {
 		this.ignoreLaserColor = ignoreLaserColor;
 	}
@@ -786,7 +1021,10 @@ public class Configuration {
 	}
 
 	public void setExercise(TrainingExercise exercise) {
-		if (currentExercise != null) currentExercise.destroy();
+		if (currentExercise != null) {
+			exerciseWatchdog.release(currentExercise);
+			currentExercise.destroy();
+		}
 
 		currentExercise = exercise;
 	}
@@ -823,6 +1061,29 @@ public class Configuration {
 		return markerRadius;
 	}
 
+	public int getShotHistory() {
+		return shotHistory;
+	}
+
+	public long getShotFadeTime() {
+		return shotFadeTime;
+	}
+
+	public long getExerciseLatencyBudget() {
+		return exerciseLatencyBudget;
+	}
+
+	public ExerciseWatchdog.BudgetAction getExerciseBudgetAction() {
+		return exerciseWatchdog.getBudgetAction();
+	}
+
+	/**
+	 * @return the watchdog that times the current exercise's callbacks
+	 */
+	public ExerciseWatchdog getExerciseWatchdog() {
+		return exerciseWatchdog;
+	}
+
 	public boolean ignoreLaserColor() {
 		return ignoreLaserColor;
 	}
@@ -911,6 +1172,30 @@ public class Configuration {
 		return debugShotsRecordToFiles;
 	}
 
+	/**
+	 * @return the session file or directory of sessions to re-score if
+	 *         ShootOFF was started in batch re-scoring mode
+	 */
+	public Optional<File> getRescoreSessions() {
+		return rescoreSessions;
+	}
+
+	public boolean isRescoreUseNativeDetector() {
+		return rescoreUseNativeDetector;
+	}
+
+	/**
+	 * @return the detection sectors to re-score with indexed by row then
+	 *         column, or <tt>null</tt> if every sector should be used
+	 */
+	public boolean[][] getRescoreSectorStatuses() {
+		return rescoreSectorStatuses;
+	}
+
+	public Optional<Integer> getRescoreMinimumShotDimension() {
+		return rescoreMinimumShotDimension;
+	}
+
 	public Optional<Point2D> getArenaPosition() {
 		return arenaPosition;
 	}
@@ -41,6 +41,7 @@ import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.TargetView;
 import com.shootoff.gui.controller.ProjectorArenaController;
 import com.shootoff.targets.Target;
+import com.shootoff.targets.io.TargetCache;
 import com.shootoff.targets.io.TargetIO;
 import com.shootoff.targets.io.TargetIO.TargetComponents;
 
@@ -61,6 +62,9 @@ public class XMLCourseReader {
 	}
 
 	public Optional<Course> load() {
+		// Parse the course's targets in parallel while the course is read
+		TargetCache.prewarm(readTargetFiles());
+
 		InputStream xmlInput = null;
 		try {
 			xmlInput = new FileInputStream(courseFile);
@@ -94,6 +98,23 @@ public class XMLCourseReader {
 		return Optional.empty();
 	}
 
+	private List<File> readTargetFiles() {
+		final List<File> targetFiles = new ArrayList<File>();
+
+		try (InputStream xmlInput = new FileInputStream(courseFile)) {
+			SAXParserFactory.newInstance().newSAXParser().parse(xmlInput, new DefaultHandler() {
+				@Override
+				public void startElement(String uri, String localName, String qName, Attributes attributes) {
+					if ("target".equals(qName)) targetFiles.add(new File(attributes.getValue("file")));
+				}
+			});
+		} catch (IOException | ParserConfigurationException | SAXException e) {
+			logger.debug("Error reading targets of XML course to prewarm them", e);
+		}
+
+		return targetFiles;
+	}
+
 	private class CourseXMLHandler extends DefaultHandler {
 		private Optional<LocatedImage> background = Optional.empty();
 		private final List<Target> targets = new ArrayList<Target>();
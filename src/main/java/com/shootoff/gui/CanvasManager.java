@@ -41,6 +41,8 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.audio.AudioEngine;
+import com.shootoff.audio.PcmSound;
 import com.shootoff.camera.CameraManager;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.MalfunctionsProcessor;
@@ -100,12 +102,12 @@ public class CanvasManager implements CameraView {
 	private final ObservableList<ShotEntry> shotEntries;
 	private final ImageView background = new ImageView();
 	private final List<Shot> shots;
+	private final ShotLayer shotLayer;
 	private final List<Target> targets = new ArrayList<Target>();
 
 	private ProgressIndicator progress;
 	private Optional<ContextMenu> contextMenu = Optional.empty();
 	private Optional<TargetView> selectedTarget = Optional.empty();
-	private boolean showShots = true;
 	private boolean hadMalfunction = false;
 	private boolean hadReload = false;
 
@@ -124,6 +126,7 @@ public class CanvasManager implements CameraView {
 		this.cameraName = cameraName;
 		this.shotEntries = shotEntries;
 		shots = Collections.synchronizedList(new ArrayList<Shot>());
+		shotLayer = new ShotLayer(canvasGroup, config.getShotHistory(), config.getShotFadeTime());
 
 		this.background.setOnMouseClicked((event) -> {
 			toggleTargetSelection(Optional.empty());
@@ -214,7 +217,7 @@ public class CanvasManager implements CameraView {
 			}
 		});
 
-		Platform.runLater(() -> diagnosticsVBox.getChildren().add(diagnosticLabel));
+		UiUpdateDispatcher.runLater(() -> diagnosticsVBox.getChildren().add(diagnosticLabel));
 
 		if (!config.isChimeMuted(message) && !diagnosticExecutorService.isShutdown()) {
 			@SuppressWarnings("unchecked")
@@ -238,7 +241,7 @@ public class CanvasManager implements CameraView {
 			diagnosticFutures.remove(diagnosticLabel);
 		}
 
-		Platform.runLater(() -> diagnosticsVBox.getChildren().remove(diagnosticLabel));
+		UiUpdateDispatcher.runLater(() -> diagnosticsVBox.getChildren().remove(diagnosticLabel));
 	}
 
 	public static String colorToWebCode(Color color) {
@@ -247,7 +250,7 @@ public class CanvasManager implements CameraView {
 	}
 
 	private void jdk8094135Warning() {
-		Platform.runLater(() -> {
+		UiUpdateDispatcher.runLater(() -> {
 			Alert cameraAlert = new Alert(AlertType.ERROR);
 			cameraAlert.setTitle("Internal Error");
 			cameraAlert.setHeaderText("Internal Error -- Likely Too Many false Shots");
@@ -297,30 +300,39 @@ public class CanvasManager implements CameraView {
 		else
 			lastFrameTime = System.currentTimeMillis();
 
-		Image img;
+		final Image img;
+		final double backgroundX;
+		final double backgroundY;
 		if (projectionBounds.isPresent()) {
 			Bounds translatedBounds = translateCameraToCanvas(projectionBounds.get());
-			background.setX(translatedBounds.getMinX());
-			background.setY(translatedBounds.getMinY());
+			backgroundX = translatedBounds.getMinX();
+			backgroundY = translatedBounds.getMinY();
 
 			img = SwingFXUtils.toFXImage(
 					resize(frame, (int) translatedBounds.getWidth(), (int) translatedBounds.getHeight()), null);
 		} else {
-			background.setX(0);
-			background.setY(0);
+			backgroundX = 0;
+			backgroundY = 0;
 
 			img = SwingFXUtils.toFXImage(resize(frame, (int) config.getDisplayWidth(), (int) config.getDisplayHeight()),
 					null);
 		}
 
-		Platform.runLater(() -> background.setImage(img));
+		setBackground(img, backgroundX, backgroundY);
 	}
 
 	public void updateBackground(Image img) {
 		updateCanvasGroup();
-		background.setX(0);
-		background.setY(0);
-		Platform.runLater(() -> background.setImage(img));
+		setBackground(img, 0, 0);
+	}
+
+	private void setBackground(Image img, double x, double y) {
+		// If the FX thread falls behind, only the newest frame is shown
+		UiUpdateDispatcher.runLatest(background, () -> {
+			background.setX(x);
+			background.setY(y);
+			background.setImage(img);
+		});
 	}
 
 	private void updateCanvasGroup() {
@@ -330,7 +342,7 @@ public class CanvasManager implements CameraView {
 			} else {
 				// Remove the wait spinner and replace it
 				// with the background
-				Platform.runLater(() -> canvasGroup.getChildren().set(0, background));
+				UiUpdateDispatcher.runLater(() -> canvasGroup.getChildren().set(0, background));
 			}
 		}
 	}
@@ -397,10 +409,7 @@ public class CanvasManager implements CameraView {
 	@Override
 	public void clearShots() {
 		final Runnable clearShotsAction = () -> {
-			for (Shot shot : shots) {
-				canvasGroup.getChildren().remove(shot.getMarker());
-			}
-
+			shotLayer.clear();
 			shots.clear();
 			try {
 				if (shotEntries != null) shotEntries.clear();
@@ -411,11 +420,7 @@ public class CanvasManager implements CameraView {
 			if (arenaController.isPresent()) arenaController.get().getCanvasManager().clearShots();
 		};
 
-		if (Platform.isFxApplicationThread()) {
-			clearShotsAction.run();
-		} else {
-			Platform.runLater(clearShotsAction);
-		}
+		UiUpdateDispatcher.run(clearShotsAction);
 	}
 
 	@Override
@@ -441,12 +446,7 @@ public class CanvasManager implements CameraView {
 	}
 
 	public void setShowShots(boolean showShots) {
-		if (this.showShots != showShots) {
-			for (Shot shot : shots)
-				shot.getMarker().setVisible(showShots);
-		}
-
-		this.showShots = showShots;
+		shotLayer.setVisible(showShots);
 	}
 
 	private void notifyShot(Shot shot) {
@@ -532,26 +532,14 @@ public class CanvasManager implements CameraView {
 			notifyShot(shot);
 		}
 
-		Optional<Shot> lastShot = Optional.empty();
-		if (shotEntries.size() > 0) lastShot = Optional.of(shotEntries.get(shotEntries.size() - 1).getShot());
+		final boolean entryHadMalfunction = hadMalfunction;
+		final boolean entryHadReload = hadReload;
+		hadMalfunction = false;
+		hadReload = false;
 
-		ShotEntry shotEntry;
-		if (hadMalfunction || hadReload) {
-			shotEntry = new ShotEntry(shot, lastShot, config.getShotTimerRowColor(), hadMalfunction, hadReload);
-			hadMalfunction = false;
-			hadReload = false;
-		} else {
-			shotEntry = new ShotEntry(shot, lastShot, config.getShotTimerRowColor(), false, false);
-		}
-
-		try {
-			shotEntries.add(shotEntry);
-		} catch (NullPointerException npe) {
-			logger.error("JDK 8094135 exception", npe);
-			jdk8094135Warning();
-		}
+		addShotEntry(shot, config.getShotTimerRowColor(), entryHadMalfunction, entryHadReload);
 
-		shots.add(shot);
+		addToHistory(shot);
 		drawShot(shot);
 
 		if (config.useRedLaserSound() && Color.RED.equals(shot.getColor())) {
@@ -583,12 +571,13 @@ public class CanvasManager implements CameraView {
 		}
 
 		if (currentExercise.isPresent() && !processedShot) {
-			currentExercise.get().shotListener(shot, hit);
+			recordExerciseStatistics(currentExercise.get(), shot, hit);
+			config.getExerciseWatchdog().shotListener(currentExercise.get(), shot, hit);
 		}
 	}
 
 	public boolean addArenaShot(Shot shot, Optional<String> videoString) {
-		shots.add(shot);
+		addToHistory(shot);
 		drawShot(shot);
 
 		Optional<TrainingExercise> currentExercise = config.getExercise();
@@ -598,20 +587,74 @@ public class CanvasManager implements CameraView {
 		}
 
 		if (currentExercise.isPresent()) {
-			currentExercise.get().shotListener(shot, hit);
+			recordExerciseStatistics(currentExercise.get(), shot, hit);
+			config.getExerciseWatchdog().shotListener(currentExercise.get(), shot, hit);
 			return true;
 		}
 
 		return false;
 	}
 
-	private void drawShot(Shot shot) {
-		Platform.runLater(() -> {
-			canvasGroup.getChildren().add(shot.getMarker());
-			shot.getMarker().setVisible(showShots);
+	private void recordExerciseStatistics(TrainingExercise exercise, Shot shot, Optional<Hit> hit) {
+		if (exercise instanceof TrainingExerciseBase) {
+			((TrainingExerciseBase) exercise).getExerciseStatistics().recordShot(shot, hit);
+		}
+	}
+
+	private void addShotEntry(Shot shot, Optional<Color> rowColor, boolean hadMalfunction, boolean hadReload) {
+		// The shot timer table is shared by every camera, so the entry is
+		// created in the batch that adds it to get the correct split
+		UiUpdateDispatcher.runLater(() -> {
+			if (shotEntries instanceof ShotLog) {
+				((ShotLog) shotEntries).addShot(shot, rowColor, hadMalfunction, hadReload);
+				return;
+			}
+
+			Optional<Shot> lastShot = Optional.empty();
+			if (shotEntries.size() > 0) lastShot = Optional.of(shotEntries.get(shotEntries.size() - 1).getShot());
+
+			try {
+				shotEntries.add(new ShotEntry(shot, lastShot, rowColor, hadMalfunction, hadReload));
+			} catch (NullPointerException npe) {
+				logger.error("JDK 8094135 exception", npe);
+				jdk8094135Warning();
+			}
 		});
 	}
 
+	private void addToHistory(Shot shot) {
+		final int shotHistory = config.getShotHistory();
+
+		synchronized (shots) {
+			shots.add(shot);
+
+			if (shotHistory != ShotLayer.UNLIMITED_HISTORY && shots.size() > shotHistory) {
+				shots.subList(0, shots.size() - shotHistory).clear();
+			}
+		}
+	}
+
+	private void drawShot(Shot shot) {
+		shotLayer.addShot(shot);
+	}
+
+	/**
+	 * Draw a shot on this canvas in the selection color and on top of all
+	 * other shots, or draw it normally again. Must be called on the FX thread.
+	 * 
+	 * @param shot
+	 *            a shot that was added to this canvas
+	 * @param isSelected
+	 *            <tt>true</tt> if the shot should be drawn as selected
+	 */
+	public void setShotSelected(Shot shot, boolean isSelected) {
+		if (isSelected) {
+			shotLayer.highlightShot(shot, TargetRegion.SELECTED_STROKE_COLOR);
+		} else {
+			shotLayer.unhighlightShot(shot);
+		}
+	}
+
 	protected Optional<Hit> checkHit(Shot shot, Optional<String> videoString) {
 		// Targets are in order of when they were added, thus we must search in
 		// reverse to ensure shots register for the top target when targets
@@ -660,6 +703,41 @@ public class CanvasManager implements CameraView {
 	}
 
 	private void executeRegionCommands(Hit hit) {
+		if (!(hit.getTarget() instanceof TargetView)) {
+			executeRegionCommandTag(hit);
+			return;
+		}
+
+		final TargetView target = (TargetView) hit.getTarget();
+		final List<RegionCommand> commands = target.getRegionCommands(hit.getHitRegion());
+
+		// Indexed loop to avoid allocating an iterator on every hit
+		for (int i = 0; i < commands.size(); i++) {
+			final RegionCommand command = commands.get(i);
+
+			switch (command.getType()) {
+			case RESET:
+				resetter.reset();
+				break;
+
+			case ANIMATE:
+				target.animate(command.getAnimatedRegion().get(), command.resetAfterAnimation());
+				break;
+
+			case REVERSE:
+				target.reverseAnimation(hit.getHitRegion());
+				break;
+
+			case PLAY_SOUND:
+				command.playSound(config);
+				break;
+			}
+		}
+	}
+
+	// For targets that aren't TargetViews and thus don't have compiled
+	// commands
+	private void executeRegionCommandTag(Hit hit) {
 		TargetView.parseCommandTag(hit.getHitRegion(), (commands, commandName, args) -> {
 			switch (commandName) {
 			case "reset":
@@ -692,8 +770,16 @@ public class CanvasManager implements CameraView {
 				// a modular exercise
 				String soundPath = args.get(0);
 				if (config.getExercise().isPresent() && '@' == soundPath.charAt(0)) {
-					InputStream is = config.getExercise().get().getClass().getResourceAsStream(soundPath.substring(1));
-					TrainingExerciseBase.playSound(new BufferedInputStream(is));
+					final Class<?> exerciseClass = config.getExercise().get().getClass();
+					final InputStream is = exerciseClass.getResourceAsStream(soundPath.substring(1));
+					if (is == null) {
+						logger.error("Exercise {} does not contain sound {}", exerciseClass.getName(), soundPath);
+						break;
+					}
+
+					final Optional<PcmSound> sound = AudioEngine.getDefault().load(exerciseClass.getName() + soundPath,
+							new BufferedInputStream(is));
+					if (sound.isPresent()) TrainingExerciseBase.playSound(sound.get());
 				} else if ('@' != soundPath.charAt(0)) {
 					TrainingExerciseBase.playSound(soundPath);
 				} else {
@@ -759,17 +845,14 @@ public class CanvasManager implements CameraView {
 	public Target addTarget(Target newTarget) {
 		final Runnable addTargetAction = () -> canvasGroup.getChildren().add(((TargetView) newTarget).getTargetGroup());
 
-		if (Platform.isFxApplicationThread()) {
-			addTargetAction.run();
-		} else {
-			Platform.runLater(addTargetAction);
-		}
+		UiUpdateDispatcher.run(addTargetAction);
 
 		targets.add(newTarget);
 
 		Optional<TrainingExercise> enabledExercise = config.getExercise();
 		if (enabledExercise.isPresent())
-			enabledExercise.get().targetUpdate(newTarget, TrainingExercise.TargetChange.ADDED);
+			config.getExerciseWatchdog().targetUpdate(enabledExercise.get(), newTarget,
+					TrainingExercise.TargetChange.ADDED);
 
 		return newTarget;
 	}
@@ -778,11 +861,7 @@ public class CanvasManager implements CameraView {
 		final Runnable removeTargetAction = () -> canvasGroup.getChildren()
 				.remove(((TargetView) target).getTargetGroup());
 
-		if (Platform.isFxApplicationThread()) {
-			removeTargetAction.run();
-		} else {
-			Platform.runLater(removeTargetAction);
-		}
+		UiUpdateDispatcher.run(removeTargetAction);
 
 		if (config.getSessionRecorder().isPresent()) {
 			config.getSessionRecorder().get().recordTargetRemoved(cameraName, target);
@@ -792,7 +871,8 @@ public class CanvasManager implements CameraView {
 
 		Optional<TrainingExercise> enabledExercise = config.getExercise();
 		if (enabledExercise.isPresent())
-			enabledExercise.get().targetUpdate(target, TrainingExercise.TargetChange.REMOVED);
+			config.getExerciseWatchdog().targetUpdate(enabledExercise.get(), target,
+					TrainingExercise.TargetChange.REMOVED);
 	}
 
 	public void clearTargets() {
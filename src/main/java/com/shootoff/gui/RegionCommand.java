@@ -0,0 +1,274 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.audio.AudioEngine;
+import com.shootoff.audio.PcmSound;
+import com.shootoff.config.Configuration;
+import com.shootoff.plugins.TrainingExercise;
+import com.shootoff.plugins.TrainingExerciseBase;
+import com.shootoff.targets.ImageRegion;
+import com.shootoff.targets.RegionType;
+import com.shootoff.targets.TargetRegion;
+
+/**
+ * A single command from a region's <tt>command</tt> tag that was compiled when
+ * its target was loaded. Named regions are resolved to the regions themselves
+ * and sounds are decoded ahead of time so that running the command when the
+ * region is hit doesn't parse strings, search the target, or touch the disk.
+ * 
+ * @author phrack
+ */
+public class RegionCommand {
+	private static final Logger logger = LoggerFactory.getLogger(RegionCommand.class);
+
+	public enum Type {
+		RESET, ANIMATE, REVERSE, PLAY_SOUND
+	}
+
+	private final Type type;
+	private final List<String> args;
+
+	// Animate
+	private final Optional<ImageRegion> animatedRegion;
+	private final boolean resetAfterAnimation;
+
+	// Play sound
+	private final String soundPath;
+	private final Optional<TargetRegion> soundCondition;
+	private volatile PcmSound sound;
+
+	private RegionCommand(Type type, List<String> args, Optional<ImageRegion> animatedRegion,
+			boolean resetAfterAnimation, String soundPath, Optional<TargetRegion> soundCondition, PcmSound sound) {
+		this.type = type;
+		this.args = args;
+		this.animatedRegion = animatedRegion;
+		this.resetAfterAnimation = resetAfterAnimation;
+		this.soundPath = soundPath;
+		this.soundCondition = soundCondition;
+		this.sound = sound;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the command's arguments exactly as they appear in the tag
+	 */
+	public List<String> getArgs() {
+		return args;
+	}
+
+	/**
+	 * @return the image region an animate command animates, empty if the
+	 *         command isn't an animate command
+	 */
+	public Optional<ImageRegion> getAnimatedRegion() {
+		return animatedRegion;
+	}
+
+	public boolean resetAfterAnimation() {
+		return resetAfterAnimation;
+	}
+
+	/**
+	 * Play the sound for a play_sound command unless the command's condition
+	 * region has already fallen.
+	 * 
+	 * @param config
+	 *            used to find the current exercise if the sound is a resource
+	 *            in an exercise that wasn't loaded when the target was
+	 */
+	public void playSound(Configuration config) {
+		if (type != Type.PLAY_SOUND) return;
+
+		// If the condition is an image region that is down don't play the
+		// sound
+		if (soundCondition.isPresent() && soundCondition.get().getType() == RegionType.IMAGE
+				&& !((ImageRegion) soundCondition.get()).onFirstFrame()) {
+			return;
+		}
+
+		PcmSound preloaded = sound;
+
+		if (preloaded == null && isExerciseResource(soundPath)) {
+			if (!config.getExercise().isPresent()) {
+				logger.error("Can't play {} because it is a resource in an exercise but no exercise is loaded.",
+						soundPath);
+				return;
+			}
+
+			preloaded = loadExerciseSound(config.getExercise().get(), soundPath);
+			sound = preloaded;
+		}
+
+		if (preloaded != null) {
+			TrainingExerciseBase.playSound(preloaded);
+		} else if (!isExerciseResource(soundPath)) {
+			// Let the normal path report why the file can't be played
+			TrainingExerciseBase.playSound(soundPath);
+		}
+	}
+
+	/**
+	 * Compile the <tt>command</tt> tag of a region.
+	 * 
+	 * @param region
+	 *            the region whose command tag will be compiled
+	 * @param targetRegions
+	 *            every region in the region's target, used to resolve region
+	 *            names
+	 * @param config
+	 *            used to find the current exercise for sounds that are
+	 *            exercise resources, if available
+	 * @return the region's commands in the order they appear in the tag
+	 */
+	public static List<RegionCommand> compile(TargetRegion region, List<TargetRegion> targetRegions,
+			Optional<Configuration> config) {
+		if (!region.tagExists("command")) return Collections.emptyList();
+
+		final List<RegionCommand> compiled = new ArrayList<RegionCommand>();
+
+		TargetView.parseCommandTag(region, (commands, commandName, args) -> {
+			final List<String> fixedArgs = Collections.unmodifiableList(new ArrayList<String>(args));
+
+			switch (commandName) {
+			case "reset":
+				compiled.add(new RegionCommand(Type.RESET, fixedArgs, Optional.empty(), false, null, Optional.empty(),
+						null));
+				break;
+
+			case "animate":
+				compileAnimate(region, targetRegions, fixedArgs).ifPresent(compiled::add);
+				break;
+
+			case "reverse":
+				compiled.add(new RegionCommand(Type.REVERSE, fixedArgs, Optional.empty(), false, null,
+						Optional.empty(), null));
+				break;
+
+			case "play_sound":
+				if (fixedArgs.isEmpty() || fixedArgs.get(0).isEmpty()) {
+					logger.error("play_sound command without a sound in region tags {}", region.getAllTags());
+					break;
+				}
+
+				final String soundPath = fixedArgs.get(0);
+
+				Optional<TargetRegion> condition = Optional.empty();
+				if (fixedArgs.size() == 2) condition = findRegionByName(targetRegions, fixedArgs.get(1));
+
+				PcmSound sound = null;
+				if (!isExerciseResource(soundPath)) {
+					sound = loadSoundFile(soundPath);
+				} else if (config.isPresent() && config.get().getExercise().isPresent()) {
+					sound = loadExerciseSound(config.get().getExercise().get(), soundPath);
+				}
+
+				compiled.add(new RegionCommand(Type.PLAY_SOUND, fixedArgs, Optional.empty(), false, soundPath,
+						condition, sound));
+				break;
+
+			default:
+				logger.warn("Ignoring unknown region command {}", commandName);
+			}
+		});
+
+		return Collections.unmodifiableList(compiled);
+	}
+
+	private static Optional<RegionCommand> compileAnimate(TargetRegion region, List<TargetRegion> targetRegions,
+			List<String> args) {
+		final Optional<TargetRegion> animated;
+		boolean resetAfterAnimation = false;
+
+		if (args.isEmpty()) {
+			animated = Optional.of(region);
+		} else if ("true".equals(args.get(0))) {
+			animated = Optional.of(region);
+			resetAfterAnimation = true;
+		} else {
+			animated = findRegionByName(targetRegions, args.get(0));
+
+			if (!animated.isPresent()) {
+				logger.error("Request to animate region named {}, but it doesn't exist.", args.get(0));
+				return Optional.empty();
+			}
+		}
+
+		if (animated.get().getType() != RegionType.IMAGE) {
+			logger.error("Request to animate region, but region is not an image region.");
+			return Optional.empty();
+		}
+
+		return Optional.of(new RegionCommand(Type.ANIMATE, args, Optional.of((ImageRegion) animated.get()),
+				resetAfterAnimation, null, Optional.empty(), null));
+	}
+
+	private static Optional<TargetRegion> findRegionByName(List<TargetRegion> targetRegions, String name) {
+		for (TargetRegion r : targetRegions) {
+			if (r.tagExists("name") && r.getTag("name").equals(name)) return Optional.of(r);
+		}
+
+		return Optional.empty();
+	}
+
+	private static boolean isExerciseResource(String soundPath) {
+		return '@' == soundPath.charAt(0);
+	}
+
+	private static PcmSound loadSoundFile(String soundPath) {
+		File soundFile = new File(soundPath);
+		if (!soundFile.isAbsolute()) {
+			soundFile = new File(System.getProperty("shootoff.home") + File.separator + soundFile.getPath());
+		}
+
+		if (!soundFile.isFile()) return null;
+
+		// Shared with every other target that uses the same sound
+		return AudioEngine.getDefault().load(soundFile).orElse(null);
+	}
+
+	private static PcmSound loadExerciseSound(TrainingExercise exercise, String soundPath) {
+		final InputStream is = exercise.getClass().getResourceAsStream(soundPath.substring(1));
+
+		if (is == null) {
+			logger.error("Exercise {} does not contain sound {}", exercise.getClass().getName(), soundPath);
+			return null;
+		}
+
+		return AudioEngine.getDefault().load(exercise.getClass().getName() + soundPath, is).orElse(null);
+	}
+
+	@Override
+	public String toString() {
+		return type + (args.isEmpty() ? "" : args.toString());
+	}
+}
@@ -22,21 +22,23 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import com.shootoff.camera.Shot;
 import com.shootoff.config.Configuration;
 import com.shootoff.gui.controller.VideoPlayerController;
 import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
 import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionKeyframes;
 import com.shootoff.session.ShotEvent;
 import com.shootoff.session.TargetAddedEvent;
 import com.shootoff.session.TargetMovedEvent;
 import com.shootoff.session.TargetRemovedEvent;
 import com.shootoff.session.TargetResizedEvent;
-import com.shootoff.targets.ImageRegion;
-import com.shootoff.targets.RegionType;
 import com.shootoff.targets.Target;
 import com.shootoff.targets.TargetRegion;
 import com.shootoff.targets.io.TargetIO;
@@ -48,6 +50,7 @@ import javafx.geometry.Point2D;
 import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
@@ -56,6 +59,11 @@ import javafx.stage.Stage;
  * user. This class is where events from a session are actually processed to
  * display their outcomes to the user.
  * 
+ * Moving to a nearby event applies or undoes the events in between one at a
+ * time. Longer jumps restore the nearest {@link SessionKeyframes} keyframe
+ * and only apply the events after it, reusing the target views that were
+ * already loaded.
+ * 
  * @author phrack
  */
 public class SessionCanvasManager {
@@ -65,62 +73,170 @@ public class SessionCanvasManager {
 	private final Map<Event, Point2D> eventToPosition = new HashMap<Event, Point2D>();
 	private final Map<Event, String> eventToExerciseMessage = new HashMap<Event, String>();
 	private final Map<Event, Dimension2D> eventToDimension = new HashMap<Event, Dimension2D>();
+	private final Map<Shot, ShotEvent> shotToVideoEvent = new IdentityHashMap<Shot, ShotEvent>();
+	private final Map<TargetView, Point2D> defaultPositions = new IdentityHashMap<TargetView, Point2D>();
+	private final Map<TargetView, Dimension2D> defaultDimensions = new IdentityHashMap<TargetView, Dimension2D>();
 	private final List<TargetView> targetViews = new ArrayList<TargetView>();
 	private final List<Target> targets = new ArrayList<Target>();
 	private final Configuration config;
+	private final ShotLayer shotLayer;
+
+	// The index of the last event applied to the canvas
+	private int currentEventIndex = -1;
 
 	public SessionCanvasManager(final Group canvas, final Configuration config) {
 		this.canvas = canvas;
 		this.config = config;
 		canvas.getChildren().add(exerciseLabel);
+
+		// Replay shows every shot in the session, the history limit only keeps
+		// live canvases responsive
+		shotLayer = new ShotLayer(canvas, ShotLayer.UNLIMITED_HISTORY, config.getShotFadeTime());
+		// Shots with video can be double clicked to play the video
+		shotLayer.setMouseTransparent(false);
+		canvas.addEventHandler(MouseEvent.MOUSE_CLICKED, (event) -> {
+			if (event.getClickCount() < 2) return;
+
+			final Optional<Shot> shot = shotLayer.getShotAt(event.getX(), event.getY());
+			if (shot.isPresent() && shotToVideoEvent.containsKey(shot.get())) {
+				showVideos(shotToVideoEvent.get(shot.get()));
+			}
+		});
 	}
 
-	public void doEvent(final Event e) {
-		switch (e.getType()) {
-		case SHOT:
-			if (!(e instanceof ShotEvent)) {
-				throw new AssertionError("Expected type ShotEvent but got type " + e.getClass().getName());
+	/**
+	 * Show the state of the session right after <tt>events.get(index)</tt>
+	 * was applied.
+	 * 
+	 * @param events
+	 *            every event of the camera this canvas displays
+	 * @param keyframes
+	 *            the keyframes built from <tt>events</tt>
+	 * @param index
+	 *            the index of the event to show, -1 to show the state before
+	 *            the first event
+	 */
+	public void showEvent(List<Event> events, SessionKeyframes keyframes, int index) {
+		if (index == currentEventIndex) return;
+
+		if (index > currentEventIndex) {
+			final SessionKeyframes.Keyframe keyframe = keyframes.getKeyframe(index);
+
+			if (index - currentEventIndex > SessionKeyframes.KEYFRAME_INTERVAL
+					&& keyframe.getEventIndex() > currentEventIndex) {
+				restore(events, keyframe);
 			}
 
-			final ShotEvent se = (ShotEvent) e;
-			canvas.getChildren().add(se.getShot().getMarker());
+			for (int i = currentEventIndex + 1; i <= index; i++) {
+				doEvent(events.get(i));
+			}
+		} else {
+			if (currentEventIndex - index <= SessionKeyframes.KEYFRAME_INTERVAL
+					&& canUndo(events, index + 1, currentEventIndex)) {
+				for (int i = currentEventIndex; i > index; i--) {
+					undoEvent(events.get(i));
+				}
+			} else {
+				restore(events, keyframes.getKeyframe(index));
 
-			if (se.isMalfunction()) {
-				se.getShot().getMarker().setFill(Color.ORANGE);
-			} else if (se.isReload()) {
-				se.getShot().getMarker().setFill(Color.LIGHTSKYBLUE);
+				for (int i = currentEventIndex + 1; i <= index; i++) {
+					doEvent(events.get(i));
+				}
 			}
+		}
+
+		currentEventIndex = index;
+	}
+
+	// Undoing an event needs the state from before the event was done, which
+	// is only known if the event was done since it was last restored past
+	private boolean canUndo(List<Event> events, int fromIndex, int toIndex) {
+		for (int i = fromIndex; i <= toIndex; i++) {
+			final Event e = events.get(i);
 
-			se.getShot().getMarker().setVisible(true);
+			switch (e.getType()) {
+			case TARGET_ADDED:
+			case TARGET_REMOVED:
+				if (!eventToContainer.containsKey(e)) return false;
+				break;
 
-			if (se.getVideoString().isPresent()) {
-				se.getShot().getMarker().setOnMouseClicked((event) -> {
-					if (event.getClickCount() < 2) return;
+			case TARGET_RESIZED:
+				if (!eventToDimension.containsKey(e)) return false;
+				break;
 
-					FXMLLoader loader = new FXMLLoader(
-							getClass().getClassLoader().getResource("com/shootoff/gui/VideoPlayer.fxml"));
-					try {
-						loader.load();
-					} catch (IOException ioe) {
-						ioe.printStackTrace();
-					}
+			case TARGET_MOVED:
+				if (!eventToPosition.containsKey(e)) return false;
+				break;
 
-					Stage videoPlayerStage = new Stage();
+			case EXERCISE_FEED_MESSAGE:
+				if (!eventToExerciseMessage.containsKey(e)) return false;
+				break;
 
-					VideoPlayerController controller = (VideoPlayerController) loader.getController();
-					controller.init(se.getVideos());
+			case SHOT:
+				break;
+			}
+		}
+
+		return true;
+	}
+
+	private void restore(List<Event> events, SessionKeyframes.Keyframe keyframe) {
+		for (final TargetView targetView : targetViews) {
+			canvas.getChildren().remove(targetView.getTargetGroup());
+		}
+
+		targetViews.clear();
+		targets.clear();
+		shotLayer.clear();
+		shotToVideoEvent.clear();
+
+		for (final SessionKeyframes.TargetState state : keyframe.getTargets()) {
+			final Optional<TargetView> targetView = getTargetView(state.getAddedEvent());
+			if (!targetView.isPresent()) continue;
+
+			final TargetView tv = targetView.get();
+			canvas.getChildren().add(tv.getTargetGroup());
+			targetViews.add(tv);
+			targets.add(tv);
+
+			final Point2D position = state.getPosition().orElse(defaultPositions.get(tv));
+			tv.setPosition(position.getX(), position.getY());
+			final Dimension2D dimension = state.getDimension().orElse(defaultDimensions.get(tv));
+			tv.setDimensions(dimension.getWidth(), dimension.getHeight());
+		}
+
+		exerciseLabel.setText(keyframe.getExerciseMessage());
+
+		// Bring back the shots that were fired up to the keyframe
+		for (int i = 0; i <= keyframe.getEventIndex(); i++) {
+			if (events.get(i).getType() == EventType.SHOT) showShot((ShotEvent) events.get(i));
+		}
+
+		currentEventIndex = keyframe.getEventIndex();
+	}
+
+	private void showShot(ShotEvent se) {
+		if (se.isMalfunction()) {
+			shotLayer.addShot(se.getShot(), Color.ORANGE);
+		} else if (se.isReload()) {
+			shotLayer.addShot(se.getShot(), Color.LIGHTSKYBLUE);
+		} else {
+			shotLayer.addShot(se.getShot());
+		}
 
-					videoPlayerStage.setTitle("Video Player");
-					videoPlayerStage.setScene(new Scene(loader.getRoot()));
-					videoPlayerStage.show();
+		if (se.getVideoString().isPresent()) shotToVideoEvent.put(se.getShot(), se);
+	}
 
-					config.registerVideoPlayer(controller);
-					controller.getStage().setOnCloseRequest((closeEvent) -> {
-						config.unregisterVideoPlayer(controller);
-					});
-				});
+	public void doEvent(final Event e) {
+		switch (e.getType()) {
+		case SHOT:
+			if (!(e instanceof ShotEvent)) {
+				throw new AssertionError("Expected type ShotEvent but got type " + e.getClass().getName());
 			}
 
+			final ShotEvent se = (ShotEvent) e;
+			showShot(se);
+
 			if (se.getTargetIndex().isPresent() && se.getHitRegionIndex().isPresent()) {
 				animateTarget(se, false);
 			}
@@ -188,7 +304,8 @@ public class SessionCanvasManager {
 			}
 
 			final ShotEvent se = (ShotEvent) e;
-			canvas.getChildren().remove(se.getShot().getMarker());
+			shotLayer.removeShot(se.getShot());
+			shotToVideoEvent.remove(se.getShot());
 
 			if (se.getTargetIndex().isPresent() && se.getHitRegionIndex().isPresent()) {
 				animateTarget(se, true);
@@ -240,6 +357,29 @@ public class SessionCanvasManager {
 		}
 	}
 
+	private void showVideos(ShotEvent se) {
+		FXMLLoader loader = new FXMLLoader(getClass().getClassLoader().getResource("com/shootoff/gui/VideoPlayer.fxml"));
+		try {
+			loader.load();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+
+		Stage videoPlayerStage = new Stage();
+
+		VideoPlayerController controller = (VideoPlayerController) loader.getController();
+		controller.init(se.getVideos());
+
+		videoPlayerStage.setTitle("Video Player");
+		videoPlayerStage.setScene(new Scene(loader.getRoot()));
+		videoPlayerStage.show();
+
+		config.registerVideoPlayer(controller);
+		controller.getStage().setOnCloseRequest((closeEvent) -> {
+			config.unregisterVideoPlayer(controller);
+		});
+	}
+
 	private void animateTarget(ShotEvent se, boolean undo) {
 		final TargetView target = targetViews.get(se.getTargetIndex().get());
 		final TargetRegion region = (TargetRegion) target.getTargetGroup().getChildren()
@@ -247,59 +387,73 @@ public class SessionCanvasManager {
 
 		if (!region.tagExists("command")) return;
 
-		TargetView.parseCommandTag(region, (commands, commandName, args) -> {
-			if (!undo) {
-				switch (commandName) {
-				case "animate":
-					target.animate(region, args);
+		final List<RegionCommand> commands = target.getRegionCommands(region);
+
+		boolean hasReverse = false;
+		for (final RegionCommand command : commands) {
+			if (command.getType() == RegionCommand.Type.REVERSE) hasReverse = true;
+		}
+
+		for (final RegionCommand command : commands) {
+			// If we are undoing a reverse animation we should just play it
+			// like normal
+			if (!undo || hasReverse) {
+				switch (command.getType()) {
+				case ANIMATE:
+					target.animate(command.getAnimatedRegion().get(), command.resetAfterAnimation());
 					break;
 
-				case "reverse":
+				case REVERSE:
 					target.reverseAnimation(region);
 					break;
+
+				default:
+					break;
 				}
-			} else {
-				// If we are undoing a reverse animation we should just play it
-				// like normal
-				if (commands.contains("reverse")) {
-					switch (commandName) {
-					case "animate":
-						target.animate(region, args);
-						break;
-
-					case "reverse":
-						target.reverseAnimation(region);
-						break;
-					}
-				} else {
-					// If we are undoing a non-reverse animation we need to
-					// reset the animated region
-					if ("animate".equals(commandName)) {
-						if (region.getType() == RegionType.IMAGE) {
-							((ImageRegion) region).reset();
-						} else {
-							final Optional<TargetRegion> t = TargetView
-									.getTargetRegionByName(new ArrayList<Target>(targetViews), region, args.get(0));
-							if (t.isPresent()) ((ImageRegion) t.get()).reset();
-						}
-					}
-				}
+			} else if (command.getType() == RegionCommand.Type.ANIMATE) {
+				// If we are undoing a non-reverse animation we need to reset
+				// the animated region
+				command.getAnimatedRegion().get().reset();
 			}
-		});
+		}
 	}
 
 	private void addTarget(final TargetAddedEvent e) {
-		final Optional<TargetComponents> targetComponents = TargetIO.loadTarget(
-				new File(System.getProperty("shootoff.home") + File.separator + "targets/" + e.getTargetName()));
+		final Optional<TargetView> targetView = getTargetView(e);
+
+		if (targetView.isPresent()) {
+			final TargetView targetContainer = targetView.get();
 
-		if (targetComponents.isPresent()) {
-			TargetComponents tc = targetComponents.get();
-			
-			canvas.getChildren().add(tc.getTargetGroup());
-			final TargetView targetContainer = new TargetView(tc.getTargetGroup(), tc.getTargetTags(), targets);
-			eventToContainer.put(e, targetContainer);
+			// A reused view may have been moved or resized the last time it
+			// was shown
+			final Point2D position = defaultPositions.get(targetContainer);
+			targetContainer.setPosition(position.getX(), position.getY());
+			final Dimension2D dimension = defaultDimensions.get(targetContainer);
+			targetContainer.setDimensions(dimension.getWidth(), dimension.getHeight());
+
+			canvas.getChildren().add(targetContainer.getTargetGroup());
 			targetViews.add(targetContainer);
 			targets.add(targetContainer);
 		}
 	}
+
+	// Get the view for the target an event added, only loading the target the
+	// first time
+	private Optional<TargetView> getTargetView(final TargetAddedEvent e) {
+		final TargetView loadedView = eventToContainer.get(e);
+		if (loadedView != null) return Optional.of(loadedView);
+
+		final Optional<TargetComponents> targetComponents = TargetIO.loadTarget(
+				new File(System.getProperty("shootoff.home") + File.separator + "targets/" + e.getTargetName()));
+
+		if (!targetComponents.isPresent()) return Optional.empty();
+
+		final TargetComponents tc = targetComponents.get();
+		final TargetView targetContainer = new TargetView(tc.getTargetGroup(), tc.getTargetTags(), targets);
+		eventToContainer.put(e, targetContainer);
+		defaultPositions.put(targetContainer, targetContainer.getPosition());
+		defaultDimensions.put(targetContainer, targetContainer.getDimension());
+
+		return Optional.of(targetContainer);
+	}
 }
\ No newline at end of file
@@ -32,10 +32,21 @@ public class ShotEntry {
 	private final String color;
 	private final Optional<Color> rowColor;
 	private final SplitData split;
-	private final Map<String, String> exerciseData = new HashMap<String, String>();
+	private final Map<String, String> exerciseData;
 
 	public ShotEntry(Shot shot, Optional<Shot> lastShot, Optional<Color> rowColor, boolean hadMalfunction,
 			boolean hadReload) {
+		this(shot, lastShot.isPresent() ? Optional.of(shot.getTimestamp() - lastShot.get().getTimestamp())
+				: Optional.empty(), rowColor, hadMalfunction, hadReload, new HashMap<String, String>());
+	}
+
+	/**
+	 * Create an entry for a row of a {@link ShotLog}. The log owns
+	 * <tt>exerciseData</tt> so it can set exercise values for rows whose
+	 * entries were never created.
+	 */
+	ShotEntry(Shot shot, Optional<Long> splitTime, Optional<Color> rowColor, boolean hadMalfunction,
+			boolean hadReload, Map<String, String> exerciseData) {
 		this.shot = shot;
 
 		if (shot.getColor().equals(Color.RED)) {
@@ -45,13 +56,13 @@ public class ShotEntry {
 		}
 
 		this.rowColor = rowColor;
+		this.exerciseData = exerciseData;
 
-		float timestampS = ((float) shot.getTimestamp()) / (float) 1000;
-		timestamp = String.format("%.2f", timestampS);
+		timestamp = formatSeconds(shot.getTimestamp());
 
 		String split;
-		if (lastShot.isPresent()) {
-			split = String.format("%.2f", timestampS - ((float) lastShot.get().getTimestamp() / (float) 1000));
+		if (splitTime.isPresent()) {
+			split = formatSeconds(splitTime.get());
 		} else {
 			split = "-";
 		}
@@ -59,6 +70,24 @@ public class ShotEntry {
 		this.split = new SplitData(split, rowColor, hadMalfunction, hadReload);
 	}
 
+	/**
+	 * Format a time in milliseconds as seconds rounded to hundredths. A row is
+	 * added to the shot timer for every shot, so this avoids the cost of
+	 * String.format.
+	 */
+	protected static String formatSeconds(long milliseconds) {
+		final long hundredths = (Math.abs(milliseconds) + 5) / 10;
+		final long fraction = hundredths % 100;
+
+		final StringBuilder formatted = new StringBuilder(8);
+		if (milliseconds < 0 && hundredths > 0) formatted.append('-');
+		formatted.append(hundredths / 100).append('.');
+		if (fraction < 10) formatted.append('0');
+		formatted.append(fraction);
+
+		return formatted.toString();
+	}
+
 	public static class SplitData {
 		private final String split;
 		private final Optional<Color> rowColor;
@@ -0,0 +1,368 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.shootoff.camera.Shot;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws every shot marker for a canvas onto a single JavaFX canvas instead of
+ * adding a node per shot to the scene graph. Shots can be added from any
+ * thread; they are painted on the next pulse, and only the new shots are
+ * painted unless the layer has to be redrawn (e.g. because old shots were
+ * dropped or faded). The layer only keeps the most recent shots up to its
+ * history limit, thus the cost of drawing shots stays constant no matter how
+ * long a session runs.
+ * 
+ * @author phrack
+ */
+public class ShotLayer extends Canvas {
+	public static final int UNLIMITED_HISTORY = 0;
+
+	// Canvases larger than this can't be backed by a texture on a lot of
+	// graphics cards
+	private static final double MAX_DIMENSION = 8192;
+
+	private final Group parent;
+	private final Queue<DrawnShot> pendingShots = new ConcurrentLinkedQueue<DrawnShot>();
+	private final AtomicBoolean isPulseRunning = new AtomicBoolean(false);
+	private final AnimationTimer pulse = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			onPulse();
+		}
+	};
+
+	// Only accessed on the FX thread
+	private final Deque<DrawnShot> drawnShots = new ArrayDeque<DrawnShot>();
+	private final List<DrawnShot> freshShots = new ArrayList<DrawnShot>();
+	private volatile boolean needsFullRedraw = false;
+
+	private volatile int historyLimit;
+	private volatile long fadeTime;
+
+	private static class DrawnShot {
+		private final Shot shot;
+		private final long addedTime;
+		private Color fill;
+		private Optional<Color> highlight = Optional.empty();
+
+		public DrawnShot(Shot shot, Color fill) {
+			this.shot = shot;
+			this.fill = fill;
+			this.addedTime = System.currentTimeMillis();
+		}
+
+		public boolean contains(double x, double y) {
+			final double dx = x - shot.getX();
+			final double dy = y - shot.getY();
+			final double r = shot.getMarkerRadius();
+
+			return dx * dx + dy * dy <= r * r;
+		}
+	}
+
+	/**
+	 * Create a shot layer that keeps itself on top of all other nodes in
+	 * <tt>parent</tt>.
+	 * 
+	 * @param parent
+	 *            the group the shots are drawn on
+	 * @param historyLimit
+	 *            the maximum number of shots to show, older shots are dropped
+	 *            first. Use {@link #UNLIMITED_HISTORY} to keep every shot.
+	 * @param fadeTime
+	 *            the number of milliseconds it takes a shot to fade away. Use
+	 *            0 to never fade shots.
+	 */
+	public ShotLayer(Group parent, int historyLimit, long fadeTime) {
+		this.parent = parent;
+		this.historyLimit = historyLimit;
+		this.fadeTime = fadeTime;
+
+		// Shots must not stop the user from interacting with targets under
+		// them
+		setMouseTransparent(true);
+	}
+
+	public void setHistoryLimit(int historyLimit) {
+		this.historyLimit = historyLimit;
+		requestRedraw();
+	}
+
+	public void setFadeTime(long fadeTime) {
+		this.fadeTime = fadeTime;
+		requestRedraw();
+	}
+
+	/**
+	 * Queue a shot to be drawn in its own color on the next pulse. This method
+	 * is safe to call from any thread.
+	 */
+	public void addShot(Shot shot) {
+		addShot(shot, shot.getColor());
+	}
+
+	/**
+	 * Queue a shot to be drawn in a specific color on the next pulse. This
+	 * method is safe to call from any thread.
+	 */
+	public void addShot(Shot shot, Color fill) {
+		pendingShots.offer(new DrawnShot(shot, fill));
+		startPulse();
+	}
+
+	/**
+	 * Stop drawing a shot. Must be called on the FX thread.
+	 */
+	public void removeShot(Shot shot) {
+		absorbPendingShots();
+
+		for (final Iterator<DrawnShot> it = drawnShots.iterator(); it.hasNext();) {
+			if (it.next().shot == shot) {
+				it.remove();
+				needsFullRedraw = true;
+				break;
+			}
+		}
+
+		freshShots.removeIf((drawnShot) -> drawnShot.shot == shot);
+
+		startPulse();
+	}
+
+	/**
+	 * Remove every shot from the layer. Must be called on the FX thread.
+	 */
+	public void clear() {
+		pendingShots.clear();
+		drawnShots.clear();
+		freshShots.clear();
+		needsFullRedraw = true;
+
+		startPulse();
+	}
+
+	/**
+	 * Draw a shot in <tt>color</tt> on top of all other shots until the
+	 * highlight is removed with {@link #unhighlightShot(Shot)}. Must be called
+	 * on the FX thread.
+	 */
+	public void highlightShot(Shot shot, Color color) {
+		final Optional<DrawnShot> drawnShot = findShot(shot);
+
+		if (drawnShot.isPresent()) {
+			drawnShot.get().highlight = Optional.of(color);
+			requestRedraw();
+		}
+	}
+
+	/**
+	 * Draw a highlighted shot in its normal color again. Must be called on the
+	 * FX thread.
+	 */
+	public void unhighlightShot(Shot shot) {
+		final Optional<DrawnShot> drawnShot = findShot(shot);
+
+		if (drawnShot.isPresent() && drawnShot.get().highlight.isPresent()) {
+			drawnShot.get().highlight = Optional.empty();
+			requestRedraw();
+		}
+	}
+
+	/**
+	 * Find the most recently drawn shot whose marker contains a point. Must be
+	 * called on the FX thread.
+	 * 
+	 * @param x
+	 *            the x coordinate in the parent group's coordinate space
+	 * @param y
+	 *            the y coordinate in the parent group's coordinate space
+	 * @return the top shot at the point if there is one
+	 */
+	public Optional<Shot> getShotAt(double x, double y) {
+		absorbPendingShots();
+
+		for (final Iterator<DrawnShot> it = drawnShots.descendingIterator(); it.hasNext();) {
+			final DrawnShot drawnShot = it.next();
+			if (drawnShot.contains(x, y)) return Optional.of(drawnShot.shot);
+		}
+
+		return Optional.empty();
+	}
+
+	private Optional<DrawnShot> findShot(Shot shot) {
+		absorbPendingShots();
+
+		for (final DrawnShot drawnShot : drawnShots) {
+			if (drawnShot.shot == shot) return Optional.of(drawnShot);
+		}
+
+		return Optional.empty();
+	}
+
+	private void requestRedraw() {
+		needsFullRedraw = true;
+		startPulse();
+	}
+
+	private void startPulse() {
+		if (!isPulseRunning.compareAndSet(false, true)) return;
+
+		if (Platform.isFxApplicationThread()) {
+			pulse.start();
+		} else {
+			UiUpdateDispatcher.runLater(pulse::start);
+		}
+	}
+
+	private void absorbPendingShots() {
+		DrawnShot drawnShot;
+		while ((drawnShot = pendingShots.poll()) != null) {
+			drawnShots.addLast(drawnShot);
+			freshShots.add(drawnShot);
+		}
+
+		final int limit = historyLimit;
+		if (limit != UNLIMITED_HISTORY) {
+			while (drawnShots.size() > limit) {
+				freshShots.remove(drawnShots.removeFirst());
+				needsFullRedraw = true;
+			}
+		}
+	}
+
+	private void onPulse() {
+		absorbPendingShots();
+
+		final long fade = fadeTime;
+		if (fade > 0) {
+			final long now = System.currentTimeMillis();
+
+			// Shots are in the order they were added, so the faded shots are
+			// all at the front
+			while (!drawnShots.isEmpty() && now - drawnShots.peekFirst().addedTime >= fade) {
+				freshShots.remove(drawnShots.removeFirst());
+			}
+
+			// Every remaining shot's opacity changes each pulse
+			needsFullRedraw = true;
+		}
+
+		if (!freshShots.isEmpty()) {
+			keepOnTop();
+			fitShots(freshShots);
+		}
+
+		final GraphicsContext gc = getGraphicsContext2D();
+
+		if (needsFullRedraw) {
+			gc.clearRect(0, 0, getWidth(), getHeight());
+
+			final List<DrawnShot> highlighted = new ArrayList<DrawnShot>();
+			for (final DrawnShot drawnShot : drawnShots) {
+				if (drawnShot.highlight.isPresent()) {
+					highlighted.add(drawnShot);
+				} else {
+					paintShot(gc, drawnShot);
+				}
+			}
+
+			for (final DrawnShot drawnShot : highlighted)
+				paintShot(gc, drawnShot);
+		} else {
+			for (final DrawnShot drawnShot : freshShots)
+				paintShot(gc, drawnShot);
+		}
+
+		freshShots.clear();
+		needsFullRedraw = false;
+
+		// Keep pulsing while shots are fading, otherwise go idle until there
+		// is more to draw
+		if (fade == 0 || drawnShots.isEmpty()) {
+			pulse.stop();
+			isPulseRunning.set(false);
+
+			// A shot may have been queued after we drained the queue but
+			// before the pulse was marked as stopped
+			if (!pendingShots.isEmpty()) startPulse();
+		}
+	}
+
+	private void keepOnTop() {
+		if (getParent() != parent) {
+			parent.getChildren().add(this);
+		} else if (parent.getChildren().indexOf(this) < parent.getChildren().size() - 1) {
+			toFront();
+		}
+	}
+
+	private void fitShots(List<DrawnShot> shots) {
+		double width = getWidth();
+		double height = getHeight();
+
+		for (final DrawnShot drawnShot : shots) {
+			final Shot shot = drawnShot.shot;
+			width = Math.max(width, Math.ceil(shot.getX() + shot.getMarkerRadius()));
+			height = Math.max(height, Math.ceil(shot.getY() + shot.getMarkerRadius()));
+		}
+
+		width = Math.min(width, MAX_DIMENSION);
+		height = Math.min(height, MAX_DIMENSION);
+
+		if (width != getWidth() || height != getHeight()) {
+			setWidth(width);
+			setHeight(height);
+			needsFullRedraw = true;
+		}
+	}
+
+	private void paintShot(GraphicsContext gc, DrawnShot drawnShot) {
+		final Shot shot = drawnShot.shot;
+		final double r = shot.getMarkerRadius();
+
+		double opacity = 1.0;
+		final long fade = fadeTime;
+		if (fade > 0 && !drawnShot.highlight.isPresent()) {
+			opacity = Math.max(0, 1.0 - (double) (System.currentTimeMillis() - drawnShot.addedTime) / (double) fade);
+		}
+
+		gc.setGlobalAlpha(opacity);
+		gc.setFill(drawnShot.highlight.orElse(drawnShot.fill));
+		gc.fillOval(shot.getX() - r, shot.getY() - r, r * 2, r * 2);
+		gc.setGlobalAlpha(1.0);
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.gui;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import com.shootoff.camera.Shot;
+
+import javafx.collections.ObservableListBase;
+import javafx.scene.paint.Color;
+
+/**
+ * The rows of the shot timer. Shots are kept in parallel arrays and a
+ * {@link ShotEntry} is only created when the table asks for a row, which it
+ * only does for rows that are visible, so the cost of adding a shot does not
+ * depend on how many rows there are. The log holds at most
+ * {@link #DEFAULT_CAPACITY} rows and drops the oldest {@link #PAGE_SIZE} rows
+ * at once when it is full.
+ * 
+ * The log also groups consecutive shots into strings: a new string starts
+ * when the row color changes (exercises color rows by round) or after a pause
+ * of more than {@link #STRING_PAUSE}. Each string keeps a running summary.
+ * 
+ * @author phrack
+ */
+public class ShotLog extends ObservableListBase<ShotEntry> {
+	public static final int DEFAULT_CAPACITY = 5000;
+	public static final int PAGE_SIZE = 500;
+	public static final long STRING_PAUSE = 5000; // ms
+
+	private static final byte MALFUNCTION = 1;
+	private static final byte RELOAD = 2;
+
+	public static class StringSummary {
+		private final int number;
+		private final long startTimestamp;
+		private long endTimestamp;
+		private int shotCount = 0;
+		private Optional<Long> bestSplit = Optional.empty();
+
+		private StringSummary(int number, long startTimestamp) {
+			this.number = number;
+			this.startTimestamp = startTimestamp;
+			this.endTimestamp = startTimestamp;
+		}
+
+		private void add(long timestamp, Optional<Long> split) {
+			shotCount++;
+			endTimestamp = timestamp;
+
+			if (split.isPresent() && (!bestSplit.isPresent() || split.get() < bestSplit.get())) {
+				bestSplit = split;
+			}
+		}
+
+		/**
+		 * @return the string's position since the log was last cleared,
+		 *         starting at 1
+		 */
+		public int getNumber() {
+			return number;
+		}
+
+		public int getShotCount() {
+			return shotCount;
+		}
+
+		/**
+		 * @return the time from the first to the last shot of the string in
+		 *         milliseconds
+		 */
+		public long getTotalTime() {
+			return endTimestamp - startTimestamp;
+		}
+
+		public Optional<Long> getBestSplit() {
+			return bestSplit;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder summary = new StringBuilder();
+			summary.append("String ").append(number).append(": ").append(shotCount)
+					.append(shotCount == 1 ? " shot" : " shots");
+
+			if (shotCount > 1) {
+				summary.append(", ").append(ShotEntry.formatSeconds(getTotalTime())).append(" s total");
+			}
+
+			if (bestSplit.isPresent()) {
+				summary.append(", best split ").append(ShotEntry.formatSeconds(bestSplit.get()));
+			}
+
+			return summary.toString();
+		}
+	}
+
+	/**
+	 * The parallel arrays that hold the rows.
+	 */
+	private static final class Rows {
+		private final Shot[] shots;
+		private final long[] splits;
+		private final byte[] flags;
+		private final Color[] rowColors;
+		private final StringSummary[] strings;
+		private final ShotEntry[] entries;
+		private final Map<String, String>[] exerciseData;
+
+		public Rows(int length) {
+			shots = new Shot[length];
+			splits = new long[length];
+			flags = new byte[length];
+			rowColors = new Color[length];
+			strings = new StringSummary[length];
+			entries = new ShotEntry[length];
+			exerciseData = newExerciseData(length);
+		}
+
+		/**
+		 * Copy <tt>length</tt> rows of <tt>source</tt> starting at
+		 * <tt>from</tt>, padding with empty rows if <tt>source</tt> is
+		 * shorter.
+		 */
+		public Rows(Rows source, int from, int length) {
+			shots = Arrays.copyOfRange(source.shots, from, from + length);
+			splits = Arrays.copyOfRange(source.splits, from, from + length);
+			flags = Arrays.copyOfRange(source.flags, from, from + length);
+			rowColors = Arrays.copyOfRange(source.rowColors, from, from + length);
+			strings = Arrays.copyOfRange(source.strings, from, from + length);
+			entries = Arrays.copyOfRange(source.entries, from, from + length);
+			exerciseData = Arrays.copyOfRange(source.exerciseData, from, from + length);
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private static Map<String, String>[] newExerciseData(int length) {
+			return new Map[length];
+		}
+
+		public int length() {
+			return shots.length;
+		}
+
+		public ShotEntry entry(int row) {
+			if (entries[row] == null) {
+				entries[row] = new ShotEntry(shots[row], splits[row] < 0 ? Optional.empty() : Optional.of(splits[row]),
+						Optional.ofNullable(rowColors[row]), (flags[row] & MALFUNCTION) != 0,
+						(flags[row] & RELOAD) != 0, exerciseData(row));
+			}
+
+			return entries[row];
+		}
+
+		public Map<String, String> exerciseData(int row) {
+			if (exerciseData[row] == null) exerciseData[row] = new HashMap<String, String>();
+			return exerciseData[row];
+		}
+	}
+
+	/**
+	 * Rows that were removed from the log. Listeners rarely look at removed
+	 * rows, so their entries are only created if they are asked for.
+	 */
+	private static final class RemovedRows extends AbstractList<ShotEntry> implements RandomAccess {
+		private final Rows rows;
+		private final int size;
+
+		public RemovedRows(Rows rows, int size) {
+			this.rows = rows;
+			this.size = size;
+		}
+
+		@Override
+		public ShotEntry get(int index) {
+			if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+
+			return rows.entry(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private final int capacity;
+
+	private int size = 0;
+	private Rows rows = new Rows(16);
+
+	private Optional<Long> lastTimestamp = Optional.empty();
+	private Optional<Color> lastRowColor = Optional.empty();
+	private StringSummary currentString = null;
+	private int stringCount = 0;
+
+	public ShotLog() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ShotLog(int capacity) {
+		this.capacity = Math.max(capacity, PAGE_SIZE + 1);
+	}
+
+	/**
+	 * Add a row for a shot. Must be called on the FX thread.
+	 */
+	public void addShot(Shot shot, Optional<Color> rowColor, boolean hadMalfunction, boolean hadReload) {
+		beginChange();
+
+		if (size == capacity) dropOldestPage();
+		if (size == rows.length()) rows = new Rows(rows, 0, Math.min(capacity, rows.length() * 2));
+
+		final Optional<Long> split = lastTimestamp.isPresent()
+				? Optional.of(shot.getTimestamp() - lastTimestamp.get()) : Optional.empty();
+
+		if (currentString == null || !rowColor.equals(lastRowColor)
+				|| (split.isPresent() && split.get() > STRING_PAUSE)) {
+			currentString = new StringSummary(++stringCount, shot.getTimestamp());
+			// The first shot of a string has no split within the string
+			currentString.add(shot.getTimestamp(), Optional.empty());
+		} else {
+			currentString.add(shot.getTimestamp(), split);
+		}
+
+		byte shotFlags = 0;
+		if (hadMalfunction) shotFlags |= MALFUNCTION;
+		if (hadReload) shotFlags |= RELOAD;
+
+		rows.shots[size] = shot;
+		rows.splits[size] = split.isPresent() ? split.get() : -1;
+		rows.flags[size] = shotFlags;
+		rows.rowColors[size] = rowColor.orElse(null);
+		rows.strings[size] = currentString;
+		rows.entries[size] = null;
+		rows.exerciseData[size] = null;
+		size++;
+
+		lastTimestamp = Optional.of(shot.getTimestamp());
+		lastRowColor = rowColor;
+
+		nextAdd(size - 1, size);
+		endChange();
+	}
+
+	private void dropOldestPage() {
+		final Rows removed = new Rows(rows, 0, PAGE_SIZE);
+
+		final int remaining = size - PAGE_SIZE;
+		System.arraycopy(rows.shots, PAGE_SIZE, rows.shots, 0, remaining);
+		System.arraycopy(rows.splits, PAGE_SIZE, rows.splits, 0, remaining);
+		System.arraycopy(rows.flags, PAGE_SIZE, rows.flags, 0, remaining);
+		System.arraycopy(rows.rowColors, PAGE_SIZE, rows.rowColors, 0, remaining);
+		System.arraycopy(rows.strings, PAGE_SIZE, rows.strings, 0, remaining);
+		System.arraycopy(rows.entries, PAGE_SIZE, rows.entries, 0, remaining);
+		System.arraycopy(rows.exerciseData, PAGE_SIZE, rows.exerciseData, 0, remaining);
+
+		Arrays.fill(rows.shots, remaining, size, null);
+		Arrays.fill(rows.rowColors, remaining, size, null);
+		Arrays.fill(rows.strings, remaining, size, null);
+		Arrays.fill(rows.entries, remaining, size, null);
+		Arrays.fill(rows.exerciseData, remaining, size, null);
+		size = remaining;
+
+		nextRemove(0, new RemovedRows(removed, PAGE_SIZE));
+	}
+
+	/**
+	 * Set an exercise column's value for the newest row and refresh only that
+	 * row. Must be called on the FX thread.
+	 */
+	public void setLatestExerciseValue(String name, String value) {
+		if (size == 0) return;
+
+		final ShotEntry oldEntry = get(size - 1);
+		rows.exerciseData(size - 1).put(name, value);
+
+		// The table only refreshes a row's cells when the row's item changes
+		rows.entries[size - 1] = null;
+
+		beginChange();
+		nextSet(size - 1, oldEntry);
+		endChange();
+	}
+
+	@Override
+	public ShotEntry get(int row) {
+		if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+
+		return rows.entry(row);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the summary of the string a row belongs to, which is kept up to
+	 * date as shots are added to the string.
+	 */
+	public StringSummary getStringSummary(int row) {
+		if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+
+		return rows.strings[row];
+	}
+
+	public Optional<StringSummary> getCurrentString() {
+		return Optional.ofNullable(currentString);
+	}
+
+	@Override
+	public void clear() {
+		lastTimestamp = Optional.empty();
+		lastRowColor = Optional.empty();
+		currentString = null;
+		stringCount = 0;
+
+		if (size == 0) return;
+
+		// The old rows are handed to the listeners as they are
+		final RemovedRows removed = new RemovedRows(rows, size);
+
+		size = 0;
+		rows = new Rows(16);
+
+		beginChange();
+		nextRemove(0, removed);
+		endChange();
+	}
+}
@@ -23,7 +23,9 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -84,6 +86,8 @@ public class TargetView implements Target {
 	private final Optional<List<Target>> targets;
 	private final boolean userDeletable;
 	private final String cameraName;
+	private final Map<TargetRegion, List<RegionCommand>> regionCommands = Collections
+			.synchronizedMap(new IdentityHashMap<>());
 	private boolean keepInBounds = false;
 	private boolean isSelected = false;
 	private boolean move;
@@ -107,6 +111,8 @@ public class TargetView implements Target {
 		this.userDeletable = userDeletable;
 		this.cameraName = parent.getCameraName();
 
+		compileRegionCommands();
+
 		targetGroup.setOnMouseClicked((event) -> {
 			// Skip target selection if click to shoot is being used
 			if (config.inDebugMode() && (event.isShiftDown() || event.isControlDown())) return;
@@ -134,6 +140,8 @@ public class TargetView implements Target {
 		this.userDeletable = false;
 		this.cameraName = null;
 
+		compileRegionCommands();
+
 		mousePressed();
 		mouseDragged();
 		mouseMoved();
@@ -141,6 +149,38 @@ public class TargetView implements Target {
 		keyPressed();
 	}
 
+	private void compileRegionCommands() {
+		final List<TargetRegion> regions = getRegions();
+
+		for (final TargetRegion region : regions) {
+			if (region.tagExists("command")) regionCommands.put(region, RegionCommand.compile(region, regions, config));
+		}
+	}
+
+	/**
+	 * Get the commands from a region's <tt>command</tt> tag. The commands were
+	 * compiled when this target was loaded.
+	 * 
+	 * @param region
+	 *            a region in this target
+	 * @return the region's commands in the order they should be executed
+	 */
+	public List<RegionCommand> getRegionCommands(TargetRegion region) {
+		final List<RegionCommand> commands = regionCommands.get(region);
+
+		if (commands != null) return commands;
+
+		// The region may have been given commands after the target was
+		// loaded
+		if (region.tagExists("command") && hasRegion(region)) {
+			final List<RegionCommand> compiled = RegionCommand.compile(region, getRegions(), config);
+			regionCommands.put(region, compiled);
+			return compiled;
+		}
+
+		return Collections.emptyList();
+	}
+
 	@Override
 	public File getTargetFile() {
 		return targetFile;
@@ -337,6 +377,20 @@ public class TargetView implements Target {
 			}
 		}
 
+		animate(imageRegion, resetAfterAnimation);
+	}
+
+	/**
+	 * Animate an image region that was resolved ahead of time (e.g. by a
+	 * compiled region command).
+	 * 
+	 * @param imageRegion
+	 *            the region to animate
+	 * @param resetAfterAnimation
+	 *            <tt>true</tt> if the region should go back to its first frame
+	 *            once the animation finishes
+	 */
+	public void animate(ImageRegion imageRegion, boolean resetAfterAnimation) {
 		// Don't repeat animations for fallen targets
 		if (!imageRegion.onFirstFrame()) return;
 
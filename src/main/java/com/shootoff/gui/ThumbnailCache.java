@@ -0,0 +1,227 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+/**
+ * Renders thumbnails for pickers in the background and keeps them in an
+ * on-disk cache so that they only have to be rendered again when their source
+ * file changes. Thumbnails are rendered in parallel and each one is handed to
+ * the UI as soon as it is ready, so a picker can show its items right away and
+ * fill in their pictures as they arrive.
+ * 
+ * Cached thumbnails are named after the kind of thumbnail, a hash of the
+ * source file's contents, and the thumbnail size.
+ * 
+ * @author phrack
+ */
+public class ThumbnailCache {
+	private static final Logger logger = LoggerFactory.getLogger(ThumbnailCache.class);
+
+	public static final String CACHE_DIRECTORY_NAME = "thumbnails";
+	private static final String THUMBNAIL_EXTENSION = ".png";
+
+	private static final long RENDERER_KEEP_ALIVE = 10; // s
+
+	private static ThumbnailCache defaultCache = null;
+
+	/**
+	 * Renders the thumbnail for a source file.
+	 */
+	public interface Renderer {
+		/**
+		 * @return a short name for what this renderer draws, e.g. "target".
+		 *         Thumbnails from different renderers are cached separately.
+		 */
+		String getKind();
+
+		/**
+		 * Called on a background thread.
+		 * 
+		 * @return the thumbnail, which should fit in a <tt>size</tt> square,
+		 *         or empty if <tt>source</tt> can't be rendered
+		 */
+		Optional<BufferedImage> render(File source, int size);
+	}
+
+	private final File cacheDirectory;
+	private final ThreadPoolExecutor renderExecutor;
+
+	public ThumbnailCache(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+
+		final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		final ThreadFactory threadFactory = new NamedThreadFactory("ThumbnailRenderer");
+
+		renderExecutor = new ThreadPoolExecutor(threads, threads, RENDERER_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), (r) -> {
+					final Thread thread = threadFactory.newThread(r);
+					thread.setDaemon(true);
+					return thread;
+				});
+		renderExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	public static synchronized ThumbnailCache getDefault() {
+		if (defaultCache == null) {
+			defaultCache = new ThumbnailCache(
+					new File(System.getProperty("shootoff.home") + File.separator + CACHE_DIRECTORY_NAME));
+		}
+
+		return defaultCache;
+	}
+
+	public File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Fetch the thumbnail for <tt>source</tt> in the background, rendering and
+	 * caching it if it isn't cached yet. <tt>onReady</tt> is called on the
+	 * JavaFX application thread, and only if a thumbnail could be made.
+	 */
+	public void request(File source, int size, Renderer renderer, Consumer<Image> onReady) {
+		request(source, size, renderer, onReady, () -> {});
+	}
+
+	/**
+	 * @param onFailure
+	 *            called on the JavaFX application thread instead of
+	 *            <tt>onReady</tt> if <tt>source</tt> can't be rendered
+	 */
+	public void request(File source, int size, Renderer renderer, Consumer<Image> onReady, Runnable onFailure) {
+		try {
+			renderExecutor.execute(() -> {
+				final Optional<BufferedImage> thumbnail = getThumbnail(source, size, renderer);
+
+				if (thumbnail.isPresent()) {
+					final Image image = SwingFXUtils.toFXImage(thumbnail.get(), null);
+					UiUpdateDispatcher.runLater(() -> onReady.accept(image));
+				} else {
+					UiUpdateDispatcher.runLater(onFailure);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.error("Thumbnail renderer is not accepting work, not rendering thumbnail for " + source, e);
+		}
+	}
+
+	/**
+	 * Get the thumbnail for <tt>source</tt> on the calling thread, rendering
+	 * and caching it if it isn't cached yet.
+	 */
+	public Optional<BufferedImage> getThumbnail(File source, int size, Renderer renderer) {
+		final Optional<File> cachedFile = getCacheFile(source, size, renderer);
+
+		// The source can't be read, so it can't be rendered either
+		if (!cachedFile.isPresent()) return Optional.empty();
+
+		if (cachedFile.get().isFile()) {
+			try {
+				final BufferedImage cached = ImageIO.read(cachedFile.get());
+				if (cached != null) return Optional.of(cached);
+			} catch (IOException e) {
+				logger.warn("Failed to read cached thumbnail " + cachedFile.get().getPath() + ", rendering it again",
+						e);
+			}
+		}
+
+		final Optional<BufferedImage> thumbnail;
+		try {
+			thumbnail = renderer.render(source, size);
+		} catch (RuntimeException e) {
+			logger.error("Failed to render thumbnail for " + source.getPath(), e);
+			return Optional.empty();
+		}
+
+		if (thumbnail.isPresent()) {
+			store(thumbnail.get(), cachedFile.get());
+		}
+
+		return thumbnail;
+	}
+
+	private Optional<File> getCacheFile(File source, int size, Renderer renderer) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			final byte[] hash = digest.digest(Files.readAllBytes(source.toPath()));
+
+			final StringBuilder name = new StringBuilder(renderer.getKind()).append('-');
+			for (final byte b : hash) {
+				name.append(String.format("%02x", b));
+			}
+			name.append('-').append(size).append(THUMBNAIL_EXTENSION);
+
+			return Optional.of(new File(cacheDirectory, name.toString()));
+		} catch (IOException | NoSuchAlgorithmException e) {
+			logger.warn("Failed to hash " + source.getPath() + " for the thumbnail cache", e);
+			return Optional.empty();
+		}
+	}
+
+	private void store(BufferedImage thumbnail, File cacheFile) {
+		if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+			logger.warn("Failed to create thumbnail cache directory {}", cacheDirectory.getPath());
+			return;
+		}
+
+		// Write to a temporary file first so that a thumbnail being read on
+		// another thread is never half written
+		try {
+			final File tempFile = File.createTempFile("thumbnail", ".tmp", cacheDirectory);
+
+			try {
+				ImageIO.write(thumbnail, "png", tempFile);
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				if (tempFile.exists() && !tempFile.delete()) {
+					logger.warn("Failed to delete temporary thumbnail {}", tempFile.getPath());
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Failed to cache thumbnail " + cacheFile.getPath(), e);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.gui;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.application.Platform;
+
+/**
+ * Funnels UI updates from camera, shot, and exercise threads onto the JavaFX
+ * application thread in batches. Instead of posting one runnable to the FX
+ * event queue per update, updates are queued here and a single runnable
+ * applies every queued update at once. Updates that supersede each other (e.g.
+ * a new preview frame for a camera feed) are posted with
+ * {@link #runLatest(Object, Runnable)} so that only the most recent update for
+ * a key is ever applied and stale frames are dropped instead of rendered.
+ * 
+ * @author phrack
+ */
+public class UiUpdateDispatcher {
+	private static final Logger logger = LoggerFactory.getLogger(UiUpdateDispatcher.class);
+
+	private static final int BACKLOG_WARNING_DEPTH = 100;
+
+	private static final Queue<Runnable> orderedUpdates = new ConcurrentLinkedQueue<Runnable>();
+	private static final AtomicInteger orderedDepth = new AtomicInteger(0);
+	private static final Map<Object, Runnable> latestUpdates = new ConcurrentHashMap<Object, Runnable>();
+	private static final AtomicBoolean isBatchScheduled = new AtomicBoolean(false);
+	private static final AtomicBoolean warnedAboutBacklog = new AtomicBoolean(false);
+
+	private static final AtomicInteger peakQueueDepth = new AtomicInteger(0);
+	private static final AtomicLong batchCount = new AtomicLong(0);
+	private static final AtomicLong appliedCount = new AtomicLong(0);
+	private static final AtomicLong coalescedCount = new AtomicLong(0);
+
+	private UiUpdateDispatcher() {}
+
+	/**
+	 * Run an update on the FX thread. If we are already on the FX thread the
+	 * update runs immediately, after any updates that are still queued so that
+	 * updates are applied in the order they were requested. Otherwise the
+	 * update is queued for the next batch.
+	 */
+	public static void run(Runnable update) {
+		if (Platform.isFxApplicationThread()) {
+			applyOrderedUpdates(Integer.MAX_VALUE);
+			apply(update);
+		} else {
+			runLater(update);
+		}
+	}
+
+	/**
+	 * Queue an update to run on the FX thread in the next batch. Updates
+	 * queued with this method are applied in the order they were queued.
+	 */
+	public static void runLater(Runnable update) {
+		orderedUpdates.offer(update);
+		updatePeakDepth(orderedDepth.incrementAndGet() + latestUpdates.size());
+		scheduleBatch();
+	}
+
+	/**
+	 * Queue an update to run on the FX thread in the next batch, replacing any
+	 * update for the same key that has not been applied yet.
+	 * 
+	 * @param key
+	 *            identifies what is being updated, typically the node the
+	 *            update changes
+	 * @param update
+	 *            the update that makes the node reflect the latest state
+	 */
+	public static void runLatest(Object key, Runnable update) {
+		if (latestUpdates.put(key, update) != null) {
+			coalescedCount.incrementAndGet();
+		} else {
+			updatePeakDepth(orderedDepth.get() + latestUpdates.size());
+		}
+
+		scheduleBatch();
+	}
+
+	private static void updatePeakDepth(int depth) {
+		int peak;
+		while (depth > (peak = peakQueueDepth.get())) {
+			if (peakQueueDepth.compareAndSet(peak, depth)) break;
+		}
+
+		if (depth >= BACKLOG_WARNING_DEPTH && warnedAboutBacklog.compareAndSet(false, true)) {
+			logger.warn("UI updates are backing up, {} updates are waiting for the FX thread", depth);
+		}
+	}
+
+	private static void scheduleBatch() {
+		if (isBatchScheduled.compareAndSet(false, true)) {
+			Platform.runLater(UiUpdateDispatcher::applyBatch);
+		}
+	}
+
+	protected static void applyBatch() {
+		// Clear the flag first so that updates queued while this batch runs
+		// schedule the next batch
+		isBatchScheduled.set(false);
+		batchCount.incrementAndGet();
+
+		// Only apply what was queued when the batch started so a thread that
+		// keeps queuing updates can't starve the FX thread
+		applyOrderedUpdates(orderedDepth.get());
+
+		for (final Object key : latestUpdates.keySet()) {
+			final Runnable update = latestUpdates.remove(key);
+			if (update != null) apply(update);
+		}
+
+		if (getQueueDepth() < BACKLOG_WARNING_DEPTH / 2) warnedAboutBacklog.set(false);
+	}
+
+	private static void applyOrderedUpdates(int limit) {
+		Runnable update;
+		for (int i = 0; i < limit && (update = orderedUpdates.poll()) != null; i++) {
+			orderedDepth.decrementAndGet();
+			apply(update);
+		}
+	}
+
+	private static void apply(Runnable update) {
+		try {
+			update.run();
+			appliedCount.incrementAndGet();
+		} catch (final Exception e) {
+			logger.error("UI update failed", e);
+		}
+	}
+
+	/**
+	 * @return the number of updates waiting for the FX thread
+	 */
+	public static int getQueueDepth() {
+		return orderedDepth.get() + latestUpdates.size();
+	}
+
+	public static int getPeakQueueDepth() {
+		return peakQueueDepth.get();
+	}
+
+	/**
+	 * @return the number of batches that have been run on the FX thread
+	 */
+	public static long getBatchCount() {
+		return batchCount.get();
+	}
+
+	public static long getAppliedCount() {
+		return appliedCount.get();
+	}
+
+	/**
+	 * @return the number of updates that were dropped because a newer update
+	 *         for the same key replaced them before they were applied
+	 */
+	public static long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+}
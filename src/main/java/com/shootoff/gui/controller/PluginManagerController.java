@@ -46,10 +46,12 @@ import org.xml.sax.helpers.DefaultHandler;
 import com.google.common.io.Files;
 import com.shootoff.Main;
 import com.shootoff.plugins.ExerciseMetadata;
+import com.shootoff.plugins.ExerciseWatchdog;
 import com.shootoff.plugins.engine.Plugin;
 import com.shootoff.plugins.engine.PluginEngine;
 import com.shootoff.util.VersionChecker;
 
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.concurrent.Task;
@@ -80,11 +82,13 @@ public class PluginManagerController {
 	private final ObservableList<PluginMetadata> pluginEntries = FXCollections.observableArrayList();
 
 	private PluginEngine pluginEngine;
+	private ExerciseWatchdog exerciseWatchdog;
 
-	public void init(PluginEngine pluginEngine, Stage pluginManagerStage) {
+	public void init(PluginEngine pluginEngine, ExerciseWatchdog exerciseWatchdog, Stage pluginManagerStage) {
 		final String pluginMetadataAddress = Main.SHOOTOFF_DOMAIN + PLUGIN_METADATA_NAME;
 
 		this.pluginEngine = pluginEngine;
+		this.exerciseWatchdog = exerciseWatchdog;
 
 		final TableColumn<PluginMetadata, String> actionCol = new TableColumn<PluginMetadata, String>("Action");
 		actionCol.setMinWidth(90);
@@ -109,10 +113,14 @@ public class PluginManagerController {
 		creatorCol.setMinWidth(85);
 		creatorCol.setCellValueFactory(new PropertyValueFactory<PluginMetadata, String>("Creator"));
 
+		final TableColumn<PluginMetadata, String> latencyCol = new TableColumn<PluginMetadata, String>("Latency");
+		latencyCol.setMinWidth(110);
+		latencyCol.setCellValueFactory((cellData) -> new SimpleStringProperty(getLatency(cellData.getValue())));
+
 		final TableColumn<PluginMetadata, String> descriptionCol = new TableColumn<PluginMetadata, String>(
 				"Description");
-		descriptionCol.prefWidthProperty().bind(pluginsTableView.widthProperty()
-				.subtract(actionCol.getWidth() + nameCol.getWidth() + versionCol.getWidth() + creatorCol.getWidth()));
+		descriptionCol.prefWidthProperty().bind(pluginsTableView.widthProperty().subtract(actionCol.getWidth()
+				+ nameCol.getWidth() + versionCol.getWidth() + creatorCol.getWidth() + latencyCol.getWidth()));
 		descriptionCol.setCellValueFactory(new PropertyValueFactory<PluginMetadata, String>("Description"));
 		descriptionCol
 				.setCellFactory(new Callback<TableColumn<PluginMetadata, String>, TableCell<PluginMetadata, String>>() {
@@ -139,6 +147,7 @@ public class PluginManagerController {
 		pluginsTableView.getColumns().add(nameCol);
 		pluginsTableView.getColumns().add(versionCol);
 		pluginsTableView.getColumns().add(creatorCol);
+		pluginsTableView.getColumns().add(latencyCol);
 		pluginsTableView.getColumns().add(descriptionCol);
 
 		pluginsTableView.setItems(pluginEntries);
@@ -177,6 +186,24 @@ public class PluginManagerController {
 		}
 	}
 
+	/**
+	 * Summarize how long an installed exercise has been taking to handle
+	 * shots and target changes since ShootOFF started.
+	 */
+	private String getLatency(PluginMetadata metadata) {
+		final Optional<ExerciseWatchdog.LatencySummary> summary = exerciseWatchdog.getSummary(metadata.getName());
+
+		if (!summary.isPresent() || summary.get().getCallCount() == 0) return "";
+
+		final String latency = String.format("p99 %.1f ms", summary.get().getP99Latency());
+
+		if (summary.get().isOffloaded()) return latency + " (offloaded)";
+
+		if (summary.get().getOverBudgetCount() > 0) return latency + " (slow)";
+
+		return latency;
+	}
+
 	private class ActionTableCell extends TableCell<PluginMetadata, String> {
 		private TableColumn<PluginMetadata, String> actionColumn;
 		private Optional<Task<Boolean>> downloadTask = Optional.empty();
@@ -306,6 +333,9 @@ public class PluginManagerController {
 	}
 
 	private boolean uninstallPlugin(final Plugin plugin) {
+		// Release the jar first, otherwise Windows won't let us delete it
+		pluginEngine.unloadPlugin(plugin);
+
 		if (!plugin.getJarPath().toFile().delete()) {
 			logger.error("Failed to uninstall file {} -- if Windows it's because the OS has a write lock on the file", plugin.getJarPath().toString());
 			return false;
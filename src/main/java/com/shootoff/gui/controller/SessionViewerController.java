@@ -22,7 +22,6 @@ import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -40,8 +39,13 @@ import org.slf4j.LoggerFactory;
 import com.shootoff.config.Configuration;
 import com.shootoff.gui.SessionCanvasManager;
 import com.shootoff.session.Event;
+import com.shootoff.session.SessionKeyframes;
 import com.shootoff.session.SessionRecorder;
 import com.shootoff.session.ShotEvent;
+import com.shootoff.session.analytics.ShotAnalytics;
+import com.shootoff.session.analytics.ShotStatistics;
+import com.shootoff.session.io.SessionCatalog;
+import com.shootoff.session.io.SessionCatalog.SessionSummary;
 import com.shootoff.session.io.SessionIO;
 import com.shootoff.util.NamedThreadFactory;
 
@@ -64,19 +68,21 @@ import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.Slider;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
-import marytts.util.io.FileFilter;
 
 public class SessionViewerController {
 	@FXML private HBox sessionViewerPane;
-	@FXML private ListView<File> sessionListView;
+	@FXML private TextField sessionFilterField;
+	@FXML private ListView<SessionSummary> sessionListView;
 	@FXML private TabPane cameraTabPane;
 	@FXML private Button togglePlaybackButton;
 	@FXML private Slider timeSlider;
 	@FXML private Label timeLabel;
+	@FXML private Label sessionStatisticsLabel;
 	@FXML private ListView<Event> eventsListView;
 
 	private static final int STEP_INTERVAL = 100; // ms
@@ -84,32 +90,45 @@ public class SessionViewerController {
 
 	private final Logger logger = LoggerFactory.getLogger(SessionViewerController.class);
 	private ScheduledExecutorService executorService;
-	private final ObservableList<File> sessionEntries = FXCollections.observableArrayList();
-	private final ObservableList<Event> eventEntries = FXCollections.observableArrayList();
+	private final ObservableList<SessionSummary> sessionEntries = FXCollections.observableArrayList();
+	// A view of the selected camera's events, not a copy, so binary sessions
+	// only decode the blocks that are shown or seeked to
+	private ObservableList<Event> eventEntries = FXCollections.emptyObservableList();
 	private final Map<String, SessionCanvasManager> cameraGroups = new HashMap<String, SessionCanvasManager>();
 	private final Map<Tab, Integer> eventSelectionsPerTab = new HashMap<Tab, Integer>();
+	private final Map<String, SessionKeyframes> keyframesPerCamera = new HashMap<String, SessionKeyframes>();
 
+	// Only the statistics for the latest list of sessions are shown
+	private int statisticsRequest = 0;
 	private boolean isPlaying = false;
 	private boolean refreshFromSlider = true;
 	private boolean refreshFromSelection = true;
 	private SessionRecorder currentSession;
+	private String currentSessionFile;
 
 	private Configuration config;
+	private SessionCatalog sessionCatalog;
 
 	public void init(Configuration config) {
 		this.config = config;
-		sessionEntries.addAll(findSessions());
 		sessionListView.setItems(sessionEntries);
+		findSessions();
+
+		sessionFilterField.textProperty().addListener((observable, oldValue, newValue) -> updateSessionEntries());
 
 		togglePlaybackButton.setGraphic(new ImageView(
 				new Image(VideoPlayerController.class.getResourceAsStream("/images/gnome_media_playback_start.png"))));
 
-		sessionListView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<File>() {
-			public void changed(ObservableValue<? extends File> ov, File oldFile, File newFile) {
+		sessionListView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<SessionSummary>() {
+			public void changed(ObservableValue<? extends SessionSummary> ov, SessionSummary oldSummary,
+					SessionSummary newSummary) {
+				// Filtering re-selects the same session, which is already loaded
+				if (newSummary == null || newSummary.getFileName().equals(currentSessionFile)) return;
+
 				if (isPlaying) togglePlaybackButton.fire();
 
 				Optional<SessionRecorder> session = SessionIO.loadSession(new File(System.getProperty("shootoff.home")
-						+ File.separator + "sessions" + File.separator + newFile.getName()));
+						+ File.separator + "sessions" + File.separator + newSummary.getFileName()));
 
 				if (session.isPresent()) {
 					refreshFromSlider = false;
@@ -117,6 +136,7 @@ public class SessionViewerController {
 					refreshFromSlider = true;
 
 					currentSession = session.get();
+					currentSessionFile = newSummary.getFileName();
 					updateCameraTabs();
 
 					Tab selectedTab = cameraTabPane.getSelectionModel().getSelectedItem();
@@ -125,7 +145,7 @@ public class SessionViewerController {
 						String cameraName = selectedTab.getText();
 						listCameraEvents(cameraName);
 					} else {
-						eventEntries.clear();
+						showEvents(Collections.emptyList());
 					}
 				}
 			}
@@ -141,10 +161,9 @@ public class SessionViewerController {
 
 				listCameraEvents(newTab.getText());
 
-				List<Event> cameraEvents = currentSession.getCameraEvents(newTab.getText());
 				refreshFromSlider = false;
 				timeSlider.setValue(0);
-				timeSlider.setMax(cameraEvents.get(cameraEvents.size() - 1).getTimestamp());
+				timeSlider.setMax(eventEntries.get(eventEntries.size() - 1).getTimestamp());
 				refreshFromSlider = true;
 
 				if (eventSelectionsPerTab.containsKey(newTab)) {
@@ -165,14 +184,9 @@ public class SessionViewerController {
 
 				if (!refreshFromSelection) return;
 
-				int oldIndex = eventEntries.indexOf(oldEvent);
-				int newIndex = eventEntries.indexOf(newEvent);
-
-				if (oldIndex <= newIndex) {
-					updateEvents(oldIndex, newIndex, EventsUpdate.DO);
-				} else {
-					updateEvents(oldIndex, newIndex, EventsUpdate.UNDO);
-				}
+				final String cameraName = cameraTabPane.getSelectionModel().getSelectedItem().getText();
+				cameraGroups.get(cameraName).showEvent(eventEntries, keyframesPerCamera.get(cameraName),
+						eventsListView.getSelectionModel().getSelectedIndex());
 			}
 		});
 
@@ -227,15 +241,8 @@ public class SessionViewerController {
 
 				if (!refreshFromSlider) return;
 
-				List<Event> reversedEntries = new ArrayList<Event>(eventEntries);
-				Collections.reverse(reversedEntries);
-
-				for (Event e : reversedEntries) {
-					if (e.getTimestamp() <= newValue.longValue()) {
-						eventsListView.getSelectionModel().select(e);
-						break;
-					}
-				}
+				final int eventIndex = SessionKeyframes.indexAt(eventEntries, newValue.longValue());
+				if (eventIndex >= 0) eventsListView.getSelectionModel().select(eventIndex);
 			}
 		});
 	}
@@ -246,32 +253,80 @@ public class SessionViewerController {
 		timeLabel.setText(formatter.format(date));
 	}
 
-	private List<File> findSessions() {
+	/**
+	 * List the sessions in the catalog right away, then bring the catalog up
+	 * to date in the background so only new or changed sessions are read.
+	 */
+	private void findSessions() {
 		final File sessionsFolder = new File(System.getProperty("shootoff.sessions"));
-		final List<File> sessions = new ArrayList<File>();
 
 		if (!sessionsFolder.exists()) {
 			logger.debug("No sessions folder available");
-			return sessions;
+			return;
 		}
 
-		File[] sessionFiles = sessionsFolder.listFiles(new FileFilter("xml"));
+		sessionCatalog = SessionCatalog.open(sessionsFolder);
+		updateSessionEntries();
+
+		sessionCatalog.refreshInBackground(() -> Platform.runLater(this::updateSessionEntries));
+	}
+
+	private void updateSessionEntries() {
+		if (sessionCatalog == null) return;
+
+		final SessionSummary selected = sessionListView.getSelectionModel().getSelectedItem();
+
+		sessionEntries.setAll(sessionCatalog.query(SessionCatalog.textFilter(sessionFilterField.getText()),
+				SessionCatalog.NEWEST_FIRST));
+		updateSessionStatistics();
 
-		if (sessionFiles != null) {
-			for (File file : sessionFiles) {
-				sessions.add(new File(file.getName()));
+		if (selected != null) {
+			for (SessionSummary summary : sessionEntries) {
+				if (summary.getFileName().equals(selected.getFileName())) {
+					sessionListView.getSelectionModel().select(summary);
+					break;
+				}
 			}
-		} else {
-			logger.error("Failed to find session files because a list of files could not be retrieved: "
-					+ "sessionsFolder = {}", sessionsFolder.getPath());
 		}
+	}
+
+	private void updateSessionStatistics() {
+		final int request = ++statisticsRequest;
+
+		ShotAnalytics.analyzeInBackground(sessionCatalog.getSessionsDirectory(), sessionEntries,
+				(statistics) -> Platform.runLater(() -> {
+					if (request == statisticsRequest) sessionStatisticsLabel.setText(describe(statistics));
+				}));
+	}
+
+	private static String describe(ShotStatistics statistics) {
+		if (statistics.getSessionCount() == 0) return "";
+
+		long shotCount = 0;
+		double hitCount = 0;
+		for (final String exercise : statistics.getExercises()) {
+			final long exerciseShots = statistics.getShotCount(exercise);
+			shotCount += exerciseShots;
+			hitCount += statistics.getHitRatio(exercise) * exerciseShots;
+		}
+
+		final StringBuilder description = new StringBuilder(String.format("%d session%s, %d shot%s",
+				statistics.getSessionCount(), statistics.getSessionCount() == 1 ? "" : "s", shotCount,
+				shotCount == 1 ? "" : "s"));
+
+		if (shotCount > 0) description.append(String.format(", %.0f%% hits", hitCount * 100 / shotCount));
 
-		return sessions;
+		if (statistics.getSplitTimes().getCount() > 0) {
+			description.append(String.format(", median split %d ms", statistics.getSplitTimes().getPercentile(50)));
+		}
+
+		return description.toString();
 	}
 
 	private void updateCameraTabs() {
 		cameraTabPane.getTabs().clear();
 		cameraGroups.clear();
+		keyframesPerCamera.clear();
 		eventSelectionsPerTab.clear();
 
 		for (String cameraName : currentSession.getEvents().keySet()) {
@@ -289,34 +344,17 @@ public class SessionViewerController {
 	}
 
 	private void listCameraEvents(String cameraName) {
-		eventEntries.clear();
-		eventEntries.addAll(currentSession.getCameraEvents(cameraName));
-	}
-
-	private enum EventsUpdate {
-		DO, UNDO
-	}
-
-	private void updateEvents(int oldIndex, int newIndex, EventsUpdate updateType) {
-		List<Event> events;
+		final List<Event> cameraEvents = currentSession.getCameraEvents(cameraName);
+		showEvents(cameraEvents);
 
-		if (updateType == EventsUpdate.DO) {
-			events = new ArrayList<Event>(eventEntries.subList(oldIndex + 1, newIndex + 1));
-		} else {
-			events = new ArrayList<Event>(eventEntries.subList(newIndex + 1, oldIndex + 1));
-			Collections.reverse(events);
+		if (!keyframesPerCamera.containsKey(cameraName)) {
+			keyframesPerCamera.put(cameraName, SessionKeyframes.build(cameraEvents));
 		}
+	}
 
-		SessionCanvasManager currentCanvasManager = cameraGroups
-				.get(cameraTabPane.getSelectionModel().getSelectedItem().getText());
-
-		for (Event e : events) {
-			if (updateType == EventsUpdate.DO) {
-				currentCanvasManager.doEvent(e);
-			} else {
-				currentCanvasManager.undoEvent(e);
-			}
-		}
+	private void showEvents(List<Event> events) {
+		eventEntries = FXCollections.unmodifiableObservableList(FXCollections.observableList(events));
+		eventsListView.setItems(eventEntries);
 	}
 
 	@FXML
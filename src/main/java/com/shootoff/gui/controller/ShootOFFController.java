@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -36,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import com.shootoff.Closeable;
 import com.shootoff.Main;
+import com.shootoff.audio.AudioEngine;
 import com.shootoff.camera.Camera;
 import com.shootoff.camera.CameraErrorView;
 import com.shootoff.camera.CameraManager;
@@ -53,28 +55,34 @@ import com.shootoff.gui.ExerciseListener;
 import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.Resetter;
 import com.shootoff.gui.ShotEntry;
+import com.shootoff.gui.ShotLog;
+import com.shootoff.gui.UiUpdateDispatcher;
 import com.shootoff.gui.pane.ExerciseSlide;
 import com.shootoff.gui.pane.FileSlide;
 import com.shootoff.gui.pane.ShotSectorPane;
 import com.shootoff.gui.pane.TargetSlide;
+import com.shootoff.plugins.ExerciseStatistics;
+import com.shootoff.plugins.ExerciseWatchdog;
 import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
 import com.shootoff.plugins.TrainingExerciseBase;
 import com.shootoff.plugins.engine.Plugin;
 import com.shootoff.plugins.engine.PluginEngine;
+import com.shootoff.plugins.engine.PluginExercise;
+import com.shootoff.session.Event;
 import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.analytics.ShotAnalytics;
+import com.shootoff.session.io.SessionCatalog;
+import com.shootoff.session.io.SessionCatalog.SessionSummary;
 import com.shootoff.session.io.SessionIO;
 import com.shootoff.targets.Target;
 import com.shootoff.targets.CameraViews;
-import com.shootoff.targets.TargetRegion;
 import com.shootoff.util.TimerPool;
 
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
-import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -84,6 +92,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.control.RadioMenuItem;
@@ -96,13 +105,13 @@ import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleGroup;
+import javafx.scene.control.Tooltip;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import javafx.scene.shape.Shape;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
@@ -117,6 +126,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 	@FXML private ToggleGroup trainingToggleGroup;
 	@FXML private TabPane cameraTabPane;
 	@FXML private TableView<ShotEntry> shotTimerTable;
+	@FXML private Label exerciseStatisticsLabel;
 	@FXML private MenuItem startArenaMenuItem;
 	@FXML private MenuItem toggleArenaCalibrationMenuItem;
 	@FXML private Menu calibrationOptionsMenu;
@@ -137,7 +147,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 	private Configuration config;
 	private PluginEngine pluginEngine;
 	private static final Logger logger = LoggerFactory.getLogger(ShootOFFController.class);
-	private final ObservableList<ShotEntry> shotEntries = FXCollections.observableArrayList();
+	private final ShotLog shotEntries = new ShotLog();
 	private final List<Stage> streamDebuggerStages = new ArrayList<Stage>();
 
 	private ProjectorArenaController arenaController;
@@ -164,6 +174,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		exerciseSlide = new ExerciseSlide(controlsContainer, bodyContainer, this);
 
 		pluginEngine = new PluginEngine(exerciseSlide);
+		config.getExerciseWatchdog().addBudgetListener(this::showExerciseLatencyWarning);
 
 		
 		initDefaultBackgrounds();
@@ -235,7 +246,8 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			public void onChanged(Change<? extends ShotEntry> change) {
 				change.next();
 				if (change.getAddedSize() < 1) return;
-				Platform.runLater(() -> {
+				// A burst of shots only needs to scroll once
+				UiUpdateDispatcher.runLatest(shotTimerTable, () -> {
 					final int size = shotTimerTable.getItems().size();
 					if (size > 0) shotTimerTable.scrollTo(size - 1);
 				});
@@ -256,24 +268,13 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			public void onChanged(Change<? extends ShotEntry> change) {
 				while (change.next()) {
 					for (ShotEntry unselected : change.getRemoved()) {
-						unselected.getShot().getMarker().setFill(unselected.getShot().getColor());
+						for (CameraView cv : camerasSupervisor.getCameraViews())
+							((CanvasManager) cv).setShotSelected(unselected.getShot(), false);
 					}
 
 					for (ShotEntry selected : change.getAddedSubList()) {
-						selected.getShot().getMarker().setFill(TargetRegion.SELECTED_STROKE_COLOR);
-
-						// Move all selected shots to top the of their z-stack
-						// to ensure visibility
-						for (CameraView cv : camerasSupervisor.getCameraViews()) {
-							CanvasManager cm = (CanvasManager) cv;
-
-							Shape marker = selected.getShot().getMarker();
-							if (cm.getCanvasGroup().getChildren()
-									.indexOf(marker) < cm.getCanvasGroup().getChildren().size() - 1) {
-								cm.getCanvasGroup().getChildren().remove(marker);
-								cm.getCanvasGroup().getChildren().add(cm.getCanvasGroup().getChildren().size(), marker);
-							}
-						}
+						for (CameraView cv : camerasSupervisor.getCameraViews())
+							((CanvasManager) cv).setShotSelected(selected.getShot(), true);
 					}
 				}
 			}
@@ -299,6 +300,18 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 
 		splitCol.setCellFactory(column -> {
 			return new TableCell<ShotEntry, ShotEntry.SplitData>() {
+				private final Tooltip stringSummary = new Tooltip();
+
+				{
+					// The string keeps growing after the row is drawn, so
+					// summarize it when the tooltip is shown
+					stringSummary.setOnShowing((event) -> {
+						if (getIndex() >= 0 && getIndex() < shotEntries.size()) {
+							stringSummary.setText(shotEntries.getStringSummary(getIndex()).toString());
+						}
+					});
+				}
+
 				@Override
 				public void updateItem(ShotEntry.SplitData item, boolean empty) {
 					super.updateItem(item, empty);
@@ -306,10 +319,12 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 					if (item == null || empty) {
 						setText(null);
 						setStyle("");
+						setTooltip(null);
 						return;
 					}
 
 					setText(item.getSplit());
+					setTooltip(stringSummary);
 
 					if (item.hadMalfunction()) {
 						setStyle("-fx-background-color: orange");
@@ -337,7 +352,10 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		camerasSupervisor.closeAll();
 		pluginEngine.stopWatching();
 
-		if (config.getExercise().isPresent()) config.getExercise().get().destroy();
+		if (config.getExercise().isPresent()) {
+			config.getExerciseWatchdog().release(config.getExercise().get());
+			config.getExercise().get().destroy();
+		}
 
 		if (arenaController != null) {
 			arenaController.getCanvasManager().close();
@@ -353,6 +371,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		}
 
 		TimerPool.close();
+		AudioEngine.getDefault().close();
 		GlobalExecutorPool.getPool().shutdownNow();
 
 		if (!config.getVideoPlayers().isEmpty()) {
@@ -641,14 +660,42 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 				cm.stopRecordingShots();
 			}
 
-			SessionIO.saveSession(config.getSessionRecorder().get(), new File(System.getProperty("shootoff.home")
-					+ File.separator + "sessions/" + config.getSessionRecorder().get().getSessionName() + ".xml"));
+			final SessionRecorder sessionRecorder = config.getSessionRecorder().get();
+			final File sessionFile = new File(System.getProperty("shootoff.home") + File.separator + "sessions/"
+					+ sessionRecorder.getSessionName() + ".xml");
+
+			sessionRecorder.close();
+
+			// Read the journal once, the events are reused after the journal
+			// is deleted
+			final Map<String, List<Event>> events = sessionRecorder.getEvents();
+			SessionIO.saveSession(events, sessionFile);
+
+			// Keep the journal so the session can be recovered if it couldn't
+			// be exported
+			if (sessionFile.exists()) {
+				sessionRecorder.deleteJournal();
+
+				final Optional<String> exercise = config.getExercise().isPresent()
+						? Optional.of(config.getExercise().get().getInfo().getName()) : Optional.empty();
+				final SessionCatalog catalog = SessionCatalog.open(sessionFile.getParentFile());
+				catalog.update(sessionFile, events, exercise);
+
+				final Optional<SessionSummary> summary = catalog.getSummary(sessionFile.getName());
+				if (summary.isPresent()) ShotAnalytics.sessionSaved(sessionFile, summary.get(), events);
+			}
 
 			config.setSessionRecorder(null);
 
 			toggleSessionRecordingMenuItem.setText("Record Session");
 		} else {
-			config.setSessionRecorder(new SessionRecorder());
+			try {
+				config.setSessionRecorder(new SessionRecorder(
+						new File(System.getProperty("shootoff.home") + File.separator + "sessions")));
+			} catch (IOException e) {
+				logger.error("Error creating session journal, recording the session in memory instead", e);
+				config.setSessionRecorder(new SessionRecorder());
+			}
 
 			for (CameraManager cm : config.getRecordingManagers()) {
 				cm.startRecordingShots();
@@ -881,7 +928,13 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 				knownTargets.addAll(arenaController.getCanvasManager().getTargets());
 			}
 
-			config.getExercise().get().reset(knownTargets);
+			final TrainingExercise exercise = config.getExercise().get();
+			if (exercise instanceof TrainingExerciseBase) {
+				((TrainingExerciseBase) exercise).getExerciseStatistics().reset();
+			}
+
+			config.getExerciseWatchdog().discardPending(exercise);
+			exercise.reset(knownTargets);
 		}
 
 		disableShotDetection(1000);
@@ -1006,6 +1059,67 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		});
 	}
 
+	private void showExerciseLatencyWarning(ExerciseWatchdog.LatencySummary summary) {
+		Platform.runLater(() -> {
+			Alert latencyAlert = new Alert(AlertType.WARNING);
+
+			String message = String.format("The exercise %s took %.1f ms to handle a shot or target change, which is"
+					+ " over the %d ms budget. While an exercise is slow, shot markers and other exercises may lag"
+					+ " behind. The exercise manager shows how long each exercise is taking.",
+					summary.getExerciseName(), summary.getMaxLatency(), config.getExerciseLatencyBudget());
+
+			if (ExerciseWatchdog.BudgetAction.OFFLOAD.equals(config.getExerciseBudgetAction())) {
+				message += " If it stays slow it will be moved off of the shot path.";
+			}
+
+			latencyAlert.setTitle("Slow Exercise");
+			latencyAlert.setHeaderText("An exercise is slowing down shot processing!");
+			latencyAlert.setResizable(true);
+			latencyAlert.setContentText(message);
+			latencyAlert.initOwner(getStage());
+			latencyAlert.show();
+		});
+	}
+
+	// Statistics are recorded on camera threads, refresh the label only after
+	// a shot was folded in so it never shows the previous shot's totals
+	private void showExerciseStatistics(TrainingExerciseBase exercise) {
+		exercise.getExerciseStatistics().setUpdateListener(
+				() -> UiUpdateDispatcher.runLatest(exerciseStatisticsLabel, this::updateExerciseStatistics));
+	}
+
+	/**
+	 * Show the running exercise's statistics under the shot timer table. Only
+	 * exercises based on {@link TrainingExerciseBase} keep statistics.
+	 */
+	private void updateExerciseStatistics() {
+		final Optional<TrainingExercise> exercise = config.getExercise();
+
+		if (!exercise.isPresent() || !(exercise.get() instanceof TrainingExerciseBase)) {
+			exerciseStatisticsLabel.setText("");
+			exerciseStatisticsLabel.setVisible(false);
+			exerciseStatisticsLabel.setManaged(false);
+			return;
+		}
+
+		final ExerciseStatistics.Snapshot statistics = ((TrainingExerciseBase) exercise.get())
+				.getExerciseStatistics().getSnapshot();
+
+		String text = String.format("Hits: %d/%d (%.0f%%)", statistics.getHitCount(), statistics.getShotCount(),
+				statistics.getHitRatio() * 100);
+
+		if (statistics.getScore() > 0) text += String.format("  Score: %d", statistics.getScore());
+
+		if (statistics.getLastSplit().isPresent()) {
+			text += String.format("%nSplits: mean %.2f s, fastest %.2f s", statistics.getMeanSplit() / 1000,
+					statistics.getFastestSplit() / 1000);
+		}
+
+		exerciseStatisticsLabel.setText(text);
+		exerciseStatisticsLabel.setVisible(true);
+		exerciseStatisticsLabel.setManaged(true);
+	}
+
 	@Override
 	public void showBrightnessWarning(Camera webcam) {
 		Platform.runLater(() -> {
@@ -1036,14 +1150,17 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 
 	@Override
 	public void setExercise(TrainingExercise exercise) {
+		UiUpdateDispatcher.runLatest(exerciseStatisticsLabel, this::updateExerciseStatistics);
+
 		try {
 			if (exercise == null)
 			{
 				config.setExercise(null);
+				config.setPlugin(null);
 				return;
 			}
 			
-			Constructor<?> ctor = exercise.getClass().getConstructor(List.class);
+			Constructor<?> ctor = getExerciseClass(exercise).getConstructor(List.class);
 
 			List<Target> knownTargets = new ArrayList<Target>();
 			knownTargets.addAll(getTargets());
@@ -1062,6 +1179,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			}
 
 			config.setExercise(newExercise);
+			showExerciseStatistics((TrainingExerciseBase) newExercise);
 
 			((TrainingExerciseBase) newExercise).init(config, camerasSupervisor, this);
 			newExercise.init();
@@ -1072,8 +1190,10 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 
 	@Override
 	public void setProjectorExercise(TrainingExercise exercise) {
+		UiUpdateDispatcher.runLatest(exerciseStatisticsLabel, this::updateExerciseStatistics);
+
 		try {
-			Constructor<?> ctor = exercise.getClass().getConstructor(List.class);
+			Constructor<?> ctor = getExerciseClass(exercise).getConstructor(List.class);
 			TrainingExercise newExercise = (TrainingExercise) ctor
 					.newInstance(arenaController.getCanvasManager().getTargets());
 
@@ -1085,6 +1205,7 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 			}
 
 			config.setExercise(newExercise);
+			showExerciseStatistics((TrainingExerciseBase) newExercise);
 
 			((ProjectorTrainingExerciseBase) newExercise).init(config, camerasSupervisor, this, arenaController);
 			newExercise.init();
@@ -1093,6 +1214,16 @@ public class ShootOFFController implements CameraConfigListener, CameraErrorView
 		}
 	}
 
+	/**
+	 * Plugin exercises are registered as placeholders until they are
+	 * selected, so load the real exercise class from the plugin's jar.
+	 */
+	private Class<?> getExerciseClass(TrainingExercise exercise) throws ClassNotFoundException {
+		if (exercise instanceof PluginExercise) return ((PluginExercise) exercise).getPlugin().getExerciseClass();
+
+		return exercise.getClass();
+	}
+
 	@Override
 	public PluginEngine getPluginEngine() {
 		return pluginEngine;
@@ -22,8 +22,8 @@ import java.awt.image.BufferedImage;
 
 import com.shootoff.camera.CameraDebuggerListener;
 import com.shootoff.camera.CameraManager;
+import com.shootoff.gui.UiUpdateDispatcher;
 
-import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.embed.swing.SwingFXUtils;
@@ -67,7 +67,7 @@ public class StreamDebuggerController implements CameraDebuggerListener {
 
 	@Override
 	public void updateFeedData(double fps) {
-		Platform.runLater(() -> {
+		UiUpdateDispatcher.runLatest(streamDebuggerStage, () -> {
 			streamDebuggerStage.setTitle(String.format(defaultWindowTitle + " %.2f FPS", fps));
 		});
 	}
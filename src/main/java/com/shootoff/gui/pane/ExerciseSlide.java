@@ -2,10 +2,13 @@ package com.shootoff.gui.pane;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.config.Configuration;
 import com.shootoff.gui.ExerciseListener;
 import com.shootoff.gui.container.ItemSelectionPane;
 import com.shootoff.gui.container.listeners.ItemSelectionListener;
@@ -13,7 +16,11 @@ import com.shootoff.gui.controller.PluginManagerController;
 import com.shootoff.gui.controller.SessionViewerController;
 import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
+import com.shootoff.plugins.engine.Plugin;
+import com.shootoff.plugins.engine.PluginExercise;
 import com.shootoff.plugins.engine.PluginListener;
+import com.shootoff.plugins.engine.PluginType;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.Pane;
@@ -37,7 +44,9 @@ public class ExerciseSlide extends Slide implements PluginListener, ItemSelectio
 
 			if (loader.isPresent()) {
 				PluginManagerController pluginManagerController = (PluginManagerController) loader.get().getController();
-				pluginManagerController.init(exerciseListener.getPluginEngine(), (Stage) parentControls.getScene().getWindow());
+				pluginManagerController.init(exerciseListener.getPluginEngine(),
+						exerciseListener.getConfiguration().getExerciseWatchdog(),
+						(Stage) parentControls.getScene().getWindow());
 				
 				final PluginManagerSlide pluginViewerSlide = new PluginManagerSlide(parentControls, parentBody, pluginManagerController);
 				pluginViewerSlide.showControls();
@@ -123,6 +132,37 @@ public class ExerciseSlide extends Slide implements PluginListener, ItemSelectio
 		itemPane.removeButton(exercise);
 	}
 
+	@Override
+	public void stopPluginExercise(Plugin plugin) {
+		final Configuration config = exerciseListener.getConfiguration();
+
+		final FutureTask<Void> stopExercise = new FutureTask<Void>(() -> {
+			final Optional<Plugin> currentPlugin = config.getPlugin();
+			if (!currentPlugin.isPresent() || currentPlugin.get() != plugin) return;
+
+			// Destroys the running exercise and clears the current plugin
+			exerciseListener.setExercise(null);
+			itemPane.setSelection("None");
+		}, null);
+
+		if (Platform.isFxApplicationThread()) {
+			stopExercise.run();
+			return;
+		}
+
+		// Plugins are unloaded from the plugin watcher thread, which must
+		// wait for the exercise to stop before the plugin is closed
+		Platform.runLater(stopExercise);
+
+		try {
+			stopExercise.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to stop the exercise of unloaded plugin " + plugin.getJarPath(), e.getCause());
+		}
+	}
+
 	public void disableProjectorExercises() {
 		// TODO Implement
 		
@@ -134,7 +174,8 @@ public class ExerciseSlide extends Slide implements PluginListener, ItemSelectio
 		{
 			exerciseListener.setExercise(null);
 		}
-		else if (ref instanceof ProjectorTrainingExerciseBase)
+		else if (ref instanceof ProjectorTrainingExerciseBase || (ref instanceof PluginExercise
+				&& PluginType.PROJECTOR_ONLY.equals(((PluginExercise) ref).getPlugin().getType())))
 		{
 			exerciseListener.setProjectorExercise((TrainingExercise)ref);
 		}
@@ -10,15 +10,14 @@ import org.slf4j.LoggerFactory;
 
 import com.shootoff.camera.CameraManager;
 import com.shootoff.gui.TargetListener;
+import com.shootoff.gui.TargetThumbnailRenderer;
+import com.shootoff.gui.ThumbnailCache;
 import com.shootoff.gui.container.ItemSelectionPane;
 import com.shootoff.gui.container.listeners.ItemSelectionListener;
 import com.shootoff.gui.controller.TargetEditorController;
 import com.shootoff.targets.CameraViews;
-import com.shootoff.targets.io.TargetIO;
-import com.shootoff.targets.io.TargetIO.TargetComponents;
 
 import javafx.fxml.FXMLLoader;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
@@ -31,11 +30,16 @@ public class TargetSlide extends Slide implements TargetListener, ItemSelectionL
 	private final Pane parentBody;
 	private final CameraViews cameraViews;
 	
+	private static final int THUMBNAIL_SIZE = 90;
+	private static final int THUMBNAIL_FIT_SIZE = 45;
+	
 	private final ItemSelectionPane itemPane = new ItemSelectionPane(false, this);
+	private final TargetThumbnailRenderer thumbnailRenderer = new TargetThumbnailRenderer();
 	
 	private enum Mode { ADD, EDIT };
 	
 	private Mode mode;
+	private boolean foundTargets = false;
 	
 	public TargetSlide(Pane parentControls, Pane parentBody, CameraViews cameraViews) {
 		super(parentControls, parentBody);
@@ -71,8 +75,18 @@ public class TargetSlide extends Slide implements TargetListener, ItemSelectionL
 		this.cameraViews = cameraViews;		
 		
 		addBodyNode(itemPane);
-		
-		findTargets();
+	}
+
+	@Override
+	public void showBody() {
+		// Targets are only listed the first time they are needed so that
+		// scanning the targets folder doesn't slow down start-up
+		if (!foundTargets) {
+			foundTargets = true;
+			findTargets();
+		}
+
+		super.showBody();
 	}
 
 	private void findTargets() {
@@ -92,24 +106,27 @@ public class TargetSlide extends Slide implements TargetListener, ItemSelectionL
 
 	@Override
 	public void newTarget(File targetFile) {
-		final Optional<TargetComponents> targetComponents = TargetIO.loadTarget(targetFile);
+		// Will be picked up when the targets folder is scanned
+		if (!foundTargets) return;
 
-		if (!targetComponents.isPresent()) {
-			logger.error("Notified of a new target that cannot be loaded: {}", targetFile.getAbsolutePath());
-			return;
-		}
-		
-		final Image targetImage = targetComponents.get().getTargetGroup().snapshot(new SnapshotParameters(), null);
+		// Show the target right away and fill in its thumbnail once it has
+		// been rendered in the background
 		final ImageView targetImageView = new ImageView();
-		targetImageView.setFitWidth(45);
-		targetImageView.setFitHeight(45);
+		targetImageView.setFitWidth(THUMBNAIL_FIT_SIZE);
+		targetImageView.setFitHeight(THUMBNAIL_FIT_SIZE);
+		targetImageView.setPreserveRatio(true);
 		targetImageView.setSmooth(true);
-		targetImageView.setImage(targetImage);
 		
 		final String targetPath = targetFile.getPath();
 		final String targetName = targetPath.substring(targetPath.lastIndexOf(File.separator) + 1, targetPath.lastIndexOf('.')).replace("_", " ");
 		
 		itemPane.addButton(targetFile, targetName, Optional.of(targetImageView), Optional.empty());
+
+		ThumbnailCache.getDefault().request(targetFile, THUMBNAIL_SIZE, thumbnailRenderer, targetImageView::setImage,
+				() -> {
+					logger.error("Notified of a new target that cannot be loaded: {}", targetFile.getAbsolutePath());
+					itemPane.removeButton(targetFile);
+				});
 	}
 
 	private Optional<FXMLLoader> createTargetEditorStage() {
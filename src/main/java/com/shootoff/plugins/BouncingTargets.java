@@ -24,43 +24,42 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.geometry.Bounds;
-import javafx.geometry.Dimension2D;
 import javafx.geometry.HPos;
-import javafx.geometry.Point2D;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
-import javafx.util.Duration;
 
 import com.shootoff.camera.Shot;
 import com.shootoff.targets.Hit;
 import com.shootoff.targets.Target;
+import com.shootoff.targets.animation.MotionEngine;
 
 public class BouncingTargets extends ProjectorTrainingExerciseBase implements TrainingExercise {
+	// Speeds are chosen in pixels per 20 ms, which was the original frame
+	// length
+	private static final int SPEED_SCALE = 50; // (px/s) / (px/frame)
+	private static final int SHOOT_GROUP = 0;
+	private static final int DONT_SHOOT_GROUP = 1;
+
 	private int shootCount = 4;
 	private int dontShootCount = 1;
-	private static int maxVelocity = 10;
+	private int maxVelocity = 10;
 	private boolean removeShootTargets = false;
 
-	private static final List<BouncingTarget> shootTargets = new ArrayList<BouncingTarget>();
-	private static final List<BouncingTarget> dontShootTargets = new ArrayList<BouncingTarget>();
+	private final List<BouncingTarget> shootTargets = new ArrayList<BouncingTarget>();
+	private final List<BouncingTarget> dontShootTargets = new ArrayList<BouncingTarget>();
 
-	private static ProjectorTrainingExerciseBase thisSuper;
-	private Timeline targetAnimation;
+	private MotionEngine motionEngine;
 	private int score = 0;
 
 	public BouncingTargets() {}
 
 	public BouncingTargets(List<Target> targets) {
 		super(targets);
-		setThisSuper(super.getInstance());
 	}
 
 	@Override
@@ -70,7 +69,7 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 	protected void init(int shootCount, int dontShootCount, int maxVelocity) {
 		this.shootCount = shootCount;
 		this.dontShootCount = dontShootCount;
-		setMaxVelocity(maxVelocity);
+		this.maxVelocity = maxVelocity;
 
 		shootTargets.clear();
 		dontShootTargets.clear();
@@ -78,14 +77,6 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 		startExercise();
 	}
 
-	private static void setThisSuper(ProjectorTrainingExerciseBase thisSuper) {
-		BouncingTargets.thisSuper = thisSuper;
-	}
-
-	private static void setMaxVelocity(int maxVelocity) {
-		BouncingTargets.maxVelocity = maxVelocity;
-	}
-
 	@Override
 	public void init() {
 		addSettingControls();
@@ -96,12 +87,16 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 	private void startExercise() {
 		super.showTextOnFeed("Score: 0");
 
-		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", shootCount);
-		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", dontShootCount);
+		if (motionEngine == null) motionEngine = new MotionEngine(this::getArenaWidth, this::getArenaHeight);
 
-		targetAnimation = new Timeline(new KeyFrame(Duration.millis(20), e -> updateTargets()));
-		targetAnimation.setCycleCount(Timeline.INDEFINITE);
-		targetAnimation.play();
+		addAllTargets();
+		motionEngine.start();
+	}
+
+	private void addAllTargets() {
+		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", shootCount, SHOOT_GROUP);
+		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", dontShootCount,
+				DONT_SHOOT_GROUP);
 	}
 
 	private void addSettingControls() {
@@ -147,7 +142,7 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 		final ComboBox<String> maxVelocityComboBox = new ComboBox<String>(maxVelocity);
 		maxVelocityComboBox.getSelectionModel().select(DEFAULT_MAX_VELOCITY - 1);
 		maxVelocityComboBox.valueProperty().addListener((observable, oldValue, newValue) -> {
-			BouncingTargets.maxVelocity = Integer.parseInt(newValue);
+			this.maxVelocity = Integer.parseInt(newValue);
 			stopExercise();
 			startExercise();
 	    });
@@ -170,99 +165,36 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 		return dontShootTargets;
 	}
 
-	private void updateTargets() {
-		for (BouncingTarget b : shootTargets)
-			b.moveTarget();
-		for (BouncingTarget b : dontShootTargets)
-			b.moveTarget();
+	protected MotionEngine getMotionEngine() {
+		return motionEngine;
 	}
 
 	protected static class BouncingTarget {
 		private final Target target;
-		private double dx;
-		private double dy;
+		private final double dx; // px/s
+		private final double dy; // px/s
 
-		public BouncingTarget(Target target) {
+		public BouncingTarget(Target target, int maxVelocity) {
 			this.target = target;
 
 			Random r = new Random();
 
-			dx = r.nextInt(maxVelocity + 1) + 1;
-			dy = r.nextInt(maxVelocity + 1) + 1;
+			double dx = (r.nextInt(maxVelocity + 1) + 1) * SPEED_SCALE;
+			double dy = (r.nextInt(maxVelocity + 1) + 1) * SPEED_SCALE;
 
 			if (r.nextBoolean()) dx *= -1;
 			if (r.nextBoolean()) dy *= -1;
+
+			this.dx = dx;
+			this.dy = dy;
 		}
 
 		public Target getTarget() {
 			return target;
 		}
-
-		private enum CollisionType {
-			NONE, COLLISION_X, COLLISION_Y, COLLISION_BOTH;
-		}
-
-		private CollisionType checkCollision() {
-			final Bounds targetBounds = target.getBoundsInParent();
-			List<BouncingTarget> collisionList;
-
-			if (shootTargets.contains(this)) {
-				collisionList = shootTargets;
-			} else {
-				collisionList = dontShootTargets;
-			}
-
-			for (BouncingTarget b : collisionList) {
-				if (b.getTarget().equals(target)) continue;
-
-				final Bounds bBounds = b.getTarget().getBoundsInParent();
-
-				if (targetBounds.intersects(bBounds)) {
-					final boolean atRight = targetBounds.getMaxX() > bBounds.getMinX()
-							&& targetBounds.getMaxX() - bBounds.getMinX() < maxVelocity * 2;
-					final boolean atLeft = bBounds.getMaxX() > bBounds.getMinX()
-							&& bBounds.getMaxX() - bBounds.getMinX() < maxVelocity * 2;
-					final boolean atBottom = targetBounds.getMaxY() > bBounds.getMinY()
-							&& targetBounds.getMaxY() - bBounds.getMinY() < maxVelocity * 2;
-					final boolean atTop = bBounds.getMaxY() > targetBounds.getMinY()
-							&& bBounds.getMaxY() - targetBounds.getMinY() < maxVelocity * 2;
-
-					if ((atRight || atLeft) && (atBottom || atTop)) {
-						return CollisionType.COLLISION_BOTH;
-					} else if (atRight || atLeft) {
-						return CollisionType.COLLISION_X;
-					} else if (atBottom || atTop) {
-						return CollisionType.COLLISION_Y;
-					}
-				}
-			}
-
-			return CollisionType.NONE;
-		}
-
-		public void moveTarget() {
-			if (maxVelocity == 0) return;
-
-			Bounds b = target.getBoundsInParent();
-			Point2D p = target.getPosition();
-			Dimension2D d = target.getDimension();
-			CollisionType ct = checkCollision();
-
-			if (b.getMinX() <= 1 || b.getMinX() + d.getWidth() > thisSuper.getArenaWidth()
-					|| ct == CollisionType.COLLISION_X || ct == CollisionType.COLLISION_BOTH) {
-				dx *= -1;
-			}
-
-			if (b.getMinY() <= 1 || b.getMinY() + d.getHeight() > thisSuper.getArenaHeight()
-					|| ct == CollisionType.COLLISION_X || ct == CollisionType.COLLISION_BOTH) {
-				dy *= -1;
-			}
-
-			target.setPosition(p.getX() + dx, p.getY() + dy);
-		}
 	}
 
-	private void addTargets(List<BouncingTarget> targets, String target, int count) {
+	private void addTargets(List<BouncingTarget> targets, String target, int count, int collisionGroup) {
 		for (int i = 0; i < count; i++) {
 			Optional<Target> newTarget = super.addTarget(new File(target), 0, 0);
 
@@ -276,7 +208,12 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 
 				newTarget.get().setPosition(x, y);
 
-				targets.add(new BouncingTarget(newTarget.get()));
+				final BouncingTarget bouncingTarget = new BouncingTarget(newTarget.get(), maxVelocity);
+				targets.add(bouncingTarget);
+
+				if (maxVelocity > 0) {
+					motionEngine.add(newTarget.get(), bouncingTarget.dx, bouncingTarget.dy, collisionGroup);
+				}
 			}
 		}
 	}
@@ -301,6 +238,7 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 					super.showTextOnFeed(String.format("Score: %d", score));
 					
 					if (removeShootTargets) {
+						motionEngine.remove(hit.get().getTarget());
 						super.removeTarget(hit.get().getTarget());
 						
 						if (score == shootTargets.size()) {
@@ -332,7 +270,8 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 	}
 	
 	private void stopExercise() {
-		targetAnimation.stop();
+		motionEngine.stop();
+		motionEngine.clear();
 
 		for (BouncingTarget b : shootTargets)
 			super.removeTarget(b.getTarget());
@@ -349,9 +288,17 @@ public class BouncingTargets extends ProjectorTrainingExerciseBase implements Tr
 	public void reset(List<Target> targets) {
 		stopExercise();
 
-		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target", shootCount);
-		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target", dontShootCount);
+		addAllTargets();
+		motionEngine.start();
+	}
+
+	@Override
+	public void destroy() {
+		if (motionEngine != null) {
+			motionEngine.stop();
+			motionEngine.clear();
+		}
 
-		targetAnimation.play();
+		super.destroy();
 	}
 }
@@ -0,0 +1,246 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.util.EnclosingCircle;
+import com.shootoff.util.QuantileSketch;
+import com.shootoff.util.RunningStatistics;
+
+/**
+ * Live statistics for the shots fired during an exercise: split times, hits
+ * and misses, the size of the shot group and hits per target region. Every
+ * shot is folded into running totals as it arrives, so recording a shot does
+ * not depend on how many shots came before it. Exercises read the statistics
+ * through {@link #getSnapshot()}.
+ * 
+ * @author phrack
+ * @since 3.9
+ */
+public class ExerciseStatistics {
+	private static final double MAX_SPLIT_TIME = 60000; // ms
+
+	private final RunningStatistics splits = new RunningStatistics();
+	private final QuantileSketch splitPercentiles = new QuantileSketch(MAX_SPLIT_TIME);
+	private final EnclosingCircle group = new EnclosingCircle();
+	private final Map<TargetRegion, Integer> regionHits = new HashMap<TargetRegion, Integer>();
+
+	private Optional<Long> lastShotTimestamp = Optional.empty();
+	private Optional<Long> lastSplit = Optional.empty();
+	private int shotCount = 0;
+	private int hitCount = 0;
+	private int score = 0;
+
+	private volatile Optional<Runnable> updateListener = Optional.empty();
+
+	/**
+	 * An immutable view of the statistics at one point in time.
+	 */
+	public static class Snapshot {
+		private final int shotCount;
+		private final int hitCount;
+		private final int score;
+		private final Optional<Long> lastSplit;
+		private final double meanSplit;
+		private final double splitStandardDeviation;
+		private final double fastestSplit;
+		private final double medianSplit;
+		private final double ninetiethPercentileSplit;
+		private final double groupCenterX;
+		private final double groupCenterY;
+		private final double groupRadius;
+		private final Map<TargetRegion, Integer> regionHits;
+
+		private Snapshot(ExerciseStatistics statistics) {
+			shotCount = statistics.shotCount;
+			hitCount = statistics.hitCount;
+			score = statistics.score;
+			lastSplit = statistics.lastSplit;
+			meanSplit = statistics.splits.getMean();
+			splitStandardDeviation = statistics.splits.getStandardDeviation();
+			fastestSplit = statistics.splits.getCount() == 0 ? 0 : statistics.splits.getMin();
+			medianSplit = statistics.splitPercentiles.getPercentile(50);
+			ninetiethPercentileSplit = statistics.splitPercentiles.getPercentile(90);
+			groupCenterX = statistics.group.getCenterX();
+			groupCenterY = statistics.group.getCenterY();
+			groupRadius = statistics.group.getRadius();
+			regionHits = Collections.unmodifiableMap(new HashMap<TargetRegion, Integer>(statistics.regionHits));
+		}
+
+		public int getShotCount() {
+			return shotCount;
+		}
+
+		public int getHitCount() {
+			return hitCount;
+		}
+
+		public int getMissCount() {
+			return shotCount - hitCount;
+		}
+
+		public double getHitRatio() {
+			return shotCount == 0 ? 0 : (double) hitCount / (double) shotCount;
+		}
+
+		/**
+		 * @return the sum of the <tt>points</tt> tags of every region hit
+		 */
+		public int getScore() {
+			return score;
+		}
+
+		/**
+		 * @return the time between the last two shots in milliseconds
+		 */
+		public Optional<Long> getLastSplit() {
+			return lastSplit;
+		}
+
+		public double getMeanSplit() {
+			return meanSplit;
+		}
+
+		public double getSplitStandardDeviation() {
+			return splitStandardDeviation;
+		}
+
+		public double getFastestSplit() {
+			return fastestSplit;
+		}
+
+		/**
+		 * @return an estimate of the median split, accurate to within
+		 *         {@link QuantileSketch#RELATIVE_ACCURACY}
+		 */
+		public double getMedianSplit() {
+			return medianSplit;
+		}
+
+		public double getNinetiethPercentileSplit() {
+			return ninetiethPercentileSplit;
+		}
+
+		public double getGroupCenterX() {
+			return groupCenterX;
+		}
+
+		public double getGroupCenterY() {
+			return groupCenterY;
+		}
+
+		/**
+		 * @return the radius of a circle enclosing every hit, at most 1.5
+		 *         times the radius of the smallest such circle
+		 */
+		public double getGroupRadius() {
+			return groupRadius;
+		}
+
+		public int getRegionHits(TargetRegion region) {
+			final Integer hits = regionHits.get(region);
+			return hits == null ? 0 : hits;
+		}
+
+		public Map<TargetRegion, Integer> getRegionHits() {
+			return regionHits;
+		}
+	}
+
+	/**
+	 * Set a task that runs after every recorded shot and reset, on the thread
+	 * that changed the statistics, e.g. to refresh a view of them.
+	 */
+	public void setUpdateListener(Runnable updateListener) {
+		this.updateListener = Optional.ofNullable(updateListener);
+	}
+
+	/**
+	 * Fold a shot into the statistics. ShootOFF calls this for the current
+	 * exercise before its shot listener is called.
+	 */
+	public void recordShot(Shot shot, Optional<Hit> hit) {
+		record(shot, hit);
+		notifyUpdated();
+	}
+
+	private void notifyUpdated() {
+		final Optional<Runnable> listener = updateListener;
+		if (listener.isPresent()) listener.get().run();
+	}
+
+	private synchronized void record(Shot shot, Optional<Hit> hit) {
+		shotCount++;
+
+		if (lastShotTimestamp.isPresent()) {
+			final long split = shot.getTimestamp() - lastShotTimestamp.get();
+			lastSplit = Optional.of(split);
+			splits.add(split);
+			splitPercentiles.add(split);
+		}
+
+		lastShotTimestamp = Optional.of(shot.getTimestamp());
+
+		if (!hit.isPresent()) return;
+
+		hitCount++;
+		group.add(shot.getX(), shot.getY());
+
+		final TargetRegion region = hit.get().getHitRegion();
+		final Integer hits = regionHits.get(region);
+		regionHits.put(region, hits == null ? 1 : hits + 1);
+
+		if (region.tagExists("points")) {
+			try {
+				score += Integer.parseInt(region.getTag("points"));
+			} catch (NumberFormatException e) {
+				// Not a score, leave the total alone
+			}
+		}
+	}
+
+	public void reset() {
+		clear();
+		notifyUpdated();
+	}
+
+	private synchronized void clear() {
+		splits.reset();
+		splitPercentiles.reset();
+		group.reset();
+		regionHits.clear();
+		lastShotTimestamp = Optional.empty();
+		lastSplit = Optional.empty();
+		shotCount = 0;
+		hitCount = 0;
+		score = 0;
+	}
+
+	public synchronized Snapshot getSnapshot() {
+		return new Snapshot(this);
+	}
+}
@@ -0,0 +1,489 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.Target;
+import com.shootoff.util.NamedThreadFactory;
+import com.shootoff.util.QuantileSketch;
+
+/**
+ * Times the callbacks ShootOFF makes into training exercises on the shot path
+ * and keeps a latency histogram per exercise. When a callback takes longer
+ * than the latency budget the watchdog logs it, optionally tells the operator
+ * through a {@link BudgetListener}, and if configured to, moves the
+ * exercise's later shot callbacks to their own thread so a slow exercise
+ * cannot hold up shot processing for everything else. Target updates always
+ * run on the caller's thread because exercises use them to change the scene
+ * graph.
+ * 
+ * @author phrack
+ * @since 3.9
+ */
+public class ExerciseWatchdog {
+	private static final Logger logger = LoggerFactory.getLogger(ExerciseWatchdog.class);
+
+	public static final long DEFAULT_LATENCY_BUDGET = 20; // ms
+
+	// Callbacks that take longer than this are counted as taking this long
+	private static final double MAX_LATENCY = 10000000; // us
+
+	// An exercise is only moved off of the shot path when it is consistently
+	// slow, not because of one garbage collection pause
+	protected static final int OFFLOAD_THRESHOLD = 3;
+	private static final int OFFLOAD_QUEUE_CAPACITY = 64;
+	private static final long OFFLOAD_KEEP_ALIVE = 30; // s
+	private static final long OFFLOAD_DRAIN_TIMEOUT = 5; // s
+
+	public enum BudgetAction {
+		/** Log exercises that exceed the budget */
+		LOG,
+		/** Log and tell the operator about exercises that exceed the budget */
+		WARN,
+		/**
+		 * Log, tell the operator, and run the shot callbacks of exercises that
+		 * exceed the budget on their own thread
+		 */
+		OFFLOAD
+	}
+
+	public interface BudgetListener {
+		/**
+		 * Called the first time an exercise instance exceeds the latency
+		 * budget when the budget action is {@link BudgetAction#WARN} or
+		 * {@link BudgetAction#OFFLOAD}. This may be called on any thread.
+		 */
+		void budgetExceeded(LatencySummary summary);
+	}
+
+	/**
+	 * An immutable view of one exercise's callback latencies. Latencies are
+	 * in milliseconds.
+	 */
+	public static class LatencySummary {
+		private final String exerciseName;
+		private final long callCount;
+		private final long overBudgetCount;
+		private final double medianLatency;
+		private final double p99Latency;
+		private final double maxLatency;
+		private final boolean isOffloaded;
+
+		public LatencySummary(String exerciseName, long callCount, long overBudgetCount, double medianLatency,
+				double p99Latency, double maxLatency, boolean isOffloaded) {
+			this.exerciseName = exerciseName;
+			this.callCount = callCount;
+			this.overBudgetCount = overBudgetCount;
+			this.medianLatency = medianLatency;
+			this.p99Latency = p99Latency;
+			this.maxLatency = maxLatency;
+			this.isOffloaded = isOffloaded;
+		}
+
+		public String getExerciseName() {
+			return exerciseName;
+		}
+
+		public long getCallCount() {
+			return callCount;
+		}
+
+		public long getOverBudgetCount() {
+			return overBudgetCount;
+		}
+
+		public double getMedianLatency() {
+			return medianLatency;
+		}
+
+		public double getP99Latency() {
+			return p99Latency;
+		}
+
+		public double getMaxLatency() {
+			return maxLatency;
+		}
+
+		/**
+		 * @return <tt>true</tt> if the exercise's callbacks currently run on
+		 *         their own thread instead of on the shot path
+		 */
+		public boolean isOffloaded() {
+			return isOffloaded;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d calls, median %.2f ms, p99 %.2f ms, max %.2f ms, %d over budget%s",
+					exerciseName, callCount, medianLatency, p99Latency, maxLatency, overBudgetCount,
+					isOffloaded ? ", moved off the shot path" : "");
+		}
+	}
+
+	private static class ExerciseLatency {
+		private final String exerciseName;
+		private final QuantileSketch latencies = new QuantileSketch(MAX_LATENCY);
+		private long maxLatency = 0; // ns
+		private long overBudgetCount = 0;
+
+		// The rest only apply to the exercise instance currently bound
+		private int consecutiveOverBudget = 0;
+		private boolean isReported = false;
+		private volatile ThreadPoolExecutor offloadExecutor = null;
+		// Set when an offloaded callback throws, the exercise is moved back
+		// onto the shot path on its next shot
+		private RuntimeException offloadFailure = null;
+
+		public ExerciseLatency(String exerciseName) {
+			this.exerciseName = exerciseName;
+		}
+
+		public synchronized LatencySummary getSummary() {
+			return new LatencySummary(exerciseName, latencies.getCount(), overBudgetCount,
+					latencies.getPercentile(50) / 1000, latencies.getPercentile(99) / 1000,
+					maxLatency / 1000000.0, offloadExecutor != null);
+		}
+	}
+
+	private static class Binding {
+		private final TrainingExercise exercise;
+		private final ExerciseLatency latency;
+
+		public Binding(TrainingExercise exercise, ExerciseLatency latency) {
+			this.exercise = exercise;
+			this.latency = latency;
+		}
+	}
+
+	private final ConcurrentMap<String, ExerciseLatency> exerciseLatencies = new ConcurrentHashMap<String, ExerciseLatency>();
+	private final List<BudgetListener> budgetListeners = new CopyOnWriteArrayList<BudgetListener>();
+	// Guards replacing the binding, shots from several cameras bind at once
+	private final Object bindingLock = new Object();
+	private volatile Binding binding = null;
+	private volatile long latencyBudget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LATENCY_BUDGET);
+	private volatile BudgetAction budgetAction = BudgetAction.LOG;
+
+	public void setLatencyBudget(long latencyBudget, TimeUnit unit) {
+		this.latencyBudget = unit.toNanos(latencyBudget);
+	}
+
+	public long getLatencyBudget(TimeUnit unit) {
+		return unit.convert(latencyBudget, TimeUnit.NANOSECONDS);
+	}
+
+	public void setBudgetAction(BudgetAction budgetAction) {
+		this.budgetAction = budgetAction;
+	}
+
+	public BudgetAction getBudgetAction() {
+		return budgetAction;
+	}
+
+	public void addBudgetListener(BudgetListener listener) {
+		budgetListeners.add(listener);
+	}
+
+	public boolean removeBudgetListener(BudgetListener listener) {
+		return budgetListeners.remove(listener);
+	}
+
+	public void shotListener(final TrainingExercise exercise, final Shot shot, final Optional<Hit> hit) {
+		final ExerciseLatency latency = bind(exercise);
+		final ThreadPoolExecutor offloadExecutor = latency.offloadExecutor;
+
+		if (offloadExecutor != null) {
+			try {
+				// Blocks while the queue is full so that the exercise still
+				// sees shots in order
+				offloadExecutor.execute(() -> timeOffloaded(latency, () -> exercise.shotListener(shot, hit)));
+				return;
+			} catch (RejectedExecutionException e) {
+				// The executor was shut down because the exercise is being
+				// unbound or moved back onto the shot path
+				final Binding currentBinding = binding;
+				if (currentBinding == null || currentBinding.exercise != exercise) {
+					logger.debug("Dropping a shot for {}, the exercise is no longer bound", latency.exerciseName);
+					return;
+				}
+			}
+		}
+
+		time(latency, () -> exercise.shotListener(shot, hit));
+	}
+
+	public void targetUpdate(final TrainingExercise exercise, final Target target,
+			final TrainingExercise.TargetChange change) {
+		time(bind(exercise), () -> exercise.targetUpdate(target, change));
+	}
+
+	/**
+	 * Drop the shot callbacks that are queued for <tt>exercise</tt> but have
+	 * not started yet. Call this when the exercise is reset so that it does
+	 * not see shots from before the reset.
+	 */
+	public void discardPending(TrainingExercise exercise) {
+		final Binding currentBinding = binding;
+		if (currentBinding == null || currentBinding.exercise != exercise) return;
+
+		final ThreadPoolExecutor offloadExecutor = currentBinding.latency.offloadExecutor;
+		if (offloadExecutor != null) offloadExecutor.getQueue().clear();
+	}
+
+	/**
+	 * Stop timing <tt>exercise</tt> and drop any of its queued shot callbacks.
+	 * Call this before the exercise is destroyed.
+	 */
+	public void release(TrainingExercise exercise) {
+		final Binding currentBinding;
+
+		synchronized (bindingLock) {
+			currentBinding = binding;
+			if (currentBinding == null || currentBinding.exercise != exercise) return;
+
+			binding = null;
+		}
+
+		unbind(currentBinding.latency);
+	}
+
+	public Optional<LatencySummary> getSummary(String exerciseName) {
+		final ExerciseLatency latency = exerciseLatencies.get(exerciseName);
+
+		return latency == null ? Optional.empty() : Optional.of(latency.getSummary());
+	}
+
+	public List<LatencySummary> getSummaries() {
+		final List<LatencySummary> summaries = new ArrayList<LatencySummary>();
+
+		for (final ExerciseLatency latency : exerciseLatencies.values()) {
+			summaries.add(latency.getSummary());
+		}
+
+		return summaries;
+	}
+
+	private ExerciseLatency bind(TrainingExercise exercise) {
+		final Binding currentBinding = binding;
+		if (currentBinding != null && currentBinding.exercise == exercise) {
+			recoverFromOffloadFailure(currentBinding.latency);
+			return currentBinding.latency;
+		}
+
+		final Binding previousBinding;
+		final ExerciseLatency latency;
+
+		synchronized (bindingLock) {
+			// Another camera may have bound the exercise first
+			if (binding != null && binding.exercise == exercise) return binding.latency;
+
+			// A new exercise instance, the histogram carries over for the same
+			// exercise but the new instance gets a fresh start on the shot
+			// path
+			previousBinding = binding;
+			latency = exerciseLatencies.computeIfAbsent(exercise.getInfo().getName(), ExerciseLatency::new);
+			binding = new Binding(exercise, latency);
+		}
+
+		if (previousBinding != null) unbind(previousBinding.latency);
+		unbind(latency);
+
+		return latency;
+	}
+
+	private void unbind(ExerciseLatency latency) {
+		final ThreadPoolExecutor offloadExecutor;
+
+		synchronized (latency) {
+			latency.consecutiveOverBudget = 0;
+			latency.isReported = false;
+			latency.offloadFailure = null;
+			offloadExecutor = latency.offloadExecutor;
+			latency.offloadExecutor = null;
+		}
+
+		// Queued callbacks are for an exercise instance that is going away,
+		// only the one that is already running is allowed to finish
+		if (offloadExecutor != null) {
+			offloadExecutor.getQueue().clear();
+			offloadExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * An exercise that throws from its own thread goes back onto the shot
+	 * path. Shots that were already queued are delivered first so that the
+	 * exercise still sees every shot in order.
+	 */
+	private void recoverFromOffloadFailure(ExerciseLatency latency) {
+		final RuntimeException failure;
+		final ThreadPoolExecutor offloadExecutor;
+
+		synchronized (latency) {
+			failure = latency.offloadFailure;
+			if (failure == null) return;
+
+			latency.offloadFailure = null;
+			latency.consecutiveOverBudget = 0;
+			offloadExecutor = latency.offloadExecutor;
+			latency.offloadExecutor = null;
+		}
+
+		logger.warn("Moved the shot callbacks of {} back onto the shot path after an offloaded callback failed: {}",
+				latency.exerciseName, failure.toString());
+
+		if (offloadExecutor == null) return;
+
+		offloadExecutor.shutdown();
+
+		try {
+			if (!offloadExecutor.awaitTermination(OFFLOAD_DRAIN_TIMEOUT, TimeUnit.SECONDS)) {
+				logger.warn("Queued shot callbacks of {} are still running after {} s", latency.exerciseName,
+						OFFLOAD_DRAIN_TIMEOUT);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void time(ExerciseLatency latency, Runnable callback) {
+		final long start = System.nanoTime();
+
+		try {
+			callback.run();
+		} finally {
+			record(latency, System.nanoTime() - start);
+		}
+	}
+
+	private void timeOffloaded(ExerciseLatency latency, Runnable callback) {
+		try {
+			time(latency, callback);
+		} catch (RuntimeException e) {
+			logger.error("Offloaded callback of {} failed", latency.exerciseName, e);
+
+			synchronized (latency) {
+				if (latency.offloadFailure == null) latency.offloadFailure = e;
+			}
+		}
+	}
+
+	private void record(ExerciseLatency latency, long elapsed) {
+		final boolean isOverBudget = elapsed > latencyBudget;
+		final BudgetAction action = budgetAction;
+		boolean report = false;
+
+		synchronized (latency) {
+			latency.latencies.add(elapsed / 1000.0);
+			if (elapsed > latency.maxLatency) latency.maxLatency = elapsed;
+
+			if (!isOverBudget) {
+				latency.consecutiveOverBudget = 0;
+				return;
+			}
+
+			latency.overBudgetCount++;
+			latency.consecutiveOverBudget++;
+
+			if (!latency.isReported) {
+				latency.isReported = true;
+				report = true;
+			}
+
+			if (BudgetAction.OFFLOAD.equals(action) && latency.offloadExecutor == null
+					&& latency.consecutiveOverBudget >= OFFLOAD_THRESHOLD) {
+				latency.offloadExecutor = createOffloadExecutor(latency.exerciseName);
+				logger.warn("Moving the shot callbacks of {} off of the shot path after {} consecutive calls over the "
+						+ "{} ms budget", latency.exerciseName, latency.consecutiveOverBudget,
+						TimeUnit.NANOSECONDS.toMillis(latencyBudget));
+			}
+		}
+
+		if (report) {
+			final LatencySummary summary = latency.getSummary();
+			logger.warn("Exercise callback took {} ms, over the {} ms budget. {}", elapsed / 1000000.0,
+					TimeUnit.NANOSECONDS.toMillis(latencyBudget), summary);
+
+			if (!BudgetAction.LOG.equals(action)) {
+				for (final BudgetListener listener : budgetListeners) {
+					listener.budgetExceeded(summary);
+				}
+			}
+		} else if (logger.isDebugEnabled()) {
+			logger.debug("Exercise {} callback took {} ms", latency.exerciseName, elapsed / 1000000.0);
+		}
+	}
+
+	private static ThreadPoolExecutor createOffloadExecutor(String exerciseName) {
+		final ThreadFactory threadFactory = new NamedThreadFactory("ExerciseCallbacks-" + exerciseName);
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, OFFLOAD_KEEP_ALIVE, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(OFFLOAD_QUEUE_CAPACITY), (r) -> {
+					final Thread t = threadFactory.newThread(r);
+					t.setDaemon(true);
+					return t;
+				}, (r, e) -> {
+					// The exercise can't keep up even on its own thread, make
+					// the shot path wait instead of running the callback out
+					// of order
+					if (e.isShutdown()) throw new RejectedExecutionException("Exercise is no longer bound");
+
+					try {
+						e.getQueue().put(r);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException(ie);
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	/**
+	 * Forget every exercise's latencies and stop running any exercise off of
+	 * the shot path.
+	 */
+	public void reset() {
+		synchronized (bindingLock) {
+			binding = null;
+		}
+
+		for (final ExerciseLatency latency : exerciseLatencies.values()) {
+			unbind(latency);
+		}
+
+		exerciseLatencies.clear();
+	}
+}
@@ -24,8 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +37,6 @@ import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.targets.Hit;
 import com.shootoff.targets.Target;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 public class ISSFStandardPistol extends TrainingExerciseBase implements TrainingExercise, DelayedStartListener {
 	private static final Logger logger = LoggerFactory.getLogger(ISSFStandardPistol.class);
@@ -49,9 +46,6 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 	private final static String ROUND_COL_NAME = "Round";
 	private final static int ROUND_COL_WIDTH = 80;
 	private final static int START_DELAY = 10; // s
-	private static final int CORE_POOL_SIZE = 4;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("ISSFStandardPistolExercise"));
 	private ScheduledFuture<?> endRound;
 	private TrainingExerciseBase thisSuper;
 	private static int[] ROUND_TIMES = { 150, 20, 10 };
@@ -62,7 +56,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 	private Map<Integer, Integer> sessionScores = new HashMap<Integer, Integer>();
 	private int delayMin = 4;
 	private int delayMax = 8;
-	private boolean repeatExercise = true;
+	private volatile boolean repeatExercise = true;
 	private boolean coloredRows = false;
 	private boolean testing = false;
 
@@ -111,7 +105,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.addShotTimerColumn(ROUND_COL_NAME, ROUND_COL_WIDTH);
 
 		if (!testing) {
-			executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+			scheduleTimer(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 		} else {
 			new SetupWait().run();
 		}
@@ -131,7 +125,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 			TrainingExerciseBase.playSound(new File("sounds/voice/shootoff-makeready.wav"));
 			final int randomDelay = new Random().nextInt((delayMax - delayMin) + 1) + delayMin;
 			if (!testing) {
-				executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+				scheduleTimer(new StartRound(), randomDelay, TimeUnit.SECONDS);
 			} else {
 				new StartRound().run();
 			}
@@ -154,9 +148,11 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 
 			coloredRows = !coloredRows;
 
-			TrainingExerciseBase.playSound("sounds/beep.wav");
+			// The round's time starts when the beep is heard
+			final long beepHeard = playCue("sounds/beep.wav");
 			thisSuper.pauseShotDetection(false);
-			endRound = executorService.schedule(new EndRound(), ROUND_TIMES[roundTimeIndex], TimeUnit.SECONDS);
+			endRound = scheduleTimerAt(new EndRound(),
+					beepHeard + TimeUnit.SECONDS.toNanos(ROUND_TIMES[roundTimeIndex]));
 		}
 
 	}
@@ -175,7 +171,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 				// Go to next round
 				round++;
 				if (!testing) {
-					executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+					scheduleTimer(new StartRound(), randomDelay, TimeUnit.SECONDS);
 				} else {
 					new StartRound().run();
 				}
@@ -184,7 +180,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 				round = 1;
 				roundTimeIndex++;
 				if (!testing) {
-					executorService.schedule(new StartRound(), randomDelay, TimeUnit.SECONDS);
+					scheduleTimer(new StartRound(), randomDelay, TimeUnit.SECONDS);
 				} else {
 					new StartRound().run();
 				}
@@ -253,7 +249,7 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.pauseShotDetection(true);
 
 		repeatExercise = false;
-		executorService.shutdownNow();
+		cancelTimers();
 
 		setInitialValues();
 
@@ -261,15 +257,12 @@ public class ISSFStandardPistol extends TrainingExerciseBase implements Training
 		super.showTextOnFeed("");
 
 		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("ISSFStandardPistolExercise"));
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		scheduleTimer(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
\ No newline at end of file
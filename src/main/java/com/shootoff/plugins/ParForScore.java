@@ -20,6 +20,7 @@ package com.shootoff.plugins;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.ParListener;
@@ -37,7 +38,7 @@ import javafx.scene.paint.Color;
  *
  */
 public class ParForScore extends TimedHolsterDrill implements ParListener {
-	protected double parTime = 2.0;
+	protected volatile double parTime = 2.0;
 
 	private final static String POINTS_COL_NAME = "Score";
 	private final static int POINTS_COL_WIDTH = 60;
@@ -45,7 +46,7 @@ public class ParForScore extends TimedHolsterDrill implements ParListener {
 	private int redScore = 0;
 	private int greenScore = 0;
 
-	protected boolean countScore = false;
+	protected volatile boolean countScore = false;
 
 	public ParForScore() {}
 
@@ -86,10 +87,27 @@ public class ParForScore extends TimedHolsterDrill implements ParListener {
 	@Override
 	protected void doRound() throws Exception {
 		super.doRound();
-		Thread.sleep((long) (parTime * 1000.));
-		TrainingExerciseBase.playSound("sounds/chime.wav");
-		pauseShotDetection(true);
-		countScore = false;
+		scheduleParEnd();
+	}
+
+	/**
+	 * Chime and stop counting shots one par time after the round's start cue
+	 * was heard. The chime is started early by the audio output latency so it
+	 * is heard exactly at the end of the par time.
+	 */
+	protected void scheduleParEnd() {
+		final long parEnd = getBeepTime() + getRoundLength(TimeUnit.NANOSECONDS);
+
+		scheduleCue("sounds/chime.wav", parEnd);
+		scheduleTimerAt(() -> {
+			pauseShotDetection(true);
+			countScore = false;
+		}, parEnd);
+	}
+
+	@Override
+	protected long getRoundLength(TimeUnit unit) {
+		return unit.convert((long) (parTime * TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
 	}
 
 	/*
@@ -80,10 +80,7 @@ public class ParRandomShot extends ParForScore {
 		saySubtarget();
 		pauseShotDetection(false);
 		startRoundTimer();
-		Thread.sleep((long) (parTime * 1000.));
-		TrainingExerciseBase.playSound("sounds/chime.wav");
-		pauseShotDetection(true);
-		countScore = false;
+		scheduleParEnd();
 	}
 
 	@Override
@@ -154,6 +151,15 @@ public class ParRandomShot extends ParForScore {
 
 		if (!foundTarget) {
 			playSound(new File("sounds/voice/shootoff-subtargets-warning.wav"));
+		} else {
+			// Synthesize the prompts for subtargets without a recorded voice
+			// now so they aren't delayed mid-round
+			final List<String> ttsPrompts = new ArrayList<String>();
+			for (String subtarget : subtargets) {
+				if (!new File(String.format("sounds/voice/shootoff-%s.wav", subtarget)).exists())
+					ttsPrompts.add(subtarget);
+			}
+			TextToSpeech.preload(ttsPrompts);
 		}
 	}
 
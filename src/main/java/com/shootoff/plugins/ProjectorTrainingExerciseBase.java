@@ -42,6 +42,7 @@ import com.shootoff.courses.io.CourseIO;
 import com.shootoff.gui.LocatedImage;
 import com.shootoff.gui.ShotEntry;
 import com.shootoff.gui.TargetView;
+import com.shootoff.gui.UiUpdateDispatcher;
 import com.shootoff.gui.controller.ProjectorArenaController;
 import com.shootoff.gui.controller.ShootOFFController;
 import com.shootoff.targets.Target;
@@ -92,8 +93,11 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 	@Override
 	public void reset() {
 		camerasSupervisor.reset();
-		if (config.getExercise().isPresent())
+		getExerciseStatistics().reset();
+		if (config.getExercise().isPresent()) {
+			config.getExerciseWatchdog().discardPending(config.getExercise().get());
 			config.getExercise().get().reset(arenaController.getCanvasManager().getTargets());
+		}
 	}
 
 	/**
@@ -198,7 +202,7 @@ public class ProjectorTrainingExerciseBase extends TrainingExerciseBase {
 	@Override
 	public void showTextOnFeed(String message) {
 		super.showTextOnFeed(message);
-		Platform.runLater(() -> exerciseLabel.setText(message));
+		UiUpdateDispatcher.runLatest(exerciseLabel, () -> exerciseLabel.setText(message));
 	}
 
 	/**
@@ -149,6 +149,15 @@ public class RandomShoot extends TrainingExerciseBase implements TrainingExercis
 		}
 
 		if (foundTarget && subtargets.size() > 0) {
+			// Synthesize the prompts for subtargets without a recorded voice
+			// now so they aren't delayed mid-round
+			final List<String> ttsPrompts = new ArrayList<String>();
+			for (String subtarget : subtargets) {
+				if (!new File(String.format("sounds/voice/shootoff-%s.wav", subtarget)).exists())
+					ttsPrompts.add("shoot " + subtarget);
+			}
+			TextToSpeech.preload(ttsPrompts);
+
 			return true;
 		} else {
 			TrainingExerciseBase.playSound(new File("sounds/voice/shootoff-subtargets-warning.wav"));
@@ -88,6 +88,7 @@ public class ShootDontShoot extends ProjectorTrainingExerciseBase implements Tra
 		addTargets(shootTargets, "targets/shoot_dont_shoot/shoot.target");
 		addTargets(dontShootTargets, "targets/shoot_dont_shoot/dont_shoot.target");
 		super.showTextOnFeed("missed targets: 0\nbad hits: 0");
+		TextToSpeech.preload("Bad shoot!", "You missed 1 target.");
 
 		executorService.schedule(new NewRound(), ROUND_DURATION, TimeUnit.SECONDS);
 	}
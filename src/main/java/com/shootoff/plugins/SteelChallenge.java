@@ -25,8 +25,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.shootoff.camera.Shot;
@@ -34,7 +32,6 @@ import com.shootoff.courses.Course;
 import com.shootoff.targets.Hit;
 import com.shootoff.targets.Target;
 import com.shootoff.targets.TargetRegion;
-import com.shootoff.util.NamedThreadFactory;
 
 public class SteelChallenge extends ProjectorTrainingExerciseBase implements TrainingExercise {
 	private final static String LENGTH_COL_NAME = "Length";
@@ -43,14 +40,11 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 	private final static int HIT_COL_WIDTH = 60;
 	private final static int START_DELAY = 4; // s
 	private final static int PAUSE_DELAY = 1; // s
-	private static final int CORE_POOL_SIZE = 2;
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("SteelChallengeExercise"));
 	private TrainingExerciseBase thisSuper;
 	private List<Target> targets;
 	private Set<Target> roundTargets;
-	private long startTime = 0;
-	private boolean repeatExercise = true;
+	private volatile long startTime = 0; // ns
+	private volatile boolean repeatExercise = true;
 	private boolean testing = false;
 
 	public SteelChallenge() {}
@@ -142,7 +136,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 		if (testing) {
 			new AreYouReady().run();
 		} else {
-			executorService.schedule(new AreYouReady(), START_DELAY, TimeUnit.SECONDS);
+			scheduleTimer(new AreYouReady(), START_DELAY, TimeUnit.SECONDS);
 		}
 	}
 
@@ -154,7 +148,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 			TrainingExerciseBase.playSound("sounds/voice/shootoff-are-you-ready.wav");
 
 			if (!testing) {
-				executorService.schedule(new Standby(), PAUSE_DELAY, TimeUnit.SECONDS);
+				scheduleTimer(new Standby(), PAUSE_DELAY, TimeUnit.SECONDS);
 			} else {
 				new Standby().run();
 			}
@@ -172,7 +166,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 			if (testing) {
 				new BeginTimer().run();
 			} else {
-				executorService.schedule(new BeginTimer(), START_DELAY, TimeUnit.SECONDS);
+				scheduleTimer(new BeginTimer(), START_DELAY, TimeUnit.SECONDS);
 			}
 
 		}
@@ -183,9 +177,9 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 		public void run() {
 			if (!repeatExercise) return;
 
-			TrainingExerciseBase.playSound("sounds/beep.wav");
+			// Time the run from when the beep is heard
+			startTime = playCue("sounds/beep.wav");
 			thisSuper.pauseShotDetection(false);
-			startTime = System.currentTimeMillis();
 		}
 	}
 
@@ -201,7 +195,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 
 	@Override
 	public void shotListener(Shot shot, Optional<Hit> hit) {
-		final long elapsedTime = System.currentTimeMillis() - startTime;
+		final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
 		final String elapsedTimeSeconds;
 
 		if (testing) {
@@ -251,7 +245,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 				if (testing) {
 					startRound();
 				} else {
-					executorService.schedule(() -> startRound(), START_DELAY, TimeUnit.SECONDS);
+					scheduleTimer(() -> startRound(), START_DELAY, TimeUnit.SECONDS);
 				}
 			}
 		} else {
@@ -264,11 +258,7 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 		super.pauseShotDetection(true);
 
 		repeatExercise = false;
-		executorService.shutdownNow();
-
-		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("SteelChallengeExercise"));
+		cancelTimers();
 
 		this.targets = targets;
 
@@ -279,7 +269,6 @@ public class SteelChallenge extends ProjectorTrainingExerciseBase implements Tra
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 }
@@ -18,60 +18,288 @@
 
 package com.shootoff.plugins;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.sound.sampled.AudioInputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.audio.AudioEngine;
+import com.shootoff.audio.PcmSound;
+
 import marytts.LocalMaryInterface;
 import marytts.MaryInterface;
 import marytts.exceptions.MaryConfigurationException;
 import marytts.exceptions.SynthesisException;
-import marytts.util.data.audio.AudioPlayer;
 
 /**
  * This facade class implements text-to-speech operations for dynamic audio
  * output. This class should be re-written if the text-to-speech library is
  * swapped for an alternative.
  * 
+ * Phrases are spoken one at a time in the order they were requested by a
+ * single speech thread. Synthesized audio is kept in a small LRU cache so that
+ * phrases an exercise repeats (or pre-synthesizes using
+ * {@link #preload(String...)}) are spoken without synthesis delay. Preloading
+ * happens on its own thread and only while no spoken phrase is waiting to be
+ * synthesized, so it never holds up a prompt.
+ * 
  * @author phrack
  */
 public final class TextToSpeech {
 	private static final Logger logger = LoggerFactory.getLogger(TextToSpeech.class);
 
-	private static boolean inited = false;
-	private static boolean isSilenced = false;
-	private static MaryInterface marytts = null;
+	private static final int CACHE_SIZE = 64;
+
+	// How long the preload thread waits before checking again whether the
+	// speech thread still needs the engine
+	private static final long PRELOAD_BACKOFF = 100; // ms
+
+	private static final class Phrase {
+		private final String text;
+		// The cancel generation the phrase was requested in, cancel() moves
+		// on to a new generation so older phrases are never spoken
+		private final long generation;
+
+		public Phrase(String text, long generation) {
+			this.text = text;
+			this.generation = generation;
+		}
+	}
+
+	private static final BlockingQueue<Phrase> phrases = new LinkedBlockingQueue<Phrase>();
+	private static final BlockingQueue<String> preloads = new LinkedBlockingQueue<String>();
+	private static final Map<String, PcmSound> speechCache = new LinkedHashMap<String, PcmSound>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PcmSound> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	// Guards generation and is used to wake the speech thread early if the
+	// phrase it is waiting on is cancelled
+	private static final Object speakingLock = new Object();
+	// The engine is not thread safe, only one phrase is synthesized at a time
+	private static final Object synthesisLock = new Object();
+
+	private static Thread speechThread = null;
+	private static Thread preloadThread = null;
+	private static volatile boolean isSilenced = false;
+	private static volatile boolean isSynthesizingSpeech = false;
+	private static long generation = 0;
+	private static volatile MaryInterface marytts = null;
 
 	protected TextToSpeech() {}
 
-	private static void init() throws MaryConfigurationException {
-		marytts = new LocalMaryInterface();
-		Set<String> voices = marytts.getAvailableVoices();
-		marytts.setVoice(voices.iterator().next());
-		inited = true;
+	/**
+	 * Start loading the text-to-speech engine in the background. Loading takes
+	 * seconds, so this should be called at startup instead of letting the
+	 * first spoken phrase pay for it. Calling this method more than once has no
+	 * effect.
+	 */
+	public static synchronized void init() {
+		if (speechThread != null) return;
+
+		speechThread = new Thread(TextToSpeech::speakPhrases, "TextToSpeech");
+		speechThread.setDaemon(true);
+		speechThread.start();
+
+		preloadThread = new Thread(TextToSpeech::preloadPhrases, "TextToSpeechPreload");
+		preloadThread.setDaemon(true);
+		preloadThread.start();
 	}
 
+	private static boolean loadEngine() {
+		try {
+			marytts = new LocalMaryInterface();
+			final Set<String> voices = marytts.getAvailableVoices();
+			marytts.setVoice(voices.iterator().next());
+			return true;
+		} catch (MaryConfigurationException e) {
+			logger.error("Error loading text-to-speech engine", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Queue a phrase to be spoken after every phrase that was queued before
+	 * it. This method does not block.
+	 */
 	public static void say(String comment) {
 		if (isSilenced) {
 			System.out.println(comment);
 			return;
 		}
 
-		try {
-			if (!inited) {
-				init();
+		init();
+
+		if (comment.isEmpty()) return;
+
+		synchronized (speakingLock) {
+			phrases.offer(new Phrase(comment, generation));
+		}
+	}
+
+	/**
+	 * Synthesize phrases ahead of time without speaking them so that they are
+	 * spoken immediately when passed to {@link #say(String)}. Exercises should
+	 * call this from <tt>init</tt> for phrases they know they will use.
+	 * 
+	 * @since 3.9
+	 */
+	public static void preload(String... comments) {
+		preload(Arrays.asList(comments));
+	}
+
+	/**
+	 * @see #preload(String...)
+	 * @since 3.9
+	 */
+	public static void preload(Collection<String> comments) {
+		if (isSilenced) return;
+
+		init();
+
+		for (final String comment : comments) {
+			if (!comment.isEmpty()) preloads.offer(comment);
+		}
+	}
+
+	/**
+	 * Drop every phrase that has not been spoken yet. The phrase that is
+	 * currently playing is allowed to finish, but the next phrase will not
+	 * wait for it.
+	 * 
+	 * @since 3.9
+	 */
+	public static void cancel() {
+		synchronized (speakingLock) {
+			generation++;
+			phrases.clear();
+			speakingLock.notifyAll();
+		}
+	}
+
+	private static void speakPhrases() {
+		final boolean isLoaded;
+		synchronized (synthesisLock) {
+			isLoaded = loadEngine();
+		}
+
+		if (!isLoaded) {
+			phrases.clear();
+			preloadThread.interrupt();
+			return;
+		}
+
+		while (true) {
+			final Phrase phrase;
+			try {
+				phrase = phrases.take();
+			} catch (InterruptedException e) {
+				return;
 			}
 
-			if (comment.isEmpty()) return;
+			if (isCancelled(phrase.generation)) continue;
+
+			final Optional<PcmSound> speech;
+			isSynthesizingSpeech = true;
+			try {
+				speech = synthesize(phrase.text);
+			} finally {
+				isSynthesizingSpeech = false;
+			}
 
-			final AudioInputStream audio = marytts.generateAudio(comment);
-			final AudioPlayer player = new AudioPlayer(audio);
-			player.start();
-		} catch (MaryConfigurationException | SynthesisException e) {
+			if (speech.isPresent()) speak(speech.get(), phrase.generation);
+		}
+	}
+
+	private static void preloadPhrases() {
+		while (true) {
+			final String comment;
+			try {
+				comment = preloads.take();
+
+				// Spoken phrases always get the engine first
+				while (marytts == null || isSynthesizingSpeech || !phrases.isEmpty()) {
+					Thread.sleep(PRELOAD_BACKOFF);
+				}
+			} catch (InterruptedException e) {
+				preloads.clear();
+				return;
+			}
+
+			synthesize(comment);
+		}
+	}
+
+	private static boolean isCancelled(long phraseGeneration) {
+		synchronized (speakingLock) {
+			return phraseGeneration != generation;
+		}
+	}
+
+	private static Optional<PcmSound> synthesize(String comment) {
+		synchronized (synthesisLock) {
+			synchronized (speechCache) {
+				final PcmSound cached = speechCache.get(comment);
+				if (cached != null) return Optional.of(cached);
+			}
+
+			return synthesizeUncached(comment);
+		}
+	}
+
+	private static Optional<PcmSound> synthesizeUncached(String comment) {
+		final AudioInputStream audio;
+		try {
+			audio = marytts.generateAudio(comment);
+		} catch (SynthesisException e) {
 			logger.error("Error sythesizing text to voice", e);
+			return Optional.empty();
+		}
+
+		final Optional<PcmSound> speech = AudioEngine.getDefault().decode(comment, audio);
+
+		if (speech.isPresent()) {
+			synchronized (speechCache) {
+				speechCache.put(comment, speech.get());
+			}
+		}
+
+		return speech;
+	}
+
+	private static void speak(PcmSound speech, long phraseGeneration) {
+		synchronized (speakingLock) {
+			// Cancelled while it was being synthesized
+			if (phraseGeneration != generation) return;
+
+			AudioEngine.getDefault().play(speech);
+
+			// Wait for the phrase to finish so that phrases never talk over
+			// each other
+			final long finishTime = System.currentTimeMillis() + speech.getDuration();
+
+			long remaining;
+			while (phraseGeneration == generation && (remaining = finishTime - System.currentTimeMillis()) > 0) {
+				try {
+					speakingLock.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
 		}
 	}
 
@@ -87,4 +315,4 @@ public final class TextToSpeech {
 	public static void silence(final boolean isSilenced) {
 		TextToSpeech.isSilenced = isSilenced;
 	}
-}
\ No newline at end of file
+}
@@ -22,33 +22,32 @@ import java.io.File;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javafx.scene.control.Button;
 import javafx.scene.paint.Color;
 
+import com.shootoff.audio.AudioEngine;
 import com.shootoff.camera.Shot;
 import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.targets.Hit;
 import com.shootoff.targets.Target;
-import com.shootoff.util.NamedThreadFactory;
 
 public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingExercise, DelayedStartListener {
+	private static final Logger logger = LoggerFactory.getLogger(TimedHolsterDrill.class);
+
 	private final static String LENGTH_COL_NAME = "Length";
 	private final static int LENGTH_COL_WIDTH = 60;
 	private final static int START_DELAY = 10; // s
 	private final static int RESUME_DELAY = 5; // s
-	private static final int CORE_POOL_SIZE = 2;
 	private static final String PAUSE = "Pause";
-	private ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("TimedHolsterDrillExercise"));
 	private int delayMin = 4;
 	private int delayMax = 8;
-	private boolean repeatExercise = true;
-	private long beepTime = 0;
+	private volatile boolean repeatExercise = true;
+	private volatile long beepTime = 0; // ns
 	private boolean coloredRows = false;
 	private Button pauseResumeButton;
 
@@ -88,7 +87,7 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 	}
 
 	protected void setLength() {
-		float drawShotLength = (float) (System.currentTimeMillis() - beepTime) / (float) 1000; // s
+		float drawShotLength = (float) (System.nanoTime() - beepTime) / (float) TimeUnit.SECONDS.toNanos(1); // s
 		setShotTimerColumnText(LENGTH_COL_NAME, String.format("%.2f", drawShotLength));
 	}
 
@@ -96,45 +95,47 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 	public void reset(List<Target> targets) {
 		repeatExercise = false;
 		pauseShotDetection(true);
-		executorService.shutdownNow();
+		cancelTimers();
 		pauseResumeButton.setText(PAUSE);
 		resetValues();
 		repeatExercise = true;
-		executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-				new NamedThreadFactory("TimedHolsterDrillExercise"));
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		scheduleTimer(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	@Override
 	public void destroy() {
 		repeatExercise = false;
-		executorService.shutdownNow();
 		super.destroy();
 	}
 
-	protected class SetupWait implements Callable<Void> {
+	protected class SetupWait implements Runnable {
 		@Override
-		public Void call() {
+		public void run() {
 			pauseShotDetection(true);
 			playSound(new File("sounds/voice/shootoff-makeready.wav"));
 			int randomDelay = new Random().nextInt((delayMax - delayMin) + 1) + delayMin;
 
-			if (repeatExercise) executorService.schedule(new Round(), randomDelay, TimeUnit.SECONDS);
-
-			return null;
+			if (repeatExercise) scheduleTimer(new Round(), randomDelay, TimeUnit.SECONDS);
 		}
 	}
 
-	protected class Round implements Callable<Void> {
+	protected class Round implements Runnable {
 		@Override
-		public Void call() throws Exception {
-			if (repeatExercise) {
-				int randomDelay = setupRound();
+		public void run() {
+			if (!repeatExercise) return;
+
+			int randomDelay = setupRound();
+
+			try {
 				doRound();
-				executorService.schedule(new Round(), randomDelay, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				logger.error("Error running timed holster drill round", e);
 			}
 
-			return null;
+			// The next round is timed from when this round's beep was heard
+			// so that neither audio latency nor timer latency accumulates
+			scheduleTimerAt(new Round(),
+					beepTime + getRoundLength(TimeUnit.NANOSECONDS) + TimeUnit.SECONDS.toNanos(randomDelay));
 		}
 	}
 
@@ -144,11 +145,12 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 			if (PAUSE.equals(pauseResumeButton.getText())) {
 				pauseResumeButton.setText("Resume");
 				repeatExercise = false;
+				cancelTimers();
 				pauseShotDetection(true);
 			} else {
 				pauseResumeButton.setText(PAUSE);
 				repeatExercise = true;
-				executorService.schedule(new SetupWait(), RESUME_DELAY, TimeUnit.SECONDS);
+				scheduleTimer(new SetupWait(), RESUME_DELAY, TimeUnit.SECONDS);
 			}
 		});
 		addShotTimerColumn(LENGTH_COL_NAME, LENGTH_COL_WIDTH);
@@ -158,7 +160,7 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 		pauseShotDetection(true);
 		resetValues();
 
-		executorService.schedule(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
+		scheduleTimer(new SetupWait(), START_DELAY, TimeUnit.SECONDS);
 	}
 
 	protected int setupRound() {
@@ -175,13 +177,41 @@ public class TimedHolsterDrill extends TrainingExerciseBase implements TrainingE
 	}
 
 	protected void doRound() throws Exception {
-		playSound("sounds/beep.wav");
+		final long beepHeard = playCue("sounds/beep.wav");
 		pauseShotDetection(false);
-		startRoundTimer();
+		startRoundTimer(beepHeard);
 	}
 
+	/**
+	 * Start timing the round from when a cue that was just requested will be
+	 * heard.
+	 */
 	protected void startRoundTimer() {
-		beepTime = System.currentTimeMillis();
+		startRoundTimer(System.nanoTime() + AudioEngine.getDefault().getOutputLatency(TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Start timing the round from <tt>cueNanos</tt>, typically the value
+	 * returned by {@link #playCue(String)}.
+	 */
+	protected void startRoundTimer(long cueNanos) {
+		beepTime = cueNanos;
+	}
+
+	/**
+	 * @return the {@link System#nanoTime()} the current round started at
+	 */
+	protected long getBeepTime() {
+		return beepTime;
+	}
+
+	/**
+	 * @return how long a round lasts after its start cue, not counting the
+	 *         random delay before the next round. Drills with a par time
+	 *         return the par time.
+	 */
+	protected long getRoundLength(TimeUnit unit) {
+		return 0;
 	}
 
 	@Override
@@ -27,6 +27,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
@@ -41,17 +46,23 @@ import javax.sound.sampled.UnsupportedAudioFileException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.shootoff.audio.AudioEngine;
+import com.shootoff.audio.PcmSound;
 import com.shootoff.camera.CameraView;
 import com.shootoff.camera.CamerasSupervisor;
+import com.shootoff.camera.ShotSubscriber;
 import com.shootoff.config.Configuration;
 import com.shootoff.gui.DelayedStartListener;
 import com.shootoff.gui.ParListener;
 import com.shootoff.gui.ShotEntry;
+import com.shootoff.gui.ShotLog;
+import com.shootoff.gui.UiUpdateDispatcher;
 import com.shootoff.gui.controller.ShootOFFController;
 import com.shootoff.targets.Target;
 import com.shootoff.targets.CameraViews;
+import com.shootoff.util.NamedThreadFactory;
+import com.shootoff.util.TimerService;
 
-import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -94,6 +105,10 @@ public class TrainingExerciseBase {
 	private boolean changedRowColor = false;
 	private boolean haveDelayControls = false;
 	private boolean haveParControls = false;
+	private final List<ShotSubscriber> shotSubscribers = new ArrayList<>();
+	private final ExerciseStatistics exerciseStatistics = new ExerciseStatistics();
+	private final List<ExecutorService> executors = new ArrayList<>();
+	private final List<ScheduledFuture<?>> timers = new ArrayList<>();
 	
 	private final static Map<CameraView, Label> exerciseLabels = new HashMap<>();
 	private final static List<Pane> exercisePanes = new ArrayList<>();
@@ -339,15 +354,14 @@ public class TrainingExerciseBase {
 	 */
 	public void setShotTimerColumnText(final String name, final String value) {
 		if (shotTimerTable != null) {
-			Runnable shotTimerColumnTextSetter = () -> {
-				shotTimerTable.getItems().get(shotTimerTable.getItems().size() - 1).setExerciseValue(name, value);
-			};
-			
-			if (Platform.isFxApplicationThread()) {
-				shotTimerColumnTextSetter.run();
-			} else {
-				Platform.runLater(shotTimerColumnTextSetter);
-			}
+			// Queued behind the shot's entry so the text lands on the right row
+			UiUpdateDispatcher.run(() -> {
+				if (shotTimerTable.getItems() instanceof ShotLog) {
+					((ShotLog) shotTimerTable.getItems()).setLatestExerciseValue(name, value);
+				} else if (!shotTimerTable.getItems().isEmpty()) {
+					shotTimerTable.getItems().get(shotTimerTable.getItems().size() - 1).setExerciseValue(name, value);
+				}
+			});
 		}
 	}
 
@@ -379,7 +393,7 @@ public class TrainingExerciseBase {
 			config.getSessionRecorder().get().recordExerciseFeedMessage(message);
 		}
 
-		Platform.runLater(() -> {
+		UiUpdateDispatcher.runLatest(exerciseLabels, () -> {
 			for (Label exerciseLabel : exerciseLabels.values()) {
 				exerciseLabel.setText(message);
 			}
@@ -404,7 +418,25 @@ public class TrainingExerciseBase {
 			changedRowColor = false;
 		}
 
-		if (config.getExercise().isPresent()) config.getExercise().get().reset(cameraViews.getTargets());
+		exerciseStatistics.reset();
+		if (config.getExercise().isPresent()) {
+			config.getExerciseWatchdog().discardPending(config.getExercise().get());
+			config.getExercise().get().reset(cameraViews.getTargets());
+		}
+	}
+
+	/**
+	 * Get the running statistics for the shots fired since the exercise was
+	 * started or last reset. ShootOFF updates the statistics before the
+	 * exercise's shot listener is called, thus a snapshot taken in
+	 * <tt>shotListener</tt> already includes the shot being processed.
+	 * 
+	 * @return the statistics for this exercise
+	 * 
+	 * @since 3.9
+	 */
+	public ExerciseStatistics getExerciseStatistics() {
+		return exerciseStatistics;
 	}
 
 	/**
@@ -429,6 +461,36 @@ public class TrainingExerciseBase {
 		camerasSupervisor.setDetectingAll(!isPaused);
 	}
 
+	/**
+	 * Subscribe to the shots detected on every camera, merged into the order
+	 * they were fired. Subscribers are called on a shot event thread after
+	 * ShootOFF has processed each shot, thus slow subscribers never delay shot
+	 * detection. Subscriptions are removed when the exercise is destroyed.
+	 * 
+	 * @param subscriber
+	 *            the object to notify when a shot is detected
+	 * 
+	 * @since 3.9
+	 */
+	public void subscribeToShots(final ShotSubscriber subscriber) {
+		camerasSupervisor.addShotSubscriber(subscriber);
+		shotSubscribers.add(subscriber);
+	}
+
+	/**
+	 * Stop notifying a subscriber added with
+	 * {@link #subscribeToShots(ShotSubscriber)}.
+	 * 
+	 * @param subscriber
+	 *            the subscriber to remove
+	 * 
+	 * @since 3.9
+	 */
+	public void unsubscribeFromShots(final ShotSubscriber subscriber) {
+		camerasSupervisor.removeShotSubscriber(subscriber);
+		shotSubscribers.remove(subscriber);
+	}
+
 	/**
 	 * Plays an audio file asynchronously.
 	 * 
@@ -442,19 +504,57 @@ public class TrainingExerciseBase {
 	}
 
 	public static void playSound(final File soundFile) {
-		playSound(soundFile, Optional.empty());
+		if (isSilenced) {
+			System.out.println(soundFile.getPath());
+			return;
+		}
+
+		final Optional<PcmSound> sound = AudioEngine.getDefault().load(resolveSoundFile(soundFile));
+		if (sound.isPresent()) AudioEngine.getDefault().play(sound.get());
 	}
 
 	public static void playSound(final InputStream is) {
-		playSound(is, Optional.empty());
+		if (isSilenced) {
+			System.out.println("Playing audio for modular exercise.");
+			return;
+		}
+
+		final Optional<PcmSound> sound = AudioEngine.getDefault().load(is);
+		if (sound.isPresent()) AudioEngine.getDefault().play(sound.get());
+	}
+
+	/**
+	 * Plays a sound that was already decoded, e.g. with
+	 * <tt>AudioEngine.getDefault().load(...)</tt>. This is the fastest way to
+	 * play a sound that is played often.
+	 * 
+	 * @param sound
+	 *            the decoded sound to play
+	 * 
+	 * @since 3.9
+	 */
+	public static void playSound(final PcmSound sound) {
+		if (isSilenced) {
+			System.out.println(sound.getName());
+			return;
+		}
+
+		AudioEngine.getDefault().play(sound);
 	}
 
 	public static void playSound(final InputStream is, Optional<LineListener> listener) {
+		if (!listener.isPresent()) {
+			playSound(is);
+			return;
+		}
+
 		if (isSilenced) {
 			System.out.println("Playing audio for modular exercise.");
 			return;
 		}
 
+		// The listener needs events from a line of its own, so this can't
+		// use the shared voices
 		try {
 			final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(is);
 			playSound(audioInputStream, listener);
@@ -463,22 +563,12 @@ public class TrainingExerciseBase {
 		}
 	}
 
-	private static void playSound(File soundFile, Optional<LineListener> listener) {
-		if (isSilenced) {
-			System.out.println(soundFile.getPath());
-			return;
-		}
-
+	private static File resolveSoundFile(File soundFile) {
 		if (!soundFile.isAbsolute()) {
-			soundFile = new File(System.getProperty("shootoff.home") + File.separator + soundFile.getPath());
+			return new File(System.getProperty("shootoff.home") + File.separator + soundFile.getPath());
 		}
 
-		try {
-			final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(soundFile);
-			playSound(audioInputStream, listener);
-		} catch (UnsupportedAudioFileException | IOException e) {
-			logger.error(String.format("Error reading sound file to play: soundFile = %s", soundFile), e);
-		}
+		return soundFile;
 	}
 
 	private static void playSound(AudioInputStream audioInputStream, Optional<LineListener> listener) {
@@ -535,42 +625,28 @@ public class TrainingExerciseBase {
 	public static void playSounds(final List<File> soundFiles) {
 		if (isSilenced) {
 			soundFiles.forEach(System.out::println);
-		} else {
-			final SoundQueue sq = new SoundQueue(soundFiles);
-			sq.play();
-		}
-	}
-
-	private static class SoundQueue implements LineListener {
-		private final List<File> soundFiles;
-		private int queueIndex = 0;
-
-		public SoundQueue(List<File> soundFiles) {
-			this.soundFiles = soundFiles;
+			return;
 		}
 
-		public void play() {
-			playSound(soundFiles.get(queueIndex), Optional.of(this));
+		final List<PcmSound> sounds = new ArrayList<PcmSound>();
+		for (final File soundFile : soundFiles) {
+			final Optional<PcmSound> sound = AudioEngine.getDefault().load(resolveSoundFile(soundFile));
+			if (sound.isPresent()) sounds.add(sound.get());
 		}
 
-		@Override
-		public void update(final LineEvent event) {
-			if (LineEvent.Type.STOP.equals(event.getType())) {
-				event.getLine().close();
-
-				queueIndex++;
-
-				if (queueIndex < soundFiles.size()) {
-					playSound(soundFiles.get(queueIndex), Optional.of(this));
-				}
-			}
-		}
+		// Played back to back on one voice
+		AudioEngine.getDefault().play(sounds);
 	}
 
 	/**
-	 * Removes all objects the training exercise has added to the GUI.
+	 * Removes all objects the training exercise has added to the GUI and
+	 * stops the executors and timers it created through
+	 * {@link #newScheduledExecutor(int, String)} and
+	 * {@link #scheduleTimer(Runnable, long)} and its variants.
 	 */
 	public void destroy() {
+		releaseExecutorsAndTimers();
+
 		if (changedRowColor) {
 			config.setShotTimerRowColor(null);
 			changedRowColor = false;
@@ -602,9 +678,126 @@ public class TrainingExerciseBase {
 			itExerciseButtons.remove();
 		}
 
+		for (final ShotSubscriber subscriber : shotSubscribers) {
+			camerasSupervisor.removeShotSubscriber(subscriber);
+		}
+
+		shotSubscribers.clear();
+
+		// Don't keep announcing things for an exercise that is gone
+		TextToSpeech.cancel();
+
 		pauseShotDetection(false);
 	}
 
+	/**
+	 * Create a scheduled executor that is shut down when the exercise is
+	 * destroyed. Exercises loaded from plugin jars should use this instead of
+	 * creating their own executors, otherwise a thread left running after the
+	 * exercise is gone keeps the plugin's classes loaded.
+	 */
+	protected ScheduledExecutorService newScheduledExecutor(int corePoolSize, String name) {
+		final ScheduledExecutorService executor = Executors.newScheduledThreadPool(corePoolSize,
+				new NamedThreadFactory(name));
+
+		synchronized (executors) {
+			executors.removeIf(ExecutorService::isShutdown);
+			executors.add(executor);
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Run <tt>task</tt> on the exercise timer after <tt>msDelay</tt>
+	 * milliseconds. The timer is cancelled if it is still waiting when
+	 * {@link #cancelTimers()} is called or the exercise is destroyed.
+	 * 
+	 * Timers fire on the {@link TimerService} thread so that they are on time
+	 * regardless of how busy the rest of ShootOFF is. Tasks must therefore be
+	 * short: play a sound, pause shot detection, schedule the next timer, etc.
+	 */
+	protected ScheduledFuture<?> scheduleTimer(Runnable task, long msDelay) {
+		return scheduleTimer(task, msDelay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @see #scheduleTimer(Runnable, long)
+	 */
+	protected ScheduledFuture<?> scheduleTimer(Runnable task, long delay, TimeUnit unit) {
+		return scheduleTimerAt(task, System.nanoTime() + unit.toNanos(delay));
+	}
+
+	/**
+	 * Run <tt>task</tt> on the exercise timer once {@link System#nanoTime()}
+	 * reaches <tt>deadlineNanos</tt>. Use this to end an interval relative to
+	 * when it started (e.g. the value returned by {@link #playCue(String)})
+	 * instead of relative to when the end was scheduled.
+	 * 
+	 * @see #scheduleTimer(Runnable, long)
+	 */
+	protected ScheduledFuture<?> scheduleTimerAt(Runnable task, long deadlineNanos) {
+		final ScheduledFuture<?> timer = TimerService.getDefault().scheduleAt(task, deadlineNanos);
+
+		synchronized (timers) {
+			timers.removeIf(ScheduledFuture::isDone);
+			timers.add(timer);
+		}
+
+		return timer;
+	}
+
+	/**
+	 * Play a sound that starts a timed interval, such as a start beep, and
+	 * return the {@link System#nanoTime()} at which the shooter will hear it.
+	 * Measuring a par time from this value keeps the audio output latency out
+	 * of the shooter's times.
+	 * 
+	 * @since 3.9
+	 */
+	protected long playCue(final String soundFilePath) {
+		playSound(soundFilePath);
+
+		return System.nanoTime() + AudioEngine.getDefault().getOutputLatency(TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Play a sound so that it is heard when {@link System#nanoTime()} reaches
+	 * <tt>deadlineNanos</tt>, e.g. a chime at the end of a par time. The sound
+	 * is started early by the audio output latency.
+	 */
+	protected ScheduledFuture<?> scheduleCue(final String soundFilePath, long deadlineNanos) {
+		final long outputLatency = AudioEngine.getDefault().getOutputLatency(TimeUnit.NANOSECONDS);
+
+		return scheduleTimerAt(() -> playSound(soundFilePath), deadlineNanos - outputLatency);
+	}
+
+	/**
+	 * Cancel every timer this exercise scheduled that has not fired yet, e.g.
+	 * when the exercise is reset.
+	 */
+	protected void cancelTimers() {
+		synchronized (timers) {
+			for (final ScheduledFuture<?> timer : timers) {
+				timer.cancel(false);
+			}
+
+			timers.clear();
+		}
+	}
+
+	private void releaseExecutorsAndTimers() {
+		synchronized (executors) {
+			for (final ExecutorService executor : executors) {
+				executor.shutdownNow();
+			}
+
+			executors.clear();
+		}
+
+		cancelTimers();
+	}
+
 	protected CamerasSupervisor getCamerasSupervisor() {
 		return camerasSupervisor;
 	}
@@ -23,7 +23,9 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
@@ -37,35 +39,42 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.shootoff.Closeable;
+import com.shootoff.plugins.ExerciseMetadata;
 import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
 import com.shootoff.plugins.TrainingExerciseBase;
 
-public class Plugin {
+/**
+ * A plugin jar and the exercise it provides. A plugin created from a jar path
+ * is loaded immediately to read its manifest. A plugin created from a cached
+ * {@link PluginManifest} does not open its jar until the exercise class is
+ * actually needed, in the meantime a {@link PluginExercise} stands in for the
+ * exercise.
+ * 
+ * @author phrack
+ */
+public class Plugin implements Closeable {
 	private static final Logger logger = LoggerFactory.getLogger(Plugin.class);
 
-	private final URLClassLoader loader;
-	private final TrainingExercise exercise;
 	private final Path jarPath;
-	private final PluginType type;
+	private final PluginManifest manifest;
+	private volatile TrainingExercise exercise;
+
+	// Guarded by this
+	private URLClassLoader loader;
+	private Class<?> exerciseClass;
+	private boolean isClosed = false;
 
 	public Plugin(final Path jarPath) throws ParserConfigurationException, SAXException, IOException {
 		this.jarPath = jarPath;
 
-		loader = AccessController.doPrivileged((PrivilegedAction<URLClassLoader>) () -> {
-			try {
-				return new URLClassLoader(new URL[] { jarPath.toUri().toURL() },
-						Thread.currentThread().getContextClassLoader());
-			} catch (MalformedURLException e) {
-				logger.error("Malformed jarPath", e);
-			}
-			return null;
-		});
+		// Stat the jar before reading it so a jar that is replaced while it is
+		// being read is never cached as current
+		final long jarSize = Files.size(jarPath);
+		final long jarLastModified = Files.getLastModifiedTime(jarPath).toMillis();
 
-		if (loader == null) {
-			throw new IllegalArgumentException(
-					String.format("The jarPath %s does not represent a valid ShootOFF plugin", jarPath));
-		}
+		loader = createLoader(jarPath);
 
 		final InputStream pluginSettings = loader.getResourceAsStream("shootoff.xml");
 
@@ -84,7 +93,37 @@ public class Plugin {
 		}
 
 		exercise = handler.getExercise();
-		type = handler.getType();
+		exerciseClass = exercise.getClass();
+		manifest = new PluginManifest(PluginManifestCache.toKey(jarPath), jarSize, jarLastModified,
+				exercise.getInfo(), exerciseClass.getName(), handler.getType());
+	}
+
+	/**
+	 * Create a plugin from a manifest without opening its jar.
+	 */
+	public Plugin(final PluginManifest manifest) {
+		jarPath = Paths.get(manifest.getJarPath());
+		this.manifest = manifest;
+		exercise = new PluginExercise(this);
+	}
+
+	private static URLClassLoader createLoader(final Path jarPath) {
+		final URLClassLoader loader = AccessController.doPrivileged((PrivilegedAction<URLClassLoader>) () -> {
+			try {
+				return new URLClassLoader(new URL[] { jarPath.toUri().toURL() },
+						Thread.currentThread().getContextClassLoader());
+			} catch (MalformedURLException e) {
+				logger.error("Malformed jarPath", e);
+			}
+			return null;
+		});
+
+		if (loader == null) {
+			throw new IllegalArgumentException(
+					String.format("The jarPath %s does not represent a valid ShootOFF plugin", jarPath));
+		}
+
+		return loader;
 	}
 
 	private class PluginSettingsXMLHandler extends DefaultHandler {
@@ -152,20 +191,83 @@ public class Plugin {
 		}
 	}
 
-	public URLClassLoader getLoader() {
+	public synchronized URLClassLoader getLoader() {
+		if (isClosed) {
+			throw new IllegalStateException(String.format("The plugin at %s has been unloaded", jarPath));
+		}
+
+		if (loader == null) loader = createLoader(jarPath);
+
 		return loader;
 	}
 
+	/**
+	 * @return <tt>true</tt> if this plugin's jar has been opened
+	 */
+	public synchronized boolean isLoaded() {
+		return loader != null;
+	}
+
+	/**
+	 * Load the plugin's exercise class, opening the plugin's jar first if it
+	 * has not been opened yet.
+	 */
+	public synchronized Class<?> getExerciseClass() throws ClassNotFoundException {
+		if (exerciseClass == null) exerciseClass = getLoader().loadClass(manifest.getExerciseClassName());
+
+		return exerciseClass;
+	}
+
+	/**
+	 * @return the exercise registered for this plugin. For a plugin created
+	 *         from a manifest this is a {@link PluginExercise}, use
+	 *         {@link #getExerciseClass()} to create the real exercise.
+	 */
 	public TrainingExercise getExercise() {
 		return exercise;
 	}
 
+	public PluginManifest getManifest() {
+		return manifest;
+	}
+
+	public ExerciseMetadata getMetadata() {
+		return manifest.getMetadata();
+	}
+
 	public Path getJarPath() {
 		return jarPath;
 	}
 
 	public PluginType getType() {
-		return type;
+		return manifest.getType();
+	}
+
+	/**
+	 * Release this plugin's jar. Exercises created from this plugin must be
+	 * destroyed first because classes that were not loaded yet can no longer
+	 * be loaded. A closed plugin cannot be loaded again, a new plugin has to be
+	 * created for the jar instead.
+	 */
+	@Override
+	public synchronized void close() {
+		if (isClosed) return;
+		isClosed = true;
+
+		// Don't let the placeholder or a prototype instance keep the loader
+		// alive through this plugin
+		exerciseClass = null;
+		exercise = new PluginExercise(this);
+
+		if (loader == null) return;
+
+		try {
+			loader.close();
+		} catch (IOException e) {
+			logger.error("Failed to close class loader for plugin " + jarPath, e);
+		}
+
+		loader = null;
 	}
 
 	@Override
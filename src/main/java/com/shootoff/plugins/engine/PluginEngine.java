@@ -18,6 +18,7 @@
 
 package com.shootoff.plugins.engine;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
@@ -28,11 +29,22 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +61,8 @@ import com.shootoff.plugins.ShootForScore;
 import com.shootoff.plugins.SteelChallenge;
 import com.shootoff.plugins.TimedHolsterDrill;
 import com.shootoff.plugins.TrainingExercise;
+import com.shootoff.util.NamedThreadFactory;
+import com.shootoff.util.TimerPool;
 import com.shootoff.util.VersionChecker;
 
 /**
@@ -58,21 +72,40 @@ import com.shootoff.util.VersionChecker;
  */
 public class PluginEngine implements Runnable {
 	private static final Logger logger = LoggerFactory.getLogger(PluginEngine.class);
+
+	// How long an unloaded plugin's classes may stay reachable before they
+	// are reported as leaked
+	protected static final long LEAK_CHECK_DELAY = 60000; // ms
+
 	private final Path pluginDir;
 	private final PluginListener pluginListener;
 	private final PathMatcher jarMatcher = FileSystems.getDefault().getPathMatcher("glob:*.jar");
 	private final WatchService watcher = FileSystems.getDefault().newWatchService();
 	private final Set<Plugin> plugins = new HashSet<Plugin>();
+	private final PluginManifestCache manifestCache;
+	private final PluginLeakDetector leakDetector = new PluginLeakDetector();
 
 	private AtomicBoolean watching = new AtomicBoolean(false);
 
 	public PluginEngine(final PluginListener pluginListener) throws IOException {
+		this(pluginListener,
+				new File(System.getProperty("shootoff.plugins"), PluginManifestCache.CACHE_FILE_NAME));
+	}
+
+	/**
+	 * @param manifestCacheFile
+	 *            the file the manifests of discovered plugins are cached in
+	 *            so that unchanged plugin jars do not have to be opened on the
+	 *            next start
+	 */
+	public PluginEngine(final PluginListener pluginListener, final File manifestCacheFile) throws IOException {
 		if (pluginListener == null) {
 			throw new IllegalArgumentException("pluginListener cannot be null");
 		}
 
 		pluginDir = Paths.get(System.getProperty("shootoff.plugins"));
 		this.pluginListener = pluginListener;
+		manifestCache = new PluginManifestCache(manifestCacheFile);
 
 		if (!Files.exists(pluginDir) && !pluginDir.toFile().mkdirs()) {
 			logger.error("The path specified by shootoff.plugins doesn't exist and we couldn't create it.");
@@ -108,15 +141,46 @@ public class PluginEngine implements Runnable {
 	}
 
 	private boolean registerPlugin(final Path jarPath) {
-		final Plugin registeringPlugin;
+		final Optional<Plugin> registeringPlugin = loadPlugin(jarPath);
+
+		if (!registeringPlugin.isPresent()) return false;
+
+		final boolean registered = registerPlugin(registeringPlugin.get());
+		if (!registered) registeringPlugin.get().close();
+		manifestCache.save();
 
+		return registered;
+	}
+
+	/**
+	 * Create the plugin for <tt>jarPath</tt> from its cached manifest if the
+	 * jar did not change since the manifest was cached, otherwise open the jar
+	 * and cache its manifest.
+	 */
+	private Optional<Plugin> loadPlugin(final Path jarPath) {
 		try {
-			registeringPlugin = new Plugin(jarPath);
+			final Optional<Plugin> cachedPlugin = getCachedPlugin(jarPath);
+
+			if (cachedPlugin.isPresent()) return cachedPlugin;
+
+			final Plugin plugin = new Plugin(jarPath);
+			manifestCache.put(plugin.getManifest());
+
+			return Optional.of(plugin);
 		} catch (Exception e) {
 			logger.error("Error creating new plugin", e);
-			return false;
+			return Optional.empty();
 		}
+	}
 
+	private Optional<Plugin> getCachedPlugin(final Path jarPath) throws IOException {
+		final Optional<PluginManifest> manifest = manifestCache.get(jarPath, Files.size(jarPath),
+				Files.getLastModifiedTime(jarPath).toMillis());
+
+		return manifest.isPresent() ? Optional.of(new Plugin(manifest.get())) : Optional.empty();
+	}
+
+	private boolean registerPlugin(final Plugin registeringPlugin) {
 		// If the plugin already exists and the new plugin is newer,
 		// unregister the old plugin before registering the new one.
 		// If the new plugin is actually older, don't load it
@@ -125,11 +189,11 @@ public class PluginEngine implements Runnable {
 		if (existingPlugin.isPresent()) {
 			Plugin existing = existingPlugin.get();
 			
-			final ExerciseMetadata existingMetadata = existing.getExercise().getInfo();
-			final ExerciseMetadata registeringMetadata = registeringPlugin.getExercise().getInfo();
+			final ExerciseMetadata existingMetadata = existing.getMetadata();
+			final ExerciseMetadata registeringMetadata = registeringPlugin.getMetadata();
 			
-			final String existingVersion = existing.getExercise().getInfo().getVersion();
-			final String loadedVersion = registeringPlugin.getExercise().getInfo().getVersion();
+			final String existingVersion = existingMetadata.getVersion();
+			final String loadedVersion = registeringMetadata.getVersion();
 			if (VersionChecker.compareVersions(existingVersion, loadedVersion) == -1) {
 				// Existing is older
 				logger.debug("Registering plugin ({}, {}, {}, {}) is a newer duplicate of an " +
@@ -151,38 +215,125 @@ public class PluginEngine implements Runnable {
 			}
 		}
 		
-		if (plugins.add(registeringPlugin)) {
-			if (PluginType.STANDARD.equals(registeringPlugin.getType())) {
-				pluginListener.registerExercise(registeringPlugin.getExercise());
-			} else if (PluginType.PROJECTOR_ONLY.equals(registeringPlugin.getType())) {
-				pluginListener.registerProjectorExercise(registeringPlugin.getExercise());
-			}
+		if (!plugins.add(registeringPlugin)) return false;
+
+		if (PluginType.STANDARD.equals(registeringPlugin.getType())) {
+			pluginListener.registerExercise(registeringPlugin.getExercise());
+		} else if (PluginType.PROJECTOR_ONLY.equals(registeringPlugin.getType())) {
+			pluginListener.registerProjectorExercise(registeringPlugin.getExercise());
 		}
 
 		return true;
 	}
 	
 	private void unregisterPlugin(Plugin plugin) {
+		// A running exercise still uses the plugin's classes, so it must be
+		// stopped before the plugin is closed
+		pluginListener.stopPluginExercise(plugin);
 		pluginListener.unregisterExercise(plugin.getExercise());
 		plugins.remove(plugin);
+
+		if (plugin.isLoaded()) {
+			leakDetector.watch(plugin.getJarPath(), plugin.getLoader());
+			TimerPool.schedule(() -> leakDetector.check(LEAK_CHECK_DELAY), LEAK_CHECK_DELAY);
+		}
+
+		plugin.close();
 	}
 
+	/**
+	 * Unregister <tt>plugin</tt>, stopping its exercise if it is running, and
+	 * release its jar so the jar can be deleted or replaced.
+	 */
+	public void unloadPlugin(Plugin plugin) {
+		if (plugins.contains(plugin)) unregisterPlugin(plugin);
+	}
+
+	public PluginLeakDetector getLeakDetector() {
+		return leakDetector;
+	}
+
+	/**
+	 * Register every plugin jar in the plugins directory. Jars whose manifest
+	 * is cached are registered without being opened, the remaining jars are
+	 * opened in parallel. Plugins are registered in jar path order so that
+	 * duplicate resolution does not depend on which jar was read first.
+	 */
 	private void enumerateExistingPlugins() {
-		try {
-			Files.walk(pluginDir).forEach(filePath -> {
-				if (Files.isRegularFile(filePath) && jarMatcher.matches(filePath.getFileName())) {
-					registerPlugin(filePath);
-				}
-			});
+		final List<Path> jarPaths;
+
+		try (Stream<Path> files = Files.walk(pluginDir)) {
+			jarPaths = files.filter(filePath -> Files.isRegularFile(filePath)
+					&& jarMatcher.matches(filePath.getFileName())).sorted().collect(Collectors.toList());
 		} catch (IOException e) {
 			logger.error("Error enumerating existing external plugins", e);
+			return;
+		}
+
+		final Map<Path, Optional<Plugin>> loadedPlugins = new HashMap<Path, Optional<Plugin>>();
+		final List<Path> uncachedJars = new ArrayList<Path>();
+
+		for (Path jarPath : jarPaths) {
+			try {
+				final Optional<Plugin> cachedPlugin = getCachedPlugin(jarPath);
+
+				if (cachedPlugin.isPresent()) {
+					loadedPlugins.put(jarPath, cachedPlugin);
+				} else {
+					uncachedJars.add(jarPath);
+				}
+			} catch (IOException e) {
+				logger.error("Error reading plugin jar " + jarPath, e);
+			}
+		}
+
+		if (!uncachedJars.isEmpty()) loadedPlugins.putAll(loadPlugins(uncachedJars));
+
+		for (Path jarPath : jarPaths) {
+			final Optional<Plugin> plugin = loadedPlugins.get(jarPath);
+			if (plugin != null && plugin.isPresent() && !registerPlugin(plugin.get())) plugin.get().close();
 		}
+
+		manifestCache.retainAll(jarPaths);
+		manifestCache.save();
+	}
+
+	private Map<Path, Optional<Plugin>> loadPlugins(List<Path> jarPaths) {
+		final Map<Path, Optional<Plugin>> loadedPlugins = new HashMap<Path, Optional<Plugin>>();
+
+		final int threads = Math.max(1, Math.min(jarPaths.size(), Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new NamedThreadFactory("PluginScanner"));
+
+		try {
+			final List<Callable<Optional<Plugin>>> tasks = new ArrayList<Callable<Optional<Plugin>>>();
+
+			for (Path jarPath : jarPaths) {
+				tasks.add(() -> loadPlugin(jarPath));
+			}
+
+			final List<Future<Optional<Plugin>>> results = executor.invokeAll(tasks);
+
+			for (int i = 0; i < jarPaths.size(); i++) {
+				try {
+					loadedPlugins.put(jarPaths.get(i), results.get(i).get());
+				} catch (ExecutionException e) {
+					logger.error("Error creating new plugin", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return loadedPlugins;
 	}
 	
 	private Optional<Plugin> findPlugin(Plugin plugin) {
 		for (Plugin p : plugins) {
-			final ExerciseMetadata existingMetadata = p.getExercise().getInfo();
-			final ExerciseMetadata newMetadata = plugin.getExercise().getInfo();
+			final ExerciseMetadata existingMetadata = p.getMetadata();
+			final ExerciseMetadata newMetadata = plugin.getMetadata();
 			
 			// Plugins are considered to be the same if they have the
 			// same name and creator
@@ -201,7 +352,7 @@ public class PluginEngine implements Runnable {
 	
 	public Optional<Plugin> getPlugin(TrainingExercise trainingExercise) {
 		for (Plugin p : plugins) {
-			if (p.getExercise().getInfo().equals(trainingExercise.getInfo())) return Optional.of(p);
+			if (p.getMetadata().equals(trainingExercise.getInfo())) return Optional.of(p);
 		}
 		
 		return Optional.empty();
@@ -0,0 +1,69 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins.engine;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.plugins.ExerciseMetadata;
+import com.shootoff.plugins.TrainingExercise;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.Target;
+
+/**
+ * Stands in for the exercise of a plugin whose jar has not been opened yet so
+ * the exercise can be listed using only its cached manifest. It is never run,
+ * selecting it creates the real exercise from
+ * {@link Plugin#getExerciseClass()}.
+ * 
+ * @author phrack
+ */
+public class PluginExercise implements TrainingExercise {
+	private final Plugin plugin;
+
+	public PluginExercise(Plugin plugin) {
+		this.plugin = plugin;
+	}
+
+	public Plugin getPlugin() {
+		return plugin;
+	}
+
+	@Override
+	public void init() {}
+
+	@Override
+	public void targetUpdate(Target target, TargetChange change) {}
+
+	@Override
+	public ExerciseMetadata getInfo() {
+		return plugin.getMetadata();
+	}
+
+	@Override
+	public void shotListener(Shot shot, Optional<Hit> hit) {}
+
+	@Override
+	public void reset(List<Target> targets) {}
+
+	@Override
+	public void destroy() {}
+}
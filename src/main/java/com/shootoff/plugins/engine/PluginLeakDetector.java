@@ -0,0 +1,121 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins.engine;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the class loaders of unloaded plugins. Once a plugin is unloaded
+ * nothing should reference its class loader anymore, so a loader that is
+ * still reachable after a garbage collection means something (a thread, a
+ * timer, a static field, a listener) kept a plugin object alive and the
+ * plugin's classes can never be unloaded.
+ * 
+ * @author phrack
+ */
+public class PluginLeakDetector {
+	private static final Logger logger = LoggerFactory.getLogger(PluginLeakDetector.class);
+
+	private static final long COLLECTION_WAIT = 100; // ms
+
+	private final ReferenceQueue<ClassLoader> collectedLoaders = new ReferenceQueue<ClassLoader>();
+	private final Set<UnloadedPlugin> unloadedPlugins = ConcurrentHashMap.newKeySet();
+
+	private static class UnloadedPlugin extends WeakReference<ClassLoader> {
+		private final Path jarPath;
+		private final long unloadTime;
+		private volatile boolean isReported = false;
+
+		public UnloadedPlugin(Path jarPath, ClassLoader loader, ReferenceQueue<ClassLoader> queue) {
+			super(loader, queue);
+			this.jarPath = jarPath;
+			this.unloadTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Start watching the class loader of a plugin that was just unloaded.
+	 */
+	public void watch(Path jarPath, ClassLoader loader) {
+		unloadedPlugins.add(new UnloadedPlugin(jarPath, loader, collectedLoaders));
+	}
+
+	/**
+	 * Collect garbage and find the plugins whose class loader is still
+	 * reachable at least <tt>gracePeriod</tt> milliseconds after the plugin
+	 * was unloaded. Each leaked plugin is logged the first time it is found.
+	 * 
+	 * @return the jar paths of the leaked plugins
+	 */
+	public List<Path> check(long gracePeriod) {
+		System.gc();
+		expunge(COLLECTION_WAIT);
+
+		final long unloadedBefore = System.currentTimeMillis() - gracePeriod;
+		final List<Path> leakedPlugins = new ArrayList<Path>();
+
+		for (final UnloadedPlugin unloadedPlugin : unloadedPlugins) {
+			if (unloadedPlugin.unloadTime > unloadedBefore || unloadedPlugin.get() == null) continue;
+
+			leakedPlugins.add(unloadedPlugin.jarPath);
+
+			if (!unloadedPlugin.isReported) {
+				unloadedPlugin.isReported = true;
+				logger.warn("The plugin at {} was unloaded {} ms ago but its classes are still reachable",
+						unloadedPlugin.jarPath, System.currentTimeMillis() - unloadedPlugin.unloadTime);
+			}
+		}
+
+		return leakedPlugins;
+	}
+
+	/**
+	 * @return the number of unloaded plugins whose class loader has not been
+	 *         collected yet
+	 */
+	public int getPendingCount() {
+		expunge(0);
+		return unloadedPlugins.size();
+	}
+
+	private void expunge(long timeout) {
+		try {
+			Reference<? extends ClassLoader> collected = timeout > 0 ? collectedLoaders.remove(timeout)
+					: collectedLoaders.poll();
+
+			while (collected != null) {
+				unloadedPlugins.remove(collected);
+				collected = collectedLoaders.poll();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -8,4 +8,11 @@ public interface PluginListener {
 	public void registerProjectorExercise(TrainingExercise exercise);
 
 	public void unregisterExercise(TrainingExercise exercise);
+
+	/**
+	 * Stop <tt>plugin</tt>'s exercise if it is the running exercise. The
+	 * exercise must be stopped by the time this returns because the plugin's
+	 * class loader is closed right after.
+	 */
+	public void stopPluginExercise(Plugin plugin);
 }
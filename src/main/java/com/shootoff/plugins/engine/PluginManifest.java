@@ -0,0 +1,81 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins.engine;
+
+import com.shootoff.plugins.ExerciseMetadata;
+
+/**
+ * Everything ShootOFF needs to know about a plugin jar to list its exercise
+ * without loading any of the jar's classes. A manifest is only valid for the
+ * exact jar it was read from, identified by the jar's size and modification
+ * time.
+ * 
+ * @author phrack
+ */
+public class PluginManifest {
+	private final String jarPath;
+	private final long jarSize;
+	private final long jarLastModified;
+	private final ExerciseMetadata metadata;
+	private final String exerciseClassName;
+	private final PluginType type;
+
+	public PluginManifest(String jarPath, long jarSize, long jarLastModified, ExerciseMetadata metadata,
+			String exerciseClassName, PluginType type) {
+		this.jarPath = jarPath;
+		this.jarSize = jarSize;
+		this.jarLastModified = jarLastModified;
+		this.metadata = metadata;
+		this.exerciseClassName = exerciseClassName;
+		this.type = type;
+	}
+
+	public String getJarPath() {
+		return jarPath;
+	}
+
+	public long getJarSize() {
+		return jarSize;
+	}
+
+	public long getJarLastModified() {
+		return jarLastModified;
+	}
+
+	public ExerciseMetadata getMetadata() {
+		return metadata;
+	}
+
+	public String getExerciseClassName() {
+		return exerciseClassName;
+	}
+
+	public PluginType getType() {
+		return type;
+	}
+
+	/**
+	 * @return <tt>true</tt> if this manifest was read from a jar with the
+	 *         given size and modification time
+	 */
+	public boolean isCurrent(long jarSize, long jarLastModified) {
+		return this.jarSize == jarSize && this.jarLastModified == jarLastModified;
+	}
+}
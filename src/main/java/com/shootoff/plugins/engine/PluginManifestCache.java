@@ -0,0 +1,202 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.plugins.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.plugins.ExerciseMetadata;
+
+/**
+ * A persistent cache of {@link PluginManifest}s keyed by jar path. Reading a
+ * plugin's manifest requires opening the jar and loading its exercise class,
+ * so the result is kept in a small file in the plugins directory and reused
+ * on the next start as long as the jar's size and modification time did not
+ * change.
+ * 
+ * @author phrack
+ */
+public class PluginManifestCache {
+	private static final Logger logger = LoggerFactory.getLogger(PluginManifestCache.class);
+
+	public static final String CACHE_FILE_NAME = "plugins.cache";
+
+	private static final int MAGIC = 0x53504d31; // SPM1
+
+	private final File cacheFile;
+	private final ConcurrentMap<String, PluginManifest> manifests = new ConcurrentHashMap<String, PluginManifest>();
+	private final Object saveLock = new Object();
+	private volatile boolean isDirty = false;
+
+	/**
+	 * Open the manifest cache stored in <tt>cacheFile</tt>. A missing or
+	 * corrupt cache file results in an empty cache.
+	 */
+	public PluginManifestCache(File cacheFile) {
+		this.cacheFile = cacheFile;
+
+		if (cacheFile.exists()) {
+			try {
+				read();
+			} catch (IOException e) {
+				logger.warn("Failed to read plugin manifest cache " + cacheFile.getPath() + ", rebuilding it", e);
+				manifests.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the cached manifest for <tt>jarPath</tt> if there is one and it
+	 *         was read from a jar with the given size and modification time
+	 */
+	public Optional<PluginManifest> get(Path jarPath, long jarSize, long jarLastModified) {
+		final PluginManifest manifest = manifests.get(toKey(jarPath));
+
+		if (manifest == null || !manifest.isCurrent(jarSize, jarLastModified)) return Optional.empty();
+
+		return Optional.of(manifest);
+	}
+
+	public void put(PluginManifest manifest) {
+		manifests.put(manifest.getJarPath(), manifest);
+		isDirty = true;
+	}
+
+	/**
+	 * Drop the manifests of every jar that is not in <tt>jarPaths</tt>.
+	 */
+	public void retainAll(Collection<Path> jarPaths) {
+		final Set<String> keys = new HashSet<String>();
+		for (Path jarPath : jarPaths) {
+			keys.add(toKey(jarPath));
+		}
+
+		if (manifests.keySet().retainAll(keys)) isDirty = true;
+	}
+
+	public int size() {
+		return manifests.size();
+	}
+
+	protected static String toKey(Path jarPath) {
+		return jarPath.toAbsolutePath().normalize().toString();
+	}
+
+	private void read() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+			if (in.readInt() != MAGIC) throw new IOException(cacheFile.getPath() + " is not a plugin manifest cache");
+
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				final String jarPath = in.readUTF();
+				final long jarSize = in.readLong();
+				final long jarLastModified = in.readLong();
+				final String name = in.readUTF();
+				final String version = in.readUTF();
+				final String creator = in.readUTF();
+				final String description = in.readUTF();
+				final String exerciseClassName = in.readUTF();
+
+				final PluginType type;
+				try {
+					type = PluginType.valueOf(in.readUTF());
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Unknown plugin type in " + cacheFile.getPath(), e);
+				}
+
+				manifests.put(jarPath, new PluginManifest(jarPath, jarSize, jarLastModified,
+						new ExerciseMetadata(name, version, creator, description), exerciseClassName, type));
+			}
+		} catch (EOFException e) {
+			throw new IOException("Truncated plugin manifest cache " + cacheFile.getPath(), e);
+		}
+	}
+
+	/**
+	 * Write the cache if it changed since it was read or last saved. The cache
+	 * is written to a temporary file and renamed over the old one so a crash
+	 * never leaves a half written cache behind.
+	 */
+	public void save() {
+		synchronized (saveLock) {
+			if (!isDirty) return;
+			isDirty = false;
+
+			final File tempFile = new File(cacheFile.getPath() + ".tmp");
+			final List<PluginManifest> snapshot = new ArrayList<PluginManifest>(manifests.values());
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(snapshot.size());
+
+				for (PluginManifest manifest : snapshot) {
+					final ExerciseMetadata metadata = manifest.getMetadata();
+
+					out.writeUTF(manifest.getJarPath());
+					out.writeLong(manifest.getJarSize());
+					out.writeLong(manifest.getJarLastModified());
+					out.writeUTF(nullToEmpty(metadata.getName()));
+					out.writeUTF(nullToEmpty(metadata.getVersion()));
+					out.writeUTF(nullToEmpty(metadata.getCreator()));
+					out.writeUTF(nullToEmpty(metadata.getDescription()));
+					out.writeUTF(manifest.getExerciseClassName());
+					out.writeUTF(manifest.getType().name());
+				}
+			} catch (IOException e) {
+				logger.error("Failed to write plugin manifest cache " + tempFile.getPath(), e);
+				return;
+			}
+
+			try {
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				logger.error("Failed to move plugin manifest cache into place " + cacheFile.getPath(), e);
+			}
+		}
+	}
+
+	private static String nullToEmpty(String value) {
+		return value == null ? "" : value;
+	}
+}
@@ -0,0 +1,469 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+import com.shootoff.camera.Shot;
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.scene.paint.Color;
+
+/**
+ * An append-only, on disk log of session events. Recording threads append
+ * events to a lock-free buffer for their camera and a background writer
+ * periodically drains every buffer to the journal file as compact binary
+ * records. Because records are flushed as the session progresses, memory use
+ * does not grow with the length of a session and a crash loses at most the
+ * last flush interval of events. A journal left behind by a crash can be read
+ * back with {@link #read(File)}.
+ * 
+ * @author phrack
+ */
+public class SessionJournal implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+	public static final String JOURNAL_EXTENSION = ".journal";
+
+	private static final int MAGIC = 0x534f4a31; // SOJ1
+	private static final long FLUSH_INTERVAL = 250; // ms
+
+	// Record tags, a camera record assigns a compact id to a camera name the
+	// first time the camera appears in the journal
+	private static final byte CAMERA_RECORD = 0;
+	private static final byte SHOT_RECORD = 1;
+	private static final byte TARGET_ADDED_RECORD = 2;
+	private static final byte TARGET_REMOVED_RECORD = 3;
+	private static final byte TARGET_RESIZED_RECORD = 4;
+	private static final byte TARGET_MOVED_RECORD = 5;
+	private static final byte EXERCISE_FEED_MESSAGE_RECORD = 6;
+
+	private final File journalFile;
+	private final ConcurrentMap<String, Queue<Event>> buffers = new ConcurrentHashMap<String, Queue<Event>>();
+	private final Map<String, Integer> cameraIds = new HashMap<String, Integer>();
+	private final Object writeLock = new Object();
+	private final ScheduledExecutorService writerExecutor;
+	private final DataOutputStream out;
+	private final AtomicLong writtenCount = new AtomicLong(0);
+	private volatile Optional<Runnable> beforeFlush = Optional.empty();
+	private boolean isClosed = false;
+
+	public SessionJournal(File journalFile) throws IOException {
+		this.journalFile = journalFile;
+
+		final File parent = journalFile.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Failed to create session journal directory " + parent.getPath());
+		}
+
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile)));
+		out.writeInt(MAGIC);
+		out.flush();
+
+		writerExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("SessionJournalWriter"));
+		writerExecutor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL, FLUSH_INTERVAL,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+	/**
+	 * Set a task that the writer runs before each flush, e.g. to append events
+	 * that were being held back in memory.
+	 */
+	public void setBeforeFlush(Runnable beforeFlush) {
+		this.beforeFlush = Optional.ofNullable(beforeFlush);
+	}
+
+	/**
+	 * Queue an event to be written by the next flush. This method never blocks
+	 * and is safe to call from any thread. Events for the same camera are
+	 * written in the order they were appended.
+	 */
+	public void append(Event event) {
+		Queue<Event> buffer = buffers.get(event.getCameraName());
+
+		if (buffer == null) {
+			buffer = new ConcurrentLinkedQueue<Event>();
+			final Queue<Event> existing = buffers.putIfAbsent(event.getCameraName(), buffer);
+			if (existing != null) buffer = existing;
+		}
+
+		buffer.offer(event);
+	}
+
+	/**
+	 * Write every buffered event to the journal file.
+	 */
+	public void flush() throws IOException {
+		if (beforeFlush.isPresent()) beforeFlush.get().run();
+
+		synchronized (writeLock) {
+			if (isClosed) return;
+
+			for (final Map.Entry<String, Queue<Event>> buffer : buffers.entrySet()) {
+				Event event;
+				while ((event = buffer.getValue().poll()) != null) {
+					writeEvent(event);
+					writtenCount.incrementAndGet();
+				}
+			}
+
+			out.flush();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (final IOException e) {
+			logger.error("Error writing session journal " + journalFile.getPath(), e);
+		}
+	}
+
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	/**
+	 * Flush the journal and read every event it holds, grouped by camera in
+	 * the order the cameras first appeared.
+	 */
+	public Map<String, List<Event>> readEvents() throws IOException {
+		flush();
+
+		return read(journalFile, Optional.empty());
+	}
+
+	/**
+	 * Flush the journal and read the events of one camera. Records of other
+	 * cameras are skipped without being decoded.
+	 */
+	public List<Event> readCameraEvents(String cameraName) throws IOException {
+		flush();
+
+		final List<Event> cameraEvents = read(journalFile, Optional.of(cameraName)).get(cameraName);
+		return cameraEvents == null ? new ArrayList<Event>() : cameraEvents;
+	}
+
+	private void writeEvent(Event event) throws IOException {
+		final int cameraId = cameraId(event.getCameraName());
+
+		switch (event.getType()) {
+		case SHOT:
+			final ShotEvent se = (ShotEvent) event;
+			final Shot shot = se.getShot();
+			out.writeByte(SHOT_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(se.getTimestamp());
+			writeColor(shot.getColor());
+			out.writeDouble(shot.getX());
+			out.writeDouble(shot.getY());
+			out.writeLong(shot.getTimestamp());
+			out.writeInt(shot.getFrame());
+			out.writeShort(shot.getMarkerRadius());
+			out.writeByte((se.isMalfunction() ? 1 : 0) | (se.isReload() ? 2 : 0));
+			out.writeInt(se.getTargetIndex().orElse(-1));
+			out.writeInt(se.getHitRegionIndex().orElse(-1));
+			out.writeBoolean(se.getVideoString().isPresent());
+			if (se.getVideoString().isPresent()) out.writeUTF(se.getVideoString().get());
+			break;
+
+		case TARGET_ADDED:
+			final TargetAddedEvent tae = (TargetAddedEvent) event;
+			out.writeByte(TARGET_ADDED_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(tae.getTimestamp());
+			out.writeUTF(tae.getTargetName());
+			break;
+
+		case TARGET_REMOVED:
+			final TargetRemovedEvent tre = (TargetRemovedEvent) event;
+			out.writeByte(TARGET_REMOVED_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(tre.getTimestamp());
+			out.writeInt(tre.getTargetIndex());
+			break;
+
+		case TARGET_RESIZED:
+			final TargetResizedEvent trre = (TargetResizedEvent) event;
+			out.writeByte(TARGET_RESIZED_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(trre.getTimestamp());
+			out.writeInt(trre.getTargetIndex());
+			out.writeDouble(trre.getNewWidth());
+			out.writeDouble(trre.getNewHeight());
+			break;
+
+		case TARGET_MOVED:
+			final TargetMovedEvent tme = (TargetMovedEvent) event;
+			out.writeByte(TARGET_MOVED_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(tme.getTimestamp());
+			out.writeInt(tme.getTargetIndex());
+			out.writeInt(tme.getNewX());
+			out.writeInt(tme.getNewY());
+			break;
+
+		case EXERCISE_FEED_MESSAGE:
+			final ExerciseFeedMessageEvent efme = (ExerciseFeedMessageEvent) event;
+			out.writeByte(EXERCISE_FEED_MESSAGE_RECORD);
+			out.writeShort(cameraId);
+			out.writeLong(efme.getTimestamp());
+			out.writeUTF(efme.getMessage());
+			break;
+		}
+	}
+
+	private int cameraId(String cameraName) throws IOException {
+		Integer cameraId = cameraIds.get(cameraName);
+
+		if (cameraId == null) {
+			cameraId = cameraIds.size();
+			cameraIds.put(cameraName, cameraId);
+
+			out.writeByte(CAMERA_RECORD);
+			out.writeShort(cameraId);
+			out.writeUTF(cameraName);
+		}
+
+		return cameraId;
+	}
+
+	private void writeColor(Color color) throws IOException {
+		out.writeByte((int) Math.round(color.getRed() * 255));
+		out.writeByte((int) Math.round(color.getGreen() * 255));
+		out.writeByte((int) Math.round(color.getBlue() * 255));
+		out.writeByte((int) Math.round(color.getOpacity() * 255));
+	}
+
+	/**
+	 * Read every complete record in a journal file. A journal that was cut off
+	 * mid-record by a crash is read up to the last complete record.
+	 * 
+	 * @return the journal's events grouped by camera in the order the cameras
+	 *         first appeared
+	 */
+	public static Map<String, List<Event>> read(File journalFile) throws IOException {
+		return read(journalFile, Optional.empty());
+	}
+
+	private static Map<String, List<Event>> read(File journalFile, Optional<String> onlyCamera) throws IOException {
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+		final List<String> cameraNames = new ArrayList<String>();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(journalFile.getPath() + " is not a session journal");
+			}
+
+			while (true) {
+				final int tag = in.read();
+				if (tag == -1) break;
+
+				if (tag == CAMERA_RECORD) {
+					final int cameraId = in.readShort();
+					final String cameraName = in.readUTF();
+					if (cameraId != cameraNames.size()) {
+						throw new IOException("Corrupt session journal " + journalFile.getPath());
+					}
+					cameraNames.add(cameraName);
+					if (!onlyCamera.isPresent() || onlyCamera.get().equals(cameraName)) {
+						events.put(cameraName, new ArrayList<Event>());
+					}
+					continue;
+				}
+
+				final int cameraId = in.readShort();
+				if (cameraId < 0 || cameraId >= cameraNames.size()) {
+					throw new IOException("Corrupt session journal " + journalFile.getPath());
+				}
+
+				final String cameraName = cameraNames.get(cameraId);
+				final List<Event> cameraEvents = events.get(cameraName);
+
+				if (cameraEvents == null) {
+					skipEvent(tag, in);
+				} else {
+					cameraEvents.add(readEvent(tag, cameraName, in));
+				}
+			}
+		} catch (EOFException e) {
+			logger.warn("Session journal {} ends with an incomplete record, it was not closed cleanly",
+					journalFile.getPath());
+		}
+
+		return events;
+	}
+
+	private static Event readEvent(int tag, String cameraName, DataInputStream in) throws IOException {
+		final long timestamp = in.readLong();
+
+		switch (tag) {
+		case SHOT_RECORD:
+			final Color color = Color.rgb(in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte(),
+					in.readUnsignedByte() / 255.0);
+			final double x = in.readDouble();
+			final double y = in.readDouble();
+			final long shotTimestamp = in.readLong();
+			final int frame = in.readInt();
+			final int markerRadius = in.readShort();
+			final int flags = in.readByte();
+			final int targetIndex = in.readInt();
+			final int hitRegionIndex = in.readInt();
+			final Optional<String> videoString = in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty();
+
+			return new ShotEvent(cameraName, timestamp, new Shot(color, x, y, shotTimestamp, frame, markerRadius),
+					(flags & 1) != 0, (flags & 2) != 0,
+					targetIndex < 0 ? Optional.empty() : Optional.of(targetIndex),
+					hitRegionIndex < 0 ? Optional.empty() : Optional.of(hitRegionIndex), videoString);
+
+		case TARGET_ADDED_RECORD:
+			return new TargetAddedEvent(cameraName, timestamp, in.readUTF());
+
+		case TARGET_REMOVED_RECORD:
+			return new TargetRemovedEvent(cameraName, timestamp, in.readInt());
+
+		case TARGET_RESIZED_RECORD:
+			return new TargetResizedEvent(cameraName, timestamp, in.readInt(), in.readDouble(), in.readDouble());
+
+		case TARGET_MOVED_RECORD:
+			return new TargetMovedEvent(cameraName, timestamp, in.readInt(), in.readInt(), in.readInt());
+
+		case EXERCISE_FEED_MESSAGE_RECORD:
+			return new ExerciseFeedMessageEvent(cameraName, timestamp, in.readUTF());
+
+		default:
+			throw new IOException("Unknown session journal record type " + tag);
+		}
+	}
+
+	private static void skipEvent(int tag, DataInputStream in) throws IOException {
+		// Timestamp
+		skipFully(in, 8);
+
+		switch (tag) {
+		case SHOT_RECORD:
+			// Color, position, shot timestamp, frame, marker radius, flags,
+			// target and region
+			skipFully(in, 4 + 8 + 8 + 8 + 4 + 2 + 1 + 4 + 4);
+			if (in.readBoolean()) skipFully(in, in.readUnsignedShort());
+			break;
+
+		case TARGET_ADDED_RECORD:
+		case EXERCISE_FEED_MESSAGE_RECORD:
+			skipFully(in, in.readUnsignedShort());
+			break;
+
+		case TARGET_REMOVED_RECORD:
+			skipFully(in, 4);
+			break;
+
+		case TARGET_RESIZED_RECORD:
+			skipFully(in, 4 + 8 + 8);
+			break;
+
+		case TARGET_MOVED_RECORD:
+			skipFully(in, 4 + 4 + 4);
+			break;
+
+		default:
+			throw new IOException("Unknown session journal record type " + tag);
+		}
+	}
+
+	private static void skipFully(DataInputStream in, int length) throws IOException {
+		int remaining = length;
+
+		while (remaining > 0) {
+			final int skipped = in.skipBytes(remaining);
+
+			if (skipped == 0) {
+				// skipBytes() doesn't tell end of stream apart from a short
+				// skip
+				in.readByte();
+				remaining--;
+			} else {
+				remaining -= skipped;
+			}
+		}
+	}
+
+	/**
+	 * Write every buffered event and close the journal file. The file is kept
+	 * so that it can still be recovered if exporting the session fails.
+	 */
+	@Override
+	public void close() {
+		writerExecutor.shutdown();
+
+		flushQuietly();
+
+		synchronized (writeLock) {
+			if (isClosed) return;
+			isClosed = true;
+
+			try {
+				out.close();
+			} catch (final IOException e) {
+				logger.error("Error closing session journal " + journalFile.getPath(), e);
+			}
+		}
+	}
+
+	/**
+	 * Close the journal and delete its file, e.g. once the session was
+	 * exported.
+	 */
+	public void delete() {
+		close();
+
+		if (journalFile.exists() && !journalFile.delete()) {
+			logger.warn("Failed to delete session journal {}", journalFile.getPath());
+		}
+	}
+}
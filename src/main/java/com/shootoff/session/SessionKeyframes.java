@@ -0,0 +1,227 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+
+/**
+ * Periodic snapshots of a camera's replay state (targets, their positions and
+ * sizes, and the exercise message) taken every {@link #KEYFRAME_INTERVAL}
+ * events. A session replay can seek to any event by restoring the nearest
+ * earlier keyframe and applying at most <tt>KEYFRAME_INTERVAL</tt> events
+ * instead of replaying or undoing every event in between.
+ * 
+ * Keyframes are computed from the events alone and do not hold any scene
+ * graph nodes.
+ */
+public class SessionKeyframes {
+	public static final int KEYFRAME_INTERVAL = 200;
+
+	/**
+	 * The state of one target that is on the canvas at a keyframe.
+	 */
+	public static class TargetState {
+		private final TargetAddedEvent addedEvent;
+		private final Optional<Point2D> position;
+		private final Optional<Dimension2D> dimension;
+
+		public TargetState(TargetAddedEvent addedEvent, Optional<Point2D> position, Optional<Dimension2D> dimension) {
+			this.addedEvent = addedEvent;
+			this.position = position;
+			this.dimension = dimension;
+		}
+
+		/**
+		 * @return the event that added this target, which identifies the
+		 *         target across keyframes
+		 */
+		public TargetAddedEvent getAddedEvent() {
+			return addedEvent;
+		}
+
+		/**
+		 * @return the target's position, empty if it was never moved
+		 */
+		public Optional<Point2D> getPosition() {
+			return position;
+		}
+
+		/**
+		 * @return the target's size, empty if it was never resized
+		 */
+		public Optional<Dimension2D> getDimension() {
+			return dimension;
+		}
+	}
+
+	public static class Keyframe {
+		private final int eventIndex;
+		private final List<TargetState> targets;
+		private final String exerciseMessage;
+
+		public Keyframe(int eventIndex, List<TargetState> targets, String exerciseMessage) {
+			this.eventIndex = eventIndex;
+			this.targets = Collections.unmodifiableList(targets);
+			this.exerciseMessage = exerciseMessage;
+		}
+
+		/**
+		 * @return the index of the last event applied to reach this state, -1
+		 *         for the state before the first event
+		 */
+		public int getEventIndex() {
+			return eventIndex;
+		}
+
+		/**
+		 * @return the targets on the canvas in target index order
+		 */
+		public List<TargetState> getTargets() {
+			return targets;
+		}
+
+		public String getExerciseMessage() {
+			return exerciseMessage;
+		}
+	}
+
+	private final List<Event> events;
+	private final List<Keyframe> keyframes;
+
+	// The replay state after the events before nextEvent, keyframes are only
+	// computed up to the one that was last asked for
+	private final List<TargetState> targets = new ArrayList<TargetState>();
+	private String exerciseMessage = "";
+	private int nextEvent = 0;
+
+	private SessionKeyframes(List<Event> events) {
+		this.events = events;
+		keyframes = new ArrayList<Keyframe>(events.size() / KEYFRAME_INTERVAL + 1);
+		keyframes.add(new Keyframe(-1, new ArrayList<TargetState>(), exerciseMessage));
+	}
+
+	/**
+	 * Get the keyframes for one camera's events. Keyframes are computed as
+	 * they are asked for, so only the events up to the requested keyframe are
+	 * read. This matters for session lists that decode their events lazily.
+	 */
+	public static SessionKeyframes build(List<Event> events) {
+		return new SessionKeyframes(events);
+	}
+
+	private void computeThrough(int keyframe) {
+		while (keyframes.size() <= keyframe && nextEvent < events.size()) {
+			final Event e = events.get(nextEvent);
+
+			switch (e.getType()) {
+			case TARGET_ADDED:
+				targets.add(new TargetState((TargetAddedEvent) e, Optional.empty(), Optional.empty()));
+				break;
+
+			case TARGET_REMOVED:
+				final int removedIndex = ((TargetRemovedEvent) e).getTargetIndex();
+				if (removedIndex >= 0 && removedIndex < targets.size()) targets.remove(removedIndex);
+				break;
+
+			case TARGET_MOVED:
+				final TargetMovedEvent tme = (TargetMovedEvent) e;
+				if (tme.getTargetIndex() >= 0 && tme.getTargetIndex() < targets.size()) {
+					final TargetState moved = targets.get(tme.getTargetIndex());
+					targets.set(tme.getTargetIndex(), new TargetState(moved.getAddedEvent(),
+							Optional.of(new Point2D(tme.getNewX(), tme.getNewY())), moved.getDimension()));
+				}
+				break;
+
+			case TARGET_RESIZED:
+				final TargetResizedEvent trre = (TargetResizedEvent) e;
+				if (trre.getTargetIndex() >= 0 && trre.getTargetIndex() < targets.size()) {
+					final TargetState resized = targets.get(trre.getTargetIndex());
+					targets.set(trre.getTargetIndex(), new TargetState(resized.getAddedEvent(), resized.getPosition(),
+							Optional.of(new Dimension2D(trre.getNewWidth(), trre.getNewHeight()))));
+				}
+				break;
+
+			case EXERCISE_FEED_MESSAGE:
+				exerciseMessage = ((ExerciseFeedMessageEvent) e).getMessage();
+				break;
+
+			case SHOT:
+				break;
+			}
+
+			nextEvent++;
+
+			if (nextEvent % KEYFRAME_INTERVAL == 0) {
+				keyframes.add(new Keyframe(nextEvent - 1, new ArrayList<TargetState>(targets), exerciseMessage));
+			}
+		}
+	}
+
+	/**
+	 * Get the latest keyframe that does not include events after
+	 * <tt>eventIndex</tt>.
+	 */
+	public synchronized Keyframe getKeyframe(int eventIndex) {
+		if (eventIndex < 0) return keyframes.get(0);
+
+		final int keyframe = Math.min((eventIndex + 1) / KEYFRAME_INTERVAL, events.size() / KEYFRAME_INTERVAL);
+		computeThrough(keyframe);
+
+		return keyframes.get(keyframe);
+	}
+
+	public synchronized int getKeyframeCount() {
+		computeThrough(events.size() / KEYFRAME_INTERVAL);
+
+		return keyframes.size();
+	}
+
+	/**
+	 * Find the last event that happened at or before <tt>timestamp</tt> using
+	 * a binary search. The events must be in time order, as a camera's events
+	 * are.
+	 * 
+	 * @return the index of the event or -1 if every event happened after
+	 *         <tt>timestamp</tt>
+	 */
+	public static int indexAt(List<Event> events, long timestamp) {
+		int low = 0;
+		int high = events.size() - 1;
+		int found = -1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+
+			if (events.get(mid).getTimestamp() <= timestamp) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		return found;
+	}
+}
@@ -19,58 +19,260 @@
 package com.shootoff.session;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
 import com.shootoff.camera.Shot;
 import com.shootoff.targets.Target;
 
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 
-public class SessionRecorder {
+/**
+ * Records the events of a session for every camera. A recorder created with a
+ * sessions directory streams its events to a {@link SessionJournal} so that
+ * long sessions use bounded memory and survive a crash. A recorder created
+ * without one (e.g. for a loaded session) keeps its events in memory.
+ * 
+ * Consecutive moves and resizes of a target are collapsed into the last one,
+ * so they are held in memory until a different event follows or the target
+ * has stopped changing for a second.
+ */
+public class SessionRecorder implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(SessionRecorder.class);
+
+	private static final long TARGET_EVENT_SETTLE_TIME = 1000; // ms
+
+	private static class CameraEvents {
+		// Events of a loaded session, kept as the list the reader returned
+		// because it may decode events lazily
+		private List<Event> loaded = Collections.emptyList();
+		// Only used when there is no journal
+		private final List<Event> committed = new ArrayList<Event>();
+		// The trailing run of target moves and resizes, which may still be
+		// collapsed by the next move or resize
+		private final List<Event> pending = new ArrayList<Event>();
+		private long lastPendingTime = 0;
+	}
+
 	private final long startTime;
 	private final String sessionName;
-	private final Map<String, List<Event>> events = new HashMap<String, List<Event>>();
-	private final Map<String, Set<Target>> seenTargets = new HashMap<String, Set<Target>>();
-
-	private AtomicBoolean ignoreTargetCheck = new AtomicBoolean(false);
+	private final Optional<SessionJournal> journal;
+	private final Map<String, CameraEvents> events = Collections
+			.synchronizedMap(new LinkedHashMap<String, CameraEvents>());
+	private final ConcurrentMap<String, Set<Target>> seenTargets = new ConcurrentHashMap<String, Set<Target>>();
 
 	public SessionRecorder() {
 		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH.mm.ss");
 		sessionName = dateFormat.format(new Date());
 		startTime = System.currentTimeMillis();
+		journal = Optional.empty();
+	}
+
+	/**
+	 * Create a recorder that journals its events to
+	 * <tt>sessionsDirectory/&lt;session name&gt;.journal</tt>.
+	 * 
+	 * @throws IOException
+	 *             if the journal file cannot be created
+	 */
+	public SessionRecorder(File sessionsDirectory) throws IOException {
+		DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH.mm.ss");
+		sessionName = dateFormat.format(new Date());
+		startTime = System.currentTimeMillis();
+
+		final SessionJournal sessionJournal = new SessionJournal(
+				new File(sessionsDirectory, sessionName + SessionJournal.JOURNAL_EXTENSION));
+		sessionJournal.setBeforeFlush(() -> commitSettledEvents(false));
+		journal = Optional.of(sessionJournal);
 	}
 
 	public void addEvents(Map<String, List<Event>> events) {
-		this.events.putAll(events);
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			final CameraEvents ce = getCamera(cameraEvents.getKey());
+
+			synchronized (ce) {
+				if (!journal.isPresent() && ce.loaded.isEmpty() && ce.committed.isEmpty() && ce.pending.isEmpty()) {
+					ce.loaded = cameraEvents.getValue();
+					continue;
+				}
+
+				for (Event e : cameraEvents.getValue()) {
+					commit(ce, e);
+				}
+			}
+		}
 	}
 
+	/**
+	 * Get a snapshot of every event recorded so far grouped by camera. For a
+	 * journaled session the events are read back from the journal on every
+	 * call, so callers that need them more than once should keep the result.
+	 */
 	public Map<String, List<Event>> getEvents() {
-		return events;
+		final Map<String, List<Event>> allEvents = new LinkedHashMap<String, List<Event>>();
+
+		if (journal.isPresent()) {
+			try {
+				allEvents.putAll(journal.get().readEvents());
+			} catch (IOException e) {
+				logger.error("Error reading session journal", e);
+			}
+		}
+
+		for (Map.Entry<String, CameraEvents> camera : snapshotCameras().entrySet()) {
+			final CameraEvents ce = camera.getValue();
+			List<Event> cameraEvents = allEvents.get(camera.getKey());
+
+			synchronized (ce) {
+				// Don't copy a loaded session, it is never changed
+				if (cameraEvents == null && ce.committed.isEmpty() && ce.pending.isEmpty()) {
+					allEvents.put(camera.getKey(), Collections.unmodifiableList(ce.loaded));
+					continue;
+				}
+
+				if (cameraEvents == null) {
+					cameraEvents = new ArrayList<Event>();
+					allEvents.put(camera.getKey(), cameraEvents);
+				}
+
+				cameraEvents.addAll(ce.loaded);
+				cameraEvents.addAll(ce.committed);
+				cameraEvents.addAll(ce.pending);
+			}
+		}
+
+		return allEvents;
 	}
 
 	public String getSessionName() {
 		return sessionName;
 	}
 
+	/**
+	 * Get a snapshot of every event recorded so far for one camera. For a
+	 * journaled session only this camera's events are read back.
+	 */
 	public List<Event> getCameraEvents(String cameraName) {
-		if (events.containsKey(cameraName)) {
-			return events.get(cameraName);
+		final List<Event> cameraEvents = new ArrayList<Event>();
+
+		if (journal.isPresent()) {
+			try {
+				cameraEvents.addAll(journal.get().readCameraEvents(cameraName));
+			} catch (IOException e) {
+				logger.error("Error reading session journal", e);
+			}
+		}
+
+		final CameraEvents ce;
+		synchronized (events) {
+			ce = events.get(cameraName);
+		}
+
+		if (ce == null) return cameraEvents;
+
+		synchronized (ce) {
+			// Don't copy a loaded session, it is never changed
+			if (cameraEvents.isEmpty() && ce.committed.isEmpty() && ce.pending.isEmpty()) {
+				return Collections.unmodifiableList(ce.loaded);
+			}
+
+			cameraEvents.addAll(ce.loaded);
+			cameraEvents.addAll(ce.committed);
+			cameraEvents.addAll(ce.pending);
+		}
+
+		return cameraEvents;
+	}
+
+	private Map<String, CameraEvents> snapshotCameras() {
+		synchronized (events) {
+			return new LinkedHashMap<String, CameraEvents>(events);
+		}
+	}
+
+	private CameraEvents getCamera(String cameraName) {
+		synchronized (events) {
+			CameraEvents ce = events.get(cameraName);
+
+			if (ce == null) {
+				ce = new CameraEvents();
+				events.put(cameraName, ce);
+			}
+
+			return ce;
+		}
+	}
+
+	private Set<Target> getSeenTargets(String cameraName) {
+		Set<Target> targets = seenTargets.get(cameraName);
+
+		if (targets == null) {
+			targets = Collections.newSetFromMap(new ConcurrentHashMap<Target, Boolean>());
+			final Set<Target> existing = seenTargets.putIfAbsent(cameraName, targets);
+			if (existing != null) targets = existing;
+		}
+
+		return targets;
+	}
+
+	// Must be called while holding ce's lock
+	private void commit(CameraEvents ce, Event e) {
+		if (journal.isPresent()) {
+			journal.get().append(e);
 		} else {
-			List<Event> eventList = new ArrayList<Event>();
-			events.put(cameraName, eventList);
-			return eventList;
+			ce.committed.add(e);
+		}
+	}
+
+	// Must be called while holding ce's lock
+	private void record(CameraEvents ce, Event e) {
+		if (e.getType() == EventType.TARGET_MOVED || e.getType() == EventType.TARGET_RESIZED) {
+			ce.pending.add(e);
+			ce.lastPendingTime = System.currentTimeMillis();
+		} else {
+			commitPending(ce);
+			commit(ce, e);
+		}
+	}
+
+	// Must be called while holding ce's lock
+	private void commitPending(CameraEvents ce) {
+		for (Event pending : ce.pending) {
+			commit(ce, pending);
+		}
+
+		ce.pending.clear();
+	}
+
+	/**
+	 * Commit target moves and resizes that were held back to be collapsed. If
+	 * <tt>force</tt> is <tt>false</tt> only events for targets that have not
+	 * changed recently are committed.
+	 */
+	private void commitSettledEvents(boolean force) {
+		final long settledBefore = System.currentTimeMillis() - TARGET_EVENT_SETTLE_TIME;
+
+		for (CameraEvents ce : snapshotCameras().values()) {
+			synchronized (ce) {
+				if (!ce.pending.isEmpty() && (force || ce.lastPendingTime <= settledBefore)) commitPending(ce);
+			}
 		}
 	}
 
@@ -79,45 +281,46 @@ public class SessionRecorder {
 	// artificially add the target add event then ensure it gets moved and
 	// resized
 	// to wherever it already is and to however big it already is.
-	private void checkTarget(String cameraName, Target target) {
-		if (!seenTargets.containsKey(cameraName)) {
-			seenTargets.put(cameraName, new HashSet<Target>());
-		}
-
-		if (!seenTargets.get(cameraName).contains(target)) {
-			ignoreTargetCheck.set(true);
-
-			recordTargetAdded(cameraName, target);
+	// Must be called while holding ce's lock
+	private void checkTarget(CameraEvents ce, String cameraName, Target target) {
+		if (!getSeenTargets(cameraName).contains(target)) {
+			addTargetAdded(ce, cameraName, target);
 			Point2D p = target.getPosition();
-			recordTargetMoved(cameraName, target, (int) p.getX(), (int) p.getY());
+			addTargetMoved(ce, cameraName, target, (int) p.getX(), (int) p.getY());
 			Dimension2D d = target.getDimension();
-			recordTargetResized(cameraName, target, d.getWidth(), d.getHeight());
-
-			ignoreTargetCheck.set(false);
+			addTargetResized(ce, cameraName, target, d.getWidth(), d.getHeight());
 		}
 	}
 
 	public void recordShot(String cameraName, Shot shot, boolean isMalfunction, boolean isReload,
 			Optional<Target> target, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
-		Optional<Integer> targetIndex = Optional.empty();
+		final CameraEvents ce = getCamera(cameraName);
 
-		if (target.isPresent()) {
-			targetIndex = Optional.of(target.get().getTargetIndex());
-			if (!ignoreTargetCheck.get()) checkTarget(cameraName, target.get());
-		}
+		synchronized (ce) {
+			Optional<Integer> targetIndex = Optional.empty();
+
+			if (target.isPresent()) {
+				targetIndex = Optional.of(target.get().getTargetIndex());
+				checkTarget(ce, cameraName, target.get());
+			}
 
-		long timestamp = System.currentTimeMillis() - startTime;
+			long timestamp = System.currentTimeMillis() - startTime;
 
-		getCameraEvents(cameraName).add(new ShotEvent(cameraName, timestamp, shot, isMalfunction, isReload, targetIndex,
-				hitRegionIndex, videoString));
+			record(ce, new ShotEvent(cameraName, timestamp, shot, isMalfunction, isReload, targetIndex,
+					hitRegionIndex, videoString));
+		}
 	}
 
 	public void recordTargetAdded(String cameraName, Target target) {
-		if (!seenTargets.containsKey(cameraName)) {
-			seenTargets.put(cameraName, new HashSet<Target>());
+		final CameraEvents ce = getCamera(cameraName);
+
+		synchronized (ce) {
+			addTargetAdded(ce, cameraName, target);
 		}
+	}
 
-		seenTargets.get(cameraName).add(target);
+	private void addTargetAdded(CameraEvents ce, String cameraName, Target target) {
+		getSeenTargets(cameraName).add(target);
 
 		String targetName;
 
@@ -128,26 +331,25 @@ public class SessionRecorder {
 			targetName = target.getTargetFile().getPath().replace("targets" + File.separator, "");
 		}
 
-		getCameraEvents(cameraName)
-				.add(new TargetAddedEvent(cameraName, System.currentTimeMillis() - startTime, targetName));
+		record(ce, new TargetAddedEvent(cameraName, System.currentTimeMillis() - startTime, targetName));
 	}
 
 	public void recordTargetRemoved(String cameraName, Target target) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+		final CameraEvents ce = getCamera(cameraName);
 
-		getCameraEvents(cameraName).add(
-				new TargetRemovedEvent(cameraName, System.currentTimeMillis() - startTime, target.getTargetIndex()));
+		synchronized (ce) {
+			checkTarget(ce, cameraName, target);
+
+			record(ce, new TargetRemovedEvent(cameraName, System.currentTimeMillis() - startTime,
+					target.getTargetIndex()));
+		}
 	}
 
-	private void collapseTargetEvents(String cameraName, EventType type, Target target) {
-		ListIterator<Event> it = getCameraEvents(cameraName).listIterator(getCameraEvents(cameraName).size());
+	private void collapseTargetEvents(CameraEvents ce, EventType type, Target target) {
+		final Iterator<Event> it = ce.pending.iterator();
 
-		while (it.hasPrevious()) {
-			Event e = it.previous();
-
-			if (e.getType() != EventType.TARGET_RESIZED && e.getType() != EventType.TARGET_MOVED) {
-				break;
-			}
+		while (it.hasNext()) {
+			Event e = it.next();
 
 			if (e.getType() == type) {
 				if (type == EventType.TARGET_RESIZED
@@ -162,30 +364,77 @@ public class SessionRecorder {
 	}
 
 	public void recordTargetResized(String cameraName, Target target, double newWidth, double newHeight) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+		final CameraEvents ce = getCamera(cameraName);
+
+		synchronized (ce) {
+			checkTarget(ce, cameraName, target);
+			addTargetResized(ce, cameraName, target, newWidth, newHeight);
+		}
+	}
 
+	private void addTargetResized(CameraEvents ce, String cameraName, Target target, double newWidth,
+			double newHeight) {
 		// Remove all resize events immediately before this one
-		collapseTargetEvents(cameraName, EventType.TARGET_RESIZED, target);
+		collapseTargetEvents(ce, EventType.TARGET_RESIZED, target);
 
-		getCameraEvents(cameraName).add(new TargetResizedEvent(cameraName, System.currentTimeMillis() - startTime,
+		record(ce, new TargetResizedEvent(cameraName, System.currentTimeMillis() - startTime,
 				target.getTargetIndex(), newWidth, newHeight));
 	}
 
 	public void recordTargetMoved(String cameraName, Target target, int newX, int newY) {
-		if (!ignoreTargetCheck.get()) checkTarget(cameraName, target);
+		final CameraEvents ce = getCamera(cameraName);
 
+		synchronized (ce) {
+			checkTarget(ce, cameraName, target);
+			addTargetMoved(ce, cameraName, target, newX, newY);
+		}
+	}
+
+	private void addTargetMoved(CameraEvents ce, String cameraName, Target target, int newX, int newY) {
 		// Remove all move events immediately before this one
-		collapseTargetEvents(cameraName, EventType.TARGET_MOVED, target);
+		collapseTargetEvents(ce, EventType.TARGET_MOVED, target);
 
-		getCameraEvents(cameraName).add(new TargetMovedEvent(cameraName, System.currentTimeMillis() - startTime,
+		record(ce, new TargetMovedEvent(cameraName, System.currentTimeMillis() - startTime,
 				target.getTargetIndex(), newX, newY));
 	}
 
 	public void recordExerciseFeedMessage(String message) {
 		// Add an event for this message to each camera
 		for (String cameraName : seenTargets.keySet()) {
-			getCameraEvents(cameraName)
-					.add(new ExerciseFeedMessageEvent(cameraName, System.currentTimeMillis() - startTime, message));
+			final CameraEvents ce = getCamera(cameraName);
+
+			synchronized (ce) {
+				record(ce, new ExerciseFeedMessageEvent(cameraName, System.currentTimeMillis() - startTime, message));
+			}
 		}
 	}
+
+	public Optional<File> getJournalFile() {
+		if (journal.isPresent()) return Optional.of(journal.get().getJournalFile());
+
+		return Optional.empty();
+	}
+
+	/**
+	 * Stop recording and write every held back event to the journal. The
+	 * recorded events can still be read after the recorder is closed.
+	 */
+	@Override
+	public void close() {
+		if (!journal.isPresent()) return;
+
+		commitSettledEvents(true);
+		journal.get().close();
+	}
+
+	/**
+	 * Close the recorder and delete its journal. This should only be done once
+	 * the session was successfully exported.
+	 */
+	public void deleteJournal() {
+		if (!journal.isPresent()) return;
+
+		commitSettledEvents(true);
+		journal.get().delete();
+	}
 }
@@ -0,0 +1,531 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.OfflineCameraManager;
+import com.shootoff.camera.Shot;
+import com.shootoff.config.Configuration;
+import com.shootoff.gui.TargetView;
+import com.shootoff.session.io.SessionCatalog;
+import com.shootoff.session.io.SessionIO;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.Target;
+import com.shootoff.targets.io.TargetIO;
+import com.shootoff.targets.io.TargetIO.TargetComponents;
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * Re-runs shot detection over the videos recorded with a session, for example
+ * after detection settings were changed, and writes a re-scored copy of the
+ * session next to the original along with a report of what changed.
+ * 
+ * Every shot with a video is matched to the closest shot detected in its
+ * video. A matched shot is moved to the newly detected position and a shot
+ * with no detection nearby is dropped from the re-scored session. Shots
+ * without a video are copied as they are. The session's targets are replayed
+ * alongside its shots so that a moved shot is hit tested again against the
+ * targets as they were when it was fired.
+ * 
+ * @author phrack
+ */
+public class SessionRescorer {
+	private static final Logger logger = LoggerFactory.getLogger(SessionRescorer.class);
+
+	public static final String RESCORED_SUFFIX = "-rescored";
+	public static final String REPORT_EXTENSION = ".txt";
+
+	/**
+	 * Detected shots further than this from a recorded shot are considered a
+	 * different shot.
+	 */
+	public static final double MATCH_DISTANCE = 25; // px
+
+	private final Configuration config;
+	private final boolean preferNativeDetector;
+	private final boolean[][] sectorStatuses;
+	private final Optional<Integer> minimumShotDimension;
+	private final int threads;
+
+	/**
+	 * @param sectorStatuses
+	 *            the detection sectors to use, or <tt>null</tt> for all
+	 *            sectors
+	 */
+	public SessionRescorer(Configuration config, boolean preferNativeDetector, boolean[][] sectorStatuses,
+			Optional<Integer> minimumShotDimension) {
+		this.config = config;
+		this.preferNativeDetector = preferNativeDetector;
+		this.sectorStatuses = sectorStatuses;
+		this.minimumShotDimension = minimumShotDimension;
+		this.threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	private static class Rescore {
+		private final ShotEvent original;
+		private final Optional<Shot> rescored;
+		private final int detectedCount;
+		// Shot detection failed, the shot is kept as it was recorded
+		private final boolean isFailed;
+
+		public Rescore(ShotEvent original, Optional<Shot> rescored, int detectedCount) {
+			this(original, rescored, detectedCount, false);
+		}
+
+		private Rescore(ShotEvent original, Optional<Shot> rescored, int detectedCount, boolean isFailed) {
+			this.original = original;
+			this.rescored = rescored;
+			this.detectedCount = detectedCount;
+			this.isFailed = isFailed;
+		}
+
+		public static Rescore failed(ShotEvent original) {
+			return new Rescore(original, Optional.empty(), 0, true);
+		}
+	}
+
+	public static boolean isRescoredSession(File sessionFile) {
+		final String name = sessionFile.getName();
+		final int extensionStart = name.lastIndexOf('.');
+		return extensionStart > 0 && name.substring(0, extensionStart).endsWith(RESCORED_SUFFIX);
+	}
+
+	public static File getRescoredFile(File sessionFile) {
+		final String name = sessionFile.getName();
+		final int extensionStart = name.lastIndexOf('.');
+
+		return new File(sessionFile.getParentFile(),
+				name.substring(0, extensionStart) + RESCORED_SUFFIX + name.substring(extensionStart));
+	}
+
+	public static File getReportFile(File sessionFile) {
+		final String name = sessionFile.getName();
+		final int extensionStart = name.lastIndexOf('.');
+
+		return new File(sessionFile.getParentFile(),
+				name.substring(0, extensionStart) + RESCORED_SUFFIX + REPORT_EXTENSION);
+	}
+
+	/**
+	 * Re-score one session file or every session in a directory, skipping
+	 * sessions that are themselves re-scored copies.
+	 * 
+	 * @return the number of sessions that were re-scored
+	 */
+	public int rescore(File sessionOrDirectory) {
+		if (!sessionOrDirectory.isDirectory()) return rescoreSession(sessionOrDirectory) ? 1 : 0;
+
+		final File[] sessionFiles = sessionOrDirectory.listFiles(
+				(dir, name) -> SessionCatalog.isSessionFile(name) && !isRescoredSession(new File(dir, name)));
+		if (sessionFiles == null) return 0;
+
+		int rescored = 0;
+		for (File sessionFile : sessionFiles) {
+			// One broken session must not stop the rest from being re-scored
+			try {
+				if (rescoreSession(sessionFile)) rescored++;
+			} catch (RuntimeException e) {
+				logger.error("Failed to re-score session " + sessionFile.getPath(), e);
+			}
+		}
+
+		return rescored;
+	}
+
+	/**
+	 * Re-score a session, decoding its videos in parallel.
+	 * 
+	 * @return <tt>true</tt> if the session could be read and the re-scored
+	 *         session was written
+	 */
+	public boolean rescoreSession(File sessionFile) {
+		final Optional<SessionRecorder> session = SessionIO.loadSession(sessionFile);
+
+		if (!session.isPresent()) {
+			logger.error("Failed to read session {} for re-scoring", sessionFile.getPath());
+			return false;
+		}
+
+		final Map<String, List<Event>> events = session.get().getEvents();
+		final Map<ShotEvent, Rescore> rescores = rescoreShots(sessionFile, events);
+
+		final Map<String, List<Event>> rescoredEvents = new LinkedHashMap<String, List<Event>>();
+
+		final Map<ShotEvent, ShotEvent> rescoredShots = new IdentityHashMap<ShotEvent, ShotEvent>();
+		final List<String> invalidCameras = new ArrayList<String>();
+
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			final List<Event> rescoredCameraEvents = new ArrayList<Event>(cameraEvents.getValue().size());
+			final TargetReplay targets = new TargetReplay();
+
+			for (Event e : cameraEvents.getValue()) {
+				targets.apply(e);
+
+				final Rescore rescore = rescores.get(e);
+
+				if (rescore == null || rescore.isFailed) {
+					rescoredCameraEvents.add(e);
+				} else if (rescore.rescored.isPresent()) {
+					final ShotEvent rescoredShot = rescoreHit(rescore.original, rescore.rescored.get(), targets);
+					rescoredShots.put(rescore.original, rescoredShot);
+					rescoredCameraEvents.add(rescoredShot);
+				}
+			}
+
+			rescoredEvents.put(cameraEvents.getKey(), rescoredCameraEvents);
+			if (targets.hasInvalidEvents()) invalidCameras.add(cameraEvents.getKey());
+		}
+
+		final SessionRecorder rescoredSession = new SessionRecorder();
+		rescoredSession.addEvents(rescoredEvents);
+
+		final File rescoredFile = getRescoredFile(sessionFile);
+		SessionIO.saveSession(rescoredSession, rescoredFile);
+
+		try {
+			writeReport(sessionFile, rescoredFile, events, rescores, rescoredShots, invalidCameras);
+		} catch (IOException e) {
+			logger.error("Failed to write re-scoring report for " + sessionFile.getPath(), e);
+		}
+
+		return rescoredFile.exists();
+	}
+
+	protected static ShotEvent rescoreHit(ShotEvent se, Shot detected, TargetReplay targets) {
+		final Shot shot = new Shot(detected.getColor(), detected.getX(), detected.getY(), se.getShot().getTimestamp(),
+				se.getShot().getFrame(), se.getShot().getMarkerRadius());
+
+		Optional<Integer> targetIndex = se.getTargetIndex();
+		Optional<Integer> hitRegionIndex = se.getHitRegionIndex();
+
+		// If a target could not be loaded we can't tell whether it was hit,
+		// so the recorded hit is the best we have
+		if (targets.isComplete()) {
+			targetIndex = Optional.empty();
+			hitRegionIndex = Optional.empty();
+
+			final Optional<Hit> hit = targets.checkHit(shot);
+			if (hit.isPresent()) {
+				final Target target = hit.get().getTarget();
+				targetIndex = Optional.of(targets.indexOf(target));
+				hitRegionIndex = Optional.of(target.getRegions().indexOf(hit.get().getHitRegion()));
+			}
+		}
+
+		return new ShotEvent(se.getCameraName(), se.getTimestamp(), shot, se.isMalfunction(), se.isReload(),
+				targetIndex, hitRegionIndex, se.getVideoString());
+	}
+
+	/**
+	 * Rebuilds a camera's targets from its target events so shots can be hit
+	 * tested against the targets as they were when each shot was fired. A
+	 * target event for a target that doesn't exist, e.g. in a corrupt or
+	 * truncated session, stops the replay and later shots keep their recorded
+	 * hits.
+	 */
+	protected static class TargetReplay {
+		private final List<Target> targets = new ArrayList<Target>();
+		private boolean isComplete = true;
+		private boolean hasInvalidEvents = false;
+
+		public void apply(Event e) {
+			switch (e.getType()) {
+			case TARGET_ADDED:
+				final String targetName = ((TargetAddedEvent) e).getTargetName();
+				final Optional<TargetComponents> targetComponents = loadTarget(targetName);
+
+				if (targetComponents.isPresent()) {
+					final TargetComponents tc = targetComponents.get();
+					targets.add(new TargetView(tc.getTargetGroup(), tc.getTargetTags(), targets));
+				} else {
+					logger.warn("Cannot load target {}, shots will keep their recorded hits", targetName);
+					isComplete = false;
+				}
+
+				break;
+
+			case TARGET_REMOVED:
+				final int removedIndex = ((TargetRemovedEvent) e).getTargetIndex();
+				if (isValid(e, removedIndex)) targets.remove(removedIndex);
+				break;
+
+			case TARGET_RESIZED:
+				final TargetResizedEvent tre = (TargetResizedEvent) e;
+				if (isValid(e, tre.getTargetIndex())) {
+					targets.get(tre.getTargetIndex()).setDimensions(tre.getNewWidth(), tre.getNewHeight());
+				}
+				break;
+
+			case TARGET_MOVED:
+				final TargetMovedEvent tme = (TargetMovedEvent) e;
+				if (isValid(e, tme.getTargetIndex())) {
+					targets.get(tme.getTargetIndex()).setPosition(tme.getNewX(), tme.getNewY());
+				}
+				break;
+
+			default:
+				break;
+			}
+		}
+
+		private static Optional<TargetComponents> loadTarget(String targetName) {
+			try {
+				return TargetIO.loadTarget(new File(
+						System.getProperty("shootoff.home") + File.separator + "targets" + File.separator + targetName));
+			} catch (RuntimeException e) {
+				// Image regions can't be loaded without the JavaFX toolkit
+				logger.debug("Failed to load target " + targetName, e);
+				return Optional.empty();
+			}
+		}
+
+		private boolean isValid(Event e, int targetIndex) {
+			if (!isComplete) return false;
+			if (targetIndex >= 0 && targetIndex < targets.size()) return true;
+
+			logger.warn("{} event at {} ms refers to target {} but {} has {} targets, shots will keep their "
+					+ "recorded hits", e.getType(), e.getTimestamp(), targetIndex, e.getCameraName(), targets.size());
+			isComplete = false;
+			hasInvalidEvents = true;
+
+			return false;
+		}
+
+		public boolean isComplete() {
+			return isComplete;
+		}
+
+		/**
+		 * @return <tt>true</tt> if a target event referred to a target that
+		 *         was never added
+		 */
+		public boolean hasInvalidEvents() {
+			return hasInvalidEvents;
+		}
+
+		public int indexOf(Target target) {
+			return targets.indexOf(target);
+		}
+
+		// Mirrors CanvasManager: the most recently added target is on top
+		public Optional<Hit> checkHit(Shot shot) {
+			for (int i = targets.size() - 1; i >= 0; i--) {
+				final Optional<Hit> hit = targets.get(i).isHit(shot);
+				if (hit.isPresent()) return hit;
+			}
+
+			return Optional.empty();
+		}
+	}
+
+	private Map<ShotEvent, Rescore> rescoreShots(File sessionFile, Map<String, List<Event>> events) {
+		final Map<ShotEvent, Rescore> rescores = new IdentityHashMap<ShotEvent, Rescore>();
+		final List<Future<Rescore>> results = new ArrayList<Future<Rescore>>();
+		final List<ShotEvent> resultShots = new ArrayList<ShotEvent>();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new NamedThreadFactory("SessionRescorer"));
+
+		try {
+			for (List<Event> cameraEvents : events.values()) {
+				for (Event e : cameraEvents) {
+					if (e.getType() != EventType.SHOT) continue;
+
+					final ShotEvent se = (ShotEvent) e;
+					final File video = se.getVideos().get(se.getCameraName());
+					if (video == null) continue;
+
+					final File videoFile = resolveVideo(sessionFile, video);
+					if (!videoFile.exists()) {
+						logger.warn("Missing video {} for a shot in {}", videoFile.getPath(), sessionFile.getPath());
+						continue;
+					}
+
+					results.add(executor.submit(() -> rescoreShot(se, videoFile)));
+					resultShots.add(se);
+				}
+			}
+
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					final Rescore rescore = results.get(i).get();
+					rescores.put(rescore.original, rescore);
+				} catch (ExecutionException e) {
+					logger.error("Failed to re-run shot detection", e.getCause());
+					rescores.put(resultShots.get(i), Rescore.failed(resultShots.get(i)));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return rescores;
+	}
+
+	// Video paths are stored relative to ShootOFF's home, e.g.
+	// sessions/<session>/<video>.mp4
+	private static File resolveVideo(File sessionFile, File video) {
+		final String sessionsPrefix = "sessions" + File.separator;
+		final String path = video.getPath();
+
+		if (path.startsWith(sessionsPrefix)) {
+			return new File(sessionFile.getAbsoluteFile().getParentFile(), path.substring(sessionsPrefix.length()));
+		}
+
+		return video;
+	}
+
+	private Rescore rescoreShot(ShotEvent se, File videoFile) {
+		final OfflineCameraManager cameraManager = new OfflineCameraManager(config, preferNativeDetector,
+				sectorStatuses, minimumShotDimension);
+
+		try {
+			final List<Shot> detectedShots = cameraManager.processVideo(videoFile);
+
+			Optional<Shot> closest = Optional.empty();
+			double closestDistance = MATCH_DISTANCE;
+
+			for (Shot detected : detectedShots) {
+				final double distance = Math.hypot(detected.getX() - se.getShot().getX(),
+						detected.getY() - se.getShot().getY());
+
+				if (distance <= closestDistance) {
+					closest = Optional.of(detected);
+					closestDistance = distance;
+				}
+			}
+
+			return new Rescore(se, closest, detectedShots.size());
+		} finally {
+			cameraManager.close();
+		}
+	}
+
+	private static String describeHit(ShotEvent se) {
+		if (!se.getTargetIndex().isPresent()) return "now misses every target";
+
+		return String.format("now hits target %d region %d", se.getTargetIndex().get(),
+				se.getHitRegionIndex().get());
+	}
+
+	private void writeReport(File sessionFile, File rescoredFile, Map<String, List<Event>> events,
+			Map<ShotEvent, Rescore> rescores, Map<ShotEvent, ShotEvent> rescoredShots, List<String> invalidCameras)
+			throws IOException {
+		int unchanged = 0;
+		int moved = 0;
+		int dropped = 0;
+		int failed = 0;
+		int withoutVideo = 0;
+
+		final List<String> lines = new ArrayList<String>();
+
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			int shotNumber = 0;
+
+			for (Event e : cameraEvents.getValue()) {
+				if (e.getType() != EventType.SHOT) continue;
+				shotNumber++;
+
+				final ShotEvent se = (ShotEvent) e;
+				final Rescore rescore = rescores.get(se);
+				final String shotName = String.format("%s shot %d at %.2f s", cameraEvents.getKey(), shotNumber,
+						se.getTimestamp() / 1000.0);
+
+				if (rescore == null) {
+					withoutVideo++;
+					continue;
+				}
+
+				if (rescore.isFailed) {
+					failed++;
+					lines.add(String.format("FAILED %s: shot detection failed, the shot was kept as recorded",
+							shotName));
+					continue;
+				}
+
+				final String extraDetections = rescore.detectedCount > 1
+						? String.format(" (%d shots detected in video)", rescore.detectedCount) : "";
+
+				if (!rescore.rescored.isPresent()) {
+					dropped++;
+					lines.add(String.format("DROPPED %s: (%.1f, %.1f) was not detected%s", shotName,
+							se.getShot().getX(), se.getShot().getY(), extraDetections));
+					continue;
+				}
+
+				final Shot shot = rescore.rescored.get();
+				final double distance = Math.hypot(shot.getX() - se.getShot().getX(),
+						shot.getY() - se.getShot().getY());
+				final ShotEvent rescoredShot = rescoredShots.get(se);
+				final boolean hitChanged = !rescoredShot.getTargetIndex().equals(se.getTargetIndex())
+						|| !rescoredShot.getHitRegionIndex().equals(se.getHitRegionIndex());
+
+				if (distance < 1 && shot.getColor().equals(se.getShot().getColor()) && !hitChanged) {
+					unchanged++;
+				} else {
+					moved++;
+					lines.add(String.format("MOVED %s: (%.1f, %.1f) -> (%.1f, %.1f), %.1f px%s%s%s", shotName,
+							se.getShot().getX(), se.getShot().getY(), shot.getX(), shot.getY(), distance,
+							shot.getColor().equals(se.getShot().getColor()) ? "" : ", laser color changed",
+							hitChanged ? ", " + describeHit(rescoredShot) : "", extraDetections));
+				}
+			}
+		}
+
+		try (PrintWriter report = new PrintWriter(new OutputStreamWriter(
+				new FileOutputStream(getReportFile(sessionFile)), StandardCharsets.UTF_8))) {
+			report.printf("Re-scored %s as %s%n", sessionFile.getName(), rescoredFile.getName());
+			report.printf("Unchanged: %d, moved: %d, dropped: %d, failed: %d, without video: %d%n%n", unchanged,
+					moved, dropped, failed, withoutVideo);
+
+			for (String cameraName : invalidCameras) {
+				report.printf("WARNING %s: target events refer to targets that don't exist, later shots kept their "
+						+ "recorded hits%n", cameraName);
+			}
+
+			for (String line : lines) {
+				report.println(line);
+			}
+		}
+
+		logger.info("Re-scored {}: {} unchanged, {} moved, {} dropped, {} failed, {} without video",
+				sessionFile.getName(), unchanged, moved, dropped, failed, withoutVideo);
+	}
+}
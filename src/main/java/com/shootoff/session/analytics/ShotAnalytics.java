@@ -0,0 +1,181 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session.analytics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.SessionRescorer;
+import com.shootoff.session.io.SessionCatalog;
+import com.shootoff.session.io.SessionCatalog.SessionSummary;
+import com.shootoff.session.io.SessionIO;
+
+/**
+ * Computes {@link ShotStatistics} across many sessions. Sessions are read and
+ * analyzed in parallel on a fork-join pool and the statistics of every
+ * session are cached until its file changes, so analyzing the history again
+ * after a session is saved only reads the new session. Re-scored copies of
+ * sessions are skipped so their shots are not counted twice.
+ * 
+ * @author phrack
+ */
+public final class ShotAnalytics {
+	private static final Logger logger = LoggerFactory.getLogger(ShotAnalytics.class);
+
+	private static final ForkJoinPool analyticsPool = new ForkJoinPool();
+
+	private static class CachedStatistics {
+		private final long fileSize;
+		private final long lastModified;
+		private final ShotStatistics statistics;
+
+		public CachedStatistics(long fileSize, long lastModified, ShotStatistics statistics) {
+			this.fileSize = fileSize;
+			this.lastModified = lastModified;
+			this.statistics = statistics;
+		}
+	}
+
+	private static final ConcurrentMap<String, CachedStatistics> cache = new ConcurrentHashMap<String, CachedStatistics>();
+
+	private ShotAnalytics() {}
+
+	/**
+	 * Analyze every session in <tt>catalog</tt>. The catalog should already
+	 * be refreshed.
+	 */
+	public static ShotStatistics analyze(SessionCatalog catalog) {
+		return analyze(catalog.getSessionsDirectory(), catalog.query((summary) -> true, SessionCatalog.NEWEST_FIRST));
+	}
+
+	/**
+	 * Analyze a subset of the sessions in <tt>sessionsDirectory</tt>, for
+	 * example the result of a catalog query.
+	 */
+	public static ShotStatistics analyze(File sessionsDirectory, List<SessionSummary> sessions) {
+		final List<SessionSummary> originalSessions = new ArrayList<SessionSummary>(sessions.size());
+
+		for (final SessionSummary summary : sessions) {
+			if (!SessionRescorer.isRescoredSession(new File(summary.getFileName()))) originalSessions.add(summary);
+		}
+
+		if (originalSessions.isEmpty()) return new ShotStatistics();
+
+		return analyticsPool.invoke(new AnalyzeTask(sessionsDirectory, originalSessions));
+	}
+
+	/**
+	 * Analyze sessions on the analytics pool instead of the calling thread.
+	 * 
+	 * @param onAnalyzed
+	 *            called on an analytics thread with the statistics
+	 */
+	public static void analyzeInBackground(File sessionsDirectory, List<SessionSummary> sessions,
+			Consumer<ShotStatistics> onAnalyzed) {
+		final List<SessionSummary> sessionsCopy = new ArrayList<SessionSummary>(sessions);
+
+		analyticsPool.execute(() -> onAnalyzed.accept(analyze(sessionsDirectory, sessionsCopy)));
+	}
+
+	private static class AnalyzeTask extends RecursiveTask<ShotStatistics> {
+		private static final long serialVersionUID = 1L;
+
+		private final File sessionsDirectory;
+		private final List<SessionSummary> sessions;
+
+		public AnalyzeTask(File sessionsDirectory, List<SessionSummary> sessions) {
+			this.sessionsDirectory = sessionsDirectory;
+			this.sessions = sessions;
+		}
+
+		@Override
+		protected ShotStatistics compute() {
+			// Reading a session dwarfs the cost of a task, so split down to
+			// single sessions
+			if (sessions.size() == 1) return analyze(sessionsDirectory, sessions.get(0));
+
+			final int middle = sessions.size() / 2;
+			final AnalyzeTask left = new AnalyzeTask(sessionsDirectory, sessions.subList(0, middle));
+			final AnalyzeTask right = new AnalyzeTask(sessionsDirectory, sessions.subList(middle, sessions.size()));
+
+			left.fork();
+			final ShotStatistics rightStatistics = right.compute();
+			return left.join().combine(rightStatistics);
+		}
+	}
+
+	private static ShotStatistics analyze(File sessionsDirectory, SessionSummary summary) {
+		final File sessionFile = new File(sessionsDirectory, summary.getFileName());
+		final CachedStatistics cached = cache.get(sessionFile.getAbsolutePath());
+
+		if (cached != null && cached.fileSize == summary.getFileSize()
+				&& cached.lastModified == summary.getLastModified()) {
+			return cached.statistics;
+		}
+
+		final Optional<SessionRecorder> session = SessionIO.loadSession(sessionFile);
+
+		if (!session.isPresent()) {
+			logger.warn("Failed to read session {} for analysis", sessionFile.getPath());
+			return new ShotStatistics();
+		}
+
+		final ShotStatistics statistics = ShotStatistics.of(ShotTable.fromEvents(session.get().getEvents()),
+				summary.getDate(), summary.getExercise());
+		cache.put(sessionFile.getAbsolutePath(),
+				new CachedStatistics(summary.getFileSize(), summary.getLastModified(), statistics));
+
+		return statistics;
+	}
+
+	/**
+	 * Cache the statistics of a session that was just saved from events that
+	 * are already in memory. The statistics are computed on the analytics
+	 * pool, so this does not block the caller.
+	 */
+	public static void sessionSaved(File sessionFile, SessionSummary summary, Map<String, List<Event>> events) {
+		if (SessionRescorer.isRescoredSession(sessionFile)) return;
+
+		analyticsPool.execute(() -> cache.put(sessionFile.getAbsolutePath(),
+				new CachedStatistics(summary.getFileSize(), summary.getLastModified(), ShotStatistics
+						.of(ShotTable.fromEvents(events), summary.getDate(), summary.getExercise()))));
+	}
+
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	protected static int getCacheSize() {
+		return cache.size();
+	}
+}
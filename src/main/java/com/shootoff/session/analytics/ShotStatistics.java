@@ -0,0 +1,276 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Aggregate statistics over the shots of one or more sessions: split times,
+ * malfunction recovery times, shot groups per target region and hit
+ * percentages per exercise. Statistics for separate sessions are computed
+ * independently and combined with {@link #combine(ShotStatistics)}, so
+ * adding a session never requires looking at the others again.
+ * 
+ * @author phrack
+ */
+public class ShotStatistics {
+	/**
+	 * Splits longer than this are treated as a pause between strings of fire
+	 * rather than as a split.
+	 */
+	public static final long MAX_SPLIT_TIME = 10000; // ms
+
+	public static final String NO_EXERCISE = "None";
+
+	/**
+	 * The centroid of a region's shot group in one session, used to follow
+	 * how a group drifts over time.
+	 */
+	public static class CentroidSample {
+		private final long date;
+		private final double x;
+		private final double y;
+		private final int shotCount;
+
+		public CentroidSample(long date, double x, double y, int shotCount) {
+			this.date = date;
+			this.x = x;
+			this.y = y;
+			this.shotCount = shotCount;
+		}
+
+		public long getDate() {
+			return date;
+		}
+
+		public double getX() {
+			return x;
+		}
+
+		public double getY() {
+			return y;
+		}
+
+		public int getShotCount() {
+			return shotCount;
+		}
+	}
+
+	public static class RegionGroup {
+		private long count = 0;
+		private double sumX = 0;
+		private double sumY = 0;
+		private double sumSquaresX = 0;
+		private double sumSquaresY = 0;
+		private final List<CentroidSample> drift = new ArrayList<CentroidSample>();
+
+		private void add(double x, double y) {
+			count++;
+			sumX += x;
+			sumY += y;
+			sumSquaresX += x * x;
+			sumSquaresY += y * y;
+		}
+
+		private void addAll(RegionGroup other) {
+			count += other.count;
+			sumX += other.sumX;
+			sumY += other.sumY;
+			sumSquaresX += other.sumSquaresX;
+			sumSquaresY += other.sumSquaresY;
+			drift.addAll(other.drift);
+		}
+
+		public long getShotCount() {
+			return count;
+		}
+
+		public double getCentroidX() {
+			return count == 0 ? 0 : sumX / count;
+		}
+
+		public double getCentroidY() {
+			return count == 0 ? 0 : sumY / count;
+		}
+
+		/**
+		 * Get the group size as twice the radial standard deviation of the
+		 * shots around the centroid.
+		 */
+		public double getGroupSize() {
+			if (count < 2) return 0;
+
+			final double varianceX = sumSquaresX / count - getCentroidX() * getCentroidX();
+			final double varianceY = sumSquaresY / count - getCentroidY() * getCentroidY();
+
+			return 2 * Math.sqrt(Math.max(0, varianceX + varianceY));
+		}
+
+		/**
+		 * @return the group's centroid in each session, oldest first
+		 */
+		public List<CentroidSample> getDrift() {
+			final List<CentroidSample> sortedDrift = new ArrayList<CentroidSample>(drift);
+			sortedDrift.sort(Comparator.comparingLong(CentroidSample::getDate));
+			return sortedDrift;
+		}
+	}
+
+	private final TimeDistribution splitTimes = new TimeDistribution();
+	private final TimeDistribution malfunctionRecoveryTimes = new TimeDistribution();
+	private final Map<String, RegionGroup> regionGroups = new HashMap<String, RegionGroup>();
+	private final Map<String, long[]> exerciseHits = new HashMap<String, long[]>();
+	private int sessionCount = 0;
+
+	/**
+	 * Compute the statistics of one session.
+	 * 
+	 * @param date
+	 *            when the session was recorded, used to order group drift
+	 */
+	public static ShotStatistics of(ShotTable table, long date, Optional<String> exercise) {
+		final ShotStatistics statistics = new ShotStatistics();
+		statistics.sessionCount = 1;
+
+		final RegionGroup[] groups = new RegionGroup[table.getRegionCount()];
+		final long[] hits = new long[2];
+		statistics.exerciseHits.put(exercise.orElse(NO_EXERCISE), hits);
+
+		for (int i = 0; i < table.size(); i++) {
+			final boolean sameCamera = i > 0 && table.getCamera(i - 1) == table.getCamera(i);
+
+			if (sameCamera && !table.isMalfunction(i)) {
+				final long elapsed = table.getTimestamp(i) - table.getTimestamp(i - 1);
+
+				if (table.isMalfunction(i - 1)) {
+					statistics.malfunctionRecoveryTimes.add(elapsed);
+				} else if (!table.isReload(i - 1) && !table.isReload(i) && elapsed <= MAX_SPLIT_TIME) {
+					statistics.splitTimes.add(elapsed);
+				}
+			}
+
+			// Malfunctions and reloads aren't real shots
+			if (table.isMalfunction(i) || table.isReload(i)) continue;
+
+			hits[0]++;
+			if (table.isHit(i)) hits[1]++;
+
+			final int region = table.getRegion(i);
+			if (region == ShotTable.NO_REGION) continue;
+
+			if (groups[region] == null) groups[region] = new RegionGroup();
+			groups[region].add(table.getX(i), table.getY(i));
+		}
+
+		for (int region = 0; region < groups.length; region++) {
+			final RegionGroup group = groups[region];
+			if (group == null) continue;
+
+			group.drift.add(new CentroidSample(date, group.getCentroidX(), group.getCentroidY(), (int) group.count));
+			statistics.regionGroups.put(table.getRegionName(region), group);
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * @return new statistics covering the sessions of both this and
+	 *         <tt>other</tt>
+	 */
+	public ShotStatistics combine(ShotStatistics other) {
+		final ShotStatistics combined = new ShotStatistics();
+		combined.addAll(this);
+		combined.addAll(other);
+		return combined;
+	}
+
+	private void addAll(ShotStatistics other) {
+		sessionCount += other.sessionCount;
+		splitTimes.addAll(other.splitTimes);
+		malfunctionRecoveryTimes.addAll(other.malfunctionRecoveryTimes);
+
+		for (Map.Entry<String, RegionGroup> group : other.regionGroups.entrySet()) {
+			RegionGroup combinedGroup = regionGroups.get(group.getKey());
+			if (combinedGroup == null) {
+				combinedGroup = new RegionGroup();
+				regionGroups.put(group.getKey(), combinedGroup);
+			}
+			combinedGroup.addAll(group.getValue());
+		}
+
+		for (Map.Entry<String, long[]> hits : other.exerciseHits.entrySet()) {
+			long[] combinedHits = exerciseHits.get(hits.getKey());
+			if (combinedHits == null) {
+				combinedHits = new long[2];
+				exerciseHits.put(hits.getKey(), combinedHits);
+			}
+			combinedHits[0] += hits.getValue()[0];
+			combinedHits[1] += hits.getValue()[1];
+		}
+	}
+
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	public TimeDistribution getSplitTimes() {
+		return splitTimes;
+	}
+
+	/**
+	 * @return the time from each malfunction to the next shot
+	 */
+	public TimeDistribution getMalfunctionRecoveryTimes() {
+		return malfunctionRecoveryTimes;
+	}
+
+	/**
+	 * @return shot groups keyed by region name
+	 */
+	public Map<String, RegionGroup> getRegionGroups() {
+		return Collections.unmodifiableMap(regionGroups);
+	}
+
+	public List<String> getExercises() {
+		final List<String> exercises = new ArrayList<String>(exerciseHits.keySet());
+		Collections.sort(exercises);
+		return exercises;
+	}
+
+	public long getShotCount(String exercise) {
+		final long[] hits = exerciseHits.get(exercise);
+		return hits == null ? 0 : hits[0];
+	}
+
+	/**
+	 * @return the fraction of shots fired during <tt>exercise</tt> that hit a
+	 *         target
+	 */
+	public double getHitRatio(String exercise) {
+		final long[] hits = exerciseHits.get(exercise);
+		return hits == null || hits[0] == 0 ? 0 : (double) hits[1] / (double) hits[0];
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.shootoff.session.Event;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+
+/**
+ * The shots of one session stored column by column in primitive arrays
+ * instead of as event objects, which keeps large amounts of shot history
+ * compact and fast to scan. Shots are grouped by camera and are in time order
+ * within a camera.
+ * 
+ * Each hit is labelled with the target region it landed in, named after the
+ * target file and the region's index in that target, so regions can be
+ * compared across sessions.
+ * 
+ * @author phrack
+ */
+public class ShotTable {
+	public static final int NO_REGION = -1;
+
+	private static final byte MALFUNCTION = 1;
+	private static final byte RELOAD = 2;
+	private static final byte HIT = 4;
+
+	private final List<String> cameraNames = new ArrayList<String>();
+	private final List<String> regionNames = new ArrayList<String>();
+	private final Map<String, Integer> regionIds = new HashMap<String, Integer>();
+
+	private int size = 0;
+	private long[] timestamps = new long[16];
+	private double[] xs = new double[16];
+	private double[] ys = new double[16];
+	private int[] regions = new int[16];
+	private int[] cameras = new int[16];
+	private byte[] flags = new byte[16];
+
+	private ShotTable() {}
+
+	/**
+	 * Build a table from a session's events grouped by camera.
+	 */
+	public static ShotTable fromEvents(Map<String, List<Event>> events) {
+		final ShotTable table = new ShotTable();
+
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			final int cameraId = table.cameraNames.size();
+			table.cameraNames.add(cameraEvents.getKey());
+
+			// Shots reference targets by their index among the targets on the
+			// canvas at the time, so follow the adds and removes
+			final List<String> targets = new ArrayList<String>();
+
+			for (Event e : cameraEvents.getValue()) {
+				switch (e.getType()) {
+				case TARGET_ADDED:
+					targets.add(((TargetAddedEvent) e).getTargetName());
+					break;
+
+				case TARGET_REMOVED:
+					final int removedIndex = ((TargetRemovedEvent) e).getTargetIndex();
+					if (removedIndex >= 0 && removedIndex < targets.size()) targets.remove(removedIndex);
+					break;
+
+				case SHOT:
+					table.addShot(cameraId, (ShotEvent) e, targets);
+					break;
+
+				default:
+					break;
+				}
+			}
+		}
+
+		return table;
+	}
+
+	private void addShot(int cameraId, ShotEvent se, List<String> targets) {
+		if (size == timestamps.length) grow();
+
+		byte shotFlags = 0;
+		if (se.isMalfunction()) shotFlags |= MALFUNCTION;
+		if (se.isReload()) shotFlags |= RELOAD;
+		if (se.getTargetIndex().isPresent()) shotFlags |= HIT;
+
+		int region = NO_REGION;
+		if (se.getTargetIndex().isPresent() && se.getHitRegionIndex().isPresent()) {
+			final int targetIndex = se.getTargetIndex().get();
+			final String targetName = targetIndex >= 0 && targetIndex < targets.size() ? targets.get(targetIndex)
+					: "target " + targetIndex;
+			region = regionId(targetName + " region " + se.getHitRegionIndex().get());
+		}
+
+		timestamps[size] = se.getTimestamp();
+		xs[size] = se.getShot().getX();
+		ys[size] = se.getShot().getY();
+		regions[size] = region;
+		cameras[size] = cameraId;
+		flags[size] = shotFlags;
+		size++;
+	}
+
+	private int regionId(String regionName) {
+		Integer id = regionIds.get(regionName);
+
+		if (id == null) {
+			id = regionNames.size();
+			regionNames.add(regionName);
+			regionIds.put(regionName, id);
+		}
+
+		return id;
+	}
+
+	private void grow() {
+		final int capacity = timestamps.length * 2;
+		timestamps = Arrays.copyOf(timestamps, capacity);
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		regions = Arrays.copyOf(regions, capacity);
+		cameras = Arrays.copyOf(cameras, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getTimestamp(int shot) {
+		return timestamps[shot];
+	}
+
+	public double getX(int shot) {
+		return xs[shot];
+	}
+
+	public double getY(int shot) {
+		return ys[shot];
+	}
+
+	/**
+	 * @return the id of the region the shot hit or {@link #NO_REGION}
+	 */
+	public int getRegion(int shot) {
+		return regions[shot];
+	}
+
+	public int getCamera(int shot) {
+		return cameras[shot];
+	}
+
+	public boolean isMalfunction(int shot) {
+		return (flags[shot] & MALFUNCTION) != 0;
+	}
+
+	public boolean isReload(int shot) {
+		return (flags[shot] & RELOAD) != 0;
+	}
+
+	public boolean isHit(int shot) {
+		return (flags[shot] & HIT) != 0;
+	}
+
+	public String getRegionName(int region) {
+		return regionNames.get(region);
+	}
+
+	public int getRegionCount() {
+		return regionNames.size();
+	}
+
+	public List<String> getCameraNames() {
+		return Collections.unmodifiableList(cameraNames);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session.analytics;
+
+/**
+ * A histogram of durations with fixed width buckets. Histograms can be merged
+ * by adding their buckets, which makes them cheap to combine across sessions,
+ * at the cost of percentiles only being accurate to one bucket.
+ * 
+ * @author phrack
+ */
+public class TimeDistribution {
+	public static final long BUCKET_WIDTH = 10; // ms
+	private static final int BUCKET_COUNT = 1000;
+
+	// The last bucket collects every duration past the end of the histogram
+	private final long[] buckets = new long[BUCKET_COUNT + 1];
+	private long count = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	public void add(long duration /* ms */) {
+		buckets[(int) Math.min(BUCKET_COUNT, Math.max(0, duration) / BUCKET_WIDTH)]++;
+		count++;
+		sum += duration;
+		min = Math.min(min, duration);
+		max = Math.max(max, duration);
+	}
+
+	public void addAll(TimeDistribution other) {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] += other.buckets[i];
+		}
+
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / (double) count;
+	}
+
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Get the upper bound of the bucket containing the <tt>percentile</tt>th
+	 * percentile, clamped to the largest duration seen.
+	 * 
+	 * @param percentile
+	 *            a value from 0 to 100
+	 */
+	public long getPercentile(double percentile) {
+		if (count == 0) return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) return i == BUCKET_COUNT ? max : Math.min(max, (i + 1) * BUCKET_WIDTH);
+		}
+
+		return max;
+	}
+}
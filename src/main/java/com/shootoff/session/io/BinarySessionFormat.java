@@ -0,0 +1,85 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and encoding helpers shared by {@link BinarySessionWriter} and
+ * {@link BinarySessionReader}.
+ * 
+ * A binary session file is laid out as a fixed size header, a sequence of
+ * event blocks, a string table, and a block index. Each block holds up to
+ * {@link #BLOCK_SIZE} consecutive events of one camera stored column by
+ * column: event types, timestamps as zigzag varint deltas, integer fields as
+ * zigzag varints, long fields as zigzag varint deltas, and double fields as raw
+ * IEEE 754 values so that they convert back to other formats losslessly.
+ * Target names, feed messages, video strings and camera names are interned in
+ * the string table and referenced by id. The block index records each block's
+ * camera, event count, time range and column sizes so that a reader can
+ * decode any single block without touching the rest of the file.
+ */
+final class BinarySessionFormat {
+	protected static final int MAGIC = 0x534f5342; // SOSB
+	protected static final short VERSION = 1;
+
+	// magic, version, reserved, block count, string count, strings offset,
+	// index offset
+	protected static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + 8 + 8;
+
+	// camera name id, event count, first and last timestamp, block offset,
+	// timestamps, ints, longs, and doubles column lengths
+	protected static final int INDEX_ENTRY_SIZE = 4 + 4 + 8 + 8 + 8 + 4 * 4;
+
+	protected static final int BLOCK_SIZE = 512;
+
+	protected static final int MALFUNCTION_FLAG = 1;
+	protected static final int RELOAD_FLAG = 2;
+
+	private BinarySessionFormat() {}
+
+	protected static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	protected static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	protected static void writeVarint(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		out.put((byte) value);
+	}
+
+	protected static long readVarint(ByteBuffer in) {
+		long value = 0;
+		int shift = 0;
+
+		while (true) {
+			final byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+			shift += 7;
+		}
+	}
+}
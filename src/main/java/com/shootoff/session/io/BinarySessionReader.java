@@ -0,0 +1,307 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Reads a session in the binary format described in
+ * {@link BinarySessionFormat}. The file is memory mapped and only its header,
+ * string table and block index are read up front. The lists returned by
+ * {@link #load()} decode an event block the first time one of its events is
+ * accessed, so opening a long session does not create an object for every
+ * event.
+ */
+public class BinarySessionReader {
+	private final Logger logger = LoggerFactory.getLogger(BinarySessionReader.class);
+	private static final EventType[] EVENT_TYPES = EventType.values();
+
+	private final File sessionFile;
+
+	public BinarySessionReader(File sessionFile) {
+		this.sessionFile = sessionFile;
+	}
+
+	private static final class Block {
+		private final int eventCount;
+		private final long offset;
+		private final int timestampsLength;
+		private final int intsLength;
+		private final int longsLength;
+		private final int doublesLength;
+
+		public Block(int eventCount, long offset, int timestampsLength, int intsLength, int longsLength,
+				int doublesLength) {
+			this.eventCount = eventCount;
+			this.offset = offset;
+			this.timestampsLength = timestampsLength;
+			this.intsLength = intsLength;
+			this.longsLength = longsLength;
+			this.doublesLength = doublesLength;
+		}
+	}
+
+	/**
+	 * @return the session's events grouped by camera, or <tt>null</tt> if the
+	 *         session could not be read
+	 */
+	public Map<String, List<Event>> load() {
+		final ByteBuffer data;
+
+		try (RandomAccessFile file = new RandomAccessFile(sessionFile, "r");
+				FileChannel channel = file.getChannel()) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				logger.error("Binary session {} is too large to map", sessionFile.getPath());
+				return null;
+			}
+
+			// The mapping stays valid after the channel is closed
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+		} catch (IOException e) {
+			logger.error("Error reading binary session " + sessionFile.getPath(), e);
+			return null;
+		}
+
+		try {
+			return readIndex(data);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+			logger.error("Binary session {} is corrupt", sessionFile.getPath(), e);
+			return null;
+		}
+	}
+
+	private Map<String, List<Event>> readIndex(ByteBuffer data) {
+		if (data.getInt(0) != BinarySessionFormat.MAGIC) {
+			logger.error("{} is not a binary session", sessionFile.getPath());
+			return null;
+		}
+
+		final short version = data.getShort(4);
+		if (version != BinarySessionFormat.VERSION) {
+			logger.error("Binary session {} has unsupported version {}", sessionFile.getPath(), version);
+			return null;
+		}
+
+		final int blockCount = data.getInt(8);
+		final int stringCount = data.getInt(12);
+		final long stringsOffset = data.getLong(16);
+		final long indexOffset = data.getLong(24);
+
+		final String[] strings = new String[stringCount];
+		final ByteBuffer stringTable = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		stringTable.position((int) stringsOffset);
+		for (int i = 0; i < stringCount; i++) {
+			final byte[] bytes = new byte[(int) BinarySessionFormat.readVarint(stringTable)];
+			stringTable.get(bytes);
+			strings[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		final Map<String, List<Block>> cameraBlocks = new LinkedHashMap<String, List<Block>>();
+		for (int i = 0; i < blockCount; i++) {
+			final int entry = (int) indexOffset + i * BinarySessionFormat.INDEX_ENTRY_SIZE;
+
+			final String cameraName = strings[data.getInt(entry)];
+			List<Block> blocks = cameraBlocks.get(cameraName);
+			if (blocks == null) {
+				blocks = new ArrayList<Block>();
+				cameraBlocks.put(cameraName, blocks);
+			}
+
+			blocks.add(new Block(data.getInt(entry + 4), data.getLong(entry + 24), data.getInt(entry + 32),
+					data.getInt(entry + 36), data.getInt(entry + 40), data.getInt(entry + 44)));
+		}
+
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+		for (Map.Entry<String, List<Block>> camera : cameraBlocks.entrySet()) {
+			events.put(camera.getKey(), new CameraEventList(camera.getKey(), data, strings, camera.getValue()));
+		}
+
+		return events;
+	}
+
+	/**
+	 * A read only view of one camera's events that decodes blocks on demand.
+	 */
+	private static final class CameraEventList extends AbstractList<Event> implements RandomAccess {
+		private final String cameraName;
+		private final ByteBuffer data;
+		private final String[] strings;
+		private final Block[] blocks;
+		private final int[] blockStarts;
+		private final int size;
+
+		// The most recently decoded block, most access is sequential
+		private int cachedBlock = -1;
+		private Event[] cachedEvents = null;
+
+		public CameraEventList(String cameraName, ByteBuffer data, String[] strings, List<Block> blocks) {
+			this.cameraName = cameraName;
+			this.data = data;
+			this.strings = strings;
+			this.blocks = blocks.toArray(new Block[blocks.size()]);
+			blockStarts = new int[this.blocks.length];
+
+			int start = 0;
+			for (int i = 0; i < this.blocks.length; i++) {
+				blockStarts[i] = start;
+				start += this.blocks[i].eventCount;
+			}
+
+			size = start;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Event get(int index) {
+			if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+			int block = Arrays.binarySearch(blockStarts, index);
+			if (block < 0) block = -block - 2;
+
+			Event[] events;
+			synchronized (this) {
+				if (cachedBlock == block) {
+					events = cachedEvents;
+				} else {
+					events = decode(blocks[block]);
+					cachedEvents = events;
+					cachedBlock = block;
+				}
+			}
+
+			return events[index - blockStarts[block]];
+		}
+
+		private ByteBuffer column(long offset, int length) {
+			final ByteBuffer column = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			column.position((int) offset);
+			column.limit((int) offset + length);
+			return column;
+		}
+
+		private Event[] decode(Block block) {
+			long offset = block.offset;
+			final ByteBuffer types = column(offset, block.eventCount);
+			offset += block.eventCount;
+			final ByteBuffer timestamps = column(offset, block.timestampsLength);
+			offset += block.timestampsLength;
+			final ByteBuffer ints = column(offset, block.intsLength);
+			offset += block.intsLength;
+			final ByteBuffer longs = column(offset, block.longsLength);
+			offset += block.longsLength;
+			final ByteBuffer doubles = column(offset, block.doublesLength);
+
+			final Event[] events = new Event[block.eventCount];
+			long timestamp = 0;
+			long shotTimestamp = 0;
+
+			for (int i = 0; i < block.eventCount; i++) {
+				timestamp += BinarySessionFormat.unzigzag(BinarySessionFormat.readVarint(timestamps));
+
+				switch (EVENT_TYPES[types.get()]) {
+				case SHOT:
+					final int argb = readInt(ints);
+					final Color color = Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF,
+							((argb >>> 24) & 0xFF) / 255.0);
+					final int frame = readInt(ints);
+					final int markerRadius = readInt(ints);
+					final int flags = readInt(ints);
+					final int targetIndex = readInt(ints);
+					final int hitRegionIndex = readInt(ints);
+					final int videoString = readInt(ints);
+
+					shotTimestamp += BinarySessionFormat.unzigzag(BinarySessionFormat.readVarint(longs));
+
+					final Shot shot = new Shot(color, doubles.getDouble(), doubles.getDouble(), shotTimestamp, frame,
+							markerRadius);
+
+					events[i] = new ShotEvent(cameraName, timestamp, shot,
+							(flags & BinarySessionFormat.MALFUNCTION_FLAG) != 0,
+							(flags & BinarySessionFormat.RELOAD_FLAG) != 0,
+							targetIndex == 0 ? Optional.empty() : Optional.of(targetIndex - 1),
+							hitRegionIndex == 0 ? Optional.empty() : Optional.of(hitRegionIndex - 1),
+							videoString == 0 ? Optional.empty() : Optional.of(strings[videoString - 1]));
+					break;
+
+				case TARGET_ADDED:
+					events[i] = new TargetAddedEvent(cameraName, timestamp, strings[readInt(ints)]);
+					break;
+
+				case TARGET_REMOVED:
+					events[i] = new TargetRemovedEvent(cameraName, timestamp, readInt(ints));
+					break;
+
+				case TARGET_RESIZED:
+					events[i] = new TargetResizedEvent(cameraName, timestamp, readInt(ints), doubles.getDouble(),
+							doubles.getDouble());
+					break;
+
+				case TARGET_MOVED:
+					events[i] = new TargetMovedEvent(cameraName, timestamp, readInt(ints), readInt(ints),
+							readInt(ints));
+					break;
+
+				case EXERCISE_FEED_MESSAGE:
+					events[i] = new ExerciseFeedMessageEvent(cameraName, timestamp, strings[readInt(ints)]);
+					break;
+				}
+			}
+
+			return events;
+		}
+
+		private static int readInt(ByteBuffer ints) {
+			return (int) BinarySessionFormat.unzigzag(BinarySessionFormat.readVarint(ints));
+		}
+	}
+}
@@ -0,0 +1,334 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shootoff.session.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.EventType;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Writes a session in the compact binary format described in
+ * {@link BinarySessionFormat}. Events are buffered one block at a time and each
+ * block is written as soon as it is full, so memory use does not depend on the
+ * length of the session.
+ */
+public class BinarySessionWriter implements EventVisitor {
+	public static final String EXTENSION = "ssb";
+
+	private final Logger logger = LoggerFactory.getLogger(BinarySessionWriter.class);
+	private final File sessionFile;
+
+	private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+	private final List<String> strings = new ArrayList<String>();
+	private ByteBuffer index = allocate(BinarySessionFormat.INDEX_ENTRY_SIZE * 16);
+	private int blockCount = 0;
+
+	private ByteBuffer types = allocate(BinarySessionFormat.BLOCK_SIZE);
+	private ByteBuffer timestamps = allocate(BinarySessionFormat.BLOCK_SIZE * 2);
+	private ByteBuffer ints = allocate(BinarySessionFormat.BLOCK_SIZE * 4);
+	private ByteBuffer longs = allocate(BinarySessionFormat.BLOCK_SIZE);
+	private ByteBuffer doubles = allocate(BinarySessionFormat.BLOCK_SIZE * 8);
+	private int blockEvents = 0;
+	private long firstTimestamp = 0;
+	private long lastTimestamp = 0;
+	private long lastShotTimestamp = 0;
+
+	private int cameraNameId = -1;
+	private int cameraBlockCount = 0;
+	private FileChannel channel = null;
+	private long position = BinarySessionFormat.HEADER_SIZE;
+
+	public BinarySessionWriter(File sessionFile) {
+		this.sessionFile = sessionFile;
+
+		final File sessionsFolder = sessionFile.getAbsoluteFile().getParentFile();
+		if (sessionsFolder != null && !sessionsFolder.exists() && !sessionsFolder.mkdirs()) {
+			logger.error("Failed to make directory to store sessions: {}", sessionsFolder.getPath());
+		}
+
+		try {
+			@SuppressWarnings("resource")
+			final RandomAccessFile file = new RandomAccessFile(sessionFile, "rw");
+			file.setLength(0);
+			channel = file.getChannel();
+		} catch (IOException e) {
+			logger.error("Error opening binary session " + sessionFile.getPath(), e);
+		}
+	}
+
+	private static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	// Make sure a column can take another value of up to the given size
+	private static ByteBuffer ensureRemaining(ByteBuffer buffer, int size) {
+		if (buffer.remaining() >= size) return buffer;
+
+		final ByteBuffer grown = allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+		buffer.flip();
+		grown.put(buffer);
+		return grown;
+	}
+
+	private void putInt(long value) {
+		ints = ensureRemaining(ints, 10);
+		BinarySessionFormat.writeVarint(ints, BinarySessionFormat.zigzag(value));
+	}
+
+	private void putDouble(double value) {
+		doubles = ensureRemaining(doubles, 8);
+		doubles.putDouble(value);
+	}
+
+	private int intern(String value) {
+		Integer id = stringIds.get(value);
+
+		if (id == null) {
+			id = strings.size();
+			strings.add(value);
+			stringIds.put(value, id);
+		}
+
+		return id;
+	}
+
+	private void startEvent(EventType type, long timestamp) {
+		if (blockEvents == 0) {
+			firstTimestamp = timestamp;
+			lastTimestamp = 0;
+			lastShotTimestamp = 0;
+		}
+
+		types = ensureRemaining(types, 1);
+		types.put((byte) type.ordinal());
+
+		timestamps = ensureRemaining(timestamps, 10);
+		BinarySessionFormat.writeVarint(timestamps, BinarySessionFormat.zigzag(timestamp - lastTimestamp));
+		lastTimestamp = timestamp;
+	}
+
+	private void endEvent() {
+		blockEvents++;
+
+		if (blockEvents == BinarySessionFormat.BLOCK_SIZE) writeBlock();
+	}
+
+	private void writeBlock() {
+		if (blockEvents == 0) return;
+		writeIndexedBlock();
+	}
+
+	private void writeIndexedBlock() {
+
+		try {
+			if (channel != null) {
+				final ByteBuffer[] columns = { types, timestamps, ints, longs, doubles };
+
+				for (ByteBuffer column : columns) {
+					column.flip();
+				}
+
+				index = ensureRemaining(index, BinarySessionFormat.INDEX_ENTRY_SIZE);
+				index.putInt(cameraNameId);
+				index.putInt(blockEvents);
+				index.putLong(firstTimestamp);
+				index.putLong(lastTimestamp);
+				index.putLong(position);
+				index.putInt(timestamps.remaining());
+				index.putInt(ints.remaining());
+				index.putInt(longs.remaining());
+				index.putInt(doubles.remaining());
+				blockCount++;
+				cameraBlockCount++;
+
+				position += write(columns, position);
+			}
+		} catch (IOException e) {
+			logger.error("Error writing binary session " + sessionFile.getPath(), e);
+			closeQuietly();
+		}
+
+		types.clear();
+		timestamps.clear();
+		ints.clear();
+		longs.clear();
+		doubles.clear();
+		blockEvents = 0;
+	}
+
+	private long write(ByteBuffer[] buffers, long offset) throws IOException {
+		long written = 0;
+
+		for (ByteBuffer buffer : buffers) {
+			while (buffer.hasRemaining()) {
+				written += channel.write(buffer, offset + written);
+			}
+		}
+
+		return written;
+	}
+
+	@Override
+	public void visitCamera(String cameraName) {
+		writeBlock();
+		cameraNameId = intern(cameraName);
+		cameraBlockCount = 0;
+	}
+
+	@Override
+	public void visitCameraEnd() {
+		// A camera without events still gets an empty block so that it isn't
+		// lost from the session
+		if (blockEvents > 0 || cameraBlockCount == 0) writeIndexedBlock();
+	}
+
+	@Override
+	public void visitShot(long timestamp, Shot shot, boolean isMalfunction, boolean isReload,
+			Optional<Integer> targetIndex, Optional<Integer> hitRegionIndex, Optional<String> videoString) {
+		startEvent(EventType.SHOT, timestamp);
+
+		final Color c = shot.getColor();
+		putInt(((int) Math.round(c.getOpacity() * 255) << 24) | ((int) Math.round(c.getRed() * 255) << 16)
+				| ((int) Math.round(c.getGreen() * 255) << 8) | (int) Math.round(c.getBlue() * 255));
+		putInt(shot.getFrame());
+		putInt(shot.getMarkerRadius());
+		putInt((isMalfunction ? BinarySessionFormat.MALFUNCTION_FLAG : 0)
+				| (isReload ? BinarySessionFormat.RELOAD_FLAG : 0));
+		putInt(targetIndex.isPresent() ? targetIndex.get() + 1 : 0);
+		putInt(hitRegionIndex.isPresent() ? hitRegionIndex.get() + 1 : 0);
+		putInt(videoString.isPresent() ? intern(videoString.get()) + 1 : 0);
+
+		longs = ensureRemaining(longs, 10);
+		BinarySessionFormat.writeVarint(longs, BinarySessionFormat.zigzag(shot.getTimestamp() - lastShotTimestamp));
+		lastShotTimestamp = shot.getTimestamp();
+
+		putDouble(shot.getX());
+		putDouble(shot.getY());
+
+		endEvent();
+	}
+
+	@Override
+	public void visitTargetAdd(long timestamp, String targetName) {
+		startEvent(EventType.TARGET_ADDED, timestamp);
+		putInt(intern(targetName));
+		endEvent();
+	}
+
+	@Override
+	public void visitTargetRemove(long timestamp, int targetIndex) {
+		startEvent(EventType.TARGET_REMOVED, timestamp);
+		putInt(targetIndex);
+		endEvent();
+	}
+
+	@Override
+	public void visitTargetResize(long timestamp, int targetIndex, double newWidth, double newHeight) {
+		startEvent(EventType.TARGET_RESIZED, timestamp);
+		putInt(targetIndex);
+		putDouble(newWidth);
+		putDouble(newHeight);
+		endEvent();
+	}
+
+	@Override
+	public void visitTargetMove(long timestamp, int targetIndex, int newX, int newY) {
+		startEvent(EventType.TARGET_MOVED, timestamp);
+		putInt(targetIndex);
+		putInt(newX);
+		putInt(newY);
+		endEvent();
+	}
+
+	@Override
+	public void visitExerciseFeedMessage(long timestamp, String message) {
+		startEvent(EventType.EXERCISE_FEED_MESSAGE, timestamp);
+		putInt(intern(message));
+		endEvent();
+	}
+
+	@Override
+	public void visitEnd() {
+		writeBlock();
+
+		if (channel == null) return;
+
+		try {
+			final long stringsOffset = position;
+
+			ByteBuffer stringTable = allocate(1024);
+			for (String s : strings) {
+				final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				stringTable = ensureRemaining(stringTable, 10 + bytes.length);
+				BinarySessionFormat.writeVarint(stringTable, bytes.length);
+				stringTable.put(bytes);
+			}
+			stringTable.flip();
+			position += write(new ByteBuffer[] { stringTable }, position);
+
+			final long indexOffset = position;
+			index.flip();
+			position += write(new ByteBuffer[] { index }, position);
+
+			final ByteBuffer header = allocate(BinarySessionFormat.HEADER_SIZE);
+			header.putInt(BinarySessionFormat.MAGIC);
+			header.putShort(BinarySessionFormat.VERSION);
+			header.putShort((short) 0);
+			header.putInt(blockCount);
+			header.putInt(strings.size());
+			header.putLong(stringsOffset);
+			header.putLong(indexOffset);
+			header.flip();
+			write(new ByteBuffer[] { header }, 0);
+		} catch (IOException e) {
+			logger.error("Error writing binary session " + sessionFile.getPath(), e);
+		} finally {
+			closeQuietly();
+		}
+	}
+
+	private void closeQuietly() {
+		if (channel == null) return;
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Error closing binary session " + sessionFile.getPath(), e);
+		}
+
+		channel = null;
+	}
+}
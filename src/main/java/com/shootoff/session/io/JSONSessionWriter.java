@@ -72,7 +72,7 @@ public class JSONSessionWriter implements EventVisitor {
 		event.put("x", shot.getX());
 		event.put("y", shot.getY());
 		event.put("shotTimestamp", shot.getTimestamp());
-		event.put("markerRadius", (int) shot.getMarker().getRadiusX());
+		event.put("markerRadius", shot.getMarkerRadius());
 		event.put("isMalfunction", isMalfunction);
 		event.put("isReload", isReload);
 
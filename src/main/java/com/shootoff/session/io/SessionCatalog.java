@@ -0,0 +1,594 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.session.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * A persistent index of the sessions in a sessions directory. Each session
+ * file is summarized once (cameras, shot and hit counts, videos, exercise) and
+ * the summaries are kept in a small catalog file next to the sessions, so the
+ * session browser can list, sort and filter sessions without parsing them. A
+ * summary is considered stale when the size or modification time of its
+ * session file changes.
+ * 
+ * There is only one catalog per sessions directory because every catalog
+ * rewrites the same catalog file, so {@link #open(File)} returns the shared
+ * instance. Changes to a catalog are serialized by a single lock that is
+ * never held while sessions are read, so cataloging a session that was just
+ * saved does not wait for a refresh. Refreshes are serialized by their own
+ * lock.
+ * 
+ * @author phrack
+ */
+public class SessionCatalog {
+	private static final Logger logger = LoggerFactory.getLogger(SessionCatalog.class);
+
+	public static final String CATALOG_FILE_NAME = "sessions.catalog";
+
+	private static final int MAGIC = 0x534f4331; // SOC1
+
+	private static final String[] SESSION_EXTENSIONS = { ".xml", ".json", "." + BinarySessionWriter.EXTENSION };
+
+	private static final long BACKGROUND_KEEP_ALIVE = 30; // s
+
+	private static final ConcurrentMap<File, SessionCatalog> openCatalogs = new ConcurrentHashMap<File, SessionCatalog>();
+	private static final ExecutorService backgroundExecutor;
+
+	static {
+		final ThreadFactory threadFactory = new NamedThreadFactory("SessionCatalogBackground");
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, BACKGROUND_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), (r) -> {
+					final Thread thread = threadFactory.newThread(r);
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		backgroundExecutor = executor;
+	}
+
+	public static class SessionSummary {
+		private final String fileName;
+		private final long fileSize;
+		private final long lastModified;
+		private final long date;
+		private final List<String> cameras;
+		private final int shotCount;
+		private final int hitCount;
+		private final int videoCount;
+		private final Optional<String> exercise;
+
+		public SessionSummary(String fileName, long fileSize, long lastModified, long date, List<String> cameras,
+				int shotCount, int hitCount, int videoCount, Optional<String> exercise) {
+			this.fileName = fileName;
+			this.fileSize = fileSize;
+			this.lastModified = lastModified;
+			this.date = date;
+			this.cameras = Collections.unmodifiableList(new ArrayList<String>(cameras));
+			this.shotCount = shotCount;
+			this.hitCount = hitCount;
+			this.videoCount = videoCount;
+			this.exercise = exercise;
+		}
+
+		public String getFileName() {
+			return fileName;
+		}
+
+		/**
+		 * The session ID, which is the session's file name without its
+		 * extension.
+		 */
+		public String getSessionId() {
+			final int extensionStart = fileName.lastIndexOf('.');
+			return extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+		}
+
+		public long getFileSize() {
+			return fileSize;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * @return when the session was recorded in milliseconds since the
+		 *         epoch
+		 */
+		public long getDate() {
+			return date;
+		}
+
+		public List<String> getCameras() {
+			return cameras;
+		}
+
+		public int getShotCount() {
+			return shotCount;
+		}
+
+		/**
+		 * @return the number of shots that hit a target
+		 */
+		public int getHitCount() {
+			return hitCount;
+		}
+
+		public double getHitRatio() {
+			return shotCount == 0 ? 0 : (double) hitCount / (double) shotCount;
+		}
+
+		public int getVideoCount() {
+			return videoCount;
+		}
+
+		public Optional<String> getExercise() {
+			return exercise;
+		}
+
+		private boolean isCurrent(File sessionFile) {
+			return sessionFile.length() == fileSize && sessionFile.lastModified() == lastModified;
+		}
+
+		private SessionSummary withExercise(Optional<String> exercise) {
+			return new SessionSummary(fileName, fileSize, lastModified, date, cameras, shotCount, hitCount,
+					videoCount, exercise);
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder summary = new StringBuilder(getSessionId());
+
+			if (exercise.isPresent()) summary.append(" - ").append(exercise.get());
+
+			summary.append(String.format("%n%d shots, %.0f%% hits", shotCount, getHitRatio() * 100));
+			if (videoCount > 0) summary.append(String.format(", %d videos", videoCount));
+
+			return summary.toString();
+		}
+	}
+
+	public static final Comparator<SessionSummary> NEWEST_FIRST = Comparator
+			.comparingLong(SessionSummary::getDate).reversed().thenComparing(SessionSummary::getFileName);
+
+	private final File sessionsDirectory;
+	private final File catalogFile;
+	private final ConcurrentMap<String, SessionSummary> summaries = new ConcurrentHashMap<String, SessionSummary>();
+	private final Object catalogLock = new Object();
+	private final Object refreshLock = new Object();
+
+	private SessionCatalog(File sessionsDirectory) {
+		this.sessionsDirectory = sessionsDirectory;
+		this.catalogFile = new File(sessionsDirectory, CATALOG_FILE_NAME);
+	}
+
+	/**
+	 * Get the catalog of <tt>sessionsDirectory</tt>, reading the catalog file
+	 * the first time the directory's catalog is opened. Call
+	 * {@link #refresh()} to pick up sessions that changed since the catalog
+	 * was last saved. A missing or corrupt catalog file results in an empty
+	 * catalog.
+	 */
+	public static SessionCatalog open(File sessionsDirectory) {
+		final File key = sessionsDirectory.getAbsoluteFile().toPath().normalize().toFile();
+		return openCatalogs.computeIfAbsent(key, SessionCatalog::load);
+	}
+
+	/**
+	 * Read the catalog file of <tt>sessionsDirectory</tt> into a new catalog
+	 * that is not shared with {@link #open(File)}.
+	 */
+	protected static SessionCatalog load(File sessionsDirectory) {
+		final SessionCatalog catalog = new SessionCatalog(sessionsDirectory);
+
+		if (catalog.catalogFile.exists()) {
+			try {
+				catalog.read();
+			} catch (IOException e) {
+				logger.warn("Failed to read session catalog " + catalog.catalogFile.getPath() + ", rebuilding it", e);
+				catalog.summaries.clear();
+			}
+		}
+
+		return catalog;
+	}
+
+	public static boolean isSessionFile(String fileName) {
+		if (CATALOG_FILE_NAME.equals(fileName)) return false;
+
+		for (String extension : SESSION_EXTENSIONS) {
+			if (fileName.endsWith(extension)) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Catalog a session that was just saved from <tt>sessionRecorder</tt>
+	 * without reading the session file back and save the catalog.
+	 */
+	public void update(File sessionFile, SessionRecorder sessionRecorder, Optional<String> exercise) {
+		update(sessionFile, sessionRecorder.getEvents(), exercise);
+	}
+
+	public void update(File sessionFile, Map<String, List<Event>> events, Optional<String> exercise) {
+		final SessionSummary summary = summarize(sessionFile, events, exercise);
+
+		synchronized (catalogLock) {
+			summaries.put(sessionFile.getName(), summary);
+			save();
+		}
+	}
+
+	public void remove(File sessionFile) {
+		synchronized (catalogLock) {
+			if (summaries.remove(sessionFile.getName()) != null) save();
+		}
+	}
+
+	/**
+	 * Run {@link #refresh()} on the catalogs' background thread.
+	 * 
+	 * @param onChanged
+	 *            run on the background thread if any session was summarized
+	 */
+	public void refreshInBackground(Runnable onChanged) {
+		backgroundExecutor.execute(() -> {
+			if (refresh() > 0) onChanged.run();
+		});
+	}
+
+	/**
+	 * Bring the catalog up to date with the sessions directory: sessions that
+	 * are new or changed are summarized in parallel and sessions that no longer
+	 * exist are dropped. The catalog is only saved if it changed.
+	 * 
+	 * @return the number of sessions that were summarized
+	 */
+	public int refresh() {
+		synchronized (refreshLock) {
+			return refreshCatalog();
+		}
+	}
+
+	/**
+	 * Must be called with the refresh lock held. The catalog lock is only held
+	 * to find the stale sessions and to put their new summaries in place.
+	 */
+	private int refreshCatalog() {
+		final File[] sessionFiles = sessionsDirectory.listFiles((dir, name) -> isSessionFile(name));
+		if (sessionFiles == null) return 0;
+
+		final List<File> staleFiles = new ArrayList<File>();
+		// Null for sessions that were not cataloged yet
+		final Map<String, SessionSummary> staleSummaries = new HashMap<String, SessionSummary>();
+
+		synchronized (catalogLock) {
+			final Set<String> fileNames = new HashSet<String>();
+
+			for (File sessionFile : sessionFiles) {
+				fileNames.add(sessionFile.getName());
+
+				final SessionSummary summary = summaries.get(sessionFile.getName());
+				if (summary == null || !summary.isCurrent(sessionFile)) {
+					staleFiles.add(sessionFile);
+					staleSummaries.put(sessionFile.getName(), summary);
+				}
+			}
+
+			final boolean removed = summaries.keySet().retainAll(fileNames);
+
+			if (staleFiles.isEmpty()) {
+				if (removed) save();
+				return 0;
+			}
+		}
+
+		final List<SessionSummary> freshSummaries = summarizeAll(staleFiles, staleSummaries);
+
+		synchronized (catalogLock) {
+			for (SessionSummary summary : freshSummaries) {
+				final SessionSummary staleSummary = staleSummaries.get(summary.getFileName());
+
+				// Sessions cataloged by update() in the meantime are newer
+				if (staleSummary == null) {
+					summaries.putIfAbsent(summary.getFileName(), summary);
+				} else {
+					summaries.replace(summary.getFileName(), staleSummary, summary);
+				}
+			}
+
+			save();
+		}
+
+		return staleFiles.size();
+	}
+
+	/**
+	 * Summarize every session in the directory again, keeping only the
+	 * exercise names because they are not stored in the sessions themselves.
+	 * 
+	 * @return the number of sessions that were summarized
+	 */
+	public int rebuild() {
+		synchronized (refreshLock) {
+			synchronized (catalogLock) {
+				for (Map.Entry<String, SessionSummary> entry : summaries.entrySet()) {
+					// Make every entry stale without losing its exercise
+					entry.setValue(new SessionSummary(entry.getKey(), -1, -1, 0, Collections.<String> emptyList(), 0,
+							0, 0, entry.getValue().getExercise()));
+				}
+			}
+
+			return refreshCatalog();
+		}
+	}
+
+	private static List<SessionSummary> summarizeAll(List<File> sessionFiles,
+			Map<String, SessionSummary> staleSummaries) {
+		final List<SessionSummary> freshSummaries = new ArrayList<SessionSummary>();
+		final int threads = Math.max(1, Math.min(sessionFiles.size(), Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new NamedThreadFactory("SessionCatalog"));
+
+		try {
+			final List<Callable<Optional<SessionSummary>>> tasks = new ArrayList<Callable<Optional<SessionSummary>>>();
+
+			for (File sessionFile : sessionFiles) {
+				final SessionSummary staleSummary = staleSummaries.get(sessionFile.getName());
+				final Optional<String> exercise = staleSummary != null ? staleSummary.getExercise()
+						: Optional.empty();
+				tasks.add(() -> summarize(sessionFile, exercise));
+			}
+
+			for (Future<Optional<SessionSummary>> result : executor.invokeAll(tasks)) {
+				try {
+					final Optional<SessionSummary> summary = result.get();
+					if (summary.isPresent()) freshSummaries.add(summary.get());
+				} catch (ExecutionException e) {
+					logger.error("Failed to summarize session", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return freshSummaries;
+	}
+
+	private static Optional<SessionSummary> summarize(File sessionFile, Optional<String> exercise) {
+		final Optional<SessionRecorder> session = SessionIO.loadSession(sessionFile);
+
+		if (!session.isPresent()) {
+			logger.warn("Failed to read session {} for the session catalog", sessionFile.getPath());
+			return Optional.empty();
+		}
+
+		return Optional.of(summarize(sessionFile, session.get().getEvents(), exercise));
+	}
+
+	private static SessionSummary summarize(File sessionFile, Map<String, List<Event>> events,
+			Optional<String> exercise) {
+		int shotCount = 0;
+		int hitCount = 0;
+		final Set<String> videos = new HashSet<String>();
+
+		for (List<Event> cameraEvents : events.values()) {
+			for (Event e : cameraEvents) {
+				if (e.getType() != EventType.SHOT) continue;
+
+				final ShotEvent se = (ShotEvent) e;
+				shotCount++;
+				if (se.getTargetIndex().isPresent()) hitCount++;
+				if (se.getVideoString().isPresent()) {
+					for (File video : se.getVideos().values()) {
+						videos.add(video.getName());
+					}
+				}
+			}
+		}
+
+		return new SessionSummary(sessionFile.getName(), sessionFile.length(), sessionFile.lastModified(),
+				parseDate(sessionFile), new ArrayList<String>(events.keySet()), shotCount, hitCount, videos.size(),
+				exercise);
+	}
+
+	private static long parseDate(File sessionFile) {
+		final String fileName = sessionFile.getName();
+		final int extensionStart = fileName.lastIndexOf('.');
+		final String sessionName = extensionStart > 0 ? fileName.substring(0, extensionStart) : fileName;
+
+		// Session names are the time the recording started
+		try {
+			return new SimpleDateFormat("yyyy-MM-dd HH.mm.ss").parse(sessionName).getTime();
+		} catch (ParseException e) {
+			return sessionFile.lastModified();
+		}
+	}
+
+	public File getSessionsDirectory() {
+		return sessionsDirectory;
+	}
+
+	public Optional<SessionSummary> getSummary(String fileName) {
+		return Optional.ofNullable(summaries.get(fileName));
+	}
+
+	public int size() {
+		return summaries.size();
+	}
+
+	/**
+	 * Find the sessions matching <tt>filter</tt> sorted by <tt>order</tt>
+	 * without opening any session files.
+	 */
+	public List<SessionSummary> query(Predicate<SessionSummary> filter, Comparator<SessionSummary> order) {
+		return summaries.values().stream().filter(filter).sorted(order).collect(Collectors.toList());
+	}
+
+	/**
+	 * Build a filter matching sessions whose ID, exercise or a camera contains
+	 * <tt>text</tt>, ignoring case.
+	 */
+	public static Predicate<SessionSummary> textFilter(String text) {
+		final String needle = text.trim().toLowerCase();
+
+		if (needle.isEmpty()) return (summary) -> true;
+
+		return (summary) -> {
+			if (summary.getSessionId().toLowerCase().contains(needle)) return true;
+			if (summary.getExercise().isPresent() && summary.getExercise().get().toLowerCase().contains(needle))
+				return true;
+
+			for (String camera : summary.getCameras()) {
+				if (camera.toLowerCase().contains(needle)) return true;
+			}
+
+			return false;
+		};
+	}
+
+	private void read() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(catalogFile)))) {
+			if (in.readInt() != MAGIC) throw new IOException(catalogFile.getPath() + " is not a session catalog");
+
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				final String fileName = in.readUTF();
+				final long fileSize = in.readLong();
+				final long lastModified = in.readLong();
+				final long date = in.readLong();
+
+				final int cameraCount = in.readShort();
+				final List<String> cameras = new ArrayList<String>(cameraCount);
+				for (int c = 0; c < cameraCount; c++) {
+					cameras.add(in.readUTF());
+				}
+
+				final int shotCount = in.readInt();
+				final int hitCount = in.readInt();
+				final int videoCount = in.readInt();
+				final Optional<String> exercise = in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty();
+
+				summaries.put(fileName, new SessionSummary(fileName, fileSize, lastModified, date, cameras, shotCount,
+						hitCount, videoCount, exercise));
+			}
+		} catch (EOFException e) {
+			throw new IOException("Truncated session catalog " + catalogFile.getPath(), e);
+		}
+	}
+
+	/**
+	 * Write the catalog to a temporary file and rename it over the old one so
+	 * a crash never leaves a half written catalog behind. Must be called with
+	 * the catalog lock held.
+	 */
+	private void save() {
+		if (!sessionsDirectory.exists() && !sessionsDirectory.mkdirs()) {
+			logger.error("Failed to create sessions directory {}", sessionsDirectory.getPath());
+			return;
+		}
+
+		final File tempFile = new File(sessionsDirectory, CATALOG_FILE_NAME + ".tmp");
+		final List<SessionSummary> snapshot = new ArrayList<SessionSummary>(summaries.values());
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(snapshot.size());
+
+			for (SessionSummary summary : snapshot) {
+				out.writeUTF(summary.getFileName());
+				out.writeLong(summary.getFileSize());
+				out.writeLong(summary.getLastModified());
+				out.writeLong(summary.getDate());
+
+				out.writeShort(summary.getCameras().size());
+				for (String camera : summary.getCameras()) {
+					out.writeUTF(camera);
+				}
+
+				out.writeInt(summary.getShotCount());
+				out.writeInt(summary.getHitCount());
+				out.writeInt(summary.getVideoCount());
+
+				out.writeBoolean(summary.getExercise().isPresent());
+				if (summary.getExercise().isPresent()) out.writeUTF(summary.getExercise().get());
+			}
+		} catch (IOException e) {
+			logger.error("Failed to write session catalog " + tempFile.getPath(), e);
+			return;
+		}
+
+		try {
+			Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.error("Failed to move session catalog into place " + catalogFile.getPath(), e);
+		}
+	}
+}
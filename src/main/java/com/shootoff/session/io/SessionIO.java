@@ -19,12 +19,17 @@
 package com.shootoff.session.io;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.shootoff.session.Event;
 import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionJournal;
 import com.shootoff.session.SessionRecorder;
 import com.shootoff.session.ShotEvent;
 import com.shootoff.session.TargetAddedEvent;
@@ -33,22 +38,36 @@ import com.shootoff.session.TargetRemovedEvent;
 import com.shootoff.session.TargetResizedEvent;
 
 public class SessionIO {
+	private static final Logger logger = LoggerFactory.getLogger(SessionIO.class);
+
 	public static void saveSession(SessionRecorder sessionRecorder, File sessionFile) {
+		// Read the events once, for a journaled session this reads the journal
+		saveSession(sessionRecorder.getEvents(), sessionFile);
+	}
+
+	/**
+	 * Save events that were already read from a recorder, e.g. so that a
+	 * journaled session's events can be reused after saving without reading
+	 * the journal again.
+	 */
+	public static void saveSession(Map<String, List<Event>> events, File sessionFile) {
 		EventVisitor visitor;
 
 		if (sessionFile.getName().endsWith("xml")) {
 			visitor = new XMLSessionWriter(sessionFile);
 		} else if (sessionFile.getName().endsWith("json")) {
 			visitor = new JSONSessionWriter(sessionFile);
+		} else if (sessionFile.getName().endsWith(BinarySessionWriter.EXTENSION)) {
+			visitor = new BinarySessionWriter(sessionFile);
 		} else {
 			System.err.println("Unknown session file type.");
 			return;
 		}
 
-		for (String cameraName : sessionRecorder.getEvents().keySet()) {
-			visitor.visitCamera(cameraName);
+		for (Map.Entry<String, List<Event>> cameraEvents : events.entrySet()) {
+			visitor.visitCamera(cameraEvents.getKey());
 
-			for (Event e : sessionRecorder.getCameraEvents(cameraName)) {
+			for (Event e : cameraEvents.getValue()) {
 				switch (e.getType()) {
 				case SHOT:
 					ShotEvent se = (ShotEvent) e;
@@ -97,6 +116,8 @@ public class SessionIO {
 			events = new XMLSessionReader(sessionFile).load();
 		} else if (sessionFile.getName().endsWith("json")) {
 			events = new JSONSessionReader(sessionFile).load();
+		} else if (sessionFile.getName().endsWith(BinarySessionWriter.EXTENSION)) {
+			events = new BinarySessionReader(sessionFile).load();
 		} else {
 			System.err.println("Unknown session file type.");
 			return Optional.empty();
@@ -110,4 +131,62 @@ public class SessionIO {
 			return Optional.of(sessionRecorder);
 		}
 	}
+
+	/**
+	 * Convert a session between any two of the supported formats, which are
+	 * picked by file extension (xml, json, or ssb for the binary format).
+	 * 
+	 * @return <tt>true</tt> if the source session could be read
+	 */
+	public static boolean convertSession(File sourceFile, File destinationFile) {
+		final Optional<SessionRecorder> session = loadSession(sourceFile);
+
+		if (!session.isPresent()) return false;
+
+		saveSession(session.get(), destinationFile);
+		return true;
+	}
+
+	/**
+	 * Export every session journal left in <tt>sessionsDirectory</tt> by a
+	 * session that was never stopped (e.g. because ShootOFF crashed) as an XML
+	 * session and delete the journal.
+	 * 
+	 * @return the number of sessions that were recovered
+	 */
+	public static int recoverSessions(File sessionsDirectory) {
+		final File[] journals = sessionsDirectory
+				.listFiles((dir, name) -> name.endsWith(SessionJournal.JOURNAL_EXTENSION));
+
+		if (journals == null) return 0;
+
+		int recovered = 0;
+
+		for (File journal : journals) {
+			final String sessionName = journal.getName().substring(0,
+					journal.getName().length() - SessionJournal.JOURNAL_EXTENSION.length());
+			final File sessionFile = new File(sessionsDirectory, sessionName + ".xml");
+
+			try {
+				final Map<String, List<Event>> events = SessionJournal.read(journal);
+
+				if (!events.isEmpty() && !sessionFile.exists()) {
+					final SessionRecorder sessionRecorder = new SessionRecorder();
+					sessionRecorder.addEvents(events);
+					saveSession(sessionRecorder, sessionFile);
+					recovered++;
+
+					logger.info("Recovered session {} from its journal", sessionName);
+				}
+
+				if ((events.isEmpty() || sessionFile.exists()) && !journal.delete()) {
+					logger.warn("Failed to delete recovered session journal {}", journal.getPath());
+				}
+			} catch (IOException e) {
+				logger.error("Error recovering session journal " + journal.getPath(), e);
+			}
+		}
+
+		return recovered;
+	}
 }
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -86,7 +87,7 @@ public class XMLSessionReader {
 	}
 
 	private class SessionXMLHandler extends DefaultHandler {
-		private final Map<String, List<Event>> events = new HashMap<String, List<Event>>();
+		private final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
 		private String currentCameraName = "";
 
 		public Map<String, List<Event>> getEvents() {
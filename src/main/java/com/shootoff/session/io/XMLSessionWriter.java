@@ -69,19 +69,21 @@ public class XMLSessionWriter implements EventVisitor {
 		if (videoString.isPresent()) {
 			xmlBody.append(String.format(Locale.US,
 					"\t\t<shot timestamp=\"%d\" color=\"%s\""
-							+ " x=\"%f\" y=\"%f\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
+							+ " x=\"%s\" y=\"%s\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
 							+ " isReload=\"%b\" targetIndex=\"%d\" hitRegionIndex=\"%d\" videos=\"%s\" />%n",
-					timestamp, shot.getColor().toString(), shot.getX(), shot.getY(), shot.getTimestamp(),
-					(int) shot.getMarker().getRadiusX(), isMalfunction, isReload, targIndex, hitRegIndex,
+					timestamp, shot.getColor().toString(), Double.toString(shot.getX()),
+					Double.toString(shot.getY()), shot.getTimestamp(),
+					shot.getMarkerRadius(), isMalfunction, isReload, targIndex, hitRegIndex,
 					videoString.get()));
 
 		} else {
 			xmlBody.append(String.format(Locale.US,
 					"\t\t<shot timestamp=\"%d\" color=\"%s\""
-							+ " x=\"%f\" y=\"%f\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
+							+ " x=\"%s\" y=\"%s\" shotTimestamp=\"%d\" markerRadius=\"%d\" isMalfunction=\"%b\""
 							+ " isReload=\"%b\" targetIndex=\"%d\" hitRegionIndex=\"%d\" />%n",
-					timestamp, shot.getColor().toString(), shot.getX(), shot.getY(), shot.getTimestamp(),
-					(int) shot.getMarker().getRadiusX(), isMalfunction, isReload, targIndex, hitRegIndex));
+					timestamp, shot.getColor().toString(), Double.toString(shot.getX()),
+					Double.toString(shot.getY()), shot.getTimestamp(),
+					shot.getMarkerRadius(), isMalfunction, isReload, targIndex, hitRegIndex));
 		}
 	}
 
@@ -98,8 +100,8 @@ public class XMLSessionWriter implements EventVisitor {
 	@Override
 	public void visitTargetResize(long timestamp, int targetIndex, double newWidth, double newHeight) {
 		xmlBody.append(String.format(Locale.US,
-				"\t\t<targetResized timestamp=\"%d\" index=\"%d\" " + "newWidth=\"%f\" newHeight=\"%f\" />%n",
-				timestamp, targetIndex, newWidth, newHeight));
+				"\t\t<targetResized timestamp=\"%d\" index=\"%d\" " + "newWidth=\"%s\" newHeight=\"%s\" />%n",
+				timestamp, targetIndex, Double.toString(newWidth), Double.toString(newHeight)));
 	}
 
 	@Override
@@ -51,6 +51,18 @@ public class ImageRegion extends ImageView implements TargetRegion {
 		this.setImage(new Image(imageStream));
 	}
 
+	/**
+	 * Create a region that displays an image that was already decoded, e.g. an
+	 * image shared with other instances of the same target.
+	 */
+	public ImageRegion(final double x, final double y, final File imageFile, final Image image) {
+		super(image);
+
+		this.setLayoutX(x);
+		this.setLayoutY(y);
+		this.imageFile = imageFile;
+	}
+
 	public boolean onFirstFrame() {
 		return animation.isPresent() ? this.getImage().equals(animation.get().getFirstFrame()) : true;
 	}
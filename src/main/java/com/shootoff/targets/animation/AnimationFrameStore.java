@@ -0,0 +1,215 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.targets.animation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+/**
+ * Shares the decoded frames of each GIF between every animation that plays
+ * it. Only the first frame of a GIF is decoded before it is returned, the rest
+ * are decoded in the background. The least recently used GIFs are dropped from
+ * the store once the decoded frames exceed the memory budget. Animations that
+ * are still using dropped frames keep working, but the next request for the
+ * GIF decodes it again.
+ * 
+ * @author phrack
+ */
+public final class AnimationFrameStore {
+	private static final Logger logger = LoggerFactory.getLogger(AnimationFrameStore.class);
+
+	public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024; // bytes
+
+	private static final int DECODER_THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors()));
+	private static final long DECODER_KEEP_ALIVE = 10; // s
+
+	private static final ThreadPoolExecutor decoderExecutor;
+
+	static {
+		final ThreadFactory threadFactory = new NamedThreadFactory("GifDecoder");
+
+		decoderExecutor = new ThreadPoolExecutor(DECODER_THREADS, DECODER_THREADS, DECODER_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), (r) -> {
+					final Thread thread = threadFactory.newThread(r);
+					thread.setDaemon(true);
+					return thread;
+				});
+		decoderExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	// Access ordered so that iteration starts at the least recently used GIF
+	private static final Map<String, GifFrames> frames = new LinkedHashMap<String, GifFrames>(16, 0.75f, true);
+	private static long memoryBudget = DEFAULT_MEMORY_BUDGET;
+	private static long usedMemory = 0;
+
+	private AnimationFrameStore() {}
+
+	public static GifFrames getFrames(File gifFile) throws IOException {
+		return getFrames(gifFile.toURI().toURL());
+	}
+
+	/**
+	 * Get the frames of the GIF at <tt>gifResource</tt>, e.g. a file or a
+	 * resource in an exercise's JAR, decoding it only if it isn't in the store
+	 * already.
+	 */
+	public static GifFrames getFrames(URL gifResource) throws IOException {
+		final String key = getKey(gifResource);
+
+		synchronized (frames) {
+			final GifFrames cached = frames.get(key);
+			if (cached != null) return cached;
+		}
+
+		// Decode outside of the lock so that reading one GIF doesn't hold up
+		// animations using others. If two threads race to read the same GIF
+		// the first one stored wins.
+		final GifFrames decoded;
+		try (InputStream gifStream = gifResource.openStream()) {
+			decoded = new GifFrames(readAllBytes(gifStream));
+		}
+
+		synchronized (frames) {
+			final GifFrames cached = frames.get(key);
+			if (cached != null) return cached;
+
+			frames.put(key, decoded);
+			usedMemory += decoded.getEstimatedSize();
+			evict(decoded);
+		}
+
+		decodeInBackground(decoded);
+
+		return decoded;
+	}
+
+	/**
+	 * Decode a GIF that can't be shared, e.g. one that only exists as a
+	 * stream. The stream is not closed.
+	 */
+	public static GifFrames readFrames(InputStream gifStream) throws IOException {
+		final GifFrames decoded = new GifFrames(readAllBytes(gifStream));
+		decodeInBackground(decoded);
+		return decoded;
+	}
+
+	public static void setMemoryBudget(long bytes) {
+		synchronized (frames) {
+			memoryBudget = bytes;
+			evict(null);
+		}
+	}
+
+	public static long getMemoryBudget() {
+		synchronized (frames) {
+			return memoryBudget;
+		}
+	}
+
+	public static long getUsedMemory() {
+		synchronized (frames) {
+			return usedMemory;
+		}
+	}
+
+	public static int size() {
+		synchronized (frames) {
+			return frames.size();
+		}
+	}
+
+	public static void clear() {
+		synchronized (frames) {
+			frames.clear();
+			usedMemory = 0;
+		}
+	}
+
+	// Must hold the lock on frames
+	private static void evict(GifFrames keep) {
+		final Iterator<GifFrames> it = frames.values().iterator();
+
+		while (usedMemory > memoryBudget && it.hasNext()) {
+			final GifFrames leastRecentlyUsed = it.next();
+			if (leastRecentlyUsed == keep) continue;
+
+			it.remove();
+			usedMemory -= leastRecentlyUsed.getEstimatedSize();
+		}
+	}
+
+	private static void decodeInBackground(GifFrames gifFrames) {
+		if (gifFrames.isFullyDecoded()) return;
+
+		try {
+			decoderExecutor.execute(gifFrames::decodeRemaining);
+		} catch (RejectedExecutionException e) {
+			logger.warn("GIF decoder is not accepting work, decoding on the calling thread", e);
+			gifFrames.decodeRemaining();
+		}
+	}
+
+	private static String getKey(URL gifResource) throws IOException {
+		if (!"file".equals(gifResource.getProtocol())) return gifResource.toString();
+
+		// Include the size and modification time so that a GIF that was
+		// changed on disk is read again
+		final File gifFile;
+		try {
+			gifFile = new File(gifResource.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return gifResource.toString();
+		}
+
+		if (!gifFile.isFile()) throw new FileNotFoundException(gifFile.getPath());
+
+		return gifFile.getAbsolutePath() + ":" + gifFile.length() + ":" + gifFile.lastModified();
+	}
+
+	private static byte[] readAllBytes(InputStream is) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+
+		return bytes.toByteArray();
+	}
+}
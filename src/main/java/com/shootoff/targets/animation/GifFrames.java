@@ -0,0 +1,274 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.targets.animation;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.NodeList;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+
+/**
+ * The composited frames of one GIF. The first frame is decoded when the GIF is
+ * read and the remaining frames are decoded afterwards by
+ * {@link #decodeRemaining()}, usually in the background by the
+ * {@link AnimationFrameStore}. Until a frame is decoded, the latest decoded
+ * frame is returned in its place.
+ * 
+ * Frames are safe to read from any thread and only the JavaFX image of each
+ * frame is kept once decoding is finished.
+ * 
+ * @author phrack
+ */
+public final class GifFrames {
+	private static final Logger logger = LoggerFactory.getLogger(GifFrames.class);
+
+	private static final String GIF_IMAGE_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+	private final int frameCount;
+	private final int width;
+	private final int height;
+	private final int[] delays;
+	private final Image[] images;
+
+	// Written only by the decoding thread, after the frame's image and delay
+	private volatile int decodedCount = 0;
+
+	private Decoder decoder;
+
+	GifFrames(byte[] gifBytes) throws IOException {
+		decoder = new Decoder(gifBytes);
+
+		frameCount = decoder.frameCount;
+		width = decoder.width;
+		height = decoder.height;
+		delays = new int[frameCount];
+		images = new Image[frameCount];
+
+		decodeNext();
+
+		if (frameCount == 1) {
+			decoder.dispose();
+			decoder = null;
+		}
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean isFullyDecoded() {
+		return decodedCount == frameCount;
+	}
+
+	/**
+	 * @return an estimate of the memory used by the decoded frames in bytes
+	 */
+	public long getEstimatedSize() {
+		return (long) width * height * 4 * frameCount;
+	}
+
+	public Image getFrame(int frameNumber) {
+		return images[Math.min(frameNumber, decodedCount - 1)];
+	}
+
+	/**
+	 * @return how long the frame is displayed in ms according to the GIF
+	 */
+	public int getDelay(int frameNumber) {
+		return delays[Math.min(frameNumber, decodedCount - 1)];
+	}
+
+	/**
+	 * Decode every frame that is not decoded yet. Calls after the first return
+	 * once the first finishes.
+	 */
+	synchronized void decodeRemaining() {
+		if (decoder == null) return;
+
+		try {
+			while (decodedCount < frameCount) {
+				decodeNext();
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.error("Error decoding GIF frame " + decodedCount + " of " + frameCount, e);
+		} finally {
+			decoder.dispose();
+			decoder = null;
+		}
+	}
+
+	private void decodeNext() throws IOException {
+		final int frameIndex = decodedCount;
+
+		final BufferedImage composite = decoder.read(frameIndex);
+		delays[frameIndex] = decoder.lastDelay;
+		images[frameIndex] = SwingFXUtils.toFXImage(composite, null);
+
+		decodedCount = frameIndex + 1;
+	}
+
+	// This compositing is based on http://stackoverflow.com/a/17269591, but
+	// only keeps the images needed to composite the next frame instead of
+	// every frame
+	private static class Decoder {
+		private final ImageReader reader;
+		private final int frameCount;
+		private final int width;
+		private final int height;
+
+		private BufferedImage master;
+		private Graphics2D masterGraphics;
+		private BufferedImage restorePoint;
+		private int lastDelay;
+
+		public Decoder(byte[] gifBytes) throws IOException {
+			final Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+			if (!readers.hasNext()) throw new IOException("No GIF reader is available");
+
+			reader = readers.next();
+			reader.setInput(new MemoryCacheImageInputStream(new ByteArrayInputStream(gifBytes)));
+
+			frameCount = reader.getNumImages(true);
+			if (frameCount < 1) {
+				reader.dispose();
+				throw new IOException("GIF has no frames");
+			}
+
+			int width = -1;
+			int height = -1;
+
+			final IIOMetadata metadata = reader.getStreamMetadata();
+			if (metadata != null) {
+				final IIOMetadataNode globalRoot = (IIOMetadataNode) metadata
+						.getAsTree(metadata.getNativeMetadataFormatName());
+				final NodeList globalScreenDescriptor = globalRoot.getElementsByTagName("LogicalScreenDescriptor");
+
+				if (globalScreenDescriptor.getLength() > 0) {
+					final IIOMetadataNode screenDescriptor = (IIOMetadataNode) globalScreenDescriptor.item(0);
+
+					width = Integer.parseInt(screenDescriptor.getAttribute("logicalScreenWidth"));
+					height = Integer.parseInt(screenDescriptor.getAttribute("logicalScreenHeight"));
+				}
+			}
+
+			if (width < 1 || height < 1) {
+				width = reader.getWidth(0);
+				height = reader.getHeight(0);
+			}
+
+			this.width = width;
+			this.height = height;
+		}
+
+		public BufferedImage read(int frameIndex) throws IOException {
+			final BufferedImage image = reader.read(frameIndex);
+
+			int delay = 0;
+			String disposal = "none";
+			int x = 0;
+			int y = 0;
+
+			final IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(frameIndex)
+					.getAsTree(GIF_IMAGE_METADATA_FORMAT);
+
+			final NodeList controlExtensions = root.getElementsByTagName("GraphicControlExtension");
+			if (controlExtensions.getLength() > 0) {
+				final IIOMetadataNode gce = (IIOMetadataNode) controlExtensions.item(0);
+				delay = Integer.parseInt(gce.getAttribute("delayTime")) * 10;
+				disposal = gce.getAttribute("disposalMethod");
+			}
+
+			if (master == null) {
+				master = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+				masterGraphics = master.createGraphics();
+				masterGraphics.setBackground(new Color(0, 0, 0, 0));
+			} else {
+				final NodeList descriptors = root.getElementsByTagName("ImageDescriptor");
+				if (descriptors.getLength() > 0) {
+					final IIOMetadataNode descriptor = (IIOMetadataNode) descriptors.item(0);
+					x = Integer.parseInt(descriptor.getAttribute("imageLeftPosition"));
+					y = Integer.parseInt(descriptor.getAttribute("imageTopPosition"));
+				}
+			}
+
+			masterGraphics.drawImage(image, x, y, null);
+
+			final BufferedImage composite = copy(master);
+
+			if (disposal.equals("restoreToPrevious")) {
+				masterGraphics.dispose();
+
+				if (restorePoint != null) {
+					master = copy(restorePoint);
+				} else {
+					master = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+				}
+
+				masterGraphics = master.createGraphics();
+				masterGraphics.setBackground(new Color(0, 0, 0, 0));
+			} else {
+				restorePoint = composite;
+
+				if (disposal.equals("restoreToBackgroundColor")) {
+					masterGraphics.clearRect(x, y, image.getWidth(), image.getHeight());
+				}
+			}
+
+			lastDelay = delay;
+
+			return composite;
+		}
+
+		public void dispose() {
+			if (masterGraphics != null) masterGraphics.dispose();
+			reader.dispose();
+
+			master = null;
+			restorePoint = null;
+		}
+
+		private static BufferedImage copy(BufferedImage image) {
+			return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+		}
+	}
+}
@@ -0,0 +1,408 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.targets.animation;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Point2D;
+
+import com.shootoff.targets.Target;
+
+/**
+ * Moves targets around an arena and bounces them off of its walls and off of
+ * each other. Target state lives in primitive arrays and is advanced in fixed
+ * time steps that are independent of the frame rate, so a slow frame runs
+ * more steps instead of moving targets further per step. Nodes are only
+ * touched once per JavaFX pulse to push the latest positions, which keeps
+ * scene graph work flat as the number of targets grows.
+ * 
+ * Targets only collide with targets in the same collision group. Collisions
+ * are found with a spatial hash whose cells are as large as the largest
+ * target, thus each target is only checked against targets in its own and
+ * neighboring cells.
+ * 
+ * All methods must be called on the JavaFX thread, except that
+ * {@link #step()} may be driven manually while the engine is stopped.
+ * 
+ * @author phrack
+ */
+public class MotionEngine {
+	public static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final double STEP_SECONDS = STEP_NANOS / (double) TimeUnit.SECONDS.toNanos(1);
+
+	// Don't let a long stall (e.g. a dragged window) turn into a burst of
+	// catch-up steps that stalls the next frame too
+	private static final int MAX_STEPS_PER_PULSE = 5;
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int NO_TARGET = -1;
+	private static final double MIN_DRAWN_MOVE = .25; // px
+
+	private final DoubleSupplier arenaWidth;
+	private final DoubleSupplier arenaHeight;
+
+	private final Map<Target, Integer> indexes = new IdentityHashMap<Target, Integer>();
+	private Target[] targets = new Target[INITIAL_CAPACITY];
+	private double[] x = new double[INITIAL_CAPACITY];
+	private double[] y = new double[INITIAL_CAPACITY];
+	private double[] previousX = new double[INITIAL_CAPACITY];
+	private double[] previousY = new double[INITIAL_CAPACITY];
+	private double[] drawnX = new double[INITIAL_CAPACITY];
+	private double[] drawnY = new double[INITIAL_CAPACITY];
+	private double[] width = new double[INITIAL_CAPACITY];
+	private double[] height = new double[INITIAL_CAPACITY];
+	private double[] vx = new double[INITIAL_CAPACITY];
+	private double[] vy = new double[INITIAL_CAPACITY];
+	private int[] group = new int[INITIAL_CAPACITY];
+	private int count = 0;
+
+	// Spatial hash, rebuilt every step
+	private int[] cellHeads = new int[0];
+	private int[] cellNext = new int[INITIAL_CAPACITY];
+	private int columns;
+	private int rows;
+	private double cellSize;
+
+	private AnimationTimer pulseTimer = null;
+	private long lastPulse = 0;
+	private long accumulated = 0;
+	private long stepCount = 0;
+
+	public MotionEngine(DoubleSupplier arenaWidth, DoubleSupplier arenaHeight) {
+		this.arenaWidth = arenaWidth;
+		this.arenaHeight = arenaHeight;
+	}
+
+	/**
+	 * Start moving <tt>target</tt> from its current position.
+	 * 
+	 * @param vx
+	 *            horizontal velocity in pixels per second
+	 * @param vy
+	 *            vertical velocity in pixels per second
+	 * @param collisionGroup
+	 *            targets only bounce off of targets in the same group
+	 */
+	public void add(Target target, double vx, double vy, int collisionGroup) {
+		final Point2D p = target.getPosition();
+		final Dimension2D d = target.getDimension();
+
+		add(target, p.getX(), p.getY(), d.getWidth(), d.getHeight(), vx, vy, collisionGroup);
+	}
+
+	protected int add(Target target, double x, double y, double width, double height, double vx, double vy,
+			int collisionGroup) {
+		if (indexes.containsKey(target)) remove(target);
+
+		if (count == targets.length) grow();
+
+		final int i = count++;
+		targets[i] = target;
+		this.x[i] = previousX[i] = x;
+		this.y[i] = previousY[i] = y;
+		drawnX[i] = x;
+		drawnY[i] = y;
+		this.width[i] = width;
+		this.height[i] = height;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		group[i] = collisionGroup;
+		indexes.put(target, i);
+
+		return i;
+	}
+
+	private void grow() {
+		final int capacity = targets.length * 2;
+
+		targets = Arrays.copyOf(targets, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		drawnX = Arrays.copyOf(drawnX, capacity);
+		drawnY = Arrays.copyOf(drawnY, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		group = Arrays.copyOf(group, capacity);
+		cellNext = new int[capacity];
+	}
+
+	/**
+	 * Stop moving <tt>target</tt>. The target stays where it was last drawn.
+	 * 
+	 * @return <tt>true</tt> if the target was moving
+	 */
+	public boolean remove(Target target) {
+		final Integer index = indexes.remove(target);
+		if (index == null) return false;
+
+		// Move the last target into the hole to keep the arrays dense
+		final int i = index;
+		final int last = --count;
+
+		if (i != last) {
+			targets[i] = targets[last];
+			x[i] = x[last];
+			y[i] = y[last];
+			previousX[i] = previousX[last];
+			previousY[i] = previousY[last];
+			drawnX[i] = drawnX[last];
+			drawnY[i] = drawnY[last];
+			width[i] = width[last];
+			height[i] = height[last];
+			vx[i] = vx[last];
+			vy[i] = vy[last];
+			group[i] = group[last];
+			indexes.put(targets[i], i);
+		}
+
+		targets[last] = null;
+
+		return true;
+	}
+
+	public void clear() {
+		Arrays.fill(targets, 0, count, null);
+		indexes.clear();
+		count = 0;
+	}
+
+	public int getTargetCount() {
+		return count;
+	}
+
+	public long getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * @return the position <tt>target</tt> has in the current step, or
+	 *         <tt>null</tt> if the target isn't moving
+	 */
+	public Point2D getPosition(Target target) {
+		final Integer i = indexes.get(target);
+		if (i == null) return null;
+
+		return new Point2D(x[i], y[i]);
+	}
+
+	public Point2D getVelocity(Target target) {
+		final Integer i = indexes.get(target);
+		if (i == null) return null;
+
+		return new Point2D(vx[i], vy[i]);
+	}
+
+	/**
+	 * Start stepping on every JavaFX pulse.
+	 */
+	public void start() {
+		if (pulseTimer == null) {
+			pulseTimer = new AnimationTimer() {
+				@Override
+				public void handle(long now) {
+					pulse(now);
+				}
+			};
+		}
+
+		lastPulse = 0;
+		accumulated = 0;
+		pulseTimer.start();
+	}
+
+	public void stop() {
+		if (pulseTimer != null) pulseTimer.stop();
+	}
+
+	protected void pulse(long now) {
+		if (lastPulse == 0) {
+			lastPulse = now;
+			pushPositions(1.0);
+			return;
+		}
+
+		accumulated += now - lastPulse;
+		lastPulse = now;
+
+		int steps = 0;
+		while (accumulated >= STEP_NANOS && steps < MAX_STEPS_PER_PULSE) {
+			step();
+			accumulated -= STEP_NANOS;
+			steps++;
+		}
+
+		if (accumulated >= STEP_NANOS) accumulated = 0;
+
+		// Draw between the last two steps so motion stays smooth when the
+		// pulse rate and the step rate don't line up
+		pushPositions((double) accumulated / STEP_NANOS);
+	}
+
+	/**
+	 * Advance every target by one fixed time step.
+	 */
+	public void step() {
+		final double maxX = arenaWidth.getAsDouble();
+		final double maxY = arenaHeight.getAsDouble();
+
+		for (int i = 0; i < count; i++) {
+			previousX[i] = x[i];
+			previousY[i] = y[i];
+
+			x[i] += vx[i] * STEP_SECONDS;
+			y[i] += vy[i] * STEP_SECONDS;
+
+			if (x[i] < 0) {
+				x[i] = 0;
+				vx[i] = Math.abs(vx[i]);
+			} else if (x[i] + width[i] > maxX) {
+				x[i] = Math.max(0, maxX - width[i]);
+				vx[i] = -Math.abs(vx[i]);
+			}
+
+			if (y[i] < 0) {
+				y[i] = 0;
+				vy[i] = Math.abs(vy[i]);
+			} else if (y[i] + height[i] > maxY) {
+				y[i] = Math.max(0, maxY - height[i]);
+				vy[i] = -Math.abs(vy[i]);
+			}
+		}
+
+		if (count > 1) {
+			collide(maxX, maxY);
+
+			// Separating targets can push one into a wall
+			for (int i = 0; i < count; i++) {
+				x[i] = Math.max(0, Math.min(x[i], maxX - width[i]));
+				y[i] = Math.max(0, Math.min(y[i], maxY - height[i]));
+			}
+		}
+
+		stepCount++;
+	}
+
+	private void buildSpatialHash(double maxX, double maxY) {
+		double largest = 1;
+		for (int i = 0; i < count; i++) {
+			largest = Math.max(largest, Math.max(width[i], height[i]));
+		}
+
+		cellSize = largest;
+		columns = Math.max(1, (int) Math.ceil(maxX / cellSize));
+		rows = Math.max(1, (int) Math.ceil(maxY / cellSize));
+
+		final int cells = columns * rows;
+		if (cellHeads.length < cells) cellHeads = new int[cells];
+		Arrays.fill(cellHeads, 0, cells, NO_TARGET);
+
+		for (int i = 0; i < count; i++) {
+			final int cell = cellRow(i) * columns + cellColumn(i);
+			cellNext[i] = cellHeads[cell];
+			cellHeads[cell] = i;
+		}
+	}
+
+	private int cellColumn(int i) {
+		return Math.min(columns - 1, Math.max(0, (int) ((x[i] + width[i] / 2) / cellSize)));
+	}
+
+	private int cellRow(int i) {
+		return Math.min(rows - 1, Math.max(0, (int) ((y[i] + height[i] / 2) / cellSize)));
+	}
+
+	private void collide(double maxX, double maxY) {
+		buildSpatialHash(maxX, maxY);
+
+		// Targets are hashed by their centers and cells are as large as the
+		// largest target, thus overlapping targets are always in the same or
+		// neighboring cells
+		for (int i = 0; i < count; i++) {
+			final int column = cellColumn(i);
+			final int row = cellRow(i);
+
+			for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+				for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+					for (int j = cellHeads[r * columns + c]; j != NO_TARGET; j = cellNext[j]) {
+						// Each pair is resolved once
+						if (j > i && group[i] == group[j]) resolve(i, j);
+					}
+				}
+			}
+		}
+	}
+
+	private void resolve(int i, int j) {
+		final double overlapX = Math.min(x[i] + width[i], x[j] + width[j]) - Math.max(x[i], x[j]);
+		if (overlapX <= 0) return;
+
+		final double overlapY = Math.min(y[i] + height[i], y[j] + height[j]) - Math.max(y[i], y[j]);
+		if (overlapY <= 0) return;
+
+		// Push the targets apart along the axis they overlap least on and
+		// trade their velocities on that axis if they are moving together,
+		// which is an elastic collision between equal masses
+		if (overlapX < overlapY) {
+			final double direction = x[i] < x[j] ? -1 : 1;
+			x[i] += direction * overlapX / 2;
+			x[j] -= direction * overlapX / 2;
+
+			if ((vx[j] - vx[i]) * direction > 0) {
+				final double swap = vx[i];
+				vx[i] = vx[j];
+				vx[j] = swap;
+			}
+		} else {
+			final double direction = y[i] < y[j] ? -1 : 1;
+			y[i] += direction * overlapY / 2;
+			y[j] -= direction * overlapY / 2;
+
+			if ((vy[j] - vy[i]) * direction > 0) {
+				final double swap = vy[i];
+				vy[i] = vy[j];
+				vy[j] = swap;
+			}
+		}
+	}
+
+	private void pushPositions(double alpha) {
+		for (int i = 0; i < count; i++) {
+			final double drawX = previousX[i] + (x[i] - previousX[i]) * alpha;
+			final double drawY = previousY[i] + (y[i] - previousY[i]) * alpha;
+
+			// Moving a node is much more expensive than this check and
+			// every move is recorded when a session is being recorded
+			if (Math.abs(drawX - drawnX[i]) < MIN_DRAWN_MOVE && Math.abs(drawY - drawnY[i]) < MIN_DRAWN_MOVE) continue;
+
+			drawnX[i] = drawX;
+			drawnY[i] = drawY;
+			targets[i].setPosition(drawX, drawY);
+		}
+	}
+}
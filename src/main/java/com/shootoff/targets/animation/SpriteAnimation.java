@@ -41,6 +41,17 @@ public class SpriteAnimation extends Transition {
 		setInterpolator(Interpolator.LINEAR);
 	}
 
+	/**
+	 * Create an animation whose frames are supplied by overriding
+	 * {@link #getFrame(int)}.
+	 */
+	protected SpriteAnimation(ImageView imageView, int frameCount) {
+		this.imageView = imageView;
+		this.frames = null;
+		this.count = frameCount;
+		setInterpolator(Interpolator.LINEAR);
+	}
+
 	public Image getFrame(int frameNumber) {
 		return frames[frameNumber].getImage();
 	}
@@ -50,11 +61,11 @@ public class SpriteAnimation extends Transition {
 	}
 
 	public Image getFirstFrame() {
-		return isReversed ? frames[frames.length - 1].getImage() : frames[0].getImage();
+		return isReversed ? getFrame(count - 1) : getFrame(0);
 	}
 
 	public int getFrameCount() {
-		return frames.length;
+		return count;
 	}
 
 	public void reset() {
@@ -70,7 +81,7 @@ public class SpriteAnimation extends Transition {
 	protected void interpolate(double k) {
 		final int index = Math.min((int) Math.floor(k * count), count - 1);
 		if (index != lastIndex) {
-			imageView.setImage(frames[index].getImage());
+			imageView.setImage(getFrame(index));
 			lastIndex = index;
 		}
 	}
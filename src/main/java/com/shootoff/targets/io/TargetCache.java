@@ -0,0 +1,297 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.targets.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.util.NamedThreadFactory;
+
+import javafx.scene.image.Image;
+
+/**
+ * Caches parsed {@link TargetTemplate}s so that adding a target that was
+ * already loaded doesn't parse its XML or decode its images again. Templates
+ * are keyed by the target's path plus a checksum of its contents, so a target
+ * that is edited on disk is read again the next time it is added. Decoded
+ * images are cached separately so that different targets using the same image
+ * share one copy of it. Both caches keep only the most recently used
+ * {@value #CACHE_SIZE} entries.
+ * 
+ * Targets read from exercise resources are cached per class loader and are
+ * dropped along with the class loader.
+ * 
+ * @author phrack
+ */
+public final class TargetCache {
+	private static final Logger logger = LoggerFactory.getLogger(TargetCache.class);
+
+	private static final int PREWARM_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	private static final long PREWARM_KEEP_ALIVE = 10; // s
+	protected static final int CACHE_SIZE = 64;
+
+	private static final ThreadPoolExecutor prewarmExecutor;
+
+	static {
+		final ThreadFactory threadFactory = new NamedThreadFactory("TargetCachePrewarm");
+
+		prewarmExecutor = new ThreadPoolExecutor(PREWARM_THREADS, PREWARM_THREADS, PREWARM_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), (r) -> {
+					final Thread thread = threadFactory.newThread(r);
+					thread.setDaemon(true);
+					return thread;
+				});
+		prewarmExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	private static class CachedTemplate {
+		private final long checksum;
+		private final CompletableFuture<TargetTemplate> template = new CompletableFuture<TargetTemplate>();
+
+		public CachedTemplate(long checksum) {
+			this.checksum = checksum;
+		}
+	}
+
+	private static class LruCache<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+
+		public LruCache() {
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	}
+
+	private static final Map<String, CachedTemplate> fileTemplates = Collections
+			.synchronizedMap(new LruCache<String, CachedTemplate>());
+	private static final Map<ClassLoader, ConcurrentMap<Long, CachedTemplate>> resourceTemplates = Collections
+			.synchronizedMap(new WeakHashMap<ClassLoader, ConcurrentMap<Long, CachedTemplate>>());
+	private static final Map<String, Image> images = Collections.synchronizedMap(new LruCache<String, Image>());
+
+	private TargetCache() {}
+
+	/**
+	 * Get the template for a target file, parsing it only if it isn't cached or
+	 * its contents changed. If another thread is already parsing the same
+	 * target, wait for it instead of parsing it twice.
+	 */
+	public static Optional<TargetTemplate> getTemplate(File targetFile) {
+		final byte[] targetBytes;
+
+		try {
+			targetBytes = Files.readAllBytes(targetFile.toPath());
+		} catch (IOException e) {
+			logger.error("Problem reading target file " + targetFile.getPath(), e);
+			return Optional.empty();
+		}
+
+		final long checksum = checksum(targetBytes);
+		final String key = targetFile.getAbsolutePath();
+
+		final CachedTemplate created = new CachedTemplate(checksum);
+		final CachedTemplate cached = fileTemplates.compute(key,
+				(k, existing) -> existing != null && existing.checksum == checksum ? existing : created);
+
+		if (cached == created) {
+			buildTemplate(created, targetBytes, Optional.empty(), () -> fileTemplates.remove(key, created));
+		}
+
+		return awaitTemplate(cached);
+	}
+
+	/**
+	 * Get the template for a target read from the resources of
+	 * <tt>loader</tt>, e.g. a target packaged with an exercise. The stream is
+	 * read fully and closed.
+	 */
+	public static Optional<TargetTemplate> getTemplate(InputStream targetStream, ClassLoader loader) {
+		final byte[] targetBytes;
+
+		try (InputStream is = targetStream) {
+			targetBytes = readAllBytes(is);
+		} catch (IOException e) {
+			logger.error("Problem reading target resource", e);
+			return Optional.empty();
+		}
+
+		final long checksum = checksum(targetBytes);
+		final ConcurrentMap<Long, CachedTemplate> loaderTemplates;
+
+		synchronized (resourceTemplates) {
+			ConcurrentMap<Long, CachedTemplate> templates = resourceTemplates.get(loader);
+
+			if (templates == null) {
+				templates = new ConcurrentHashMap<Long, CachedTemplate>();
+				resourceTemplates.put(loader, templates);
+			}
+
+			loaderTemplates = templates;
+		}
+
+		final CachedTemplate created = new CachedTemplate(checksum);
+		final CachedTemplate cached = loaderTemplates.putIfAbsent(checksum, created);
+
+		if (cached == null) {
+			buildTemplate(created, targetBytes, Optional.ofNullable(loader),
+					() -> loaderTemplates.remove(checksum, created));
+			return awaitTemplate(created);
+		}
+
+		return awaitTemplate(cached);
+	}
+
+	/**
+	 * Parse targets in the background, e.g. every target in a course that is
+	 * about to be loaded, so they are ready by the time they are added.
+	 * Returns immediately.
+	 */
+	public static void prewarm(Collection<File> targetFiles) {
+		for (final File targetFile : new LinkedHashSet<File>(targetFiles)) {
+			prewarmExecutor.execute(() -> getTemplate(targetFile));
+		}
+	}
+
+	/**
+	 * Drop every cached template and image.
+	 */
+	public static void clear() {
+		fileTemplates.clear();
+		resourceTemplates.clear();
+		images.clear();
+	}
+
+	static int getTemplateCount() {
+		return fileTemplates.size();
+	}
+
+	static int getImageCount() {
+		return images.size();
+	}
+
+	/**
+	 * Decode an image file once for every target that uses it. Images are
+	 * keyed by path, size, and modification time so that a changed image is
+	 * decoded again.
+	 */
+	static Image getImage(File imageFile) throws IOException {
+		if (!imageFile.isFile()) throw new FileNotFoundException(imageFile.getPath());
+
+		final String key = imageFile.getAbsolutePath() + ":" + imageFile.length() + ":" + imageFile.lastModified();
+		final Image cached = images.get(key);
+		if (cached != null) return cached;
+
+		final Image image;
+		try (InputStream imageStream = new FileInputStream(imageFile)) {
+			image = new Image(imageStream);
+		}
+
+		final Image existing = images.putIfAbsent(key, image);
+		return existing != null ? existing : image;
+	}
+
+	static Image getImage(ClassLoader loader, String resourcePath) throws IOException {
+		final URL resource = loader.getResource(resourcePath);
+		if (resource == null) throw new FileNotFoundException(resourcePath);
+
+		final String key = resource.toString();
+		final Image cached = images.get(key);
+		if (cached != null) return cached;
+
+		final Image image;
+		try (InputStream imageStream = resource.openStream()) {
+			image = new Image(imageStream);
+		}
+
+		final Image existing = images.putIfAbsent(key, image);
+		return existing != null ? existing : image;
+	}
+
+	private static void buildTemplate(CachedTemplate cachedTemplate, byte[] targetBytes,
+			Optional<ClassLoader> loader, Runnable onFailure) {
+		try {
+			cachedTemplate.template
+					.complete(XMLTargetReader.readTemplate(new ByteArrayInputStream(targetBytes), loader));
+		} catch (RuntimeException e) {
+			// Don't cache the failure so that the target is read again next
+			// time
+			onFailure.run();
+			cachedTemplate.template.completeExceptionally(e);
+		}
+	}
+
+	private static Optional<TargetTemplate> awaitTemplate(CachedTemplate cachedTemplate) {
+		try {
+			return Optional.of(cachedTemplate.template.join());
+		} catch (CompletionException e) {
+			logger.error("Error reading XML target", e.getCause());
+			return Optional.empty();
+		}
+	}
+
+	private static long checksum(byte[] bytes) {
+		final CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		// Include the length so that two different targets have to collide on
+		// both to be confused
+		return (crc.getValue() << 32) ^ bytes.length;
+	}
+
+	private static byte[] readAllBytes(InputStream is) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[8192];
+
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+
+		return bytes.toByteArray();
+	}
+}
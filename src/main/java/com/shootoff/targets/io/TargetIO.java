@@ -21,6 +21,7 @@ package com.shootoff.targets.io;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -140,25 +141,31 @@ public class TargetIO {
 		return loadTarget(targetStream, true, loader);
 	}
 
+	/**
+	 * Load a target. Targets are parsed once and then instantiated from a
+	 * cached template, so adding the same target again doesn't re-read it.
+	 */
 	public static Optional<TargetComponents> loadTarget(final File targetFile, boolean playAnimations) {
-		final TargetReader reader;
-
-		if (targetFile.getName().endsWith("target")) {
-			reader = new XMLTargetReader(targetFile, playAnimations);
-		} else {
+		if (!targetFile.getName().endsWith("target")) {
 			logger.error("Unknown target file type.");
 			return Optional.empty();
 		}
 
-		return Optional.of(new TargetComponents(processVisualTags(reader.getTargetNodes()), reader.getTargetTags()));
+		return toComponents(TargetCache.getTemplate(targetFile), playAnimations);
 	}
 
 	// Used for loading targets from resource files for modular exercises
 	public static Optional<TargetComponents> loadTarget(final InputStream targetStream, boolean playAnimations,
 			final ClassLoader loader) {
-		final TargetReader reader = new XMLTargetReader(targetStream, playAnimations, loader);
+		return toComponents(TargetCache.getTemplate(targetStream, loader), playAnimations);
+	}
+
+	private static Optional<TargetComponents> toComponents(Optional<TargetTemplate> template,
+			boolean playAnimations) {
+		if (!template.isPresent()) return Optional.empty();
 
-		return Optional.of(new TargetComponents(processVisualTags(reader.getTargetNodes()), reader.getTargetTags()));
+		return Optional.of(new TargetComponents(processVisualTags(template.get().instantiate(playAnimations)),
+				new HashMap<String, String>(template.get().getTargetTags())));
 	}
 
 	private static Group processVisualTags(List<Node> regions) {
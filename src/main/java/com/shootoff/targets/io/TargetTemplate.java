@@ -0,0 +1,368 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.targets.io;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.targets.EllipseRegion;
+import com.shootoff.targets.ImageRegion;
+import com.shootoff.targets.PolygonRegion;
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.Target;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.targets.animation.AnimationFrameStore;
+import com.shootoff.targets.animation.GifAnimation;
+import com.shootoff.targets.animation.SpriteAnimation;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * A parsed target: its tags plus a description of each of its regions. Images
+ * are decoded when the template is built and shared by every target
+ * instantiated from the template, so a target that is added many times is
+ * only read and decoded once.
+ * 
+ * Templates are immutable and may be instantiated on any thread.
+ * 
+ * @author phrack
+ */
+public final class TargetTemplate {
+	private static final Logger logger = LoggerFactory.getLogger(TargetTemplate.class);
+
+	private final Map<String, String> targetTags;
+	private final List<RegionTemplate> regions;
+
+	TargetTemplate(Map<String, String> targetTags, List<RegionTemplate> regions) {
+		this.targetTags = Collections.unmodifiableMap(new HashMap<String, String>(targetTags));
+		this.regions = Collections.unmodifiableList(new ArrayList<RegionTemplate>(regions));
+	}
+
+	public Map<String, String> getTargetTags() {
+		return targetTags;
+	}
+
+	public int getRegionCount() {
+		return regions.size();
+	}
+
+	/**
+	 * Create a new set of region nodes for this target. The nodes are not
+	 * shared with any other instance, but images are.
+	 */
+	public List<Node> instantiate(boolean playAnimations) {
+		final List<Node> nodes = new ArrayList<Node>(regions.size());
+
+		for (final RegionTemplate region : regions) {
+			final TargetRegion targetRegion = region.create(playAnimations);
+			targetRegion.setTags(region.tags);
+			nodes.add((Node) targetRegion);
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Draw the target with Java2D, scaled to fit in a <tt>maxDimension</tt>
+	 * square. Unlike a snapshot of the target's nodes this does not need the
+	 * JavaFX application thread, so thumbnails can be rendered in the
+	 * background.
+	 */
+	public BufferedImage render(int maxDimension) {
+		Rectangle2D bounds = null;
+
+		for (final RegionTemplate region : regions) {
+			if (!region.isVisible()) continue;
+
+			if (bounds == null) {
+				bounds = region.getBounds();
+			} else {
+				bounds = bounds.createUnion(region.getBounds());
+			}
+		}
+
+		if (bounds == null || bounds.getWidth() <= 0 || bounds.getHeight() <= 0) {
+			return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		}
+
+		final double scale = Math.min(maxDimension / bounds.getWidth(), maxDimension / bounds.getHeight());
+		final int width = Math.max(1, (int) Math.ceil(bounds.getWidth() * scale));
+		final int height = Math.max(1, (int) Math.ceil(bounds.getHeight() * scale));
+
+		final BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g = thumbnail.createGraphics();
+
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.scale(scale, scale);
+			g.translate(-bounds.getMinX(), -bounds.getMinY());
+
+			for (final RegionTemplate region : regions) {
+				if (!region.isVisible()) continue;
+
+				g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) region.getOpacity()));
+				region.paint(g);
+			}
+		} finally {
+			g.dispose();
+		}
+
+		return thumbnail;
+	}
+
+	abstract static class RegionTemplate {
+		private final Map<String, String> tags;
+
+		protected RegionTemplate(Map<String, String> tags) {
+			this.tags = new HashMap<String, String>(tags);
+		}
+
+		protected abstract TargetRegion create(boolean playAnimations);
+
+		protected abstract Rectangle2D getBounds();
+
+		protected abstract void paint(Graphics2D g);
+
+		// These mirror the visual tags applied by TargetIO when a target is
+		// loaded
+		protected boolean isVisible() {
+			return !tags.containsKey(Target.TAG_VISIBLE) || Boolean.parseBoolean(tags.get(Target.TAG_VISIBLE));
+		}
+
+		protected double getOpacity() {
+			if (tags.containsKey(Target.TAG_OPACITY)) return Double.parseDouble(tags.get(Target.TAG_OPACITY));
+
+			return TargetIO.DEFAULT_OPACITY;
+		}
+
+		protected static java.awt.Color toAwtColor(Color color) {
+			return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(),
+					(float) color.getOpacity());
+		}
+	}
+
+	static class ImageTemplate extends RegionTemplate {
+		private final double x;
+		private final double y;
+		private final File imageFile;
+		private final Image image;
+		private final Optional<URL> animation;
+
+		/**
+		 * @param animation
+		 *            the GIF to animate the region with. Its frames are
+		 *            fetched from the {@link AnimationFrameStore} for each
+		 *            instance rather than held by the template so that they
+		 *            stay within the store's memory budget.
+		 */
+		ImageTemplate(double x, double y, File imageFile, Image image, Optional<URL> animation,
+				Map<String, String> tags) {
+			super(tags);
+			this.x = x;
+			this.y = y;
+			this.imageFile = imageFile;
+			this.image = image;
+			this.animation = animation;
+		}
+
+		@Override
+		protected TargetRegion create(boolean playAnimations) {
+			final ImageRegion imageRegion = new ImageRegion(x, y, imageFile, image);
+
+			if (animation.isPresent()) {
+				try {
+					final GifAnimation gif = new GifAnimation(imageRegion,
+							AnimationFrameStore.getFrames(animation.get()));
+					imageRegion.setImage(gif.getFirstFrame());
+					if (gif.getFrameCount() > 1) imageRegion.setAnimation(gif);
+				} catch (IOException e) {
+					logger.error("Error reading animation for target region from " + animation.get(), e);
+				}
+			}
+
+			if (imageRegion.getAnimation().isPresent() && playAnimations) {
+				final SpriteAnimation animation = imageRegion.getAnimation().get();
+				animation.setCycleCount(1);
+
+				animation.setOnFinished((e) -> {
+					animation.reset();
+					animation.setOnFinished(null);
+				});
+
+				animation.play();
+			}
+
+			return imageRegion;
+		}
+
+		@Override
+		protected Rectangle2D getBounds() {
+			return new Rectangle2D.Double(x, y, image.getWidth(), image.getHeight());
+		}
+
+		@Override
+		protected void paint(Graphics2D g) {
+			g.drawImage(SwingFXUtils.fromFXImage(image, null), (int) Math.round(x), (int) Math.round(y), null);
+		}
+
+		@Override
+		protected double getOpacity() {
+			// Images are always drawn opaque
+			return 1.0;
+		}
+	}
+
+	static class RectangleTemplate extends RegionTemplate {
+		private final double x;
+		private final double y;
+		private final double width;
+		private final double height;
+		private final Color fill;
+
+		RectangleTemplate(double x, double y, double width, double height, Color fill, Map<String, String> tags) {
+			super(tags);
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.fill = fill;
+		}
+
+		@Override
+		protected TargetRegion create(boolean playAnimations) {
+			final RectangleRegion rectangleRegion = new RectangleRegion(x, y, width, height);
+			rectangleRegion.setFill(fill);
+			return rectangleRegion;
+		}
+
+		@Override
+		protected Rectangle2D getBounds() {
+			return new Rectangle2D.Double(x, y, width, height);
+		}
+
+		@Override
+		protected void paint(Graphics2D g) {
+			g.setColor(toAwtColor(fill));
+			g.fill(getBounds());
+		}
+	}
+
+	static class EllipseTemplate extends RegionTemplate {
+		private final double centerX;
+		private final double centerY;
+		private final double radiusX;
+		private final double radiusY;
+		private final Color fill;
+
+		EllipseTemplate(double centerX, double centerY, double radiusX, double radiusY, Color fill,
+				Map<String, String> tags) {
+			super(tags);
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.radiusX = radiusX;
+			this.radiusY = radiusY;
+			this.fill = fill;
+		}
+
+		@Override
+		protected TargetRegion create(boolean playAnimations) {
+			final EllipseRegion ellipseRegion = new EllipseRegion(centerX, centerY, radiusX, radiusY);
+			ellipseRegion.setFill(fill);
+			return ellipseRegion;
+		}
+
+		@Override
+		protected Rectangle2D getBounds() {
+			return new Rectangle2D.Double(centerX - radiusX, centerY - radiusY, radiusX * 2, radiusY * 2);
+		}
+
+		@Override
+		protected void paint(Graphics2D g) {
+			g.setColor(toAwtColor(fill));
+			g.fill(new Ellipse2D.Double(centerX - radiusX, centerY - radiusY, radiusX * 2, radiusY * 2));
+		}
+	}
+
+	static class PolygonTemplate extends RegionTemplate {
+		private final double[] points;
+		private final Color fill;
+
+		PolygonTemplate(double[] points, Color fill, Map<String, String> tags) {
+			super(tags);
+			this.points = points.clone();
+			this.fill = fill;
+		}
+
+		@Override
+		protected TargetRegion create(boolean playAnimations) {
+			final PolygonRegion polygonRegion = new PolygonRegion(points);
+			polygonRegion.setFill(fill);
+			return polygonRegion;
+		}
+
+		@Override
+		protected Rectangle2D getBounds() {
+			return toPath().getBounds2D();
+		}
+
+		@Override
+		protected void paint(Graphics2D g) {
+			g.setColor(toAwtColor(fill));
+			g.fill(toPath());
+		}
+
+		private Path2D toPath() {
+			final Path2D path = new Path2D.Double();
+
+			for (int i = 0; i + 1 < points.length; i += 2) {
+				if (i == 0) {
+					path.moveTo(points[i], points[i + 1]);
+				} else {
+					path.lineTo(points[i], points[i + 1]);
+				}
+			}
+
+			path.closePath();
+
+			return path;
+		}
+	}
+}
@@ -23,6 +23,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -37,20 +38,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 import com.shootoff.gui.controller.TargetEditorController;
-import com.shootoff.targets.EllipseRegion;
-import com.shootoff.targets.ImageRegion;
-import com.shootoff.targets.PolygonRegion;
-import com.shootoff.targets.RectangleRegion;
-import com.shootoff.targets.TargetRegion;
-import com.shootoff.targets.animation.GifAnimation;
-import com.shootoff.targets.animation.SpriteAnimation;
+import com.shootoff.targets.animation.AnimationFrameStore;
+import com.shootoff.targets.animation.GifFrames;
+import com.shootoff.targets.io.TargetTemplate.EllipseTemplate;
+import com.shootoff.targets.io.TargetTemplate.ImageTemplate;
+import com.shootoff.targets.io.TargetTemplate.PolygonTemplate;
+import com.shootoff.targets.io.TargetTemplate.RectangleTemplate;
+import com.shootoff.targets.io.TargetTemplate.RegionTemplate;
 
 import javafx.scene.Node;
+import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Shape;
 
 public class XMLTargetReader implements TargetReader {
 	private static final Logger logger = LoggerFactory.getLogger(XMLTargetReader.class);
@@ -94,15 +96,26 @@ public class XMLTargetReader implements TargetReader {
 	}
 
 	private void load(InputStream targetStream) {
+		final TargetTemplate template = readTemplate(targetStream, loader);
+
+		targetNodes.addAll(template.instantiate(playAnimations));
+		targetTags.putAll(template.getTargetTags());
+	}
+
+	/**
+	 * Parse a target into a template. Images are decoded through
+	 * {@link TargetCache} so that targets sharing an image share one decoded
+	 * copy. Problems are logged and the regions that could be read are kept.
+	 * 
+	 * @param loader
+	 *            the class loader to read <tt>@</tt> prefixed resources from
+	 */
+	static TargetTemplate readTemplate(InputStream targetStream, Optional<ClassLoader> loader) {
+		final TargetXMLHandler handler = new TargetXMLHandler(loader);
+
 		try {
 			SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
-			TargetXMLHandler handler = new TargetXMLHandler();
 			saxParser.parse(targetStream, handler);
-
-			targetNodes.addAll(handler.getRegions());
-			targetTags.putAll(handler.getTags());
-
-			return;
 		} catch (IOException | ParserConfigurationException | SAXException e) {
 			logger.error("Error reading XML target", e);
 		} finally {
@@ -114,17 +127,24 @@ public class XMLTargetReader implements TargetReader {
 				}
 			}
 		}
+
+		return new TargetTemplate(handler.getTags(), handler.getRegions());
 	}
 
-	private class TargetXMLHandler extends DefaultHandler {
+	private static class TargetXMLHandler extends DefaultHandler {
+		private final Optional<ClassLoader> loader;
 		private final Map<String, String> targetTags = new HashMap<>();
-		private final List<Node> regions = new ArrayList<Node>();
-		private TargetRegion currentRegion;
+		private final List<RegionTemplate> regions = new ArrayList<RegionTemplate>();
 		private List<Double> polygonPoints = null;
 		private Color polygonFill = null;
 		private Map<String, String> currentTags;
+		private Attributes currentAttributes;
 
-		public List<Node> getRegions() {
+		public TargetXMLHandler(Optional<ClassLoader> loader) {
+			this.loader = loader;
+		}
+
+		public List<RegionTemplate> getRegions() {
 			return regions;
 		}
 
@@ -148,84 +168,11 @@ public class XMLTargetReader implements TargetReader {
 				break;
 
 			case "image":
-				currentTags = new HashMap<String, String>();
-
-				File savedFile = new File(attributes.getValue("file"));
-
-				InputStream imageStream = null;
-				if ('@' == savedFile.toString().charAt(0) && loader.isPresent()) {
-					imageStream = loader.get().getResourceAsStream(savedFile.toString().substring(1).replace("\\", "/"));
-				}
-
-				File imageFile;
-				if (savedFile.isAbsolute() || '@' == savedFile.toString().charAt(0)) {
-					imageFile = savedFile;
-				} else {
-					imageFile = new File(
-							System.getProperty("shootoff.home") + File.separator + attributes.getValue("file"));
-				}
-
-				ImageRegion imageRegion;
-				if (imageStream != null) {
-					imageRegion = new ImageRegion(Double.parseDouble(attributes.getValue("x")),
-							Double.parseDouble(attributes.getValue("y")), imageFile, imageStream);
-				} else {
-					try {
-						imageRegion = new ImageRegion(Double.parseDouble(attributes.getValue("x")),
-								Double.parseDouble(attributes.getValue("y")), imageFile);
-					} catch (FileNotFoundException e) {
-						logger.error("Failed to load target image from file: {}", e);
-						return;
-					}
-				}
-
-				try {
-					int firstDot = imageFile.getName().indexOf('.') + 1;
-					String extension = imageFile.getName().substring(firstDot);
-
-					if (extension.endsWith("gif") && '@' == savedFile.toString().charAt(0) && loader.isPresent()) {
-						InputStream gifStream = loader.get().getResourceAsStream(savedFile.toString().substring(1).replace("\\", "/"));
-						GifAnimation gif = new GifAnimation(imageRegion, gifStream);
-						imageRegion.setImage(gif.getFirstFrame());
-						if (gif.getFrameCount() > 1) imageRegion.setAnimation(gif);
-					} else if (extension.endsWith("gif")) {
-						GifAnimation gif = new GifAnimation(imageRegion, imageRegion.getImageFile());
-						imageRegion.setImage(gif.getFirstFrame());
-						if (gif.getFrameCount() > 1) imageRegion.setAnimation(gif);
-					}
-
-					if (imageRegion.getAnimation().isPresent() && playAnimations) {
-						final SpriteAnimation animation = imageRegion.getAnimation().get();
-						animation.setCycleCount(1);
-
-						animation.setOnFinished((e) -> {
-							animation.reset();
-							animation.setOnFinished(null);
-						});
-
-						animation.play();
-					}
-				} catch (IOException e) {
-					logger.error("Error reading animation from XML target", e);
-				}
-
-				currentRegion = imageRegion;
-
-				break;
 			case "rectangle":
-				currentTags = new HashMap<String, String>();
-				currentRegion = new RectangleRegion(Double.parseDouble(attributes.getValue("x")),
-						Double.parseDouble(attributes.getValue("y")), Double.parseDouble(attributes.getValue("width")),
-						Double.parseDouble(attributes.getValue("height")));
-				((Shape) currentRegion).setFill(TargetEditorController.createColor(attributes.getValue("fill")));
-				break;
 			case "ellipse":
 				currentTags = new HashMap<String, String>();
-				currentRegion = new EllipseRegion(Double.parseDouble(attributes.getValue("centerX")),
-						Double.parseDouble(attributes.getValue("centerY")),
-						Double.parseDouble(attributes.getValue("radiusX")),
-						Double.parseDouble(attributes.getValue("radiusY")));
-				((Shape) currentRegion).setFill(TargetEditorController.createColor(attributes.getValue("fill")));
+				// Regions are built once their tags have been read
+				currentAttributes = new AttributesImpl(attributes);
 				break;
 			case "polygon":
 				currentTags = new HashMap<String, String>();
@@ -250,15 +197,76 @@ public class XMLTargetReader implements TargetReader {
 				for (int i = 0; i < polygonPoints.size(); i++)
 					points[i] = polygonPoints.get(i);
 
-				currentRegion = new PolygonRegion(points);
-				((Shape) currentRegion).setFill(polygonFill);
+				regions.add(new PolygonTemplate(points, polygonFill, currentTags));
+				break;
 			case "image":
+				final Optional<ImageTemplate> imageTemplate = readImage(currentAttributes);
+				if (imageTemplate.isPresent()) regions.add(imageTemplate.get());
+				break;
 			case "rectangle":
+				regions.add(new RectangleTemplate(Double.parseDouble(currentAttributes.getValue("x")),
+						Double.parseDouble(currentAttributes.getValue("y")),
+						Double.parseDouble(currentAttributes.getValue("width")),
+						Double.parseDouble(currentAttributes.getValue("height")),
+						TargetEditorController.createColor(currentAttributes.getValue("fill")), currentTags));
+				break;
 			case "ellipse":
-				currentRegion.setTags(currentTags);
-				regions.add((Node) currentRegion);
+				regions.add(new EllipseTemplate(Double.parseDouble(currentAttributes.getValue("centerX")),
+						Double.parseDouble(currentAttributes.getValue("centerY")),
+						Double.parseDouble(currentAttributes.getValue("radiusX")),
+						Double.parseDouble(currentAttributes.getValue("radiusY")),
+						TargetEditorController.createColor(currentAttributes.getValue("fill")), currentTags));
 				break;
 			}
 		}
+
+		private Optional<ImageTemplate> readImage(Attributes attributes) {
+			File savedFile = new File(attributes.getValue("file"));
+
+			final boolean isResource = '@' == savedFile.toString().charAt(0) && loader.isPresent();
+			final String resourcePath = savedFile.toString().substring(1).replace("\\", "/");
+
+			File imageFile;
+			if (savedFile.isAbsolute() || '@' == savedFile.toString().charAt(0)) {
+				imageFile = savedFile;
+			} else {
+				imageFile = new File(System.getProperty("shootoff.home") + File.separator + attributes.getValue("file"));
+			}
+
+			final double x = Double.parseDouble(attributes.getValue("x"));
+			final double y = Double.parseDouble(attributes.getValue("y"));
+
+			int firstDot = imageFile.getName().indexOf('.') + 1;
+			String extension = imageFile.getName().substring(firstDot);
+
+			try {
+				if (extension.endsWith("gif")) {
+					final URL gifResource;
+
+					if (isResource) {
+						gifResource = loader.get().getResource(resourcePath);
+						if (gifResource == null) throw new FileNotFoundException(resourcePath);
+					} else {
+						gifResource = imageFile.toURI().toURL();
+					}
+
+					final GifFrames frames = AnimationFrameStore.getFrames(gifResource);
+
+					return Optional.of(new ImageTemplate(x, y, imageFile, frames.getFrame(0),
+							frames.getFrameCount() > 1 ? Optional.of(gifResource) : Optional.empty(), currentTags));
+				}
+
+				final Image image = isResource ? TargetCache.getImage(loader.get(), resourcePath)
+						: TargetCache.getImage(imageFile);
+
+				return Optional.of(new ImageTemplate(x, y, imageFile, image, Optional.empty(), currentTags));
+			} catch (FileNotFoundException e) {
+				logger.error("Failed to load target image from file: {}", e);
+			} catch (IOException e) {
+				logger.error("Error reading animation from XML target", e);
+			}
+
+			return Optional.empty();
+		}
 	}
 }
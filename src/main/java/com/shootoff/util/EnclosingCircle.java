@@ -0,0 +1,82 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.util;
+
+/**
+ * Tracks a circle enclosing every point of a stream in constant time per
+ * point. When a point lands outside of the circle, the circle grows just
+ * enough to cover both its old extent and the new point. The result is never
+ * more than 1.5 times the radius of the true minimum enclosing circle, which
+ * is close enough to judge the size of a shot group as it is fired.
+ * 
+ * @author phrack
+ */
+public class EnclosingCircle {
+	private long count = 0;
+	private double centerX = 0;
+	private double centerY = 0;
+	private double radius = 0;
+
+	public void add(double x, double y) {
+		count++;
+
+		if (count == 1) {
+			centerX = x;
+			centerY = y;
+			return;
+		}
+
+		final double dx = x - centerX;
+		final double dy = y - centerY;
+		final double distance = Math.sqrt(dx * dx + dy * dy);
+
+		if (distance <= radius) return;
+
+		final double newRadius = (radius + distance) / 2;
+		final double shift = (newRadius - radius) / distance;
+
+		centerX += dx * shift;
+		centerY += dy * shift;
+		radius = newRadius;
+	}
+
+	public void reset() {
+		count = 0;
+		centerX = 0;
+		centerY = 0;
+		radius = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getCenterX() {
+		return centerX;
+	}
+
+	public double getCenterY() {
+		return centerY;
+	}
+
+	public double getRadius() {
+		return radius;
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.util;
+
+/**
+ * Estimates percentiles of a stream of positive values in a fixed amount of
+ * memory. Values are counted in buckets whose bounds grow geometrically, so
+ * every estimate is within {@link #RELATIVE_ACCURACY} of a value that was
+ * actually added regardless of how many values there are. Adding a value is
+ * constant time.
+ * 
+ * @author phrack
+ */
+public class QuantileSketch {
+	public static final double RELATIVE_ACCURACY = 0.01;
+
+	private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+
+	private final double maxValue;
+	// Bucket 0 holds values of at most 1, the last bucket values over
+	// maxValue
+	private final long[] buckets;
+	private long count = 0;
+
+	/**
+	 * @param maxValue
+	 *            the largest value that needs accurate estimates, larger
+	 *            values are counted but estimated as <tt>maxValue</tt>
+	 */
+	public QuantileSketch(double maxValue) {
+		this.maxValue = maxValue;
+		this.buckets = new long[bucketIndex(maxValue) + 2];
+	}
+
+	private static int bucketIndex(double value) {
+		if (value <= 1) return 0;
+
+		return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+	}
+
+	public void add(double value) {
+		buckets[value > maxValue ? buckets.length - 1 : bucketIndex(value)]++;
+		count++;
+	}
+
+	public void reset() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = 0;
+		}
+
+		count = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @param percentile
+	 *            a value from 0 to 100
+	 * @return an estimate of the percentile or 0 if no values were added
+	 */
+	public double getPercentile(double percentile) {
+		if (count == 0) return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+
+			if (seen >= rank) {
+				if (i == 0) return Math.min(1, maxValue);
+				if (i == buckets.length - 1) return maxValue;
+
+				// The middle of the bucket (gamma^(i-1), gamma^i] relative to
+				// its bounds
+				return 2 * Math.pow(GAMMA, i) / (GAMMA + 1);
+			}
+		}
+
+		return maxValue;
+	}
+}
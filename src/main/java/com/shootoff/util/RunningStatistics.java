@@ -0,0 +1,95 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.util;
+
+/**
+ * Keeps the count, mean, variance, minimum and maximum of a stream of values
+ * in constant space using Welford's method, which stays numerically stable
+ * for long streams unlike summing squares.
+ * 
+ * @author phrack
+ */
+public class RunningStatistics {
+	private long count = 0;
+	private double mean = 0;
+	private double sumSquaredDeviations = 0;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+
+	public void add(double value) {
+		count++;
+
+		final double delta = value - mean;
+		mean += delta / count;
+		sumSquaredDeviations += delta * (value - mean);
+
+		if (count == 1) {
+			min = value;
+			max = value;
+		} else {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+	}
+
+	public void reset() {
+		count = 0;
+		mean = 0;
+		sumSquaredDeviations = 0;
+		min = Double.NaN;
+		max = Double.NaN;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the mean or 0 if no values were added
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return the sample variance or 0 if fewer than two values were added
+	 */
+	public double getVariance() {
+		return count < 2 ? 0 : sumSquaredDeviations / (count - 1);
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * @return the smallest value or <tt>NaN</tt> if no values were added
+	 */
+	public double getMin() {
+		return min;
+	}
+
+	/**
+	 * @return the largest value or <tt>NaN</tt> if no values were added
+	 */
+	public double getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs ShootOFF's independent start-up tasks concurrently and records how
+ * long every phase of start-up took, on which thread, and how long the
+ * critical path waited for background phases. The timeline is written to the
+ * log once the main window is showing so slow start-ups on a particular
+ * machine can be diagnosed from its log alone.
+ * 
+ * @author phrack
+ */
+public final class StartupTimeline {
+	private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+	private static final int WORKER_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final long WORKER_KEEP_ALIVE = 10; // s
+
+	private static final StartupTimeline defaultTimeline = new StartupTimeline();
+
+	private final long startNanos = System.nanoTime();
+	private final List<Phase> phases = Collections.synchronizedList(new ArrayList<Phase>());
+	private final Map<String, Future<?>> backgroundPhases = new ConcurrentHashMap<String, Future<?>>();
+	private final ExecutorService workers;
+	private volatile boolean isFinished = false;
+
+	public static final class Phase {
+		private final String name;
+		private final String threadName;
+		private final boolean isBackground;
+		private final long startNanos;
+		private volatile long endNanos = 0;
+
+		private Phase(String name, boolean isBackground, long startNanos) {
+			this.name = name;
+			this.threadName = Thread.currentThread().getName();
+			this.isBackground = isBackground;
+			this.startNanos = startNanos;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getThreadName() {
+			return threadName;
+		}
+
+		public boolean isBackground() {
+			return isBackground;
+		}
+
+		public long getStart(TimeUnit unit) {
+			return unit.convert(startNanos, TimeUnit.NANOSECONDS);
+		}
+
+		public long getDuration(TimeUnit unit) {
+			return unit.convert(endNanos == 0 ? 0 : endNanos - startNanos, TimeUnit.NANOSECONDS);
+		}
+
+		public boolean isDone() {
+			return endNanos != 0;
+		}
+	}
+
+	protected StartupTimeline() {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), (r) -> {
+					final Thread t = new NamedThreadFactory("Startup").newThread(r);
+					t.setDaemon(true);
+					return t;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		workers = executor;
+	}
+
+	public static StartupTimeline getDefault() {
+		return defaultTimeline;
+	}
+
+	/**
+	 * Run a phase on the calling thread and record how long it took.
+	 */
+	public void time(String phaseName, Runnable task) {
+		time(phaseName, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Run a phase on the calling thread and record how long it took.
+	 * 
+	 * @return the value returned by <tt>task</tt>
+	 */
+	public <T> T time(String phaseName, Supplier<T> task) {
+		final Phase phase = begin(phaseName, false);
+
+		try {
+			return task.get();
+		} finally {
+			end(phase);
+		}
+	}
+
+	/**
+	 * Start a phase in the background. Phases that depend on it can wait for
+	 * it with {@link #await(String)}.
+	 */
+	public Future<?> submit(String phaseName, Runnable task) {
+		return submit(phaseName, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * @see #submit(String, Runnable)
+	 */
+	public <T> Future<T> submit(String phaseName, Callable<T> task) {
+		final Future<T> future = workers.submit(() -> {
+			final Phase phase = begin(phaseName, true);
+
+			try {
+				return task.call();
+			} catch (Exception e) {
+				logger.error("Start-up phase \"" + phaseName + "\" failed", e);
+				throw e;
+			} finally {
+				end(phase);
+			}
+		});
+
+		backgroundPhases.put(phaseName, future);
+
+		return future;
+	}
+
+	/**
+	 * Block until a background phase is done. Time spent waiting is recorded
+	 * as its own phase because it is time the critical path lost.
+	 * 
+	 * @return <tt>false</tt> if the phase was never started or it failed
+	 */
+	public boolean await(String phaseName) {
+		final Future<?> future = backgroundPhases.get(phaseName);
+		if (future == null) return false;
+
+		if (future.isDone()) return succeeded(future);
+
+		final Phase wait = begin("Wait for " + phaseName, false);
+		try {
+			return succeeded(future);
+		} finally {
+			end(wait);
+		}
+	}
+
+	private boolean succeeded(Future<?> future) {
+		try {
+			future.get();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			return false;
+		}
+	}
+
+	private Phase begin(String phaseName, boolean isBackground) {
+		final Phase phase = new Phase(phaseName, isBackground, System.nanoTime() - startNanos);
+		phases.add(phase);
+		return phase;
+	}
+
+	private void end(Phase phase) {
+		phase.endNanos = Math.max(1, System.nanoTime() - startNanos);
+
+		// Background phases that outlive start-up are still worth knowing
+		// about, e.g. a version check that took a minute to time out
+		if (isFinished && phase.isBackground) {
+			logger.info("Start-up phase \"{}\" finished in the background after {} ms", phase.name,
+					phase.getDuration(TimeUnit.MILLISECONDS));
+		}
+	}
+
+	/**
+	 * @return a copy of every phase recorded so far, ordered by start time
+	 */
+	public List<Phase> getPhases() {
+		final List<Phase> copy;
+		synchronized (phases) {
+			copy = new ArrayList<Phase>(phases);
+		}
+
+		copy.sort(Comparator.comparingLong((Phase p) -> p.startNanos));
+		return copy;
+	}
+
+	/**
+	 * Mark the end of start-up and write the timeline to the log. Only the
+	 * first call has any effect.
+	 * 
+	 * @param milestone
+	 *            what start-up finished with, e.g. "main window shown"
+	 */
+	public void finish(String milestone) {
+		if (isFinished) return;
+		isFinished = true;
+
+		if (logger.isInfoEnabled()) logger.info(getReport(milestone));
+	}
+
+	public String getReport(String milestone) {
+		final long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		final StringBuilder report = new StringBuilder(
+				String.format("Start-up timeline, %s after %d ms (* on the critical path, | in the background):",
+						milestone, totalMillis));
+
+		for (final Phase phase : getPhases()) {
+			report.append(String.format("%n  %6d ms  %s %-40s %s [%s]", phase.getStart(TimeUnit.MILLISECONDS),
+					phase.isBackground ? "|" : "*", phase.name,
+					phase.isDone() ? phase.getDuration(TimeUnit.MILLISECONDS) + " ms" : "still running",
+					phase.threadName));
+		}
+
+		return report.toString();
+	}
+}
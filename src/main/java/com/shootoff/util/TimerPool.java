@@ -19,20 +19,35 @@
 package com.shootoff.util;
 
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * General purpose timers for the GUI and the cameras, e.g. to hide a message
+ * after a few seconds. Deadlines are kept by the shared {@link TimerService},
+ * but tasks are run on a small pool of worker threads because they are
+ * allowed to block. Timers that need to fire exactly on time, such as
+ * exercise par times, should use {@link TimerService} directly.
+ */
 public class TimerPool {
-	private static final int CORE_POOL_SIZE = 20;
-	private static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(CORE_POOL_SIZE,
-			new NamedThreadFactory("ShootOFFTimerPool"));
+	private static final int WORKER_COUNT = 4;
+	private static final long WORKER_KEEP_ALIVE = 30; // s
+	private static final ExecutorService workers;
+
+	static {
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, WORKER_KEEP_ALIVE,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("ShootOFFTimerPool"));
+		executor.allowCoreThreadTimeOut(true);
+		workers = executor;
+	}
 
 	public static ScheduledFuture<?> schedule(Runnable task, long msDelay) {
-		if (executorService.isShutdown() || executorService.isTerminated()) return null;
+		if (workers.isShutdown() || TimerService.getDefault().isClosed()) return null;
 
-		return executorService.schedule(task, msDelay, TimeUnit.MILLISECONDS);
+		return TimerService.getDefault().schedule(task, msDelay, TimeUnit.MILLISECONDS, workers);
 	}
 
 	public static boolean isWaiting(ScheduledFuture<?> future) {
@@ -46,6 +61,9 @@ public class TimerPool {
 	}
 
 	public static List<Runnable> close() {
-		return executorService.shutdownNow();
+		final List<Runnable> pending = TimerService.getDefault().cancelAll();
+		pending.addAll(workers.shutdownNow());
+		TimerService.getDefault().close();
+		return pending;
 	}
 }
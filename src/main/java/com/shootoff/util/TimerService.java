@@ -0,0 +1,423 @@
+/*
+ * ShootOFF - Software for Laser Dry Fire Training
+ * Copyright (C) 2016 phrack
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.shootoff.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shootoff.Closeable;
+
+/**
+ * A timer service driven by a single thread and a hashed timing wheel. Every
+ * deadline is an absolute {@link System#nanoTime()}, and the wheel's ticks are
+ * computed from the time the wheel started rather than from the end of the
+ * previous sleep, so oversleeping one tick never pushes later timers back.
+ * Between timers the thread sleeps until the tick of the earliest pending
+ * timer instead of waking every tick. If the thread falls behind it catches up
+ * on every missed tick before it sleeps again.
+ * 
+ * Timers fire on the wheel thread unless an executor is given, thus a timer
+ * fires within about a millisecond of its deadline no matter how busy the
+ * rest of the application is. Tasks run on the wheel thread must be short (play
+ * a sound, flip a flag, schedule the next timer); anything slower should be
+ * scheduled with an executor so it doesn't delay the timers behind it.
+ * 
+ * @author phrack
+ */
+public final class TimerService implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(TimerService.class);
+
+	protected static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final int WHEEL_SIZE = 512; // Must be a power of two
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	private static TimerService defaultService = null;
+
+	private final Queue<Timer> newTimers = new ConcurrentLinkedQueue<Timer>();
+	private final AtomicInteger pendingCount = new AtomicInteger(0);
+	private final Thread wheelThread;
+	private volatile boolean isClosed = false;
+
+	// Only touched by the wheel thread
+	private final List<List<Timer>> wheel = new ArrayList<List<Timer>>(WHEEL_SIZE);
+	private final long startNanos;
+	private long tick = 0;
+
+	private static final int WAITING = 0;
+	private static final int CANCELLED = 1;
+	private static final int RUNNING = 2;
+	private static final int DONE = 3;
+
+	/**
+	 * A task scheduled on a {@link TimerService}. Cancelling a timer that has
+	 * not fired yet guarantees its task will never run.
+	 */
+	public final class Timer implements ScheduledFuture<Void> {
+		private final Runnable task;
+		private final long deadline;
+		private final Executor executor;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+		private final CountDownLatch finished = new CountDownLatch(1);
+		private volatile long firedNanos = 0;
+		private volatile Throwable failure = null;
+
+		private Timer(Runnable task, long deadline, Executor executor) {
+			this.task = task;
+			this.deadline = deadline;
+			this.executor = executor;
+		}
+
+		/**
+		 * @return the {@link System#nanoTime()} this timer is due at
+		 */
+		public long getDeadline() {
+			return deadline;
+		}
+
+		/**
+		 * @return the {@link System#nanoTime()} this timer actually fired at,
+		 *         or 0 if it hasn't fired
+		 */
+		public long getFiredNanos() {
+			return firedNanos;
+		}
+
+		private void fire() {
+			if (!state.compareAndSet(WAITING, RUNNING)) return;
+
+			pendingCount.decrementAndGet();
+			firedNanos = System.nanoTime();
+
+			if (executor == null) {
+				run();
+			} else {
+				try {
+					executor.execute(this::run);
+				} catch (RejectedExecutionException e) {
+					logger.debug("Executor rejected timer task, running it on the timer thread", e);
+					run();
+				}
+			}
+		}
+
+		private void run() {
+			try {
+				task.run();
+			} catch (Throwable t) {
+				failure = t;
+				logger.error("Timer task " + task.getClass().getName() + " failed", t);
+			} finally {
+				state.set(DONE);
+				finished.countDown();
+			}
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			if (o == this) return 0;
+
+			if (o instanceof Timer) return Long.compare(deadline - ((Timer) o).deadline, 0);
+
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+
+			pendingCount.decrementAndGet();
+			finished.countDown();
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone() {
+			final int s = state.get();
+			return s == CANCELLED || s == DONE;
+		}
+
+		@Override
+		public Void get() throws InterruptedException, ExecutionException {
+			finished.await();
+			return result();
+		}
+
+		@Override
+		public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			if (!finished.await(timeout, unit)) throw new TimeoutException();
+			return result();
+		}
+
+		private Void result() throws ExecutionException {
+			if (isCancelled()) throw new CancellationException();
+			if (failure != null) throw new ExecutionException(failure);
+			return null;
+		}
+	}
+
+	public TimerService() {
+		this("ShootOFFTimer");
+	}
+
+	public TimerService(String threadName) {
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			wheel.add(new ArrayList<Timer>());
+		}
+
+		startNanos = System.nanoTime();
+
+		wheelThread = new Thread(this::runWheel, threadName);
+		wheelThread.setDaemon(true);
+		wheelThread.setPriority(Thread.MAX_PRIORITY);
+		wheelThread.start();
+	}
+
+	public static synchronized TimerService getDefault() {
+		if (defaultService == null || defaultService.isClosed()) defaultService = new TimerService();
+
+		return defaultService;
+	}
+
+	/**
+	 * Run <tt>task</tt> on the timer thread after <tt>delay</tt>.
+	 */
+	public Timer schedule(Runnable task, long delay, TimeUnit unit) {
+		return scheduleAt(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)), null);
+	}
+
+	/**
+	 * Hand <tt>task</tt> to <tt>executor</tt> after <tt>delay</tt>.
+	 */
+	public Timer schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+		return scheduleAt(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)), executor);
+	}
+
+	/**
+	 * Run <tt>task</tt> on the timer thread once {@link System#nanoTime()}
+	 * reaches <tt>deadlineNanos</tt>. Scheduling against an absolute deadline
+	 * keeps a chain of timers (e.g. the start and end of a par time) from
+	 * accumulating the delay of each link.
+	 */
+	public Timer scheduleAt(Runnable task, long deadlineNanos) {
+		return scheduleAt(task, deadlineNanos, null);
+	}
+
+	/**
+	 * Hand <tt>task</tt> to <tt>executor</tt> once {@link System#nanoTime()}
+	 * reaches <tt>deadlineNanos</tt>. If <tt>executor</tt> is <tt>null</tt>
+	 * the task runs on the timer thread.
+	 */
+	public Timer scheduleAt(Runnable task, long deadlineNanos, Executor executor) {
+		if (task == null) throw new NullPointerException("task");
+		if (isClosed) throw new RejectedExecutionException("Timer service is closed");
+
+		final Timer timer = new Timer(task, deadlineNanos, executor);
+		pendingCount.incrementAndGet();
+		newTimers.offer(timer);
+
+		// The wheel sleeps indefinitely when it has nothing to do
+		LockSupport.unpark(wheelThread);
+
+		return timer;
+	}
+
+	/**
+	 * @return the number of timers that have neither fired nor been cancelled
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/**
+	 * Cancel every timer that is still waiting.
+	 * 
+	 * @return the tasks of the timers that were cancelled
+	 */
+	public List<Runnable> cancelAll() {
+		final List<Runnable> cancelled = new ArrayList<Runnable>();
+
+		// New timers are moved onto the wheel by the wheel thread, thus walk
+		// both without removing anything and let the wheel drop cancelled
+		// timers when it next visits their slot
+		for (final Timer timer : newTimers) {
+			if (timer.cancel(false)) cancelled.add(timer.task);
+		}
+
+		synchronized (wheel) {
+			for (final List<Timer> slot : wheel) {
+				for (final Timer timer : slot) {
+					if (timer.cancel(false)) cancelled.add(timer.task);
+				}
+			}
+		}
+
+		return cancelled;
+	}
+
+	@Override
+	public void close() {
+		isClosed = true;
+		cancelAll();
+		LockSupport.unpark(wheelThread);
+	}
+
+	private long tickDeadline(long tick) {
+		return startNanos + tick * TICK_NANOS;
+	}
+
+	private void runWheel() {
+		while (!isClosed) {
+			final OptionalLong wakeDeadline;
+
+			synchronized (wheel) {
+				transferNewTimers();
+				wakeDeadline = nextWakeDeadline();
+			}
+
+			if (!wakeDeadline.isPresent()) {
+				// Nothing to wait for, so sleep until a timer is scheduled
+				// and skip the ticks that passed in the meantime
+				LockSupport.park(this);
+				tick = Math.max(tick, (System.nanoTime() - startNanos) / TICK_NANOS);
+				continue;
+			}
+
+			// Scheduling a timer unparks the thread, so go around again to
+			// pick up a timer that may be due sooner
+			final long remaining = wakeDeadline.getAsLong() - System.nanoTime();
+			if (remaining > 0) {
+				LockSupport.parkNanos(this, remaining);
+				continue;
+			}
+
+			final List<Timer> due = new ArrayList<Timer>();
+
+			synchronized (wheel) {
+				// Catch up on every tick that is due
+				final long now = System.nanoTime();
+				while (tickDeadline(tick + 1) <= now) {
+					tick++;
+					expire(wheel.get((int) (tick & WHEEL_MASK)), due);
+				}
+			}
+
+			// Fire outside of the lock so a task can't hold up cancelAll()
+			if (due.size() > 1) due.sort((a, b) -> Long.compare(a.deadline - b.deadline, 0));
+
+			for (final Timer timer : due) {
+				timer.fire();
+			}
+		}
+	}
+
+	private void transferNewTimers() {
+		Timer timer;
+		while ((timer = newTimers.poll()) != null) {
+			if (timer.isCancelled()) continue;
+
+			wheel.get((int) (timerTick(timer) & WHEEL_MASK)).add(timer);
+		}
+	}
+
+	private long timerTick(Timer timer) {
+		// Round up so a timer never fires before its deadline, and put
+		// overdue timers in the next slot
+		return Math.max(tick + 1, (timer.deadline - startNanos + TICK_NANOS - 1) / TICK_NANOS);
+	}
+
+	/**
+	 * Find when the tick of the earliest timer on the wheel is due, dropping
+	 * cancelled timers along the way.
+	 * 
+	 * @return the {@link System#nanoTime()} to wake up at, or empty if no
+	 *         timer is waiting
+	 */
+	private OptionalLong nextWakeDeadline() {
+		Timer earliest = null;
+
+		for (final List<Timer> slot : wheel) {
+			final Iterator<Timer> it = slot.iterator();
+			while (it.hasNext()) {
+				final Timer timer = it.next();
+
+				if (timer.isCancelled()) {
+					it.remove();
+				} else if (earliest == null || timer.deadline - earliest.deadline < 0) {
+					earliest = timer;
+				}
+			}
+		}
+
+		if (earliest == null) return OptionalLong.empty();
+
+		return OptionalLong.of(tickDeadline(timerTick(earliest)));
+	}
+
+	private void expire(List<Timer> slot, List<Timer> due) {
+		if (slot.isEmpty()) return;
+
+		final long tickEnd = tickDeadline(tick);
+
+		final Iterator<Timer> it = slot.iterator();
+		while (it.hasNext()) {
+			final Timer timer = it.next();
+
+			if (timer.isCancelled()) {
+				it.remove();
+			} else if (timer.deadline - tickEnd <= 0) {
+				// Timers for a later rotation of the wheel stay put
+				it.remove();
+				due.add(timer);
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.shootoff.audio;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAudioEngine {
+	private AudioEngine engine;
+
+	@Before
+	public void setUp() {
+		engine = new AudioEngine();
+	}
+
+	@Test
+	public void testSoundIsDecodedOnce() {
+		Optional<PcmSound> first = engine.load(new File("sounds/beep.wav"));
+		Optional<PcmSound> second = engine.load(new File("sounds/beep.wav"));
+
+		assertTrue(first.isPresent());
+		assertSame(first.get(), second.get());
+		assertEquals(1, engine.getCachedSoundCount());
+		assertTrue(first.get().getDuration() > 0);
+	}
+
+	@Test
+	public void testSoundsAreConvertedToEngineFormat() {
+		Optional<PcmSound> sound = engine.load(new File("sounds/steel_sound_1.wav"));
+
+		assertTrue(sound.isPresent());
+		assertTrue(sound.get().getFormat().matches(AudioEngine.ENGINE_FORMAT));
+	}
+
+	@Test
+	public void testLoadStreamUsesKey() throws IOException {
+		Optional<PcmSound> first = engine.load("test@beep", new FileInputStream("sounds/beep.wav"));
+		Optional<PcmSound> second = engine.load("test@beep", new FileInputStream("sounds/chime.wav"));
+
+		assertTrue(first.isPresent());
+		assertSame(first.get(), second.get());
+	}
+
+	@Test
+	public void testUnnamedStreamIsDecodedOnce() throws IOException {
+		Optional<PcmSound> first = engine.load(new FileInputStream("sounds/beep.wav"));
+		Optional<PcmSound> second = engine.load(new FileInputStream("sounds/beep.wav"));
+		Optional<PcmSound> other = engine.load(new FileInputStream("sounds/chime.wav"));
+
+		assertTrue(first.isPresent());
+		assertSame(first.get(), second.get());
+		assertNotSame(first.get(), other.get());
+		assertEquals(2, engine.getCachedSoundCount());
+	}
+
+	private static byte[] generatedSound(int seed) throws IOException {
+		final byte[] samples = new byte[AudioEngine.ENGINE_FORMAT.getFrameSize() * 100];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = (byte) (seed + i);
+		}
+
+		final ByteArrayOutputStream wav = new ByteArrayOutputStream();
+		AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(samples), AudioEngine.ENGINE_FORMAT, 100),
+				AudioFileFormat.Type.WAVE, wav);
+		return wav.toByteArray();
+	}
+
+	@Test
+	public void testUnnamedStreamCacheIsBounded() throws IOException {
+		final Optional<PcmSound> first = engine.load(new ByteArrayInputStream(generatedSound(0)));
+		assertTrue(first.isPresent());
+
+		for (int i = 1; i <= AudioEngine.STREAM_CACHE_SIZE; i++) {
+			assertTrue(engine.load(new ByteArrayInputStream(generatedSound(i))).isPresent());
+		}
+
+		assertEquals(AudioEngine.STREAM_CACHE_SIZE, engine.getCachedSoundCount());
+
+		// The least recently used stream was dropped and is decoded again
+		assertNotSame(first.get(), engine.load(new ByteArrayInputStream(generatedSound(0))).get());
+	}
+
+	@Test
+	public void testMissingSound() {
+		assertFalse(engine.load(new File("sounds/does_not_exist.wav")).isPresent());
+		assertEquals(0, engine.getCachedSoundCount());
+	}
+
+	@Test
+	public void testPreloadDirectory() {
+		int loaded = engine.preload(new File("sounds/voice"));
+
+		assertTrue(loaded > 0);
+		assertEquals(loaded, engine.getCachedSoundCount());
+	}
+}
@@ -142,6 +142,8 @@ public class ShotDetectionTestor {
 			e.printStackTrace();
 		}
 
+		cameraManager.getShotEventBus().flush();
+
 		return mockManager.getShots();
 	}
 
@@ -0,0 +1,86 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCameraRegistry {
+	private List<String> devices;
+	private CameraRegistry registry;
+
+	@Before
+	public void setUp() {
+		devices = new ArrayList<String>(Arrays.asList("Front", "Side", "Back"));
+		registry = new CameraRegistry(() -> new ArrayList<String>(devices));
+	}
+
+	@Test
+	public void testEnumeratesOnce() {
+		assertEquals(0, registry.getEnumerationCount());
+
+		assertEquals(Arrays.asList("Front", "Side", "Back"), registry.getNames());
+		assertEquals(1, registry.indexOf("Side"));
+		assertEquals(2, registry.indexOf("Back"));
+		assertEquals(-1, registry.indexOf("Missing"));
+		assertTrue(registry.contains("Front"));
+
+		assertEquals(1, registry.getEnumerationCount());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNamesAreUnmodifiable() {
+		registry.getNames().add("Other");
+	}
+
+	@Test
+	public void testDeviceGoneUpdatesIndicesInPlace() {
+		registry.getNames();
+
+		devices.remove("Front");
+		registry.deviceGone("Front");
+
+		assertEquals(Arrays.asList("Side", "Back"), registry.getNames());
+		assertEquals(-1, registry.indexOf("Front"));
+		assertEquals(0, registry.indexOf("Side"));
+		assertEquals(1, registry.indexOf("Back"));
+
+		assertEquals(1, registry.getEnumerationCount());
+	}
+
+	@Test
+	public void testDeviceFoundEnumeratesAgainOnNextUse() {
+		registry.getNames();
+
+		devices.add(1, "Overhead");
+		registry.deviceFound("Overhead");
+
+		// Nothing is enumerated until the registry is used again
+		assertEquals(1, registry.getEnumerationCount());
+
+		assertEquals(1, registry.indexOf("Overhead"));
+		assertEquals(2, registry.indexOf("Side"));
+		assertEquals(2, registry.getEnumerationCount());
+	}
+
+	@Test
+	public void testKnownDeviceFoundDoesNotEnumerate() {
+		registry.getNames();
+		registry.deviceFound("Side");
+		registry.getNames();
+
+		assertEquals(1, registry.getEnumerationCount());
+	}
+
+	@Test
+	public void testDuplicateNamesUseFirstIndex() {
+		devices.add("Front");
+
+		assertEquals(0, registry.indexOf("Front"));
+		assertEquals(4, registry.getNames().size());
+	}
+}
@@ -0,0 +1,136 @@
+package com.shootoff.camera;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.paint.Color;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestShotEventBus {
+	private ShotEventBus bus;
+	private List<Long> delivered;
+
+	@Before
+	public void setUp() {
+		bus = new ShotEventBus("test");
+		delivered = Collections.synchronizedList(new ArrayList<Long>());
+	}
+
+	@After
+	public void tearDown() {
+		bus.close();
+	}
+
+	@Test
+	public void testDeliversInPublicationOrder() {
+		bus.subscribe((detectedShot) -> delivered.add(detectedShot.getSequence()));
+
+		for (int i = 0; i < 100; i++) {
+			bus.publish(new Shot(Color.RED, i, i, i, i), i);
+		}
+
+		assertTrue(bus.flush());
+
+		assertEquals(100, delivered.size());
+		for (int i = 0; i < delivered.size(); i++) {
+			assertEquals(i + 1, (long) delivered.get(i));
+		}
+
+		assertEquals(100, bus.getPublishedCount());
+		assertEquals(100, bus.getDeliveredCount());
+		assertEquals(0, bus.getQueueDepth());
+	}
+
+	@Test
+	public void testSlowSubscriberDoesNotBlockPublisher() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		bus.subscribe((detectedShot) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			delivered.add(detectedShot.getSequence());
+		});
+
+		for (int i = 0; i < 5; i++) {
+			bus.publish(new Shot(Color.RED, i, i, i, i), i);
+		}
+
+		// Everything is still waiting on the blocked subscriber
+		assertTrue(delivered.isEmpty());
+		assertTrue(bus.getPeakQueueDepth() >= 4);
+
+		release.countDown();
+
+		assertTrue(bus.flush());
+		assertEquals(5, delivered.size());
+		assertTrue(bus.getMaxDeliveryLatency(TimeUnit.NANOSECONDS) > 0);
+	}
+
+	@Test
+	public void testFailingSubscriberDoesNotStopOthers() {
+		bus.subscribe((detectedShot) -> {
+			throw new IllegalStateException("Broken subscriber");
+		});
+		bus.subscribe((detectedShot) -> delivered.add(detectedShot.getSequence()));
+
+		bus.publish(new Shot(Color.GREEN, 0, 0, 0, 0), 0);
+		bus.publish(new Shot(Color.GREEN, 0, 0, 0, 0), 0);
+
+		assertTrue(bus.flush());
+		assertEquals(2, delivered.size());
+	}
+
+	@Test
+	public void testUnsubscribe() {
+		final ShotSubscriber subscriber = (detectedShot) -> delivered.add(detectedShot.getSequence());
+		bus.subscribe(subscriber);
+
+		bus.publish(new Shot(Color.RED, 0, 0, 0, 0), 0);
+		assertTrue(bus.flush());
+
+		assertTrue(bus.unsubscribe(subscriber));
+
+		bus.publish(new Shot(Color.RED, 0, 0, 0, 0), 0);
+		assertTrue(bus.flush());
+
+		assertEquals(1, delivered.size());
+	}
+
+	@Test
+	public void testMergerOrdersByFrameTime() throws InterruptedException {
+		final ShotEventMerger merger = new ShotEventMerger();
+		final List<String> mergedCameras = Collections.synchronizedList(new ArrayList<String>());
+		final CountDownLatch mergedAll = new CountDownLatch(3);
+
+		merger.subscribe((detectedShot) -> {
+			mergedCameras.add(detectedShot.getCameraName());
+			mergedAll.countDown();
+		});
+
+		final long now = System.currentTimeMillis();
+
+		// Arrive out of order, but all inside of the reorder window
+		merger.shotDetected(new DetectedShot("second", new Shot(Color.RED, 0, 0, 0, 0), now + 10, 1));
+		merger.shotDetected(new DetectedShot("third", new Shot(Color.RED, 0, 0, 0, 0), now + 20, 1));
+		merger.shotDetected(new DetectedShot("first", new Shot(Color.RED, 0, 0, 0, 0), now, 1));
+
+		assertTrue(mergedAll.await(2, TimeUnit.SECONDS));
+		merger.close();
+
+		assertEquals("first", mergedCameras.get(0));
+		assertEquals("second", mergedCameras.get(1));
+		assertEquals("third", mergedCameras.get(2));
+	}
+}
@@ -4,12 +4,16 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import javafx.scene.paint.Color;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.shootoff.camera.shotdetection.JavaShotDetector;
+import com.shootoff.plugins.ExerciseWatchdog;
+
 public class TestConfiguration {
 	Configuration defaultConfig;
 
@@ -26,6 +30,8 @@ public class TestConfiguration {
 		assertTrue(defaultConfig.useErrorReporting());
 		assertEquals(0, defaultConfig.getWebcams().size());
 		assertEquals(4, defaultConfig.getMarkerRadius());
+		assertEquals(0, defaultConfig.getShotHistory());
+		assertEquals(0, defaultConfig.getShotFadeTime());
 		assertEquals(false, defaultConfig.ignoreLaserColor());
 		assertEquals("None", defaultConfig.getIgnoreLaserColorName());
 		assertEquals(false, defaultConfig.useRedLaserSound());
@@ -41,6 +47,14 @@ public class TestConfiguration {
 		assertEquals(false, defaultConfig.inDebugMode());
 		assertFalse(defaultConfig.getArenaPosition().isPresent());
 		assertFalse(defaultConfig.isChimeMuted("Rare and worth hearing"));
+		assertEquals(ExerciseWatchdog.DEFAULT_LATENCY_BUDGET, defaultConfig.getExerciseLatencyBudget());
+		assertEquals(ExerciseWatchdog.BudgetAction.LOG, defaultConfig.getExerciseBudgetAction());
+	}
+
+	@Test(expected = ConfigurationException.class)
+	public void testExerciseLatencyBudgetBelowRange() throws ConfigurationException {
+		defaultConfig.setExerciseLatencyBudget(0);
+		defaultConfig.validateConfiguration();
 	}
 
 	@Test(expected = ConfigurationException.class)
@@ -182,6 +196,32 @@ public class TestConfiguration {
 		}
 	}
 
+	@Test(expected = ConfigurationException.class)
+	public void testShotHistoryBelowRange() throws ConfigurationException {
+		defaultConfig.setShotHistory(-1);
+		defaultConfig.validateConfiguration();
+	}
+
+	@Test(expected = ConfigurationException.class)
+	public void testShotFadeTimeAboveRange() throws ConfigurationException {
+		defaultConfig.setShotFadeTime(600001);
+		defaultConfig.validateConfiguration();
+	}
+
+	@Test
+	public void testShotHistoryAndFadeTimeInRange() {
+		try {
+			defaultConfig.setShotHistory(0);
+			defaultConfig.setShotFadeTime(0);
+			defaultConfig.validateConfiguration();
+			defaultConfig.setShotHistory(10000);
+			defaultConfig.setShotFadeTime(600000);
+			defaultConfig.validateConfiguration();
+		} catch (ConfigurationException e) {
+			fail("Shot history and fade time values are in range but got ConfigurationException");
+		}
+	}
+
 	@Test
 	public void testReadConfigFile() throws IOException, ConfigurationException {
 		Configuration config = new Configuration(TestConfiguration.class.getResourceAsStream("/test.properties"),
@@ -214,6 +254,9 @@ public class TestConfiguration {
 		assertTrue(config.getCameraDistance("Camera 2 Name").isPresent());
 		assertEquals(13, config.getCameraDistance("Camera 2 Name").get().intValue());
 		assertFalse(config.getCameraDistance("Unheard of Camera").isPresent());
+		assertEquals(35, config.getExerciseLatencyBudget());
+		assertEquals(35, config.getExerciseWatchdog().getLatencyBudget(TimeUnit.MILLISECONDS));
+		assertEquals(ExerciseWatchdog.BudgetAction.OFFLOAD, config.getExerciseBudgetAction());
 	}
 
 	@Test
@@ -263,6 +306,34 @@ public class TestConfiguration {
 		assertEquals(true, config.inDebugMode());
 	}
 
+	@Test
+	public void testReadCmdLineRescore() throws IOException, ConfigurationException {
+		assertFalse(defaultConfig.getRescoreSessions().isPresent());
+		assertFalse(defaultConfig.isRescoreUseNativeDetector());
+		assertNull(defaultConfig.getRescoreSectorStatuses());
+		assertFalse(defaultConfig.getRescoreMinimumShotDimension().isPresent());
+
+		StringBuilder sectors = new StringBuilder();
+		for (int i = 0; i < JavaShotDetector.SECTOR_ROWS * JavaShotDetector.SECTOR_COLUMNS; i++) {
+			sectors.append(i == 1 ? '0' : '1');
+		}
+
+		Configuration config = new Configuration(new String[] { "-r", "sessions", "--rescore-detector", "native",
+				"--rescore-sectors", sectors.toString(), "--rescore-min-dimension", "3" });
+
+		assertEquals(new File("sessions"), config.getRescoreSessions().get());
+		assertTrue(config.isRescoreUseNativeDetector());
+		assertTrue(config.getRescoreSectorStatuses()[0][0]);
+		assertFalse(config.getRescoreSectorStatuses()[0][1]);
+		assertTrue(config.getRescoreSectorStatuses()[JavaShotDetector.SECTOR_ROWS - 1][0]);
+		assertEquals(3, (int) config.getRescoreMinimumShotDimension().get());
+	}
+
+	@Test(expected = ConfigurationException.class)
+	public void testReadCmdLineRescoreBadSectors() throws IOException, ConfigurationException {
+		new Configuration(new String[] { "--rescore-sectors", "101" });
+	}
+
 	@Test
 	public void testWriteConfigFile() throws IOException, ConfigurationException {
 		File props = new File("test_write.properties");
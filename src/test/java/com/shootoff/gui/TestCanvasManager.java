@@ -141,6 +141,7 @@ public class TestCanvasManager {
 		assertEquals(0, cm.getShots().size());
 		
 		cm.getCameraManager().injectShot(Color.RED, 640, 480, true);
+		assertTrue(cm.getCameraManager().getShotEventBus().flush());
 
 		assertEquals(1, cm.getShots().size());
 
@@ -156,6 +157,7 @@ public class TestCanvasManager {
 		assertEquals(0, cm.getShots().size());
 
 		cm.getCameraManager().injectShot(Color.RED, 640, 480, true);
+		assertTrue(cm.getCameraManager().getShotEventBus().flush());
 
 		assertEquals(1, cm.getShots().size());
 
@@ -170,6 +172,7 @@ public class TestCanvasManager {
 		assertEquals(0, cm.getShots().size());
 
 		cm.getCameraManager().injectShot(Color.RED, 320, 240, false);
+		assertTrue(cm.getCameraManager().getShotEventBus().flush());
 
 		assertEquals(1, cm.getShots().size());
 
@@ -0,0 +1,152 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.paint.Color;
+
+public class TestShotLog {
+	private ShotLog log;
+	private List<String> changes;
+
+	@Before
+	public void setUp() {
+		log = new ShotLog(ShotLog.PAGE_SIZE * 2);
+		changes = new ArrayList<String>();
+
+		log.addListener((ListChangeListener<ShotEntry>) (change) -> {
+			while (change.next()) {
+				if (change.wasReplaced()) {
+					changes.add("set " + change.getFrom());
+				} else if (change.wasAdded()) {
+					changes.add("add " + change.getFrom());
+				} else if (change.wasRemoved()) {
+					changes.add("remove " + change.getRemovedSize());
+				}
+			}
+		});
+	}
+
+	private Shot shot(long timestamp) {
+		return new Shot(Color.RED, 0, 0, timestamp, 2);
+	}
+
+	@Test
+	public void testRows() {
+		log.addShot(shot(1000), Optional.empty(), false, false);
+		log.addShot(shot(1250), Optional.empty(), true, false);
+
+		assertEquals(2, log.size());
+		assertEquals("1.00", log.get(0).getTimestamp());
+		assertEquals("-", log.get(0).getSplit().getSplit());
+		assertEquals("0.25", log.get(1).getSplit().getSplit());
+		assertTrue(log.get(1).getSplit().hadMalfunction());
+		assertSame(log.get(1), log.get(1));
+
+		assertEquals("add 0", changes.get(0));
+		assertEquals("add 1", changes.get(1));
+	}
+
+	@Test
+	public void testLatestExerciseValue() {
+		log.addShot(shot(1000), Optional.empty(), false, false);
+		log.addShot(shot(2000), Optional.empty(), false, false);
+
+		final ShotEntry before = log.get(1);
+		log.setLatestExerciseValue("Score", "10");
+
+		assertEquals("set 1", changes.get(changes.size() - 1));
+		assertEquals("10", log.get(1).getExerciseValue("Score"));
+		assertEquals("10", before.getExerciseValue("Score"));
+		assertEquals("", log.get(0).getExerciseValue("Score"));
+	}
+
+	@Test
+	public void testStrings() {
+		log.addShot(shot(1000), Optional.empty(), false, false);
+		log.addShot(shot(1400), Optional.empty(), false, false);
+		log.addShot(shot(1700), Optional.empty(), false, false);
+		// A new round color starts a new string
+		log.addShot(shot(2000), Optional.of(Color.LIGHTGRAY), false, false);
+		log.addShot(shot(2200), Optional.of(Color.LIGHTGRAY), false, false);
+		// So does a long pause
+		log.addShot(shot(2200 + ShotLog.STRING_PAUSE + 1), Optional.of(Color.LIGHTGRAY), false, false);
+
+		final ShotLog.StringSummary first = log.getStringSummary(0);
+		assertSame(first, log.getStringSummary(2));
+		assertEquals(1, first.getNumber());
+		assertEquals(3, first.getShotCount());
+		assertEquals(700, first.getTotalTime());
+		assertEquals(300, (long) first.getBestSplit().get());
+
+		final ShotLog.StringSummary second = log.getStringSummary(3);
+		assertEquals(2, second.getNumber());
+		assertEquals(2, second.getShotCount());
+		assertEquals(200, (long) second.getBestSplit().get());
+
+		assertEquals(3, log.getCurrentString().get().getNumber());
+		assertFalse(log.getCurrentString().get().getBestSplit().isPresent());
+		assertEquals("String 1: 3 shots, 0.70 s total, best split 0.30", first.toString());
+	}
+
+	@Test
+	public void testOldestPageIsDropped() {
+		final int capacity = ShotLog.PAGE_SIZE * 2;
+
+		for (int i = 0; i < capacity + 1; i++) {
+			log.addShot(shot(i * 10), Optional.empty(), false, false);
+		}
+
+		assertEquals(capacity + 1 - ShotLog.PAGE_SIZE, log.size());
+		assertEquals(ShotLog.PAGE_SIZE * 10, log.get(0).getShot().getTimestamp());
+		// The split is still relative to the dropped shot before it
+		assertEquals("0.01", log.get(0).getSplit().getSplit());
+		assertTrue(changes.contains("remove " + ShotLog.PAGE_SIZE));
+	}
+
+	@Test
+	public void testClear() {
+		log.addShot(shot(1000), Optional.empty(), false, false);
+		log.addShot(shot(2000), Optional.empty(), false, false);
+
+		log.clear();
+
+		assertEquals(0, log.size());
+		assertEquals("remove 2", changes.get(changes.size() - 1));
+		assertFalse(log.getCurrentString().isPresent());
+
+		log.addShot(shot(3000), Optional.empty(), false, false);
+		assertEquals("-", log.get(0).getSplit().getSplit());
+		assertEquals(1, log.getStringSummary(0).getNumber());
+	}
+
+	@Test
+	public void testRemovedRowsAreStillReadable() {
+		final List<ShotEntry> removed = new ArrayList<ShotEntry>();
+		log.addListener((ListChangeListener<ShotEntry>) (change) -> {
+			while (change.next()) {
+				if (change.wasRemoved()) removed.addAll(change.getRemoved());
+			}
+		});
+
+		log.addShot(shot(1000), Optional.empty(), false, false);
+		final ShotEntry created = log.get(0);
+		log.addShot(shot(2000), Optional.empty(), false, true);
+
+		log.clear();
+
+		assertEquals(2, removed.size());
+		assertSame(created, removed.get(0));
+		assertEquals(2000, removed.get(1).getShot().getTimestamp());
+		assertTrue(removed.get(1).getSplit().hadReload());
+	}
+}
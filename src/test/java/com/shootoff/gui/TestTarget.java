@@ -140,6 +140,42 @@ public class TestTarget {
 		assertFalse(r.isPresent());
 	}
 
+	@Test
+	public void testCompiledCommandsResolveNamedRegion() {
+		TargetRegion popper = pepperPopper.getRegions().get(0);
+		TargetRegion trigger = pepperPopper.getRegions().get(1);
+
+		List<RegionCommand> commands = pepperPopper.getRegionCommands(trigger);
+
+		assertEquals(2, commands.size());
+		assertEquals(RegionCommand.Type.ANIMATE, commands.get(0).getType());
+		assertSame(popper, commands.get(0).getAnimatedRegion().get());
+		assertFalse(commands.get(0).resetAfterAnimation());
+		assertEquals(RegionCommand.Type.PLAY_SOUND, commands.get(1).getType());
+
+		// Compiled once when the target was loaded
+		assertSame(commands, pepperPopper.getRegionCommands(trigger));
+	}
+
+	@Test
+	public void testCompiledCommandsNoTags() {
+		assertTrue(RegionCommand.compile(tr0, new ArrayList<TargetRegion>(), Optional.empty()).isEmpty());
+	}
+
+	@Test
+	public void testCompiledCommandsSkipInvalidAnimate() {
+		List<TargetRegion> regions = new ArrayList<TargetRegion>();
+		regions.add(trPlateRackPlate);
+
+		// The plate isn't an image region, so it can't be animated
+		List<RegionCommand> commands = RegionCommand.compile(trPlateRackPlate, regions, Optional.empty());
+
+		assertEquals(2, commands.size());
+		assertEquals(RegionCommand.Type.REVERSE, commands.get(0).getType());
+		assertEquals(RegionCommand.Type.PLAY_SOUND, commands.get(1).getType());
+		assertEquals("sounds/steel_sound_1.wav", commands.get(1).getArgs().get(0));
+	}
+
 	@Test
 	public void testAnimateAndResetPepperPopper() {
 		TargetRegion r = (TargetRegion) pepperPopper.getRegions().get(0);
@@ -0,0 +1,98 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestThumbnailCache {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private ThumbnailCache cache;
+	private CountingRenderer renderer;
+
+	private static class CountingRenderer implements ThumbnailCache.Renderer {
+		private final AtomicInteger renderCount = new AtomicInteger();
+
+		@Override
+		public String getKind() {
+			return "test";
+		}
+
+		@Override
+		public Optional<BufferedImage> render(File source, int size) {
+			renderCount.incrementAndGet();
+			if (source.getName().startsWith("broken")) return Optional.empty();
+
+			final BufferedImage thumbnail = new BufferedImage(size, size / 2, BufferedImage.TYPE_INT_ARGB);
+			thumbnail.setRGB(0, 0, 0xFFFF0000);
+			return Optional.of(thumbnail);
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		cache = new ThumbnailCache(new File(folder.getRoot(), ThumbnailCache.CACHE_DIRECTORY_NAME));
+		renderer = new CountingRenderer();
+	}
+
+	private File writeSource(String name, String contents) throws IOException {
+		final File source = new File(folder.getRoot(), name);
+		Files.write(source.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return source;
+	}
+
+	@Test
+	public void testThumbnailIsCachedOnDisk() throws IOException {
+		final File source = writeSource("source.target", "first");
+
+		final BufferedImage rendered = cache.getThumbnail(source, 40, renderer).get();
+		assertEquals(1, renderer.renderCount.get());
+		assertEquals(1, cache.getCacheDirectory().listFiles().length);
+
+		// A new cache over the same directory doesn't render again
+		final ThumbnailCache reopened = new ThumbnailCache(cache.getCacheDirectory());
+		final BufferedImage cached = reopened.getThumbnail(source, 40, renderer).get();
+
+		assertEquals(1, renderer.renderCount.get());
+		assertEquals(rendered.getWidth(), cached.getWidth());
+		assertEquals(rendered.getHeight(), cached.getHeight());
+		assertEquals(0xFFFF0000, cached.getRGB(0, 0));
+	}
+
+	@Test
+	public void testChangedSourceIsRenderedAgain() throws IOException {
+		final File source = writeSource("source.target", "first");
+		cache.getThumbnail(source, 40, renderer);
+
+		writeSource("source.target", "second");
+		cache.getThumbnail(source, 40, renderer);
+
+		assertEquals(2, renderer.renderCount.get());
+	}
+
+	@Test
+	public void testSizesAreCachedSeparately() throws IOException {
+		final File source = writeSource("source.target", "first");
+
+		assertEquals(20, cache.getThumbnail(source, 20, renderer).get().getWidth());
+		assertEquals(40, cache.getThumbnail(source, 40, renderer).get().getWidth());
+		assertEquals(2, renderer.renderCount.get());
+	}
+
+	@Test
+	public void testUnrenderableSource() throws IOException {
+		assertFalse(cache.getThumbnail(writeSource("broken.target", "broken"), 40, renderer).isPresent());
+		assertFalse(cache.getThumbnail(new File(folder.getRoot(), "missing.target"), 40, renderer).isPresent());
+	}
+}
@@ -0,0 +1,91 @@
+package com.shootoff.gui;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TestUiUpdateDispatcher {
+	@Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+	private List<String> applied;
+
+	@Before
+	public void setUp() {
+		// Drop anything left over from other tests
+		UiUpdateDispatcher.applyBatch();
+		applied = new ArrayList<String>();
+	}
+
+	@Test
+	public void testRunLaterKeepsOrder() {
+		UiUpdateDispatcher.runLater(() -> applied.add("first"));
+		UiUpdateDispatcher.runLater(() -> applied.add("second"));
+		UiUpdateDispatcher.runLater(() -> applied.add("third"));
+
+		assertTrue(applied.isEmpty());
+		assertEquals(3, UiUpdateDispatcher.getQueueDepth());
+
+		UiUpdateDispatcher.applyBatch();
+
+		assertEquals(Arrays.asList("first", "second", "third"), applied);
+		assertEquals(0, UiUpdateDispatcher.getQueueDepth());
+	}
+
+	@Test
+	public void testRunLatestCoalescesPerKey() {
+		final Object key = new Object();
+		final Object otherKey = new Object();
+		final long coalesced = UiUpdateDispatcher.getCoalescedCount();
+
+		UiUpdateDispatcher.runLatest(key, () -> applied.add("stale"));
+		UiUpdateDispatcher.runLatest(otherKey, () -> applied.add("other"));
+		UiUpdateDispatcher.runLatest(key, () -> applied.add("latest"));
+
+		assertEquals(2, UiUpdateDispatcher.getQueueDepth());
+
+		UiUpdateDispatcher.applyBatch();
+
+		assertEquals(2, applied.size());
+		assertTrue(applied.contains("latest"));
+		assertTrue(applied.contains("other"));
+		assertFalse(applied.contains("stale"));
+		assertEquals(coalesced + 1, UiUpdateDispatcher.getCoalescedCount());
+	}
+
+	@Test
+	public void testOrderedUpdatesApplyBeforeLatestUpdates() {
+		UiUpdateDispatcher.runLatest(this, () -> applied.add("latest"));
+		UiUpdateDispatcher.runLater(() -> applied.add("ordered"));
+
+		UiUpdateDispatcher.applyBatch();
+
+		assertEquals(Arrays.asList("ordered", "latest"), applied);
+	}
+
+	@Test
+	public void testRunOnFXThreadAppliesQueuedUpdatesFirst() {
+		UiUpdateDispatcher.runLater(() -> applied.add("queued"));
+		UiUpdateDispatcher.run(() -> applied.add("immediate"));
+
+		assertEquals(Arrays.asList("queued", "immediate"), applied);
+		assertEquals(0, UiUpdateDispatcher.getQueueDepth());
+	}
+
+	@Test
+	public void testFailedUpdateDoesNotStopBatch() {
+		UiUpdateDispatcher.runLater(() -> {
+			throw new IllegalStateException("Expected failure");
+		});
+		UiUpdateDispatcher.runLater(() -> applied.add("after failure"));
+
+		UiUpdateDispatcher.applyBatch();
+
+		assertEquals(Arrays.asList("after failure"), applied);
+	}
+}
@@ -0,0 +1,154 @@
+package com.shootoff.plugins;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.TargetRegion;
+import com.shootoff.util.EnclosingCircle;
+import com.shootoff.util.QuantileSketch;
+import com.shootoff.util.RunningStatistics;
+
+import javafx.scene.paint.Color;
+
+public class TestExerciseStatistics {
+	private ExerciseStatistics statistics;
+	private TargetRegion tenRing;
+	private TargetRegion fiveRing;
+
+	@Before
+	public void setUp() {
+		statistics = new ExerciseStatistics();
+
+		tenRing = new RectangleRegion(0, 0, 10, 10);
+		final Map<String, String> tenTags = new HashMap<String, String>();
+		tenTags.put("points", "10");
+		tenRing.setTags(tenTags);
+
+		fiveRing = new RectangleRegion(0, 0, 20, 20);
+		final Map<String, String> fiveTags = new HashMap<String, String>();
+		fiveTags.put("points", "5");
+		fiveRing.setTags(fiveTags);
+	}
+
+	private void shoot(long timestamp, double x, double y, Optional<TargetRegion> region) {
+		final Optional<Hit> hit = region.isPresent() ? Optional.of(new Hit(null, region.get(), 0, 0))
+				: Optional.empty();
+		statistics.recordShot(new Shot(Color.RED, x, y, timestamp, 2), hit);
+	}
+
+	@Test
+	public void testSnapshot() {
+		shoot(1000, 0, 0, Optional.of(tenRing));
+		shoot(1500, 10, 0, Optional.of(tenRing));
+		shoot(2500, 50, 50, Optional.empty());
+		shoot(2800, 5, 0, Optional.of(fiveRing));
+
+		final ExerciseStatistics.Snapshot snapshot = statistics.getSnapshot();
+
+		assertEquals(4, snapshot.getShotCount());
+		assertEquals(3, snapshot.getHitCount());
+		assertEquals(1, snapshot.getMissCount());
+		assertEquals(0.75, snapshot.getHitRatio(), 0.001);
+		assertEquals(25, snapshot.getScore());
+		assertEquals(2, snapshot.getRegionHits(tenRing));
+		assertEquals(1, snapshot.getRegionHits(fiveRing));
+
+		assertEquals(300, (long) snapshot.getLastSplit().get());
+		assertEquals(600, snapshot.getMeanSplit(), 0.001);
+		assertEquals(300, snapshot.getFastestSplit(), 0.001);
+		assertEquals(500, snapshot.getMedianSplit(), 500 * QuantileSketch.RELATIVE_ACCURACY);
+
+		// Misses aren't part of the group
+		assertEquals(5, snapshot.getGroupRadius(), 0.001);
+		assertEquals(5, snapshot.getGroupCenterX(), 0.001);
+
+		statistics.reset();
+
+		final ExerciseStatistics.Snapshot emptySnapshot = statistics.getSnapshot();
+		assertEquals(0, emptySnapshot.getShotCount());
+		assertFalse(emptySnapshot.getLastSplit().isPresent());
+		assertEquals(0, emptySnapshot.getRegionHits(tenRing));
+		assertEquals(2, snapshot.getRegionHits(tenRing));
+	}
+
+	@Test
+	public void testUpdateListenerSeesRecordedShot() {
+		final int[] seenShots = new int[1];
+		statistics.setUpdateListener(() -> seenShots[0] = statistics.getSnapshot().getShotCount());
+
+		shoot(1000, 0, 0, Optional.of(tenRing));
+		assertEquals(1, seenShots[0]);
+
+		shoot(1500, 0, 0, Optional.empty());
+		assertEquals(2, seenShots[0]);
+
+		statistics.reset();
+		assertEquals(0, seenShots[0]);
+	}
+
+	@Test
+	public void testRunningStatistics() {
+		final RunningStatistics running = new RunningStatistics();
+
+		// Offset values to make naive sums of squares lose precision
+		for (int i = 1; i <= 5; i++) {
+			running.add(1e9 + i);
+		}
+
+		assertEquals(5, running.getCount());
+		assertEquals(1e9 + 3, running.getMean(), 1e-6);
+		assertEquals(2.5, running.getVariance(), 1e-6);
+		assertEquals(1e9 + 1, running.getMin(), 0);
+		assertEquals(1e9 + 5, running.getMax(), 0);
+	}
+
+	@Test
+	public void testQuantileSketch() {
+		final QuantileSketch sketch = new QuantileSketch(100000);
+
+		for (int i = 1; i <= 10000; i++) {
+			sketch.add(i);
+		}
+
+		assertEquals(5000, sketch.getPercentile(50), 5000 * QuantileSketch.RELATIVE_ACCURACY);
+		assertEquals(9900, sketch.getPercentile(99), 9900 * QuantileSketch.RELATIVE_ACCURACY);
+		assertEquals(1, sketch.getPercentile(0), 0);
+
+		sketch.add(1e9);
+		assertEquals(100000, sketch.getPercentile(100), 0);
+	}
+
+	@Test
+	public void testEnclosingCircleCoversEveryPoint() {
+		final EnclosingCircle circle = new EnclosingCircle();
+		final Random random = new Random(42);
+		final double[][] points = new double[500][2];
+
+		for (double[] point : points) {
+			point[0] = random.nextGaussian() * 20;
+			point[1] = random.nextGaussian() * 20;
+			circle.add(point[0], point[1]);
+		}
+
+		double farthest = 0;
+		for (double[] point : points) {
+			final double distance = Math.hypot(point[0] - circle.getCenterX(), point[1] - circle.getCenterY());
+			assertTrue(distance <= circle.getRadius() + 1e-9);
+			farthest = Math.max(farthest, Math.hypot(point[0], point[1]));
+		}
+
+		// Never worse than 1.5 times the optimal circle, which is no larger
+		// than the circle around the origin through the farthest point
+		assertTrue(circle.getRadius() <= 1.5 * farthest);
+	}
+}
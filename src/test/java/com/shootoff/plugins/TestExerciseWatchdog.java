@@ -0,0 +1,308 @@
+package com.shootoff.plugins;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.paint.Color;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.plugins.ExerciseWatchdog.BudgetAction;
+import com.shootoff.plugins.ExerciseWatchdog.LatencySummary;
+import com.shootoff.targets.Hit;
+import com.shootoff.targets.Target;
+
+public class TestExerciseWatchdog {
+	private ExerciseWatchdog watchdog;
+	private List<LatencySummary> warnings;
+
+	private static class SlowExercise implements TrainingExercise {
+		private final String name;
+		private volatile long delay;
+		private final List<Thread> callbackThreads = Collections.synchronizedList(new ArrayList<Thread>());
+		private final List<Thread> targetThreads = Collections.synchronizedList(new ArrayList<Thread>());
+		private volatile CountDownLatch callbacks = new CountDownLatch(0);
+
+		public SlowExercise(String name, long delay) {
+			this.name = name;
+			this.delay = delay;
+		}
+
+		@Override
+		public void init() {}
+
+		@Override
+		public void targetUpdate(Target target, TargetChange change) {
+			targetThreads.add(Thread.currentThread());
+		}
+
+		@Override
+		public ExerciseMetadata getInfo() {
+			return new ExerciseMetadata(name, "1.0", "phrack", "Test");
+		}
+
+		@Override
+		public void shotListener(Shot shot, Optional<Hit> hit) {
+			callbackThreads.add(Thread.currentThread());
+
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			callbacks.countDown();
+		}
+
+		@Override
+		public void reset(List<Target> targets) {}
+
+		@Override
+		public void destroy() {}
+	}
+
+	@Before
+	public void setUp() {
+		watchdog = new ExerciseWatchdog();
+		watchdog.setLatencyBudget(25, TimeUnit.MILLISECONDS);
+		warnings = Collections.synchronizedList(new ArrayList<LatencySummary>());
+		watchdog.addBudgetListener(warnings::add);
+	}
+
+	@After
+	public void tearDown() {
+		watchdog.reset();
+	}
+
+	private void fire(SlowExercise exercise, int shots) {
+		for (int i = 0; i < shots; i++) {
+			watchdog.shotListener(exercise, new Shot(Color.RED, i, i, i, 2), Optional.empty());
+		}
+	}
+
+	@Test
+	public void testRecordsLatencyPerExercise() {
+		final SlowExercise fast = new SlowExercise("Fast", 0);
+		final SlowExercise slow = new SlowExercise("Slow", 40);
+
+		fire(fast, 10);
+		fire(slow, 2);
+
+		final LatencySummary fastSummary = watchdog.getSummary("Fast").get();
+		assertEquals(10, fastSummary.getCallCount());
+		assertEquals(0, fastSummary.getOverBudgetCount());
+
+		final LatencySummary slowSummary = watchdog.getSummary("Slow").get();
+		assertEquals(2, slowSummary.getCallCount());
+		assertEquals(2, slowSummary.getOverBudgetCount());
+		assertTrue(slowSummary.getMaxLatency() >= 40);
+		assertTrue(slowSummary.getP99Latency() >= 25);
+
+		assertFalse(watchdog.getSummary("Unknown").isPresent());
+		assertEquals(2, watchdog.getSummaries().size());
+	}
+
+	@Test
+	public void testLogActionDoesNotWarn() {
+		watchdog.setBudgetAction(BudgetAction.LOG);
+
+		fire(new SlowExercise("Slow", 40), 2);
+
+		assertTrue(warnings.isEmpty());
+	}
+
+	@Test
+	public void testWarnsOncePerExerciseInstance() {
+		watchdog.setBudgetAction(BudgetAction.WARN);
+
+		fire(new SlowExercise("Slow", 40), 3);
+
+		assertEquals(1, warnings.size());
+		assertEquals("Slow", warnings.get(0).getExerciseName());
+
+		// Selecting the exercise again creates a new instance
+		fire(new SlowExercise("Slow", 40), 1);
+
+		assertEquals(2, warnings.size());
+	}
+
+	@Test
+	public void testOffloadsConsistentlySlowExercise() throws InterruptedException {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final SlowExercise exercise = new SlowExercise("Slow", 40);
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+
+		assertTrue(watchdog.getSummary("Slow").get().isOffloaded());
+		for (Thread t : exercise.callbackThreads) {
+			assertEquals(Thread.currentThread(), t);
+		}
+		exercise.callbackThreads.clear();
+
+		exercise.callbacks = new CountDownLatch(3);
+		final long start = System.nanoTime();
+		fire(exercise, 3);
+
+		// The shot path no longer waits for the exercise
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+		assertTrue(exercise.callbacks.await(2, TimeUnit.SECONDS));
+
+		assertEquals(3, exercise.callbackThreads.size());
+		for (Thread t : exercise.callbackThreads) {
+			assertNotEquals(Thread.currentThread(), t);
+		}
+
+		// A new instance starts back on the shot path
+		fire(new SlowExercise("Slow", 0), 1);
+		assertFalse(watchdog.getSummary("Slow").get().isOffloaded());
+	}
+
+	@Test
+	public void testExceptionsStillPropagate() {
+		final SlowExercise exercise = new SlowExercise("Broken", 0) {
+			@Override
+			public void shotListener(Shot shot, Optional<Hit> hit) {
+				throw new IllegalStateException("Broken exercise");
+			}
+		};
+
+		try {
+			fire(exercise, 1);
+			fail("Exercise exceptions should not be swallowed");
+		} catch (IllegalStateException e) {}
+
+		assertEquals(1, watchdog.getSummary("Broken").get().getCallCount());
+	}
+
+	@Test
+	public void testTargetUpdatesStayOnCallerThread() {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final SlowExercise exercise = new SlowExercise("Slow", 40);
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+		assertTrue(watchdog.getSummary("Slow").get().isOffloaded());
+
+		watchdog.targetUpdate(exercise, null, TrainingExercise.TargetChange.ADDED);
+
+		assertEquals(1, exercise.targetThreads.size());
+		assertEquals(Thread.currentThread(), exercise.targetThreads.get(0));
+	}
+
+	@Test
+	public void testDiscardPendingDropsQueuedCallbacks() throws InterruptedException {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final SlowExercise exercise = new SlowExercise("Slow", 40);
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+		exercise.callbackThreads.clear();
+
+		exercise.delay = 200;
+		exercise.callbacks = new CountDownLatch(1);
+		fire(exercise, 5);
+
+		// Wait for the first queued callback to start, the rest are dropped
+		while (exercise.callbackThreads.isEmpty()) {
+			Thread.sleep(5);
+		}
+		watchdog.discardPending(exercise);
+
+		assertTrue(exercise.callbacks.await(2, TimeUnit.SECONDS));
+		Thread.sleep(300);
+		assertEquals(1, exercise.callbackThreads.size());
+	}
+
+	@Test
+	public void testReleaseDropsQueuedCallbacks() throws InterruptedException {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final SlowExercise exercise = new SlowExercise("Slow", 40);
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+		exercise.callbackThreads.clear();
+
+		exercise.delay = 200;
+		fire(exercise, 5);
+
+		while (exercise.callbackThreads.isEmpty()) {
+			Thread.sleep(5);
+		}
+		watchdog.release(exercise);
+
+		assertFalse(watchdog.getSummary("Slow").get().isOffloaded());
+		Thread.sleep(500);
+		assertEquals(1, exercise.callbackThreads.size());
+	}
+
+	@Test
+	public void testOffloadedFailureMovesExerciseBackInline() throws InterruptedException {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final CountDownLatch failed = new CountDownLatch(1);
+		final SlowExercise exercise = new SlowExercise("Broken", 40) {
+			private volatile int calls = 0;
+
+			@Override
+			public void shotListener(Shot shot, Optional<Hit> hit) {
+				super.shotListener(shot, hit);
+
+				if (++calls == ExerciseWatchdog.OFFLOAD_THRESHOLD + 1) {
+					failed.countDown();
+					throw new IllegalStateException("Broken exercise");
+				}
+			}
+		};
+
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+		assertTrue(watchdog.getSummary("Broken").get().isOffloaded());
+
+		fire(exercise, 1);
+		assertTrue(failed.await(2, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		exercise.callbackThreads.clear();
+
+		// The failure is not thrown for a later shot, which still reaches
+		// the exercise on the shot path
+		exercise.delay = 0;
+		fire(exercise, 1);
+
+		assertFalse(watchdog.getSummary("Broken").get().isOffloaded());
+		assertEquals(1, exercise.callbackThreads.size());
+		assertEquals(Thread.currentThread(), exercise.callbackThreads.get(0));
+	}
+
+	@Test
+	public void testFullQueueKeepsShotsInOrder() throws InterruptedException {
+		watchdog.setBudgetAction(BudgetAction.OFFLOAD);
+
+		final List<Double> seen = Collections.synchronizedList(new ArrayList<Double>());
+		final SlowExercise exercise = new SlowExercise("Slow", 40) {
+			@Override
+			public void shotListener(Shot shot, Optional<Hit> hit) {
+				seen.add(shot.getX());
+				super.shotListener(shot, hit);
+			}
+		};
+
+		fire(exercise, ExerciseWatchdog.OFFLOAD_THRESHOLD);
+		seen.clear();
+
+		// More shots than the offload queue holds
+		exercise.delay = 1;
+		exercise.callbacks = new CountDownLatch(100);
+		fire(exercise, 100);
+		assertTrue(exercise.callbacks.await(5, TimeUnit.SECONDS));
+
+		assertEquals(100, seen.size());
+		for (int i = 0; i < seen.size(); i++) {
+			assertEquals(i, seen.get(i), 0.001);
+		}
+	}
+}
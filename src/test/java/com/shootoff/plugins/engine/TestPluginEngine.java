@@ -4,36 +4,128 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.shootoff.plugins.ProjectorTrainingExerciseBase;
 import com.shootoff.plugins.TrainingExercise;
+import com.shootoff.plugins.TrainingExerciseBase;
 
 public class TestPluginEngine {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
 	private String pluginsPath;
+	private File manifestCacheFile;
 	private PluginEngine pe;
 
+	private final List<TrainingExercise> exercises = new ArrayList<TrainingExercise>();
+	private final List<TrainingExercise> projectorExercises = new ArrayList<TrainingExercise>();
+
 	@Before
 	public void setUp() throws IOException {
 		pluginsPath = System.getProperty("user.dir") + File.separator + "src" + File.separator + "test" + File.separator
 				+ "exercises";
 		System.setProperty("shootoff.plugins", pluginsPath);
 
-		pe = new PluginEngine(new PluginListener() {
+		manifestCacheFile = new File(folder.getRoot(), PluginManifestCache.CACHE_FILE_NAME);
+		pe = createEngine();
+	}
+
+	private PluginEngine createEngine() throws IOException {
+		exercises.clear();
+		projectorExercises.clear();
+
+		return new PluginEngine(new PluginListener() {
 			@Override
-			public void registerExercise(TrainingExercise exercise) {}
+			public void registerExercise(TrainingExercise exercise) {
+				exercises.add(exercise);
+			}
 
 			@Override
-			public void registerProjectorExercise(TrainingExercise exercise) {}
+			public void registerProjectorExercise(TrainingExercise exercise) {
+				projectorExercises.add(exercise);
+			}
 
 			@Override
 			public void unregisterExercise(TrainingExercise exercise) {}
-		});
+
+			@Override
+			public void stopPluginExercise(Plugin plugin) {}
+		}, manifestCacheFile);
 	}
 
 	@Test
 	public void testExistingPlugins() {
 		assertEquals(2, pe.getPlugins().size());
 	}
+
+	@Test
+	public void testManifestsAreCached() throws IOException {
+		assertTrue(manifestCacheFile.exists());
+		assertEquals(2, new PluginManifestCache(manifestCacheFile).size());
+
+		final long cacheLastModified = manifestCacheFile.lastModified();
+
+		pe = createEngine();
+
+		assertEquals(2, pe.getPlugins().size());
+		// Nothing changed, so the cache does not need to be written again
+		assertEquals(cacheLastModified, manifestCacheFile.lastModified());
+
+		for (Plugin p : pe.getPlugins()) {
+			assertFalse(p.isLoaded());
+			assertTrue(p.getExercise() instanceof PluginExercise);
+			assertTrue(exercises.contains(p.getExercise()) || projectorExercises.contains(p.getExercise()));
+		}
+	}
+
+	@Test
+	public void testCachedPluginLoadsOnDemand() throws Exception {
+		pe = createEngine();
+
+		for (Plugin p : pe.getPlugins()) {
+			final Class<?> exerciseClass = p.getExerciseClass();
+			assertTrue(p.isLoaded());
+			assertEquals(p.getManifest().getExerciseClassName(), exerciseClass.getName());
+
+			final TrainingExercise exercise = (TrainingExercise) exerciseClass.newInstance();
+			assertEquals(p.getMetadata(), exercise.getInfo());
+			assertEquals(pe.getPlugin(exercise).get(), p);
+
+			if (PluginType.PROJECTOR_ONLY.equals(p.getType())) {
+				assertEquals(ProjectorTrainingExerciseBase.class, exerciseClass.getSuperclass());
+			} else {
+				assertEquals(TrainingExerciseBase.class, exerciseClass.getSuperclass());
+			}
+		}
+	}
+
+	@Test
+	public void testStaleManifestIsReplaced() throws IOException {
+		final PluginManifestCache cache = new PluginManifestCache(manifestCacheFile);
+
+		for (Plugin p : pe.getPlugins()) {
+			final PluginManifest manifest = p.getManifest();
+			cache.put(new PluginManifest(manifest.getJarPath(), manifest.getJarSize() + 1,
+					manifest.getJarLastModified(), manifest.getMetadata(), manifest.getExerciseClassName(),
+					manifest.getType()));
+		}
+		cache.save();
+
+		pe = createEngine();
+
+		for (Plugin p : pe.getPlugins()) {
+			assertTrue(p.isLoaded());
+			assertFalse(p.getExercise() instanceof PluginExercise);
+		}
+
+		for (Plugin p : createEngine().getPlugins()) {
+			assertFalse(p.isLoaded());
+		}
+	}
 }
@@ -0,0 +1,101 @@
+package com.shootoff.plugins.engine;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.plugins.ExerciseMetadata;
+
+public class TestPluginLeakDetector {
+	private Path jarPath;
+	private PluginLeakDetector leakDetector;
+
+	@Before
+	public void setUp() {
+		jarPath = new File(System.getProperty("user.dir") + File.separator + "src" + File.separator + "test"
+				+ File.separator + "exercises" + File.separator + "ShotScore.jar").toPath();
+		leakDetector = new PluginLeakDetector();
+	}
+
+	private Plugin createPlugin() throws IOException {
+		return new Plugin(new PluginManifest(PluginManifestCache.toKey(jarPath), Files.size(jarPath),
+				Files.getLastModifiedTime(jarPath).toMillis(),
+				new ExerciseMetadata("Shot Score", "1.0", "phrack", "Test"), "com.shootoff.plugins.ShotScore",
+				PluginType.STANDARD));
+	}
+
+	private void unload(Plugin plugin) {
+		leakDetector.watch(plugin.getJarPath(), plugin.getLoader());
+		plugin.close();
+	}
+
+	@Test
+	public void testUnloadedPluginIsCollected() throws Exception {
+		Plugin plugin = createPlugin();
+		assertEquals("com.shootoff.plugins.ShotScore", plugin.getExerciseClass().getName());
+
+		unload(plugin);
+		plugin = null;
+
+		assertTrue(leakDetector.check(0).isEmpty());
+		assertEquals(0, leakDetector.getPendingCount());
+	}
+
+	@Test
+	public void testLeakedPluginIsReported() throws Exception {
+		final Plugin plugin = createPlugin();
+
+		// Something outside of the plugin still holds one of its classes
+		final Class<?> leakedClass = plugin.getExerciseClass();
+		unload(plugin);
+
+		final List<Path> leakedPlugins = leakDetector.check(0);
+		assertEquals(1, leakedPlugins.size());
+		assertEquals(jarPath, leakedPlugins.get(0));
+		assertEquals(1, leakDetector.getPendingCount());
+
+		// Not leaked yet if it was only just unloaded
+		assertTrue(leakDetector.check(PluginEngine.LEAK_CHECK_DELAY).isEmpty());
+
+		assertNotNull(leakedClass);
+	}
+
+	@Test
+	public void testClosedPluginCannotBeLoaded() throws Exception {
+		final Plugin plugin = createPlugin();
+		plugin.getExerciseClass();
+		assertTrue(plugin.isLoaded());
+
+		plugin.close();
+
+		assertFalse(plugin.isLoaded());
+		assertTrue(plugin.getExercise() instanceof PluginExercise);
+		assertEquals("Shot Score", plugin.getExercise().getInfo().getName());
+
+		try {
+			plugin.getExerciseClass();
+			fail("A closed plugin must not be loaded again");
+		} catch (IllegalStateException e) {}
+	}
+
+	@Test
+	public void testClosedLoaderReleasesJar() throws Exception {
+		final Plugin plugin = createPlugin();
+		final URLClassLoader loader = plugin.getLoader();
+		final URL settings = loader.findResource("shootoff.xml");
+		assertNotNull(settings);
+
+		plugin.close();
+
+		assertNull(loader.findResource("shootoff.xml"));
+	}
+}
@@ -0,0 +1,181 @@
+package com.shootoff.session;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.io.SessionIO;
+
+import javafx.scene.paint.Color;
+
+public class TestSessionJournal {
+	@Rule public TemporaryFolder sessionsFolder = new TemporaryFolder();
+
+	private File journalFile;
+	private SessionJournal journal;
+
+	@Before
+	public void setUp() throws IOException {
+		journalFile = new File(sessionsFolder.getRoot(), "test" + SessionJournal.JOURNAL_EXTENSION);
+		journal = new SessionJournal(journalFile);
+	}
+
+	@After
+	public void tearDown() {
+		journal.close();
+	}
+
+	@Test
+	public void testEventsRoundTrip() throws IOException {
+		journal.append(new TargetAddedEvent("Default", 1, "bullseye.target"));
+		journal.append(new TargetMovedEvent("Default", 2, 0, 10, 20));
+		journal.append(new TargetResizedEvent("Default", 3, 0, 30.5, 40.5));
+		journal.append(new ShotEvent("Default", 4, new Shot(Color.RED, 1.5, 2.5, 100, 7, 2), false, true,
+				Optional.of(0), Optional.of(3), Optional.of("Default:x.mp4")));
+		journal.append(new ShotEvent("Other", 5, new Shot(Color.GREEN, 3, 4, 101, 2), true, false, Optional.empty(),
+				Optional.empty(), Optional.empty()));
+		journal.append(new ExerciseFeedMessageEvent("Default", 6, "Hello"));
+		journal.append(new TargetRemovedEvent("Default", 7, 0));
+
+		final Map<String, List<Event>> events = journal.readEvents();
+
+		assertEquals(2, events.size());
+		assertEquals(6, events.get("Default").size());
+		assertEquals(1, events.get("Other").size());
+
+		final List<Event> defaultEvents = events.get("Default");
+		assertEquals("bullseye.target", ((TargetAddedEvent) defaultEvents.get(0)).getTargetName());
+		assertEquals(20, ((TargetMovedEvent) defaultEvents.get(1)).getNewY());
+		assertEquals(40.5, ((TargetResizedEvent) defaultEvents.get(2)).getNewHeight(), 0.001);
+
+		final ShotEvent shotEvent = (ShotEvent) defaultEvents.get(3);
+		assertEquals(4, shotEvent.getTimestamp());
+		assertEquals(Color.RED, shotEvent.getShot().getColor());
+		assertEquals(1.5, shotEvent.getShot().getX(), 0.001);
+		assertEquals(2.5, shotEvent.getShot().getY(), 0.001);
+		assertEquals(100, shotEvent.getShot().getTimestamp());
+		assertEquals(7, shotEvent.getShot().getFrame());
+		assertEquals(2, shotEvent.getShot().getMarkerRadius());
+		assertFalse(shotEvent.isMalfunction());
+		assertTrue(shotEvent.isReload());
+		assertEquals(3, shotEvent.getHitRegionIndex().get().intValue());
+		assertEquals("Default:x.mp4", shotEvent.getVideoString().get());
+
+		assertEquals("Hello", ((ExerciseFeedMessageEvent) defaultEvents.get(4)).getMessage());
+		assertEquals(EventType.TARGET_REMOVED, defaultEvents.get(5).getType());
+
+		final ShotEvent otherShot = (ShotEvent) events.get("Other").get(0);
+		assertEquals(Color.GREEN, otherShot.getShot().getColor());
+		assertTrue(otherShot.isMalfunction());
+		assertFalse(otherShot.getTargetIndex().isPresent());
+		assertFalse(otherShot.getVideoString().isPresent());
+
+		assertEquals(7, journal.getWrittenCount());
+	}
+
+	@Test
+	public void testReadCameraEventsSkipsOtherCameras() throws IOException {
+		journal.append(new ShotEvent("Other", 1, new Shot(Color.GREEN, 3, 4, 100, 2), false, false, Optional.empty(),
+				Optional.empty(), Optional.empty()));
+		journal.append(new TargetAddedEvent("Default", 2, "bullseye.target"));
+		journal.append(new TargetMovedEvent("Default", 3, 0, 10, 20));
+		journal.append(new TargetResizedEvent("Default", 4, 0, 30.5, 40.5));
+		journal.append(new ShotEvent("Default", 5, new Shot(Color.RED, 1.5, 2.5, 101, 7, 2), false, true,
+				Optional.of(0), Optional.of(3), Optional.of("Default:x.mp4")));
+		journal.append(new ExerciseFeedMessageEvent("Default", 6, "Hello"));
+		journal.append(new TargetRemovedEvent("Default", 7, 0));
+		journal.append(new TargetAddedEvent("Other", 8, "other.target"));
+
+		final List<Event> otherEvents = journal.readCameraEvents("Other");
+
+		assertEquals(2, otherEvents.size());
+		assertEquals(1, otherEvents.get(0).getTimestamp());
+		assertEquals("other.target", ((TargetAddedEvent) otherEvents.get(1)).getTargetName());
+
+		assertEquals(6, journal.readCameraEvents("Default").size());
+		assertTrue(journal.readCameraEvents("Missing").isEmpty());
+	}
+
+	@Test
+	public void testConcurrentAppendsKeepPerCameraOrder() throws Exception {
+		final int cameras = 4;
+		final int shotsPerCamera = 2000;
+		final List<Thread> threads = new ArrayList<Thread>();
+
+		for (int c = 0; c < cameras; c++) {
+			final String cameraName = "Camera " + c;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < shotsPerCamera; i++) {
+					journal.append(new ShotEvent(cameraName, i, new Shot(Color.RED, i, i, i, 2), false, false,
+							Optional.empty(), Optional.empty(), Optional.empty()));
+				}
+			}));
+		}
+
+		for (Thread t : threads)
+			t.start();
+		for (Thread t : threads)
+			t.join();
+
+		final Map<String, List<Event>> events = journal.readEvents();
+
+		assertEquals(cameras, events.size());
+
+		for (List<Event> cameraEvents : events.values()) {
+			assertEquals(shotsPerCamera, cameraEvents.size());
+
+			for (int i = 0; i < shotsPerCamera; i++) {
+				assertEquals(i, cameraEvents.get(i).getTimestamp());
+			}
+		}
+	}
+
+	@Test
+	public void testTruncatedJournalIsReadToLastCompleteRecord() throws IOException {
+		journal.append(new TargetAddedEvent("Default", 1, "bullseye.target"));
+		journal.append(new TargetRemovedEvent("Default", 2, 0));
+		journal.close();
+
+		// Simulate a crash in the middle of writing the last record
+		try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+			raf.setLength(raf.length() - 2);
+		}
+
+		final Map<String, List<Event>> events = SessionJournal.read(journalFile);
+
+		assertEquals(1, events.get("Default").size());
+		assertEquals(EventType.TARGET_ADDED, events.get("Default").get(0).getType());
+	}
+
+	@Test
+	public void testRecoverSessions() throws IOException {
+		System.setProperty("shootoff.sessions", sessionsFolder.getRoot().getPath());
+
+		journal.append(new TargetAddedEvent("Default", 1, "bullseye.target"));
+		journal.append(new ExerciseFeedMessageEvent("Default", 2, "Recovered"));
+		journal.close();
+
+		assertEquals(1, SessionIO.recoverSessions(sessionsFolder.getRoot()));
+
+		final File sessionFile = new File(sessionsFolder.getRoot(), "test.xml");
+		assertTrue(sessionFile.exists());
+		assertFalse(journalFile.exists());
+
+		final List<Event> events = SessionIO.loadSession(sessionFile).get().getCameraEvents("Default");
+		assertEquals(2, events.size());
+		assertEquals("Recovered", ((ExerciseFeedMessageEvent) events.get(1)).getMessage().trim());
+	}
+}
@@ -0,0 +1,135 @@
+package com.shootoff.session;
+
+import static org.junit.Assert.*;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.camera.Shot;
+
+import javafx.scene.paint.Color;
+
+public class TestSessionKeyframes {
+	private List<Event> events;
+	private TargetAddedEvent firstTarget;
+	private TargetAddedEvent secondTarget;
+
+	@Before
+	public void setUp() {
+		events = new ArrayList<Event>();
+
+		firstTarget = new TargetAddedEvent("Default", 0, "bullseye.target");
+		secondTarget = new TargetAddedEvent("Default", 1, "shoot_dont_shoot/shoot.target");
+		events.add(firstTarget);
+		events.add(secondTarget);
+		events.add(new TargetMovedEvent("Default", 2, 1, 50, 60));
+
+		long timestamp = 3;
+		for (int i = 0; i < 500; i++) {
+			events.add(new ShotEvent("Default", timestamp++, new Shot(Color.RED, i, i, i, 2), false, false,
+					Optional.empty(), Optional.empty(), Optional.empty()));
+		}
+
+		events.add(new ExerciseFeedMessageEvent("Default", timestamp++, "Halfway"));
+		events.add(new TargetResizedEvent("Default", timestamp++, 0, 20, 30));
+		events.add(new TargetRemovedEvent("Default", timestamp++, 1));
+
+		for (int i = 0; i < 400; i++) {
+			events.add(new ShotEvent("Default", timestamp++, new Shot(Color.RED, i, i, i, 2), false, false,
+					Optional.empty(), Optional.empty(), Optional.empty()));
+		}
+	}
+
+	@Test
+	public void testKeyframeSpacing() {
+		final SessionKeyframes keyframes = SessionKeyframes.build(events);
+
+		assertEquals(events.size() / SessionKeyframes.KEYFRAME_INTERVAL + 1, keyframes.getKeyframeCount());
+
+		assertEquals(-1, keyframes.getKeyframe(-1).getEventIndex());
+		assertEquals(-1, keyframes.getKeyframe(SessionKeyframes.KEYFRAME_INTERVAL - 2).getEventIndex());
+		assertEquals(SessionKeyframes.KEYFRAME_INTERVAL - 1,
+				keyframes.getKeyframe(SessionKeyframes.KEYFRAME_INTERVAL - 1).getEventIndex());
+		assertEquals(SessionKeyframes.KEYFRAME_INTERVAL * 2 - 1,
+				keyframes.getKeyframe(SessionKeyframes.KEYFRAME_INTERVAL * 2 + 50).getEventIndex());
+
+		// Never more than one interval of events to apply after a keyframe
+		for (int i = -1; i < events.size(); i++) {
+			final int eventIndex = keyframes.getKeyframe(i).getEventIndex();
+			assertTrue(eventIndex <= i);
+			assertTrue(i - eventIndex <= SessionKeyframes.KEYFRAME_INTERVAL);
+		}
+	}
+
+	@Test
+	public void testKeyframeState() {
+		final SessionKeyframes keyframes = SessionKeyframes.build(events);
+
+		final SessionKeyframes.Keyframe initial = keyframes.getKeyframe(-1);
+		assertTrue(initial.getTargets().isEmpty());
+		assertEquals("", initial.getExerciseMessage());
+
+		final SessionKeyframes.Keyframe early = keyframes.getKeyframe(SessionKeyframes.KEYFRAME_INTERVAL);
+		assertEquals(2, early.getTargets().size());
+		assertSame(firstTarget, early.getTargets().get(0).getAddedEvent());
+		assertFalse(early.getTargets().get(0).getPosition().isPresent());
+		assertSame(secondTarget, early.getTargets().get(1).getAddedEvent());
+		assertEquals(50, early.getTargets().get(1).getPosition().get().getX(), 0.001);
+		assertEquals(60, early.getTargets().get(1).getPosition().get().getY(), 0.001);
+		assertEquals("", early.getExerciseMessage());
+
+		final SessionKeyframes.Keyframe late = keyframes.getKeyframe(events.size() - 1);
+		assertEquals(1, late.getTargets().size());
+		assertSame(firstTarget, late.getTargets().get(0).getAddedEvent());
+		assertEquals(20, late.getTargets().get(0).getDimension().get().getWidth(), 0.001);
+		assertEquals(30, late.getTargets().get(0).getDimension().get().getHeight(), 0.001);
+		assertEquals("Halfway", late.getExerciseMessage());
+	}
+
+	@Test
+	public void testOnlyReadsEventsUpToRequestedKeyframe() {
+		final int[] highestRead = { -1 };
+		final List<Event> trackedEvents = new AbstractList<Event>() {
+			@Override
+			public Event get(int index) {
+				highestRead[0] = Math.max(highestRead[0], index);
+				return events.get(index);
+			}
+
+			@Override
+			public int size() {
+				return events.size();
+			}
+		};
+
+		final SessionKeyframes keyframes = SessionKeyframes.build(trackedEvents);
+		assertEquals(-1, highestRead[0]);
+
+		keyframes.getKeyframe(SessionKeyframes.KEYFRAME_INTERVAL + 10);
+		assertEquals(SessionKeyframes.KEYFRAME_INTERVAL - 1, highestRead[0]);
+
+		assertEquals(events.size() / SessionKeyframes.KEYFRAME_INTERVAL + 1, keyframes.getKeyframeCount());
+		assertEquals(events.size() / SessionKeyframes.KEYFRAME_INTERVAL * SessionKeyframes.KEYFRAME_INTERVAL - 1,
+				highestRead[0]);
+	}
+
+	@Test
+	public void testIndexAt() {
+		assertEquals(-1, SessionKeyframes.indexAt(events, -1));
+		assertEquals(0, SessionKeyframes.indexAt(events, 0));
+		assertEquals(2, SessionKeyframes.indexAt(events, 2));
+		assertEquals(events.size() - 1, SessionKeyframes.indexAt(events, Long.MAX_VALUE));
+
+		final List<Event> sameTime = new ArrayList<Event>();
+		sameTime.add(new TargetAddedEvent("Default", 5, "bullseye.target"));
+		sameTime.add(new TargetMovedEvent("Default", 5, 0, 1, 1));
+		sameTime.add(new TargetResizedEvent("Default", 9, 0, 1, 1));
+
+		assertEquals(1, SessionKeyframes.indexAt(sameTime, 8));
+	}
+}
@@ -0,0 +1,161 @@
+package com.shootoff.session;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.config.Configuration;
+import com.shootoff.config.ConfigurationException;
+import com.shootoff.session.io.SessionIO;
+
+import javafx.scene.paint.Color;
+
+public class TestSessionRescorer {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private SessionRescorer rescorer;
+	private File sessionsDirectory;
+	private String oldSessionsProperty;
+
+	@Before
+	public void setUp() throws ConfigurationException, IOException {
+		System.setProperty("shootoff.home", System.getProperty("user.dir"));
+		rescorer = new SessionRescorer(new Configuration(new String[0]), false, null, Optional.empty());
+
+		sessionsDirectory = folder.newFolder("sessions");
+		oldSessionsProperty = System.getProperty("shootoff.sessions");
+		System.setProperty("shootoff.sessions", sessionsDirectory.getPath());
+	}
+
+	@After
+	public void tearDown() {
+		if (oldSessionsProperty == null) {
+			System.clearProperty("shootoff.sessions");
+		} else {
+			System.setProperty("shootoff.sessions", oldSessionsProperty);
+		}
+	}
+
+	private File writeSession(File directory, String sessionName, int shots) {
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+		final List<Event> cameraEvents = new ArrayList<Event>();
+
+		for (int i = 0; i < shots; i++) {
+			cameraEvents.add(new ShotEvent("Default", i + 1, new Shot(Color.RED, i, i, i, 2), false, false,
+					Optional.empty(), Optional.empty(), Optional.empty()));
+		}
+
+		events.put("Default", cameraEvents);
+
+		final SessionRecorder sessionRecorder = new SessionRecorder();
+		sessionRecorder.addEvents(events);
+
+		final File sessionFile = new File(directory, sessionName + ".xml");
+		SessionIO.saveSession(sessionRecorder, sessionFile);
+
+		return sessionFile;
+	}
+
+	@Test
+	public void testRescoredFileNames() {
+		final File sessionFile = new File("sessions", "2016-01-02 10.00.00.xml");
+
+		assertEquals(new File("sessions", "2016-01-02 10.00.00-rescored.xml"),
+				SessionRescorer.getRescoredFile(sessionFile));
+		assertEquals(new File("sessions", "2016-01-02 10.00.00-rescored.txt"),
+				SessionRescorer.getReportFile(sessionFile));
+		assertFalse(SessionRescorer.isRescoredSession(sessionFile));
+		assertTrue(SessionRescorer.isRescoredSession(SessionRescorer.getRescoredFile(sessionFile)));
+	}
+
+	@Test
+	public void testShotsWithoutVideoAreKept() throws IOException {
+		final File sessionFile = writeSession(sessionsDirectory, "2016-01-02 10.00.00", 3);
+
+		assertEquals(1, rescorer.rescore(sessionsDirectory));
+
+		final List<Event> rescored = SessionIO.loadSession(SessionRescorer.getRescoredFile(sessionFile)).get()
+				.getEvents().get("Default");
+		assertEquals(3, rescored.size());
+		assertEquals(2, ((ShotEvent) rescored.get(2)).getShot().getX(), 0.001);
+
+		final String report = new String(Files.readAllBytes(SessionRescorer.getReportFile(sessionFile).toPath()),
+				StandardCharsets.UTF_8);
+		assertTrue(report.contains("without video: 3"));
+
+		// Re-scored copies are not re-scored again
+		assertEquals(1, rescorer.rescore(sessionsDirectory));
+	}
+
+	private ShotEvent shotAt(double x, double y) {
+		return new ShotEvent("Default", 1, new Shot(Color.RED, x, y, 0, 2), false, false, Optional.of(3),
+				Optional.of(4), Optional.empty());
+	}
+
+	@Test
+	public void testMovedShotIsHitTestedAgain() {
+		final SessionRescorer.TargetReplay targets = new SessionRescorer.TargetReplay();
+		targets.apply(new TargetAddedEvent("Default", 0, "IPSC.target"));
+		assertTrue(targets.isComplete());
+
+		// Only the outermost region covers the left edge of the target
+		ShotEvent rescored = SessionRescorer.rescoreHit(shotAt(0, 0), new Shot(Color.RED, 80, 240, 0, 2), targets);
+		assertEquals(Optional.of(0), rescored.getTargetIndex());
+		assertEquals(Optional.of(0), rescored.getHitRegionIndex());
+		assertEquals(80, rescored.getShot().getX(), 0.001);
+
+		rescored = SessionRescorer.rescoreHit(shotAt(0, 0), new Shot(Color.RED, 5, 5, 0, 2), targets);
+		assertFalse(rescored.getTargetIndex().isPresent());
+		assertFalse(rescored.getHitRegionIndex().isPresent());
+
+		// Hits follow the target when it moves
+		targets.apply(new TargetMovedEvent("Default", 0, 0, 200, 0));
+		rescored = SessionRescorer.rescoreHit(shotAt(0, 0), new Shot(Color.RED, 80, 240, 0, 2), targets);
+		assertFalse(rescored.getTargetIndex().isPresent());
+	}
+
+	@Test
+	public void testRecordedHitKeptWhenTargetCannotLoad() {
+		final SessionRescorer.TargetReplay targets = new SessionRescorer.TargetReplay();
+		targets.apply(new TargetAddedEvent("Default", 0, "does_not_exist.target"));
+		assertFalse(targets.isComplete());
+
+		final ShotEvent rescored = SessionRescorer.rescoreHit(shotAt(0, 0), new Shot(Color.RED, 80, 240, 0, 2),
+				targets);
+		assertEquals(Optional.of(3), rescored.getTargetIndex());
+		assertEquals(Optional.of(4), rescored.getHitRegionIndex());
+	}
+
+	@Test
+	public void testTargetEventsForMissingTargetsStopReplay() {
+		final SessionRescorer.TargetReplay targets = new SessionRescorer.TargetReplay();
+		targets.apply(new TargetAddedEvent("Default", 0, "IPSC.target"));
+		targets.apply(new TargetMovedEvent("Default", 1, 3, 10, 10));
+
+		assertFalse(targets.isComplete());
+		assertTrue(targets.hasInvalidEvents());
+
+		// Later events are ignored instead of failing the session
+		targets.apply(new TargetRemovedEvent("Default", 2, 5));
+		targets.apply(new TargetResizedEvent("Default", 3, -1, 10, 10));
+
+		final ShotEvent rescored = SessionRescorer.rescoreHit(shotAt(0, 0), new Shot(Color.RED, 80, 240, 0, 2),
+				targets);
+		assertEquals(Optional.of(3), rescored.getTargetIndex());
+	}
+}
@@ -0,0 +1,230 @@
+package com.shootoff.session.analytics;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.SessionRescorer;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.io.SessionCatalog;
+import com.shootoff.session.io.SessionIO;
+
+import javafx.scene.paint.Color;
+
+public class TestShotAnalytics {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private File sessionsDirectory;
+	private String oldSessionsProperty;
+
+	@Before
+	public void setUp() throws IOException {
+		sessionsDirectory = folder.newFolder("sessions");
+		oldSessionsProperty = System.getProperty("shootoff.sessions");
+		System.setProperty("shootoff.sessions", sessionsDirectory.getPath());
+		ShotAnalytics.clearCache();
+	}
+
+	@After
+	public void tearDown() {
+		ShotAnalytics.clearCache();
+
+		if (oldSessionsProperty == null) {
+			System.clearProperty("shootoff.sessions");
+		} else {
+			System.setProperty("shootoff.sessions", oldSessionsProperty);
+		}
+	}
+
+	private ShotEvent shot(long timestamp, double x, double y, Optional<Integer> target, Optional<Integer> region) {
+		return new ShotEvent("Default", timestamp, new Shot(Color.RED, x, y, timestamp, 2), false, false, target,
+				region, Optional.empty());
+	}
+
+	private Map<String, List<Event>> session() {
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+		final List<Event> cameraEvents = new ArrayList<Event>();
+
+		cameraEvents.add(new TargetAddedEvent("Default", 0, "first.target"));
+		cameraEvents.add(new TargetAddedEvent("Default", 0, "second.target"));
+		cameraEvents.add(shot(1000, 10, 10, Optional.of(1), Optional.of(0)));
+		cameraEvents.add(shot(1500, 20, 10, Optional.of(1), Optional.of(0)));
+		cameraEvents.add(new ShotEvent("Default", 2000, new Shot(Color.RED, 0, 0, 2000, 2), true, false,
+				Optional.empty(), Optional.empty(), Optional.empty()));
+		cameraEvents.add(shot(3200, 5, 5, Optional.empty(), Optional.empty()));
+		cameraEvents.add(new TargetRemovedEvent("Default", 3300, 0));
+		// second.target is now at index 0
+		cameraEvents.add(shot(3500, 10, 20, Optional.of(0), Optional.of(0)));
+		cameraEvents.add(shot(20000, 20, 20, Optional.of(0), Optional.of(2)));
+
+		events.put("Default", cameraEvents);
+		return events;
+	}
+
+	private File writeSession(String sessionName, Map<String, List<Event>> events) {
+		final SessionRecorder sessionRecorder = new SessionRecorder();
+		sessionRecorder.addEvents(events);
+
+		final File sessionFile = new File(sessionsDirectory, sessionName + ".xml");
+		SessionIO.saveSession(sessionRecorder, sessionFile);
+		return sessionFile;
+	}
+
+	@Test
+	public void testShotTable() {
+		final ShotTable table = ShotTable.fromEvents(session());
+
+		assertEquals(6, table.size());
+		assertEquals(2, table.getRegionCount());
+		assertEquals("second.target region 0", table.getRegionName(table.getRegion(0)));
+		assertEquals(table.getRegion(0), table.getRegion(4));
+		assertEquals("second.target region 2", table.getRegionName(table.getRegion(5)));
+		assertEquals(ShotTable.NO_REGION, table.getRegion(3));
+		assertTrue(table.isMalfunction(2));
+		assertFalse(table.isHit(3));
+		assertEquals(1500, table.getTimestamp(1));
+		assertEquals(20, table.getX(1), 0.001);
+	}
+
+	@Test
+	public void testSessionStatistics() {
+		final ShotStatistics statistics = ShotStatistics.of(ShotTable.fromEvents(session()), 0,
+				Optional.of("Exercise"));
+
+		// 500 and 300, the 16.5 second pause isn't a split
+		assertEquals(2, statistics.getSplitTimes().getCount());
+		assertEquals(400, statistics.getSplitTimes().getMean(), 0.001);
+		assertEquals(300, statistics.getSplitTimes().getMin());
+
+		assertEquals(1, statistics.getMalfunctionRecoveryTimes().getCount());
+		assertEquals(1200, statistics.getMalfunctionRecoveryTimes().getMax());
+
+		assertEquals(5, statistics.getShotCount("Exercise"));
+		assertEquals(0.8, statistics.getHitRatio("Exercise"), 0.001);
+
+		final ShotStatistics.RegionGroup group = statistics.getRegionGroups().get("second.target region 0");
+		assertEquals(3, group.getShotCount());
+		assertEquals(40.0 / 3, group.getCentroidX(), 0.001);
+		assertEquals(40.0 / 3, group.getCentroidY(), 0.001);
+		assertTrue(group.getGroupSize() > 0);
+		assertEquals(1, group.getDrift().size());
+	}
+
+	@Test
+	public void testTimeDistributionPercentiles() {
+		final TimeDistribution distribution = new TimeDistribution();
+
+		for (int i = 1; i <= 100; i++) {
+			distribution.add(i * 10);
+		}
+
+		assertEquals(500, distribution.getPercentile(50), TimeDistribution.BUCKET_WIDTH);
+		assertEquals(900, distribution.getPercentile(90), TimeDistribution.BUCKET_WIDTH);
+		assertEquals(1000, distribution.getPercentile(100));
+
+		final TimeDistribution other = new TimeDistribution();
+		other.add(60000);
+		distribution.addAll(other);
+
+		assertEquals(101, distribution.getCount());
+		assertEquals(60000, distribution.getPercentile(100));
+	}
+
+	@Test
+	public void testAnalyzeManySessions() {
+		for (int i = 0; i < 20; i++) {
+			writeSession(String.format("2016-01-%02d 10.00.00", i + 1), session());
+		}
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+
+		final ShotStatistics statistics = ShotAnalytics.analyze(catalog);
+
+		assertEquals(20, statistics.getSessionCount());
+		assertEquals(40, statistics.getSplitTimes().getCount());
+		assertEquals(100, statistics.getShotCount(ShotStatistics.NO_EXERCISE));
+		assertEquals(20, ShotAnalytics.getCacheSize());
+
+		final ShotStatistics.RegionGroup group = statistics.getRegionGroups().get("second.target region 0");
+		assertEquals(60, group.getShotCount());
+
+		final List<ShotStatistics.CentroidSample> drift = group.getDrift();
+		assertEquals(20, drift.size());
+		for (int i = 1; i < drift.size(); i++) {
+			assertTrue(drift.get(i - 1).getDate() < drift.get(i).getDate());
+		}
+	}
+
+	@Test
+	public void testChangedSessionIsAnalyzedAgain() {
+		final File sessionFile = writeSession("2016-01-01 10.00.00", session());
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+		assertEquals(5, ShotAnalytics.analyze(catalog).getShotCount(ShotStatistics.NO_EXERCISE));
+
+		final Map<String, List<Event>> longerSession = session();
+		longerSession.get("Default").add(shot(21000, 0, 0, Optional.empty(), Optional.empty()));
+
+		writeSession("2016-01-01 10.00.00", longerSession);
+		// Make sure the change is visible even on file systems with coarse
+		// modification times
+		assertTrue(sessionFile.setLastModified(sessionFile.lastModified() + 2000));
+		catalog.refresh();
+
+		assertEquals(6, ShotAnalytics.analyze(catalog).getShotCount(ShotStatistics.NO_EXERCISE));
+	}
+
+	@Test
+	public void testRescoredCopiesAreSkipped() {
+		final File sessionFile = writeSession("2016-01-01 10.00.00", session());
+		writeSession(SessionRescorer.getRescoredFile(sessionFile).getName().replace(".xml", ""), session());
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+		assertEquals(2, catalog.query((summary) -> true, SessionCatalog.NEWEST_FIRST).size());
+
+		final ShotStatistics statistics = ShotAnalytics.analyze(catalog);
+		assertEquals(1, statistics.getSessionCount());
+		assertEquals(5, statistics.getShotCount(ShotStatistics.NO_EXERCISE));
+	}
+
+	@Test
+	public void testAnalyzeInBackground() throws InterruptedException {
+		writeSession("2016-01-01 10.00.00", session());
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+
+		final CountDownLatch analyzed = new CountDownLatch(1);
+		final List<ShotStatistics> results = new ArrayList<ShotStatistics>();
+		ShotAnalytics.analyzeInBackground(sessionsDirectory,
+				catalog.query((summary) -> true, SessionCatalog.NEWEST_FIRST), (statistics) -> {
+					results.add(statistics);
+					analyzed.countDown();
+				});
+
+		assertTrue(analyzed.await(10, TimeUnit.SECONDS));
+		assertEquals(1, results.get(0).getSessionCount());
+	}
+}
@@ -0,0 +1,213 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.EventType;
+import com.shootoff.session.ExerciseFeedMessageEvent;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.TargetMovedEvent;
+import com.shootoff.session.TargetRemovedEvent;
+import com.shootoff.session.TargetResizedEvent;
+
+import javafx.scene.paint.Color;
+
+public class TestBinarySession {
+	@Rule public TemporaryFolder sessionsFolder = new TemporaryFolder();
+
+	private SessionRecorder sessionRecorder;
+
+	@Before
+	public void setUp() {
+		System.setProperty("shootoff.sessions", sessionsFolder.getRoot().getPath());
+
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+
+		final List<Event> defaultEvents = new ArrayList<Event>();
+		defaultEvents.add(new TargetAddedEvent("Default", 5, "bullseye.target"));
+		defaultEvents.add(new TargetMovedEvent("Default", 6, 0, 100, -20));
+		defaultEvents.add(new TargetResizedEvent("Default", 7, 0, 320.25, 240.125));
+
+		// Enough shots to span several blocks
+		for (int i = 0; i < 1500; i++) {
+			defaultEvents.add(new ShotEvent("Default", 10 + i * 250, new Shot(i % 2 == 0 ? Color.RED : Color.GREEN,
+					i * 0.37, 480 - i * 0.11, 1000 + i * 249, i % 4), i % 7 == 0, i % 11 == 0,
+					i % 3 == 0 ? Optional.empty() : Optional.of(0), i % 3 == 0 ? Optional.empty() : Optional.of(i % 5),
+					i % 100 == 0 ? Optional.of("Default:shot" + i + ".mp4") : Optional.empty()));
+		}
+
+		defaultEvents.add(new ExerciseFeedMessageEvent("Default", 400000, "Round over"));
+		defaultEvents.add(new TargetRemovedEvent("Default", 400001, 0));
+		events.put("Default", defaultEvents);
+
+		final List<Event> otherEvents = new ArrayList<Event>();
+		otherEvents.add(new TargetAddedEvent("Other", 3, "bullseye.target"));
+		otherEvents.add(new ShotEvent("Other", 4, new Shot(Color.RED, 1, 2, 3, 2), false, false, Optional.of(0),
+				Optional.of(1), Optional.empty()));
+		events.put("Other", otherEvents);
+
+		sessionRecorder = new SessionRecorder();
+		sessionRecorder.addEvents(events);
+	}
+
+	private void assertSameEvents(Map<String, List<Event>> expected, Map<String, List<Event>> actual) {
+		assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+
+		for (String cameraName : expected.keySet()) {
+			final List<Event> expectedEvents = expected.get(cameraName);
+			final List<Event> actualEvents = actual.get(cameraName);
+
+			assertEquals(expectedEvents.size(), actualEvents.size());
+
+			for (int i = 0; i < expectedEvents.size(); i++) {
+				final Event e = expectedEvents.get(i);
+				final Event a = actualEvents.get(i);
+
+				assertEquals(e.getType(), a.getType());
+				assertEquals(e.getTimestamp(), a.getTimestamp());
+				assertEquals(e.getCameraName(), a.getCameraName());
+
+				if (e.getType() == EventType.SHOT) {
+					final ShotEvent es = (ShotEvent) e;
+					final ShotEvent as = (ShotEvent) a;
+					assertEquals(es.getShot().getColor(), as.getShot().getColor());
+					assertEquals(Double.doubleToLongBits(es.getShot().getX()),
+							Double.doubleToLongBits(as.getShot().getX()));
+					assertEquals(Double.doubleToLongBits(es.getShot().getY()),
+							Double.doubleToLongBits(as.getShot().getY()));
+					assertEquals(es.getShot().getTimestamp(), as.getShot().getTimestamp());
+					assertEquals(es.getShot().getMarkerRadius(), as.getShot().getMarkerRadius());
+					assertEquals(es.isMalfunction(), as.isMalfunction());
+					assertEquals(es.isReload(), as.isReload());
+					assertEquals(es.getTargetIndex(), as.getTargetIndex());
+					assertEquals(es.getHitRegionIndex(), as.getHitRegionIndex());
+					assertEquals(es.getVideoString(), as.getVideoString());
+				} else if (e.getType() == EventType.TARGET_ADDED) {
+					assertEquals(((TargetAddedEvent) e).getTargetName(), ((TargetAddedEvent) a).getTargetName());
+				} else if (e.getType() == EventType.TARGET_MOVED) {
+					assertEquals(((TargetMovedEvent) e).getNewX(), ((TargetMovedEvent) a).getNewX());
+					assertEquals(((TargetMovedEvent) e).getNewY(), ((TargetMovedEvent) a).getNewY());
+				} else if (e.getType() == EventType.TARGET_RESIZED) {
+					assertEquals(((TargetResizedEvent) e).getNewWidth(), ((TargetResizedEvent) a).getNewWidth(), 0);
+					assertEquals(((TargetResizedEvent) e).getNewHeight(), ((TargetResizedEvent) a).getNewHeight(), 0);
+				} else if (e.getType() == EventType.TARGET_REMOVED) {
+					assertEquals(((TargetRemovedEvent) e).getTargetIndex(), ((TargetRemovedEvent) a).getTargetIndex());
+				} else if (e.getType() == EventType.EXERCISE_FEED_MESSAGE) {
+					assertEquals(((ExerciseFeedMessageEvent) e).getMessage().trim(),
+							((ExerciseFeedMessageEvent) a).getMessage().trim());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBinaryRoundTrip() {
+		final File sessionFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		SessionIO.saveSession(sessionRecorder, sessionFile);
+
+		final Optional<SessionRecorder> loaded = SessionIO.loadSession(sessionFile);
+		assertTrue(loaded.isPresent());
+
+		assertSameEvents(sessionRecorder.getEvents(), loaded.get().getEvents());
+	}
+
+	@Test
+	public void testRandomAccess() {
+		final File sessionFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		SessionIO.saveSession(sessionRecorder, sessionFile);
+
+		final List<Event> expected = sessionRecorder.getCameraEvents("Default");
+		final List<Event> events = new BinarySessionReader(sessionFile).load().get("Default");
+
+		// Jump between blocks in both directions
+		for (int i : new int[] { 1400, 3, 700, 1502, 0, 512, 511, 1024 }) {
+			assertEquals(expected.get(i).getTimestamp(), events.get(i).getTimestamp());
+			assertEquals(expected.get(i).getType(), events.get(i).getType());
+		}
+	}
+
+	@Test
+	public void testConvertToAndFromXML() {
+		final File binaryFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		final File xmlFile = new File(sessionsFolder.getRoot(), "test.xml");
+		final File convertedFile = new File(sessionsFolder.getRoot(), "converted." + BinarySessionWriter.EXTENSION);
+
+		SessionIO.saveSession(sessionRecorder, binaryFile);
+
+		assertTrue(SessionIO.convertSession(binaryFile, xmlFile));
+		assertTrue(SessionIO.convertSession(xmlFile, convertedFile));
+
+		assertSameEvents(sessionRecorder.getEvents(), SessionIO.loadSession(convertedFile).get().getEvents());
+	}
+
+	@Test
+	public void testConvertToAndFromJSON() {
+		final File binaryFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		final File jsonFile = new File(sessionsFolder.getRoot(), "test.json");
+		final File convertedFile = new File(sessionsFolder.getRoot(), "converted." + BinarySessionWriter.EXTENSION);
+
+		SessionIO.saveSession(sessionRecorder, binaryFile);
+
+		assertTrue(SessionIO.convertSession(binaryFile, jsonFile));
+		assertTrue(SessionIO.convertSession(jsonFile, convertedFile));
+
+		assertSameEvents(sessionRecorder.getEvents(), SessionIO.loadSession(convertedFile).get().getEvents());
+	}
+
+	@Test
+	public void testCameraWithoutEvents() {
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>(sessionRecorder.getEvents());
+		events.put("Empty", new ArrayList<Event>());
+
+		final SessionRecorder withEmptyCamera = new SessionRecorder();
+		withEmptyCamera.addEvents(events);
+
+		final File binaryFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		final File xmlFile = new File(sessionsFolder.getRoot(), "test.xml");
+		final File convertedFile = new File(sessionsFolder.getRoot(), "converted." + BinarySessionWriter.EXTENSION);
+
+		SessionIO.saveSession(withEmptyCamera, binaryFile);
+		final Map<String, List<Event>> loaded = SessionIO.loadSession(binaryFile).get().getEvents();
+		assertSameEvents(events, loaded);
+		assertTrue(loaded.get("Empty").isEmpty());
+
+		SessionIO.saveSession(withEmptyCamera, xmlFile);
+		assertTrue(SessionIO.convertSession(xmlFile, convertedFile));
+		assertSameEvents(events, SessionIO.loadSession(convertedFile).get().getEvents());
+	}
+
+	@Test
+	public void testBinaryIsSmallerThanXML() {
+		final File binaryFile = new File(sessionsFolder.getRoot(), "test." + BinarySessionWriter.EXTENSION);
+		final File xmlFile = new File(sessionsFolder.getRoot(), "test.xml");
+
+		SessionIO.saveSession(sessionRecorder, binaryFile);
+		SessionIO.saveSession(sessionRecorder, xmlFile);
+
+		assertTrue(binaryFile.length() * 4 < xmlFile.length());
+	}
+
+	@Test
+	public void testNotABinarySession() throws Exception {
+		final File sessionFile = sessionsFolder.newFile("bogus." + BinarySessionWriter.EXTENSION);
+		Files.write(sessionFile.toPath(), new byte[64]);
+
+		assertFalse(SessionIO.loadSession(sessionFile).isPresent());
+	}
+}
@@ -0,0 +1,175 @@
+package com.shootoff.session.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.camera.Shot;
+import com.shootoff.session.Event;
+import com.shootoff.session.SessionRecorder;
+import com.shootoff.session.ShotEvent;
+import com.shootoff.session.TargetAddedEvent;
+import com.shootoff.session.io.SessionCatalog.SessionSummary;
+
+import javafx.scene.paint.Color;
+
+public class TestSessionCatalog {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private File sessionsDirectory;
+	private String oldSessionsProperty;
+
+	@Before
+	public void setUp() throws IOException {
+		sessionsDirectory = folder.newFolder("sessions");
+		oldSessionsProperty = System.getProperty("shootoff.sessions");
+		System.setProperty("shootoff.sessions", sessionsDirectory.getPath());
+	}
+
+	@After
+	public void tearDown() {
+		if (oldSessionsProperty == null) {
+			System.clearProperty("shootoff.sessions");
+		} else {
+			System.setProperty("shootoff.sessions", oldSessionsProperty);
+		}
+	}
+
+	private File writeSession(String sessionName, int shots, int hits) {
+		final Map<String, List<Event>> events = new LinkedHashMap<String, List<Event>>();
+		final List<Event> cameraEvents = new ArrayList<Event>();
+		cameraEvents.add(new TargetAddedEvent("Default", 0, "bullseye.target"));
+
+		for (int i = 0; i < shots; i++) {
+			final Optional<Integer> targetIndex = i < hits ? Optional.of(0) : Optional.empty();
+			cameraEvents.add(new ShotEvent("Default", i + 1, new Shot(Color.RED, i, i, i, 2), false, false,
+					targetIndex, targetIndex, Optional.empty()));
+		}
+
+		events.put("Default", cameraEvents);
+
+		final SessionRecorder sessionRecorder = new SessionRecorder();
+		sessionRecorder.addEvents(events);
+
+		final File sessionFile = new File(sessionsDirectory, sessionName + ".xml");
+		SessionIO.saveSession(sessionRecorder, sessionFile);
+
+		return sessionFile;
+	}
+
+	@Test
+	public void testRefreshSummarizesSessions() {
+		writeSession("2016-01-02 10.00.00", 4, 1);
+		writeSession("2016-03-04 10.00.00", 10, 10);
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		assertEquals(0, catalog.size());
+
+		assertEquals(2, catalog.refresh());
+		assertEquals(0, catalog.refresh());
+
+		final List<SessionSummary> summaries = catalog.query((summary) -> true, SessionCatalog.NEWEST_FIRST);
+		assertEquals(2, summaries.size());
+		assertEquals("2016-03-04 10.00.00", summaries.get(0).getSessionId());
+		assertEquals(10, summaries.get(0).getShotCount());
+		assertEquals(1.0, summaries.get(0).getHitRatio(), 0.001);
+
+		assertEquals("2016-01-02 10.00.00", summaries.get(1).getSessionId());
+		assertEquals(4, summaries.get(1).getShotCount());
+		assertEquals(0.25, summaries.get(1).getHitRatio(), 0.001);
+		assertEquals(1, summaries.get(1).getCameras().size());
+		assertEquals("Default", summaries.get(1).getCameras().get(0));
+		assertTrue(summaries.get(1).getDate() < summaries.get(0).getDate());
+	}
+
+	@Test
+	public void testCatalogIsPersisted() {
+		final File sessionFile = writeSession("2016-01-02 10.00.00", 3, 2);
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		final SessionRecorder session = SessionIO.loadSession(sessionFile).get();
+		catalog.update(sessionFile, session, Optional.of("Random Shoot"));
+
+		final SessionCatalog reopened = SessionCatalog.load(sessionsDirectory);
+		assertEquals(1, reopened.size());
+
+		// Nothing changed on disk, so nothing needs to be read again
+		assertEquals(0, reopened.refresh());
+
+		final SessionSummary summary = reopened.getSummary(sessionFile.getName()).get();
+		assertEquals(3, summary.getShotCount());
+		assertEquals(2, summary.getHitCount());
+		assertEquals("Random Shoot", summary.getExercise().get());
+		assertEquals(sessionFile.length(), summary.getFileSize());
+
+		// The exercise isn't in the session file, so a rebuild must keep it
+		assertEquals(1, reopened.rebuild());
+		assertEquals("Random Shoot", reopened.getSummary(sessionFile.getName()).get().getExercise().get());
+	}
+
+	@Test
+	public void testRefreshDropsDeletedSessions() {
+		final File sessionFile = writeSession("2016-01-02 10.00.00", 1, 0);
+		writeSession("2016-01-03 10.00.00", 1, 0);
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+		assertEquals(2, catalog.size());
+
+		assertTrue(sessionFile.delete());
+		assertEquals(0, catalog.refresh());
+		assertEquals(1, catalog.size());
+		assertFalse(SessionCatalog.load(sessionsDirectory).getSummary(sessionFile.getName()).isPresent());
+	}
+
+	@Test
+	public void testCatalogIsSharedPerDirectory() {
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+
+		assertSame(catalog, SessionCatalog.open(sessionsDirectory));
+		assertSame(catalog, SessionCatalog.open(new File(sessionsDirectory, ".")));
+		assertNotSame(catalog, SessionCatalog.load(sessionsDirectory));
+	}
+
+	@Test
+	public void testTextFilter() {
+		final File sessionFile = writeSession("2016-01-02 10.00.00", 1, 0);
+		writeSession("2016-05-06 10.00.00", 1, 0);
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		catalog.refresh();
+		catalog.update(sessionFile, SessionIO.loadSession(sessionFile).get(), Optional.of("Shoot Don't Shoot"));
+
+		assertEquals(2, catalog.query(SessionCatalog.textFilter(" "), SessionCatalog.NEWEST_FIRST).size());
+		assertEquals(1, catalog.query(SessionCatalog.textFilter("don't"), SessionCatalog.NEWEST_FIRST).size());
+		assertEquals(1, catalog.query(SessionCatalog.textFilter("2016-05"), SessionCatalog.NEWEST_FIRST).size());
+		assertEquals(2, catalog.query(SessionCatalog.textFilter("default"), SessionCatalog.NEWEST_FIRST).size());
+		assertEquals(0, catalog.query(SessionCatalog.textFilter("webcam"), SessionCatalog.NEWEST_FIRST).size());
+	}
+
+	@Test
+	public void testCorruptCatalogIsRebuilt() throws IOException {
+		writeSession("2016-01-02 10.00.00", 2, 1);
+
+		final File catalogFile = new File(sessionsDirectory, SessionCatalog.CATALOG_FILE_NAME);
+		Files.write(catalogFile.toPath(), new byte[] { 1, 2, 3 });
+
+		final SessionCatalog catalog = SessionCatalog.open(sessionsDirectory);
+		assertEquals(0, catalog.size());
+		assertEquals(1, catalog.refresh());
+		assertEquals(1, SessionCatalog.load(sessionsDirectory).size());
+	}
+}
@@ -99,8 +99,8 @@ public class TestSessionIO {
 		assertEquals(redShot.getX(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getX(), 1);
 		assertEquals(redShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getY(), 1);
 		assertEquals(redShot.getTimestamp(), ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getTimestamp());
-		assertEquals(redShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(redShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getShot().getMarkerRadius());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).isMalfunction());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).isReload());
 		assertEquals(0, ((ShotEvent) events.get(CAM1_SHOT_RED_INDEX)).getTargetIndex().get().intValue());
@@ -119,8 +119,8 @@ public class TestSessionIO {
 		assertEquals(greenShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getY(), 1);
 		assertEquals(greenShot.getTimestamp(),
 				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getTimestamp());
-		assertEquals(greenShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(greenShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getShot().getMarkerRadius());
 		assertTrue(((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).isMalfunction());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).isReload());
 		assertEquals(0, ((ShotEvent) events.get(CAM1_SHOT_GREEN_ONE_INDEX)).getTargetIndex().get().intValue());
@@ -142,8 +142,8 @@ public class TestSessionIO {
 		assertEquals(greenShot.getY(), ((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getY(), 1);
 		assertEquals(greenShot.getTimestamp(),
 				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getTimestamp());
-		assertEquals(greenShot.getMarker().getRadiusX(),
-				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getMarker().getRadiusX(), 1);
+		assertEquals(greenShot.getMarkerRadius(),
+				((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getShot().getMarkerRadius());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).isMalfunction());
 		assertTrue(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).isReload());
 		assertFalse(((ShotEvent) events.get(CAM1_SHOT_GREEN_TWO_INDEX)).getTargetIndex().isPresent());
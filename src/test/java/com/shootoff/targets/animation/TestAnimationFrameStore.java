@@ -0,0 +1,78 @@
+package com.shootoff.targets.animation;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAnimationFrameStore {
+	private static final File ANIMATED_GIF = new File("targets" + File.separator + "ipsc_popper_falling.gif");
+	private static final File OTHER_GIF = new File("targets" + File.separator + "pepper_popper.gif");
+
+	@Before
+	public void setUp() {
+		AnimationFrameStore.clear();
+		AnimationFrameStore.setMemoryBudget(AnimationFrameStore.DEFAULT_MEMORY_BUDGET);
+	}
+
+	@After
+	public void tearDown() {
+		AnimationFrameStore.clear();
+		AnimationFrameStore.setMemoryBudget(AnimationFrameStore.DEFAULT_MEMORY_BUDGET);
+	}
+
+	private void awaitDecoded(GifFrames frames) throws InterruptedException {
+		for (int i = 0; i < 200 && !frames.isFullyDecoded(); i++) {
+			Thread.sleep(10);
+		}
+
+		assertTrue(frames.isFullyDecoded());
+	}
+
+	@Test
+	public void testFramesAreShared() throws IOException, InterruptedException {
+		final GifFrames first = AnimationFrameStore.getFrames(ANIMATED_GIF);
+		final GifFrames second = AnimationFrameStore.getFrames(ANIMATED_GIF);
+
+		assertSame(first, second);
+		assertEquals(1, AnimationFrameStore.size());
+		assertEquals(first.getEstimatedSize(), AnimationFrameStore.getUsedMemory());
+
+		assertTrue(first.getFrameCount() > 1);
+		assertNotNull(first.getFrame(0));
+
+		awaitDecoded(first);
+
+		for (int i = 0; i < first.getFrameCount(); i++) {
+			assertNotNull(first.getFrame(i));
+			assertEquals(first.getWidth(), (int) first.getFrame(i).getWidth());
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() throws IOException {
+		final GifFrames animated = AnimationFrameStore.getFrames(ANIMATED_GIF);
+
+		// Only leave room for one GIF
+		AnimationFrameStore.setMemoryBudget(animated.getEstimatedSize());
+		assertEquals(1, AnimationFrameStore.size());
+
+		final GifFrames other = AnimationFrameStore.getFrames(OTHER_GIF);
+		assertEquals(1, AnimationFrameStore.size());
+		assertSame(other, AnimationFrameStore.getFrames(OTHER_GIF));
+		assertEquals(other.getEstimatedSize(), AnimationFrameStore.getUsedMemory());
+
+		// The evicted GIF is decoded again, but the old frames still work
+		assertNotSame(animated, AnimationFrameStore.getFrames(ANIMATED_GIF));
+		assertNotNull(animated.getFrame(0));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingGif() throws IOException {
+		AnimationFrameStore.getFrames(new File("targets" + File.separator + "missing.gif"));
+	}
+}
@@ -0,0 +1,140 @@
+package com.shootoff.targets.animation;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.shootoff.targets.Target;
+
+import javafx.geometry.Point2D;
+
+public class TestMotionEngine {
+	private static final double ARENA_WIDTH = 640;
+	private static final double ARENA_HEIGHT = 480;
+
+	private MotionEngine engine;
+
+	@Before
+	public void setUp() {
+		engine = new MotionEngine(() -> ARENA_WIDTH, () -> ARENA_HEIGHT);
+	}
+
+	// Only identity matters to the engine until positions are pushed
+	private static Target newTarget() {
+		return (Target) Proxy.newProxyInstance(Target.class.getClassLoader(), new Class<?>[] { Target.class },
+				(proxy, method, args) -> null);
+	}
+
+	@Test
+	public void testBouncesOffWalls() {
+		final Target right = newTarget();
+		final Target bottom = newTarget();
+
+		engine.add(right, ARENA_WIDTH - 11, 100, 10, 10, 500, 0, 0);
+		engine.add(bottom, 300, ARENA_HEIGHT - 11, 10, 10, 0, 500, 0);
+
+		engine.step();
+
+		assertEquals(ARENA_WIDTH - 10, engine.getPosition(right).getX(), 0.0001);
+		assertTrue(engine.getVelocity(right).getX() < 0);
+		assertEquals(ARENA_HEIGHT - 10, engine.getPosition(bottom).getY(), 0.0001);
+		assertTrue(engine.getVelocity(bottom).getY() < 0);
+	}
+
+	@Test
+	public void testSameGroupCollide() {
+		final Target left = newTarget();
+		final Target right = newTarget();
+
+		engine.add(left, 100, 100, 20, 20, 200, 0, 0);
+		engine.add(right, 125, 100, 20, 20, -200, 0, 0);
+
+		// They close 4 px per step and start 5 px apart
+		engine.step();
+		engine.step();
+
+		assertEquals(-200, engine.getVelocity(left).getX(), 0.0001);
+		assertEquals(200, engine.getVelocity(right).getX(), 0.0001);
+		assertTrue(engine.getPosition(left).getX() + 20 <= engine.getPosition(right).getX() + 0.0001);
+	}
+
+	@Test
+	public void testDifferentGroupsOverlap() {
+		final Target shoot = newTarget();
+		final Target dontShoot = newTarget();
+
+		engine.add(shoot, 100, 100, 20, 20, 200, 0, 0);
+		engine.add(dontShoot, 105, 100, 20, 20, -200, 0, 1);
+
+		engine.step();
+
+		assertEquals(200, engine.getVelocity(shoot).getX(), 0.0001);
+		assertEquals(-200, engine.getVelocity(dontShoot).getX(), 0.0001);
+	}
+
+	@Test
+	public void testRemoveKeepsOtherTargets() {
+		final Target first = newTarget();
+		final Target second = newTarget();
+		final Target third = newTarget();
+
+		engine.add(first, 10, 10, 10, 10, 0, 0, 0);
+		engine.add(second, 100, 100, 10, 10, 0, 0, 0);
+		engine.add(third, 200, 200, 10, 10, 0, 0, 0);
+
+		assertTrue(engine.remove(first));
+		assertFalse(engine.remove(first));
+		assertEquals(2, engine.getTargetCount());
+		assertNull(engine.getPosition(first));
+		assertEquals(new Point2D(100, 100), engine.getPosition(second));
+		assertEquals(new Point2D(200, 200), engine.getPosition(third));
+	}
+
+	@Test
+	public void testStepsAreIndependentOfPulseRate() {
+		engine.add(newTarget(), 10, 10, 10, 10, 100, 0, 0);
+
+		long now = 1000;
+		engine.pulse(now);
+
+		// Uneven frames still add up to one step per fixed time step
+		final long[] frames = { 16, 17, 33, 8, 16, 50, 10 };
+		long elapsed = 0;
+		for (long frame : frames) {
+			now += frame * 1000000;
+			elapsed += frame * 1000000;
+			engine.pulse(now);
+		}
+
+		assertEquals(elapsed / MotionEngine.STEP_NANOS, engine.getStepCount());
+	}
+
+	@Test
+	public void testManyTargetsStayInArena() {
+		final Random r = new Random(42);
+		final List<Target> targets = new ArrayList<Target>();
+
+		for (int i = 0; i < 100; i++) {
+			final Target target = newTarget();
+			targets.add(target);
+			engine.add(target, r.nextInt(600), r.nextInt(440), 40, 40, r.nextInt(1000) - 500,
+					r.nextInt(1000) - 500, i % 2);
+		}
+
+		for (int i = 0; i < 1000; i++) {
+			engine.step();
+		}
+
+		for (Target target : targets) {
+			final Point2D p = engine.getPosition(target);
+			assertTrue(p.getX() >= 0 && p.getX() + 40 <= ARENA_WIDTH);
+			assertTrue(p.getY() >= 0 && p.getY() + 40 <= ARENA_HEIGHT);
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.shootoff.targets.io;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.shootoff.targets.RectangleRegion;
+import com.shootoff.targets.TargetRegion;
+
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+
+public class TestTargetCache {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String RECTANGLE_TARGET = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<target name=\"cached\">\n" + "\t<rectangle x=\"1.0\" y=\"2.0\" width=\"3.0\" height=\"4.0\" fill=\"red\">\n"
+			+ "\t\t<tag name=\"points\" value=\"5\" />\n" + "\t</rectangle>\n" + "</target>\n";
+
+	@Before
+	public void setUp() {
+		TargetCache.clear();
+	}
+
+	@After
+	public void tearDown() {
+		TargetCache.clear();
+	}
+
+	private File writeTarget(String name, String contents) throws IOException {
+		final File targetFile = new File(folder.getRoot(), name);
+		Files.write(targetFile.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+		return targetFile;
+	}
+
+	@Test
+	public void testTemplateIsReused() throws IOException {
+		final File targetFile = writeTarget("cached.target", RECTANGLE_TARGET);
+
+		final Optional<TargetTemplate> first = TargetCache.getTemplate(targetFile);
+		final Optional<TargetTemplate> second = TargetCache.getTemplate(targetFile);
+
+		assertTrue(first.isPresent());
+		assertSame(first.get(), second.get());
+		assertEquals(1, TargetCache.getTemplateCount());
+		assertEquals("cached", first.get().getTargetTags().get("name"));
+		assertEquals(1, first.get().getRegionCount());
+	}
+
+	@Test
+	public void testChangedTargetIsReadAgain() throws IOException {
+		final File targetFile = writeTarget("changed.target", RECTANGLE_TARGET);
+		final TargetTemplate original = TargetCache.getTemplate(targetFile).get();
+
+		writeTarget("changed.target", RECTANGLE_TARGET.replace("width=\"3.0\"", "width=\"30.0\""));
+		final TargetTemplate changed = TargetCache.getTemplate(targetFile).get();
+
+		assertNotSame(original, changed);
+		assertEquals(1, TargetCache.getTemplateCount());
+		assertEquals(30.0, ((RectangleRegion) changed.instantiate(false).get(0)).getWidth(), 0.001);
+	}
+
+	@Test
+	public void testInstancesDoNotShareNodes() throws IOException {
+		final TargetTemplate template = TargetCache.getTemplate(writeTarget("nodes.target", RECTANGLE_TARGET)).get();
+
+		final List<Node> first = template.instantiate(false);
+		final List<Node> second = template.instantiate(false);
+
+		assertNotSame(first.get(0), second.get(0));
+
+		final RectangleRegion rectangle = (RectangleRegion) first.get(0);
+		assertEquals(1.0, rectangle.getX(), 0.001);
+		assertEquals(4.0, rectangle.getHeight(), 0.001);
+		assertEquals(Color.RED, rectangle.getFill());
+		assertEquals("5", rectangle.getTag("points"));
+
+		// Changing one instance's tags must not leak into other instances
+		((TargetRegion) first.get(0)).getAllTags().put("points", "10");
+		assertEquals("5", ((TargetRegion) second.get(0)).getTag("points"));
+		assertEquals("5", ((TargetRegion) template.instantiate(false).get(0)).getTag("points"));
+	}
+
+	@Test
+	public void testResourceTemplatesAreCachedPerLoader() {
+		final ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {};
+		final byte[] targetBytes = RECTANGLE_TARGET.getBytes(StandardCharsets.UTF_8);
+
+		final TargetTemplate first = TargetCache.getTemplate(new ByteArrayInputStream(targetBytes), loader).get();
+		final TargetTemplate second = TargetCache.getTemplate(new ByteArrayInputStream(targetBytes), loader).get();
+		final TargetTemplate otherLoader = TargetCache
+				.getTemplate(new ByteArrayInputStream(targetBytes), new ClassLoader(getClass().getClassLoader()) {})
+				.get();
+
+		assertSame(first, second);
+		assertNotSame(first, otherLoader);
+	}
+
+	@Test
+	public void testRender() throws IOException {
+		final TargetTemplate template = TargetCache.getTemplate(writeTarget("render.target", RECTANGLE_TARGET)).get();
+
+		// The 3x4 rectangle is scaled to fit in a 40 pixel square
+		final BufferedImage thumbnail = template.render(40);
+		assertEquals(30, thumbnail.getWidth());
+		assertEquals(40, thumbnail.getHeight());
+
+		// Regions are drawn at the default opacity like they are displayed
+		final int center = thumbnail.getRGB(15, 20);
+		assertEquals(0xFF, (center >> 16) & 0xFF);
+		assertEquals((int) Math.round(TargetIO.DEFAULT_OPACITY * 255), (center >>> 24) & 0xFF, 1);
+	}
+
+	@Test
+	public void testMissingTarget() {
+		assertFalse(TargetCache.getTemplate(new File(folder.getRoot(), "missing.target")).isPresent());
+	}
+
+	@Test
+	public void testPrewarm() throws IOException, InterruptedException {
+		final File first = writeTarget("first.target", RECTANGLE_TARGET);
+		final File second = writeTarget("second.target", RECTANGLE_TARGET);
+
+		TargetCache.prewarm(Arrays.asList(first, second, first));
+
+		for (int i = 0; i < 100 && TargetCache.getTemplateCount() < 2; i++) {
+			Thread.sleep(20);
+		}
+
+		assertEquals(2, TargetCache.getTemplateCount());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedTemplateIsEvicted() throws IOException {
+		final File first = writeTarget("first.target", RECTANGLE_TARGET);
+		final TargetTemplate firstTemplate = TargetCache.getTemplate(first).get();
+		final File second = writeTarget("second.target", RECTANGLE_TARGET);
+		final TargetTemplate secondTemplate = TargetCache.getTemplate(second).get();
+
+		for (int i = 0; i < TargetCache.CACHE_SIZE - 1; i++) {
+			// Keep the first target in use so that the second is the eldest
+			TargetCache.getTemplate(first);
+			TargetCache.getTemplate(writeTarget("filler" + i + ".target", RECTANGLE_TARGET));
+		}
+
+		assertEquals(TargetCache.CACHE_SIZE, TargetCache.getTemplateCount());
+		assertSame(firstTemplate, TargetCache.getTemplate(first).get());
+		assertNotSame(secondTemplate, TargetCache.getTemplate(second).get());
+	}
+}
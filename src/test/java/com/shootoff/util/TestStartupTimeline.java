@@ -0,0 +1,78 @@
+package com.shootoff.util;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestStartupTimeline {
+	private StartupTimeline timeline;
+
+	@Before
+	public void setUp() {
+		timeline = new StartupTimeline();
+	}
+
+	@Test
+	public void testTimeReturnsValue() {
+		assertEquals("value", timeline.time("Supplier phase", () -> "value"));
+
+		final List<StartupTimeline.Phase> phases = timeline.getPhases();
+		assertEquals(1, phases.size());
+		assertEquals("Supplier phase", phases.get(0).getName());
+		assertFalse(phases.get(0).isBackground());
+		assertTrue(phases.get(0).isDone());
+	}
+
+	@Test
+	public void testAwaitBackgroundPhase() {
+		final CountDownLatch release = new CountDownLatch(1);
+
+		timeline.submit("Background phase", () -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		release.countDown();
+		assertTrue(timeline.await("Background phase"));
+
+		boolean foundBackground = false;
+		for (final StartupTimeline.Phase phase : timeline.getPhases()) {
+			if ("Background phase".equals(phase.getName())) {
+				foundBackground = true;
+				assertTrue(phase.isBackground());
+				assertTrue(phase.isDone());
+			}
+		}
+
+		assertTrue(foundBackground);
+	}
+
+	@Test
+	public void testAwaitFailedOrUnknownPhase() {
+		timeline.submit("Failing phase", () -> {
+			throw new IllegalStateException("Expected failure");
+		});
+
+		assertFalse(timeline.await("Failing phase"));
+		assertFalse(timeline.await("Never started"));
+	}
+
+	@Test
+	public void testReportListsPhases() {
+		timeline.time("First phase", () -> {});
+		timeline.time("Second phase", () -> {});
+
+		final String report = timeline.getReport("test finished");
+
+		assertTrue(report.contains("test finished"));
+		assertTrue(report.indexOf("First phase") < report.indexOf("Second phase"));
+	}
+}
@@ -0,0 +1,143 @@
+package com.shootoff.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTimerService {
+	private TimerService timerService;
+
+	@Before
+	public void setUp() {
+		timerService = new TimerService("TestTimer");
+	}
+
+	@After
+	public void tearDown() {
+		timerService.close();
+	}
+
+	@Test
+	public void testFiresInDeadlineOrder() throws Exception {
+		final List<Integer> fired = Collections.synchronizedList(new ArrayList<Integer>());
+		final long start = System.nanoTime();
+
+		timerService.scheduleAt(() -> fired.add(3), start + TimeUnit.MILLISECONDS.toNanos(30));
+		timerService.scheduleAt(() -> fired.add(1), start + TimeUnit.MILLISECONDS.toNanos(10));
+		final TimerService.Timer last = timerService.scheduleAt(() -> fired.add(4),
+				start + TimeUnit.MILLISECONDS.toNanos(40));
+		timerService.scheduleAt(() -> fired.add(2), start + TimeUnit.MILLISECONDS.toNanos(20));
+
+		last.get(2, TimeUnit.SECONDS);
+
+		assertEquals(4, fired.size());
+		for (int i = 0; i < fired.size(); i++) {
+			assertEquals(i + 1, (int) fired.get(i));
+		}
+	}
+
+	@Test
+	public void testNeverFiresEarly() throws Exception {
+		final List<TimerService.Timer> timers = new ArrayList<TimerService.Timer>();
+
+		for (int delay = 0; delay < 50; delay += 7) {
+			timers.add(timerService.schedule(() -> {}, delay, TimeUnit.MILLISECONDS));
+		}
+
+		for (final TimerService.Timer timer : timers) {
+			timer.get(2, TimeUnit.SECONDS);
+			assertTrue(timer.getFiredNanos() >= timer.getDeadline());
+		}
+	}
+
+	@Test
+	public void testChainedDeadlinesDoNotDrift() throws Exception {
+		// Each link is scheduled against the first deadline, so the lateness
+		// of one link can't push back the ones after it
+		final int links = 20;
+		final long period = TimeUnit.MILLISECONDS.toNanos(5);
+		final long start = System.nanoTime();
+		final AtomicLong lastFired = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(1);
+
+		final Runnable[] link = new Runnable[1];
+		final int[] count = { 0 };
+		link[0] = () -> {
+			if (++count[0] == links) {
+				lastFired.set(System.nanoTime());
+				done.countDown();
+				return;
+			}
+
+			timerService.scheduleAt(link[0], start + period * (count[0] + 1));
+		};
+		timerService.scheduleAt(link[0], start + period);
+
+		assertTrue(done.await(2, TimeUnit.SECONDS));
+
+		final long lateness = lastFired.get() - (start + period * links);
+		assertTrue(lateness >= 0);
+		assertTrue("Chain finished " + TimeUnit.NANOSECONDS.toMillis(lateness) + " ms late",
+				lateness < TimeUnit.MILLISECONDS.toNanos(20));
+	}
+
+	@Test
+	public void testCancelledTimerNeverRuns() throws Exception {
+		final AtomicBoolean ran = new AtomicBoolean(false);
+
+		final TimerService.Timer timer = timerService.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+		assertEquals(1, timerService.getPendingCount());
+
+		assertTrue(timer.cancel(false));
+		assertTrue(timer.isCancelled());
+		assertTrue(timer.isDone());
+		assertEquals(0, timerService.getPendingCount());
+
+		timerService.schedule(() -> {}, 40, TimeUnit.MILLISECONDS).get(2, TimeUnit.SECONDS);
+
+		assertFalse(ran.get());
+		assertFalse(timer.cancel(false));
+	}
+
+	@Test
+	public void testExecutorTimer() throws Exception {
+		final ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("TestTimerWorker"));
+
+		try {
+			final List<String> threadNames = new ArrayList<String>();
+
+			timerService.schedule(() -> threadNames.add(Thread.currentThread().getName()), 5, TimeUnit.MILLISECONDS,
+					executor).get(2, TimeUnit.SECONDS);
+			timerService.schedule(() -> threadNames.add(Thread.currentThread().getName()), 5, TimeUnit.MILLISECONDS)
+					.get(2, TimeUnit.SECONDS);
+
+			assertTrue(threadNames.get(0).startsWith("TestTimerWorker"));
+			assertEquals("TestTimer", threadNames.get(1));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void testClosedRejectsTimers() {
+		final TimerService.Timer timer = timerService.schedule(() -> {}, 1, TimeUnit.SECONDS);
+
+		timerService.close();
+
+		assertTrue(timer.isCancelled());
+		timerService.schedule(() -> {}, 1, TimeUnit.MILLISECONDS);
+	}
+}